@@ -0,0 +1,291 @@
+//
+// runs the benchmarks with the GC profiler and records the results in a small
+// csv file (the baseline), or compares a new run against a recorded baseline.
+//
+//   java -cp target/benchmarks.jar sv1djg.hamutils.benchmarks.BaselineRunner record baseline/baseline.csv
+//   java -cp target/benchmarks.jar sv1djg.hamutils.benchmarks.BaselineRunner check baseline/baseline.csv [tolerance%] [benchmark regexp]
+//
+// without a regexp check runs the benchmarks of the baseline (and record records
+// again the ones of an existing baseline, all of them for a new one). a benchmark
+// of the baseline that did not run is reported as MISSING and fails the check.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BaselineRunner
+{
+
+    private static final String ALL_BENCHMARKS = "sv1djg.hamutils";
+
+    private static final String HEADER = "benchmark,params,score,error,unit,alloc_bytes_per_op";
+
+    // the default allowed slowdown before a benchmark is reported as a regression
+    private static final double DEFAULT_TOLERANCE_PERCENT = 15.0;
+
+    // allocation is compared in bytes per operation, a few bytes of noise are allowed
+    private static final double ALLOCATION_TOLERANCE = 8.0;
+
+    // more forks and iterations than the benchmarks' own, so the error of a recorded score is well under the tolerance
+    private static final int FORKS = 3;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception
+    {
+	if (args.length < 2 || !(args[0].equals("record") || args[0].equals("check")))
+	{
+	    System.err.println("usage: BaselineRunner record|check <baseline.csv> [tolerance%] [benchmark regexp]");
+	    System.exit(2);
+	}
+
+	File baseline = new File(args[1]);
+	double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE_PERCENT;
+	String include = args.length > 3 ? args[3] : null;
+
+	Map<String, double[]> recorded = baseline.exists() ? read(baseline) : null;
+	if (include == null)
+	    include = recorded != null && !recorded.isEmpty() ? includeOf(recorded) : ALL_BENCHMARKS;
+
+	Map<String, double[]> results = run(include);
+
+	if (args[0].equals("record"))
+	{
+	    write(baseline, results);
+	    System.out.println("recorded " + results.size() + " benchmarks in " + baseline);
+
+	    for (Map.Entry<String, double[]> entry : results.entrySet())
+	    {
+		if (isNoisy(entry.getValue(), tolerance))
+		    System.out.println(String.format("NOISY      %s %.3f +- %.3f, the error is more than half of the %.0f%% tolerance",
+			    entry.getKey(), entry.getValue()[0], entry.getValue()[1], tolerance));
+	    }
+	    return;
+	}
+
+	if (recorded == null)
+	{
+	    System.err.println("no baseline " + baseline + ", record one first");
+	    System.exit(2);
+	}
+
+	int regressions = compare(recorded, results, tolerance, include);
+	System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    //
+    // runs the benchmarks, the result of each is {score, error, allocated bytes per op} keyed by "name,params,unit"
+    //
+    static Map<String, double[]> run(String include) throws RunnerException
+    {
+	Collection<RunResult> runResults = new Runner(new OptionsBuilder()
+		.include(include)
+		.forks(FORKS)
+		.warmupIterations(WARMUP_ITERATIONS)
+		.measurementIterations(MEASUREMENT_ITERATIONS)
+		.addProfiler(GCProfiler.class)
+		.build()).run();
+
+	Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+	for (RunResult runResult : runResults)
+	{
+	    Result primary = runResult.getPrimaryResult();
+
+	    double allocation = Double.NaN;
+	    for (Map.Entry<String, Result> secondary : runResult.getSecondaryResults().entrySet())
+	    {
+		if (secondary.getKey().endsWith("gc.alloc.rate.norm"))
+		    allocation = secondary.getValue().getScore();
+	    }
+
+	    String key = nameOf(runResult.getParams()) + "," + primary.getScoreUnit();
+	    results.put(key, new double[] {primary.getScore(), primary.getScoreError(), allocation});
+	}
+
+	return results;
+    }
+
+    //
+    // the regexp of exactly the benchmarks of a baseline
+    //
+    static String includeOf(Map<String, double[]> baseline)
+    {
+	Set<String> names = new LinkedHashSet<String>();
+	for (String key : baseline.keySet())
+	    names.add(key.substring(0, key.indexOf(',')));
+
+	StringBuilder include = new StringBuilder("^(");
+	String separator = "";
+	for (String name : names)
+	{
+	    include.append(separator).append(Pattern.quote(name));
+	    separator = "|";
+	}
+	return include.append(")$").toString();
+    }
+
+    //
+    // the number of regressions: the benchmarks that got slower or allocate more, and the ones of the baseline
+    // that the include regexp selects but did not run (renamed or deleted, so they can not slip through the check)
+    //
+    static int compare(Map<String, double[]> baseline, Map<String, double[]> results, double tolerancePercent, String include)
+    {
+	int regressions = 0;
+
+	Pattern selected = Pattern.compile(include);
+	for (String key : baseline.keySet())
+	{
+	    if (results.containsKey(key))
+		continue;
+
+	    if (selected.matcher(key.substring(0, key.indexOf(','))).find())
+	    {
+		System.out.println("MISSING    " + key + ", in the baseline but it did not run");
+		regressions++;
+	    }
+	    else
+	    {
+		System.out.println("SKIPPED    " + key);
+	    }
+	}
+
+	for (Map.Entry<String, double[]> entry : results.entrySet())
+	{
+	    double[] before = baseline.get(entry.getKey());
+	    double[] after = entry.getValue();
+
+	    if (before == null)
+	    {
+		System.out.println("NEW        " + entry.getKey() + " " + after[0]);
+		continue;
+	    }
+
+	    // the benchmarks report time per operation, higher is worse. a slowdown counts when it is over the
+	    // tolerance and also more than the errors of the two scores together, anything less can be noise
+	    double change = (after[0] - before[0]) / before[0] * 100.0;
+	    boolean slower = change > tolerancePercent && after[0] - before[0] > combinedError(before, after);
+	    boolean allocates = after[2] > before[2] + ALLOCATION_TOLERANCE;
+
+	    if (slower || allocates)
+		regressions++;
+
+	    String verdict = slower || allocates ? "REGRESSION" : isNoisy(before, tolerancePercent) || isNoisy(after, tolerancePercent) ? "NOISY" : "OK";
+	    System.out.println(String.format("%-10s %s %.3f -> %.3f (%+.1f%%, error +-%.3f), alloc %.1f -> %.1f B/op",
+		    verdict, entry.getKey(), before[0], after[0], change, combinedError(before, after), before[2], after[2]));
+	}
+
+	return regressions;
+    }
+
+    //
+    // the error of the difference of two scores (the errors are NaN when a benchmark ran a single iteration)
+    //
+    static double combinedError(double[] before, double[] after)
+    {
+	double first = Double.isNaN(before[1]) ? 0.0 : before[1];
+	double second = Double.isNaN(after[1]) ? 0.0 : after[1];
+	return Math.sqrt(first * first + second * second);
+    }
+
+    //
+    // a score whose error is more than half of the tolerance can neither show nor hide a regression reliably
+    //
+    static boolean isNoisy(double[] result, double tolerancePercent)
+    {
+	return result[1] / result[0] * 100.0 > tolerancePercent / 2.0;
+    }
+
+    static void write(File file, Map<String, double[]> results) throws IOException
+    {
+	PrintWriter writer = new PrintWriter(new FileWriter(file));
+	try
+	{
+	    writer.println(HEADER);
+	    for (Map.Entry<String, double[]> entry : results.entrySet())
+	    {
+		String[] key = entry.getKey().split(",");
+		double[] values = entry.getValue();
+		writer.println(key[0] + "," + key[1] + "," + values[0] + "," + values[1] + "," + key[2] + "," + values[2]);
+	    }
+	}
+	finally
+	{
+	    writer.close();
+	}
+    }
+
+    static Map<String, double[]> read(File file) throws IOException
+    {
+	Map<String, double[]> results = new LinkedHashMap<String, double[]>();
+
+	BufferedReader reader = new BufferedReader(new FileReader(file));
+	try
+	{
+	    String line = reader.readLine(); // the header
+	    while ((line = reader.readLine()) != null)
+	    {
+		String[] fields = line.split(",");
+		if (fields.length < 6)
+		    continue;
+
+		String key = fields[0] + "," + fields[1] + "," + fields[4];
+		results.put(key, new double[] {Double.parseDouble(fields[2]), Double.parseDouble(fields[3]), Double.parseDouble(fields[5])});
+	    }
+	}
+	finally
+	{
+	    reader.close();
+	}
+
+	return results;
+    }
+
+    private static String nameOf(BenchmarkParams params)
+    {
+	StringBuilder name = new StringBuilder(params.getBenchmark()).append(',');
+
+	String separator = "";
+	for (String key : params.getParamsKeys())
+	{
+	    name.append(separator).append(key).append('=').append(params.getParam(key));
+	    separator = ";";
+	}
+
+	return name.toString();
+    }
+
+}
@@ -0,0 +1,96 @@
+//
+// coordinates for the benchmarks. most spots come from the places where the
+// hams are (europe, north america, japan ...), the rest are spread over the
+// whole globe, so the benchmarks see short, medium and long paths.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.benchmarks;
+
+import java.util.Random;
+
+public final class SampleCoordinates
+{
+
+    // the number of samples, a power of 2 so the benchmarks can cycle with a mask
+    public static final int SIZE = 4096;
+    public static final int MASK = SIZE - 1;
+
+    // centre latitude, centre longitude, spread in degrees, weight
+    private static final double[][] CLUSTERS = {
+	{50.0, 10.0, 6.0, 35},     // europe
+	{40.0, -85.0, 9.0, 25},    // north america
+	{36.0, 138.0, 3.0, 10},    // japan
+	{-25.0, -50.0, 6.0, 5},    // south america
+	{-30.0, 145.0, 6.0, 3},    // australia
+	{55.0, 60.0, 12.0, 7},     // russia
+    };
+
+    // the percentage of samples that are spread uniformly over the globe
+    private static final int UNIFORM_PERCENT = 15;
+
+    private final double[] _latitudes = new double[SIZE];
+    private final double[] _longitudes = new double[SIZE];
+
+    public SampleCoordinates(long seed)
+    {
+	Random random = new Random(seed);
+
+	double totalWeight = 0;
+	for (double[] cluster : CLUSTERS)
+	    totalWeight += cluster[3];
+
+	for (int i = 0; i < SIZE; i++)
+	{
+	    if (random.nextInt(100) < UNIFORM_PERCENT)
+	    {
+		// uniform on the sphere, not on the lat/lon rectangle
+		_latitudes[i] = Math.toDegrees(Math.asin(2.0 * random.nextDouble() - 1.0));
+		_longitudes[i] = random.nextDouble() * 360.0 - 180.0;
+		continue;
+	    }
+
+	    double pick = random.nextDouble() * totalWeight;
+	    double[] cluster = CLUSTERS[0];
+	    for (double[] candidate : CLUSTERS)
+	    {
+		cluster = candidate;
+		pick -= candidate[3];
+		if (pick < 0)
+		    break;
+	    }
+
+	    _latitudes[i] = clamp(cluster[0] + random.nextGaussian() * cluster[2], -90.0, 90.0);
+	    _longitudes[i] = clamp(cluster[1] + random.nextGaussian() * cluster[2] * 1.5, -180.0, 180.0);
+	}
+    }
+
+    public double[] latitudes()
+    {
+	return _latitudes;
+    }
+
+    public double[] longitudes()
+    {
+	return _longitudes;
+    }
+
+    private static double clamp(double value, double min, double max)
+    {
+	return Math.max(min, Math.min(max, value));
+    }
+
+}
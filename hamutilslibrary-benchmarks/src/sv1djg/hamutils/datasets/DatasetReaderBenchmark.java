@@ -0,0 +1,109 @@
+//
+// decoding a binary dataset, against parsing the same rows from text
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+
+package sv1djg.hamutils.datasets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.locator.GridLocator;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatasetReaderBenchmark
+{
+
+    private DatasetReader _reader;
+    private String[] _lines;
+
+    @Setup
+    public void setup() throws IOException
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DatasetWriter writer = new DatasetWriter(bytes);
+	writer.addAll(samples.latitudes(), samples.longitudes(), 0, SampleCoordinates.SIZE);
+	writer.close();
+
+	// a direct buffer, like a mapped file
+	ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+	buffer.put(bytes.toByteArray());
+	buffer.flip();
+	_reader = DatasetReader.of(buffer);
+
+	_lines = new String[SampleCoordinates.SIZE];
+	for (int i = 0; i < _lines.length; i++)
+	    _lines[i] = samples.latitudes()[i] + "," + samples.longitudes()[i];
+    }
+
+    //
+    // all the rows, with their locator codes
+    //
+    @Benchmark
+    public void cursor(Blackhole blackhole)
+    {
+	DatasetReader.Cursor cursor = _reader.cursor();
+	while (cursor.next())
+	{
+	    blackhole.consume(cursor.latitude());
+	    blackhole.consume(cursor.longitude());
+	    blackhole.consume(cursor.locator());
+	}
+    }
+
+    //
+    // what cursor() replaces, parsing the text of every row and a GridLocator for its locator
+    //
+    @Benchmark
+    public void parseText(Blackhole blackhole) throws Exception
+    {
+	for (String line : _lines)
+	{
+	    int comma = line.indexOf(',');
+	    double latitude = Double.parseDouble(line.substring(0, comma));
+	    double longitude = Double.parseDouble(line.substring(comma + 1));
+	    blackhole.consume(latitude);
+	    blackhole.consume(longitude);
+	    blackhole.consume(new GridLocator(latitude, longitude).getLocatorCode());
+	}
+    }
+
+}
@@ -0,0 +1,125 @@
+//
+// benchmarks of the DistanceCaclulator hot paths
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.distances;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceCaclulatorBenchmark
+{
+
+    private static final double HOME_LATITUDE = 38.05737;
+    private static final double HOME_LONGITUDE = 23.79665;
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private double[] _results;
+    private int _index;
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+	_results = new double[SampleCoordinates.SIZE];
+    }
+
+    @Benchmark
+    public double distanceFrom()
+    {
+	int i = next();
+	return DistanceCaclulator.distanceFrom(HOME_LATITUDE, HOME_LONGITUDE, _latitudes[i], _longitudes[i]);
+    }
+
+    @Benchmark
+    public double GoogleDistanceFrom()
+    {
+	int i = next();
+	return DistanceCaclulator.GoogleDistanceFrom(HOME_LATITUDE, HOME_LONGITUDE, _latitudes[i], _longitudes[i]);
+    }
+
+    @Benchmark
+    public double bearingTo()
+    {
+	int i = next();
+	return DistanceCaclulator.bearingTo(HOME_LATITUDE, HOME_LONGITUDE, _latitudes[i], _longitudes[i]);
+    }
+
+    @Benchmark
+    public CoordinateSet midpointOf()
+    {
+	int i = next();
+	return DistanceCaclulator.midpointOf(HOME_LATITUDE, HOME_LONGITUDE, _latitudes[i], _longitudes[i]);
+    }
+
+    @Benchmark
+    public CoordinateSet targetAtBearingDistance()
+    {
+	int i = next();
+	// any bearing and any distance up to half the circumference
+	return DistanceCaclulator.targetAtBearingDistance(_latitudes[i], _longitudes[i], _longitudes[i] + 180.0, (_latitudes[i] + 90.0) * 111.0);
+    }
+
+    //
+    // the batch methods, reported per point so they compare with the single point ones
+    //
+    @Benchmark
+    @OperationsPerInvocation(SampleCoordinates.SIZE)
+    public double[] distancesFromBatch()
+    {
+	DistanceCaclulator.distancesFrom(HOME_LATITUDE, HOME_LONGITUDE, _latitudes, _longitudes, _results, 0, SampleCoordinates.SIZE);
+	return _results;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SampleCoordinates.SIZE)
+    public double[] bearingsToBatch()
+    {
+	DistanceCaclulator.bearingsTo(HOME_LATITUDE, HOME_LONGITUDE, _latitudes, _longitudes, _results, 0, SampleCoordinates.SIZE);
+	return _results;
+    }
+
+    private int next()
+    {
+	_index = (_index + 1) & SampleCoordinates.MASK;
+	return _index;
+    }
+
+}
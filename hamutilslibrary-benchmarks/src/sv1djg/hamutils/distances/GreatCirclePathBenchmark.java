@@ -0,0 +1,92 @@
+//
+// waypoints of a great circle path from the recurrence of GreatCirclePath against
+// calling targetAtBearingDistance for each one, and the squares crossed
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+package sv1djg.hamutils.distances;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreatCirclePathBenchmark
+{
+
+    private static final int WAYPOINTS = 200;
+
+    // athens to tokyo
+    private final GreatCirclePath _path = new GreatCirclePath(38.05737, 23.79665, 35.68950, 139.69171);
+
+    private final double[] _latitudes = new double[WAYPOINTS];
+    private final double[] _longitudes = new double[WAYPOINTS];
+
+    private long _last;
+
+    @Benchmark
+    public double[] waypoints()
+    {
+	_path.waypoints(WAYPOINTS, _latitudes, _longitudes, 0);
+	return _latitudes;
+    }
+
+    //
+    // what waypoints() replaces
+    //
+    @Benchmark
+    public double[] targetAtBearingDistance()
+    {
+	double bearing = _path.getBearing();
+	double step = _path.getDistance() / (WAYPOINTS - 1);
+	for (int i = 0; i < WAYPOINTS; i++)
+	{
+	    DistanceCaclulator.CoordinateSet point = DistanceCaclulator.targetAtBearingDistance(38.05737, 23.79665, bearing, i * step);
+	    _latitudes[i] = point.getLatitude();
+	    _longitudes[i] = point.getLongitude();
+	}
+	return _latitudes;
+    }
+
+    @Benchmark
+    public long squares()
+    {
+	_path.squares(4, new GreatCirclePath.SquareVisitor()
+	{
+	    public void square(long code, double distance)
+	    {
+		_last = code;
+	    }
+	});
+	return _last;
+    }
+
+}
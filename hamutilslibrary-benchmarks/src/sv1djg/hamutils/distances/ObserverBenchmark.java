@@ -0,0 +1,103 @@
+//
+// the fixed home station of Observer against the DistanceCaclulator calls it replaces
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObserverBenchmark
+{
+
+    private static final double HOME_LATITUDE = 38.05737;
+    private static final double HOME_LONGITUDE = 23.79665;
+
+    private final Observer _observer = new Observer(HOME_LATITUDE, HOME_LONGITUDE);
+    private final Observer.Path _path = new Observer.Path();
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private int _index;
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+    }
+
+    @Benchmark
+    public double distanceTo()
+    {
+	int i = next();
+	return _observer.distanceTo(_latitudes[i], _longitudes[i]);
+    }
+
+    @Benchmark
+    public double bearingTo()
+    {
+	int i = next();
+	return _observer.bearingTo(_latitudes[i], _longitudes[i]);
+    }
+
+    @Benchmark
+    public Observer.Path pathTo()
+    {
+	int i = next();
+	return _observer.pathTo(_latitudes[i], _longitudes[i], _path);
+    }
+
+    //
+    // what pathTo() replaces
+    //
+    @Benchmark
+    public double distanceBearingReverse()
+    {
+	int i = next();
+	return DistanceCaclulator.distanceFrom(HOME_LATITUDE, HOME_LONGITUDE, _latitudes[i], _longitudes[i])
+		+ DistanceCaclulator.bearingTo(HOME_LATITUDE, HOME_LONGITUDE, _latitudes[i], _longitudes[i])
+		+ DistanceCaclulator.bearingTo(_latitudes[i], _longitudes[i], HOME_LATITUDE, HOME_LONGITUDE);
+    }
+
+    private int next()
+    {
+	_index = (_index + 1) & SampleCoordinates.MASK;
+	return _index;
+    }
+
+}
@@ -0,0 +1,115 @@
+//
+// scaling of BulkLocatorEncoder with the number of threads, reported per row.
+// run it on a machine with at least as many cores as the largest pool:
+//   java -jar target/benchmarks.jar BulkLocatorEncoderBenchmark -p threads=1,2,4,8,16
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.locator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkLocatorEncoderBenchmark
+{
+
+    private static final int ROWS = 1 << 20;
+
+    // only the parallel conversion depends on the pool
+    @State(Scope.Thread)
+    public static class Pool
+    {
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	ForkJoinPool pool;
+
+	@Setup
+	public void setup()
+	{
+	    pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+	    pool.shutdown();
+	}
+    }
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private long[] _codes;
+    private byte[] _status;
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+
+	// the samples repeated, one row in 1000 is bad
+	_latitudes = new double[ROWS];
+	_longitudes = new double[ROWS];
+	for (int i = 0; i < ROWS; i++)
+	{
+	    _latitudes[i] = i % 1000 == 999 ? Double.NaN : samples.latitudes()[i & SampleCoordinates.MASK];
+	    _longitudes[i] = samples.longitudes()[i & SampleCoordinates.MASK];
+	}
+
+	_codes = new long[ROWS];
+	_status = new byte[ROWS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long[] sequential()
+    {
+	BulkLocatorEncoder.encode(_latitudes, _longitudes, 8, _codes, _status, 0, ROWS);
+	return _codes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long[] parallel(Pool pool)
+    {
+	BulkLocatorEncoder.encodeParallel(pool.pool, _latitudes, _longitudes, 8, _codes, _status, 0, ROWS);
+	return _codes;
+    }
+
+}
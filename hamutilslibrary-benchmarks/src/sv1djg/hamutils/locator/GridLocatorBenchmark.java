@@ -0,0 +1,172 @@
+//
+// benchmarks of the GridLocator hot paths
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.locator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.locator.GridLocator.LocatorLength;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridLocatorBenchmark
+{
+
+    // only getLocatorLength() depends on the length, so it is not a parameter of the whole benchmark
+    @State(Scope.Thread)
+    public static class Length
+    {
+	@Param({"FourDigit", "SixDigit", "EightDigit"})
+	public LocatorLength value;
+    }
+
+    // a noisy spot feed: a share of the rows are GPS glitches, swapped latitude/longitude or NaN
+    @State(Scope.Thread)
+    public static class DirtyInput
+    {
+	@Param({"5", "25"})
+	public int badPercent;
+
+	public double[] latitudes;
+	public double[] longitudes;
+
+	@Setup
+	public void setup()
+	{
+	    SampleCoordinates samples = new SampleCoordinates(2011);
+	    latitudes = samples.latitudes().clone();
+	    longitudes = samples.longitudes().clone();
+
+	    Random random = new Random(16);
+	    for (int i = 0; i < SampleCoordinates.SIZE; i++)
+	    {
+		if (random.nextInt(100) >= badPercent)
+		    continue;
+
+		switch (random.nextInt(3))
+		{
+		    case 0:
+			latitudes[i] = 90.0 + random.nextDouble() * 1000.0;
+			break;
+		    case 1:
+			double latitude = latitudes[i];
+			latitudes[i] = longitudes[i] > 0 ? 90.0 + longitudes[i] : longitudes[i] - 90.0;
+			longitudes[i] = latitude;
+			break;
+		    default:
+			longitudes[i] = Double.NaN;
+			break;
+		}
+	    }
+	}
+    }
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private GridLocator[] _grids;
+    private int _index;
+
+    @Setup
+    public void setup() throws Exception
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+
+	_grids = new GridLocator[SampleCoordinates.SIZE];
+	for (int i = 0; i < SampleCoordinates.SIZE; i++)
+	    _grids[i] = new GridLocator(_latitudes[i], _longitudes[i]);
+    }
+
+    @Benchmark
+    public String newGridLocator() throws Exception
+    {
+	int i = next();
+	return new GridLocator(_latitudes[i], _longitudes[i]).getLocator();
+    }
+
+    @Benchmark
+    public String getLocatorLength(Length length)
+    {
+	return _grids[next()].getLocator(length.value);
+    }
+
+    @Benchmark
+    public double distanceFrom()
+    {
+	int i = next();
+	return _grids[i].distanceFrom(_grids[(i + 1) & SampleCoordinates.MASK]);
+    }
+
+    @Benchmark
+    public double bearingTo()
+    {
+	int i = next();
+	return _grids[i].bearingTo(_grids[(i + 1) & SampleCoordinates.MASK]);
+    }
+
+    //
+    // the constructor, catching the exception of each bad row (how the feeds were read before tryCreate)
+    //
+    @Benchmark
+    public int dirtyInputConstructor(DirtyInput input)
+    {
+	int i = next();
+	try
+	{
+	    return new GridLocator(input.latitudes[i], input.longitudes[i]).getLocator().length();
+	}
+	catch (Exception e)
+	{
+	    return -1;
+	}
+    }
+
+    @Benchmark
+    public int dirtyInputTryCreate(DirtyInput input)
+    {
+	int i = next();
+	GridLocator grid = GridLocator.tryCreate(input.latitudes[i], input.longitudes[i]);
+	return grid == null ? -1 : grid.getLocator().length();
+    }
+
+    private int next()
+    {
+	_index = (_index + 1) & SampleCoordinates.MASK;
+	return _index;
+    }
+
+}
@@ -0,0 +1,122 @@
+//
+// building and combining worked grid sets, against sets of locator strings
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+
+package sv1djg.hamutils.locator;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.locator.GridLocator.LocatorLength;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridSetBenchmark
+{
+
+    // the QSOs of one log
+    private static final int QSOS = 1024;
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+
+    private GridSet _first;
+    private GridSet _second;
+    private Set<String> _firstStrings;
+    private Set<String> _secondStrings;
+
+    @Setup
+    public void setup() throws Exception
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+
+	_first = new GridSet();
+	_second = new GridSet();
+	_firstStrings = new HashSet<String>();
+	_secondStrings = new HashSet<String>();
+	for (int i = 0; i < QSOS; i++)
+	{
+	    _first.add(_latitudes[i], _longitudes[i]);
+	    _second.add(_latitudes[QSOS + i], _longitudes[QSOS + i]);
+	    _firstStrings.add(new GridLocator(_latitudes[i], _longitudes[i]).getLocator(LocatorLength.FourDigit));
+	    _secondStrings.add(new GridLocator(_latitudes[QSOS + i], _longitudes[QSOS + i]).getLocator(LocatorLength.FourDigit));
+	}
+    }
+
+    @Benchmark
+    public int build()
+    {
+	GridSet set = new GridSet();
+	for (int i = 0; i < QSOS; i++)
+	    set.add(_latitudes[i], _longitudes[i]);
+	return set.squareCount();
+    }
+
+    //
+    // what build() replaces
+    //
+    @Benchmark
+    public int buildStrings() throws Exception
+    {
+	Set<String> set = new HashSet<String>();
+	for (int i = 0; i < QSOS; i++)
+	    set.add(new GridLocator(_latitudes[i], _longitudes[i]).getLocator(LocatorLength.FourDigit));
+	return set.size();
+    }
+
+    @Benchmark
+    public int union()
+    {
+	GridSet union = new GridSet(_first);
+	union.or(_second);
+	return union.squareCount();
+    }
+
+    //
+    // what union() replaces
+    //
+    @Benchmark
+    public int unionStrings()
+    {
+	Set<String> union = new HashSet<String>(_firstStrings);
+	union.addAll(_secondStrings);
+	return union.size();
+    }
+
+}
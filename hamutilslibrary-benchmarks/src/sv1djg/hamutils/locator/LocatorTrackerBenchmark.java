@@ -0,0 +1,111 @@
+//
+// following many moving stations fix by fix, against a new locator for every fix
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+
+package sv1djg.hamutils.locator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocatorTrackerBenchmark
+{
+
+    // a fix moves a station by up to about 50m
+    private static final double STEP = 0.0005;
+
+    private LocatorTracker[] _trackers;
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private double[] _steps;
+    private int _index;
+    private int _step;
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes().clone();
+	_longitudes = samples.longitudes().clone();
+
+	_trackers = new LocatorTracker[SampleCoordinates.SIZE];
+	for (int i = 0; i < _trackers.length; i++)
+	{
+	    // away from the poles and the antimeridian so the walk stays on the map
+	    _latitudes[i] = Math.max(-80.0, Math.min(80.0, _latitudes[i]));
+	    _longitudes[i] = Math.max(-170.0, Math.min(170.0, _longitudes[i]));
+	    _trackers[i] = new LocatorTracker();
+	    _trackers[i].update(_latitudes[i], _longitudes[i]);
+	}
+
+	Random random = new Random(2011);
+	_steps = new double[1024];
+	for (int i = 0; i < _steps.length; i++)
+	    _steps[i] = (random.nextDouble() - 0.5) * STEP;
+    }
+
+    @Benchmark
+    public boolean update()
+    {
+	int i = next();
+	return _trackers[i].update(_latitudes[i] + step(), _longitudes[i] + step());
+    }
+
+    //
+    // what update() replaces
+    //
+    @Benchmark
+    public String gridLocator() throws Exception
+    {
+	int i = next();
+	return new GridLocator(_latitudes[i] + step(), _longitudes[i] + step()).getLocator();
+    }
+
+    private double step()
+    {
+	_step = (_step + 1) & 1023;
+	return _steps[_step];
+    }
+
+    private int next()
+    {
+	_index = (_index + 1) & SampleCoordinates.MASK;
+	return _index;
+    }
+
+}
@@ -0,0 +1,97 @@
+//
+// square to square lookups in the precomputed SquareDistanceMatrix against
+// calculating them between the square centres
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+package sv1djg.hamutils.locator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.distances.DistanceCaclulator;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SquareDistanceMatrixBenchmark
+{
+
+    private SquareDistanceMatrix _matrix;
+    private long[] _squares;
+    private int _index;
+
+    @Setup
+    public void setup()
+    {
+	_matrix = SquareDistanceMatrix.generate();
+
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_squares = new long[SampleCoordinates.SIZE];
+	for (int i = 0; i < _squares.length; i++)
+	    _squares[i] = LocatorEncoder.encode(samples.latitudes()[i], samples.longitudes()[i], 4);
+    }
+
+    @Benchmark
+    public double distance()
+    {
+	int i = next();
+	return _matrix.distance(_squares[i], _squares[(i + 1) & SampleCoordinates.MASK]);
+    }
+
+    @Benchmark
+    public double bearing()
+    {
+	int i = next();
+	return _matrix.bearing(_squares[i], _squares[(i + 1) & SampleCoordinates.MASK]);
+    }
+
+    //
+    // what distance() replaces
+    //
+    @Benchmark
+    public double distanceFrom()
+    {
+	int i = next();
+	long from = _squares[i];
+	long to = _squares[(i + 1) & SampleCoordinates.MASK];
+	return DistanceCaclulator.distanceFrom(LocatorCode.centreLatitude(from), LocatorCode.centreLongitude(from),
+		LocatorCode.centreLatitude(to), LocatorCode.centreLongitude(to));
+    }
+
+    private int next()
+    {
+	_index = (_index + 1) & SampleCoordinates.MASK;
+	return _index;
+    }
+
+}
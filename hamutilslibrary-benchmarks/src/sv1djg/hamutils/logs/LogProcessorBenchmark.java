@@ -0,0 +1,91 @@
+//
+// reading and annotating an in-memory ADIF log, reported per QSO
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.logs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogProcessorBenchmark
+{
+
+    private static final int RECORDS = SampleCoordinates.SIZE;
+
+    private byte[] _log;
+    private LogProcessor _processor;
+    private double _sum;
+
+    private final LogProcessor.Listener _listener = new LogProcessor.Listener()
+    {
+	public void qso(QsoRecord record)
+	{
+	    _sum += record.getDistance();
+	}
+    };
+
+    @Setup
+    public void setup() throws IOException
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	StringBuilder log = new StringBuilder("<ADIF_VER:5>3.1.0<EOH>\n");
+
+	for (int i = 0; i < RECORDS; i++)
+	{
+	    String grid = LocatorCode.toString(LocatorEncoder.encode(samples.latitudes()[i], samples.longitudes()[i], 6));
+	    log.append("<CALL:6>SV1ABC<BAND:3>20m<MODE:2>CW<QSO_DATE:8>20110312<TIME_ON:4>1200");
+	    log.append("<GRIDSQUARE:6>").append(grid).append("<MY_GRIDSQUARE:6>KM18VB<EOR>\n");
+	}
+
+	_log = log.toString().getBytes("ISO-8859-1");
+	_processor = new LogProcessor();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public double adif() throws IOException
+    {
+	_sum = 0;
+	_processor.process(new AdifReader(new ByteArrayInputStream(_log)), _listener);
+	return _sum;
+    }
+
+}
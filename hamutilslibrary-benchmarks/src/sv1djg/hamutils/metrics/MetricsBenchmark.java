@@ -0,0 +1,123 @@
+//
+// the cost of the instrumentation: the same calls in a JVM with the metrics off,
+// in one with them on, and an uninstrumented copy of the distance calculation.
+// with the metrics off the instrumented calls should score the same as the copy
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+package sv1djg.hamutils.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsBenchmark
+{
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private int _index;
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-D" + Metrics.PROPERTY + "=false")
+    public double distanceMetricsOff()
+    {
+	int i = next();
+	return DistanceCaclulator.distanceFrom(_latitudes[i], _longitudes[i], _latitudes[i ^ 1], _longitudes[i ^ 1]);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-D" + Metrics.PROPERTY + "=true")
+    public double distanceMetricsOn()
+    {
+	int i = next();
+	return DistanceCaclulator.distanceFrom(_latitudes[i], _longitudes[i], _latitudes[i ^ 1], _longitudes[i ^ 1]);
+    }
+
+    //
+    // distanceFrom() as it was before the instrumentation
+    //
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-D" + Metrics.PROPERTY + "=false")
+    public double distanceUninstrumented()
+    {
+	int i = next();
+	double lat1 = Math.toRadians(_latitudes[i]);
+	double lon1 = Math.toRadians(_longitudes[i]);
+	double lat2 = Math.toRadians(_latitudes[i ^ 1]);
+	double lon2 = Math.toRadians(_longitudes[i ^ 1]);
+
+	double dlon = (lon2 - lon1);
+	double dlat = (lat2 - lat1);
+
+	double a = (Math.sin(dlat / 2)) * (Math.sin(dlat / 2))
+		+ (Math.cos(lat1) * Math.cos(lat2) * Math.sin(dlon / 2) * Math.sin(dlon / 2));
+
+	double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
+	return DistanceCaclulator.EARTH_RADIUS * c;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-D" + Metrics.PROPERTY + "=false")
+    public long encodeMetricsOff()
+    {
+	int i = next();
+	return LocatorEncoder.encode(_latitudes[i], _longitudes[i], 6);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-D" + Metrics.PROPERTY + "=true")
+    public long encodeMetricsOn()
+    {
+	int i = next();
+	return LocatorEncoder.encode(_latitudes[i], _longitudes[i], 6);
+    }
+
+    private int next()
+    {
+	_index = (_index + 1) & SampleCoordinates.MASK;
+	return _index;
+    }
+
+}
@@ -0,0 +1,106 @@
+//
+// classifying a batch of spots as day, grayline or night
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+
+package sv1djg.hamutils.solar;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.distances.Coordinates;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolarBenchmark
+{
+
+    // 2024-06-20 12:00 UTC
+    private static final long TIME = 1718884800000L;
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private double[] _vectors;
+    private byte[] _states;
+    private SolarCalculator _calculator;
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+
+	_vectors = new double[SampleCoordinates.SIZE * 3];
+	SolarSnapshot.toVectors(_latitudes, _longitudes, _vectors, 0, SampleCoordinates.SIZE);
+	_states = new byte[SampleCoordinates.SIZE];
+	_calculator = new SolarCalculator();
+    }
+
+    //
+    // the points already as unit vectors, one dot product each
+    //
+    @Benchmark
+    public byte[] classifyVectors()
+    {
+	_calculator.at(TIME).classifyVectors(_vectors, _states, 0, SampleCoordinates.SIZE);
+	return _states;
+    }
+
+    @Benchmark
+    public byte[] classify()
+    {
+	_calculator.classify(TIME, _latitudes, _longitudes, _states, 0, SampleCoordinates.SIZE);
+	return _states;
+    }
+
+    //
+    // what the snapshots replace, the sun and the full trigonometry for every point
+    //
+    @Benchmark
+    public byte[] naive()
+    {
+	for (int i = 0; i < SampleCoordinates.SIZE; i++)
+	{
+	    Coordinates sun = SubsolarPoint.at(TIME);
+	    double lat = Math.toRadians(_latitudes[i]);
+	    double sunLat = Math.toRadians(sun.getLatitude());
+	    double hourAngle = Math.toRadians(_longitudes[i] - sun.getLongitude());
+	    double elevation = Math.toDegrees(Math.asin(Math.sin(lat) * Math.sin(sunLat) + Math.cos(lat) * Math.cos(sunLat) * Math.cos(hourAngle)));
+	    _states[i] = elevation > 6.0 ? SolarSnapshot.DAY : elevation < -6.0 ? SolarSnapshot.NIGHT : SolarSnapshot.GRAYLINE;
+	}
+	return _states;
+    }
+
+}
@@ -0,0 +1,103 @@
+//
+// beam sector queries over a block of spots, against the exact path of every spot
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+
+package sv1djg.hamutils.spots;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.distances.Observer;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeamQueryBenchmark
+{
+
+    private static final double HOME_LATITUDE = 38.05737;
+    private static final double HOME_LONGITUDE = 23.79665;
+
+    // the width of the beam in degrees, 360 can not prune anything by bearing
+    @Param({"30", "360"})
+    public double beamwidth;
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private BeamQuery.Sector _sector;
+    private BeamQuery _query;
+    private Observer _home;
+    private long[] _matches;
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+
+	_sector = BeamQuery.Sector.beam(315.0, beamwidth, 0.0, 3000.0, false);
+	_query = new BeamQuery(HOME_LATITUDE, HOME_LONGITUDE, _sector);
+	_home = new Observer(HOME_LATITUDE, HOME_LONGITUDE);
+	_matches = new long[BeamQuery.wordsFor(SampleCoordinates.SIZE)];
+    }
+
+    @Benchmark
+    public int evaluate()
+    {
+	return _query.evaluate(_latitudes, _longitudes, 0, SampleCoordinates.SIZE, _matches);
+    }
+
+    //
+    // what evaluate() replaces, the exact path of every spot
+    //
+    @Benchmark
+    public int everyPoint()
+    {
+	Observer.Path path = new Observer.Path();
+	int matched = 0;
+	for (int i = 0; i < SampleCoordinates.SIZE; i++)
+	{
+	    _home.pathTo(_latitudes[i], _longitudes[i], path);
+	    if (_sector.contains(path.getDistance(), path.getBearing()))
+	    {
+		_matches[i >>> 6] |= 1L << i;
+		matched++;
+	    }
+	}
+	return matched;
+    }
+
+}
@@ -0,0 +1,121 @@
+//
+// 256 spots through GeoAnnotationService (queued, batched, futures completed)
+// against annotating them inline with the per point calls
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+package sv1djg.hamutils.spots;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoAnnotationServiceBenchmark
+{
+
+    private static final int SPOTS = 256;
+
+    private static final double[] HOME_LATITUDES = { 38.05737, 51.50484 };
+    private static final double[] HOME_LONGITUDES = { 23.79665, -0.11367 };
+
+    private GeoAnnotationService _service;
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private int _index;
+
+    @SuppressWarnings("unchecked")
+    private final CompletableFuture<GeoAnnotationService.Annotation>[] _futures = new CompletableFuture[SPOTS];
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+	_service = new GeoAnnotationService(HOME_LATITUDES, HOME_LONGITUDES);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+	_service.close();
+    }
+
+    @Benchmark
+    public double service() throws Exception
+    {
+	for (int i = 0; i < SPOTS; i++)
+	{
+	    int spot = next();
+	    _futures[i] = _service.annotate(_latitudes[spot], _longitudes[spot]);
+	}
+
+	double total = 0;
+	for (int i = 0; i < SPOTS; i++)
+	    total += _futures[i].get().getDistance(0);
+	return total;
+    }
+
+    //
+    // what each request thread would do without the service
+    //
+    @Benchmark
+    public double inline()
+    {
+	double total = 0;
+	for (int i = 0; i < SPOTS; i++)
+	{
+	    int spot = next();
+	    total += LocatorEncoder.encode(_latitudes[spot], _longitudes[spot]);
+	    for (int home = 0; home < HOME_LATITUDES.length; home++)
+	    {
+		total += DistanceCaclulator.distanceFrom(HOME_LATITUDES[home], HOME_LONGITUDES[home], _latitudes[spot], _longitudes[spot]);
+		total += DistanceCaclulator.bearingTo(HOME_LATITUDES[home], HOME_LONGITUDES[home], _latitudes[spot], _longitudes[spot]);
+	    }
+	}
+	return total;
+    }
+
+    private int next()
+    {
+	_index = (_index + 1) & SampleCoordinates.MASK;
+	return _index;
+    }
+
+}
@@ -0,0 +1,178 @@
+//
+// the refresh of a dashboard (the longest paths of every band and the busiest
+// squares of the last 15 minutes) from a SpotWindow, against a rescan of the
+// recent spots, and the cost of adding a spot to the window
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+
+
+package sv1djg.hamutils.spots;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sv1djg.hamutils.benchmarks.SampleCoordinates;
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.GridSet;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpotWindowBenchmark
+{
+
+    private static final int BANDS = 8;
+    private static final int TOP = 20;
+    private static final long WINDOW_MILLIS = 15 * 60000L;
+
+    // the spots of the window, a busy cluster hears a few every second
+    private static final int SPOTS = 4 * SampleCoordinates.SIZE;
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private long[] _times;
+    private int[] _bands;
+    private int[] _spotters;
+    private int[] _spotted;
+
+    private SpotWindow _window;
+    private long _next;
+    private int _added;
+
+    private final long[] _ids = new long[TOP];
+    private final double[] _distances = new double[TOP];
+    private final long[] _codes = new long[TOP];
+    private final int[] _counts = new int[TOP];
+
+    @Setup
+    public void setup()
+    {
+	SampleCoordinates samples = new SampleCoordinates(2011);
+	_latitudes = samples.latitudes();
+	_longitudes = samples.longitudes();
+
+	_times = new long[SPOTS];
+	_bands = new int[SPOTS];
+	_spotters = new int[SPOTS];
+	_spotted = new int[SPOTS];
+
+	_window = new SpotWindow(BANDS, 15, 1, TimeUnit.MINUTES, TOP);
+	for (int i = 0; i < SPOTS; i++)
+	{
+	    _times[i] = i * WINDOW_MILLIS / SPOTS;
+	    _bands[i] = i % BANDS;
+	    _spotters[i] = i & SampleCoordinates.MASK;
+	    _spotted[i] = (i * 7 + 1) & SampleCoordinates.MASK;
+
+	    _window.add(_times[i], _bands[i], _latitudes[_spotters[i]], _longitudes[_spotters[i]],
+		    _latitudes[_spotted[i]], _longitudes[_spotted[i]], i);
+	}
+	_next = WINDOW_MILLIS;
+    }
+
+    @Benchmark
+    public int refresh()
+    {
+	int found = 0;
+	for (int band = 0; band < BANDS; band++)
+	    found += _window.longestPaths(band, _ids, _distances);
+	return found + _window.busiestSquares(_codes, _counts);
+    }
+
+    //
+    // what refresh() replaces, the distance and the square of every recent spot on every refresh
+    //
+    @Benchmark
+    public int rescan()
+    {
+	DistanceHeap[] longest = new DistanceHeap[BANDS];
+	for (int band = 0; band < BANDS; band++)
+	    longest[band] = new DistanceHeap(TOP);
+	int[] squareCounts = new int[GridSet.SQUARES];
+
+	for (int i = 0; i < SPOTS; i++)
+	{
+	    int from = _spotters[i];
+	    int to = _spotted[i];
+	    double distance = DistanceCaclulator.distanceFrom(_latitudes[from], _longitudes[from], _latitudes[to], _longitudes[to]);
+
+	    DistanceHeap heap = longest[_bands[i]];
+	    if (heap.size() < TOP)
+	    {
+		heap.push(distance, i);
+	    }
+	    else if (distance > heap.peekKey())
+	    {
+		heap.pop();
+		heap.push(distance, i);
+	    }
+
+	    squareCounts[LocatorCode.cellId(LocatorEncoder.encode(_latitudes[to], _longitudes[to], 4))]++;
+	}
+
+	DistanceHeap busiest = new DistanceHeap(TOP);
+	for (int square = 0; square < squareCounts.length; square++)
+	{
+	    int count = squareCounts[square];
+	    if (count == 0)
+		continue;
+	    if (busiest.size() < TOP)
+	    {
+		busiest.push(count, square);
+	    }
+	    else if (count > busiest.peekKey())
+	    {
+		busiest.pop();
+		busiest.push(count, square);
+	    }
+	}
+
+	int found = busiest.size();
+	for (int band = 0; band < BANDS; band++)
+	    found += longest[band].size();
+	return found;
+    }
+
+    //
+    // one new spot, the window moves on and its oldest spots expire
+    //
+    @Benchmark
+    public boolean add()
+    {
+	int i = _added++ & (SPOTS - 1);
+	_next += WINDOW_MILLIS / SPOTS;
+	return _window.add(_next, _bands[i], _latitudes[_spotters[i]], _longitudes[_spotters[i]],
+		_latitudes[_spotted[i]], _longitudes[_spotted[i]], i);
+    }
+
+}
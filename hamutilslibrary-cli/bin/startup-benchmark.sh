@@ -0,0 +1,69 @@
+#!/bin/sh
+#
+# compares the JVM and the native builds of hamutils on what the pipelines do:
+# many short runs (startup) and one large input (throughput).
+#
+#   bin/startup-benchmark.sh [runs] [records]
+#
+# build first with mvn package (and mvn -Pnative package for the native side,
+# which is skipped when target/hamutils is missing).
+#
+# Copyright 2011, Nick Tsakonas, GNU General Public License v3 or later
+#
+
+home=$(cd "$(dirname "$0")/.." && pwd)
+runs=${1:-50}
+records=${2:-1000000}
+
+jar="$home/target/hamutils.jar"
+native="$home/target/hamutils"
+
+if [ ! -f "$jar" ]; then
+    echo "$jar is missing, run mvn package first" >&2
+    exit 1
+fi
+
+input=$(mktemp)
+trap 'rm -f "$input"' EXIT
+
+# spread over the whole globe, the same every time
+awk -v n="$records" 'BEGIN { srand(2011); for (i = 0; i < n; i++) printf "%.6f,%.6f\n", rand() * 180 - 90, rand() * 360 - 180 }' > "$input"
+
+now() {
+    date +%s%N
+}
+
+# runs one record through the tool $runs times, prints the average milliseconds per run
+startup() {
+    start=$(now)
+    i=0
+    while [ $i -lt $runs ]; do
+        echo "38.05737,23.79665" | "$@" encode > /dev/null
+        i=$((i + 1))
+    done
+    echo "$(( ($(now) - start) / runs / 1000000 )) ms per run"
+}
+
+# encodes the whole input once, prints the records per second
+throughput() {
+    start=$(now)
+    "$@" encode < "$input" > /dev/null
+    elapsed=$(( ($(now) - start) / 1000000 ))
+    echo "$(( records * 1000 / (elapsed > 0 ? elapsed : 1) )) records/s ($elapsed ms)"
+}
+
+echo "startup, $runs runs of one record"
+echo "  jvm:          $(startup java -jar "$jar")"
+echo "  jvm (tuned):  $(startup java -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xshare:auto -jar "$jar")"
+if [ -x "$native" ]; then
+    echo "  native:       $(startup "$native")"
+else
+    echo "  native:       not built (mvn -Pnative package)"
+fi
+
+echo "throughput, $records records"
+echo "  jvm:          $(throughput java -jar "$jar")"
+echo "  jvm (tuned):  $(throughput java -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xshare:auto -jar "$jar")"
+if [ -x "$native" ]; then
+    echo "  native:       $(throughput "$native")"
+fi
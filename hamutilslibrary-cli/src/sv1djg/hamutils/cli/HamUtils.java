@@ -0,0 +1,328 @@
+//
+// hamutils: a command line batch tool for the common conversions, one record
+// per line from files or standard input, one result per line to standard output.
+//
+//   hamutils encode [-l length] [file ...]      latitude longitude -> locator
+//   hamutils decode [-p decimals] [file ...]    locator -> latitude,longitude of the cell centre
+//   hamutils distance [-p decimals] [file ...]  from to -> great circle distance in Km
+//   hamutils bearing [-p decimals] [file ...]   from to -> bearing in degrees
+//
+// the ends of distance/bearing are either a locator or a latitude longitude pair.
+// a record that can not be converted gives an empty line (so the output lines
+// up with the input) and the exit code is 2, the first ones are reported on
+// stderr with their file and line. a file that can not be read (or
+// an output that can not be written) stops the run with exit code 3, after
+// the results so far are written. it does no reflection and keeps no state
+// between runs, so it also builds as a native image (see the pom).
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.cli;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public final class HamUtils
+{
+
+	static final int EXIT_OK = 0;
+	static final int EXIT_USAGE = 1;
+	static final int EXIT_INVALID_RECORDS = 2;
+	static final int EXIT_IO_ERROR = 3;
+
+	static final int DEFAULT_DECIMALS = 6;
+
+	// the invalid records reported one by one (file and line), the rest are only counted
+	static final int REPORTED_INVALID_RECORDS = 10;
+
+	private static final int ENCODE = 0;
+	private static final int DECODE = 1;
+	private static final int DISTANCE = 2;
+	private static final int BEARING = 3;
+
+	private static final String[] COMMANDS = { "encode", "decode", "distance", "bearing" };
+
+	private static final String USAGE =
+			"usage: hamutils encode [-l length] [file ...]\n" +
+			"       hamutils decode|distance|bearing [-p decimals] [file ...]\n";
+
+	private final int _command;
+	private final int _length;
+	private final int _decimals;
+
+	// the two ends of the current distance/bearing record
+	private final double[] _ends = new double[4];
+
+	private final PrintStream _err;
+
+	private long _invalid;
+
+	private HamUtils(int command, int length, int decimals, PrintStream err)
+	{
+		_command = command;
+		_length = length;
+		_decimals = decimals;
+		_err = err;
+	}
+
+	public static void main(String[] args)
+	{
+		FileChannel in = new FileInputStream(FileDescriptor.in).getChannel();
+		FileChannel out = new FileOutputStream(FileDescriptor.out).getChannel();
+
+		System.exit(run(args, in, out, System.err));
+	}
+
+	//
+	// runs one command, in is read when no files are given. returns the exit code
+	//
+	static int run(String[] args, ReadableByteChannel in, WritableByteChannel out, PrintStream err)
+	{
+		if (args.length == 0)
+			return usage(err, null);
+
+		int command = -1;
+		for (int i = 0; i < COMMANDS.length; i++)
+		{
+			if (COMMANDS[i].equals(args[0]))
+				command = i;
+		}
+		if (command < 0)
+			return usage(err, "unknown command " + args[0]);
+
+		int length = LocatorEncoder.DEFAULT_LENGTH;
+		int decimals = DEFAULT_DECIMALS;
+
+		int next = 1;
+		for (; next < args.length && args[next].startsWith("-") && args[next].length() > 1; next++)
+		{
+			String option = args[next];
+			if (next + 1 == args.length)
+				return usage(err, "missing value of " + option);
+
+			int value;
+			try
+			{
+				value = Integer.parseInt(args[++next]);
+			}
+			catch (NumberFormatException e)
+			{
+				return usage(err, "bad value of " + option);
+			}
+
+			if (option.equals("-l") && command == ENCODE)
+			{
+				if (value < 2 || value > 2 * LocatorCode.MAX_PAIRS || value % 2 != 0)
+					return usage(err, "the locator length must be 2, 4, 6, 8 or 10");
+				length = value;
+			}
+			else if (option.equals("-p") && command != ENCODE)
+			{
+				if (value < 0 || value > Numbers.MAX_DECIMALS)
+					return usage(err, "the decimals must be 0 to " + Numbers.MAX_DECIMALS);
+				decimals = value;
+			}
+			else
+			{
+				return usage(err, "unknown option " + option);
+			}
+		}
+
+		HamUtils tool = new HamUtils(command, length, decimals, err);
+		LineWriter writer = new LineWriter(out);
+
+		try
+		{
+			if (next == args.length)
+			{
+				tool.process(new LineReader(in), "<stdin>", writer);
+			}
+			else
+			{
+				for (; next < args.length; next++)
+				{
+					FileChannel channel = new FileInputStream(new File(args[next])).getChannel();
+					try
+					{
+						tool.process(new LineReader(channel), args[next], writer);
+					}
+					finally
+					{
+						channel.close();
+					}
+				}
+			}
+
+			writer.flush();
+		}
+		catch (IOException e)
+		{
+			// the results of the records read before the error are still written
+			try
+			{
+				writer.flush();
+			}
+			catch (IOException flushError)
+			{
+				// the output itself failed, nothing more can be written
+			}
+
+			err.println("hamutils: " + e.getMessage());
+			return EXIT_IO_ERROR;
+		}
+
+		if (tool._invalid > 0)
+		{
+			err.println("hamutils: " + tool._invalid + " invalid record(s)");
+			return EXIT_INVALID_RECORDS;
+		}
+		return EXIT_OK;
+	}
+
+	//
+	// converts the records of one input, name is the file (or <stdin>) in the report of the invalid records
+	//
+	private void process(LineReader reader, String name, LineWriter writer) throws IOException
+	{
+		while (reader.next())
+		{
+			if (!convert(reader, writer))
+			{
+				if (++_invalid <= REPORTED_INVALID_RECORDS)
+					_err.println("hamutils: " + name + ":" + reader.lineNumber() + ": invalid record");
+			}
+			writer.newLine();
+		}
+	}
+
+	//
+	// writes the result of the current record, false (and nothing written) if it is not valid
+	//
+	private boolean convert(LineReader line, LineWriter writer)
+	{
+		switch (_command)
+		{
+			case ENCODE:
+			{
+				if (line.fieldCount() != 2)
+					return false;
+
+				long code = LocatorEncoder.encode(number(line, 0), number(line, 1), _length);
+				if (code == LocatorCode.INVALID)
+					return false;
+
+				writer.writeLocator(code);
+				return true;
+			}
+
+			case DECODE:
+			{
+				if (line.fieldCount() != 1)
+					return false;
+
+				long code = LocatorDecoder.decode(line, line.fieldStart(0), line.fieldEnd(0), true);
+				if (code == LocatorCode.INVALID)
+					return false;
+
+				writer.writeNumber(LocatorCode.centreLatitude(code), _decimals);
+				writer.write(',');
+				writer.writeNumber(LocatorCode.centreLongitude(code), _decimals);
+				return true;
+			}
+
+			default:
+			{
+				if (!readEnds(line))
+					return false;
+
+				double value;
+				if (_command == DISTANCE)
+					value = DistanceCaclulator.distanceFrom(_ends[0], _ends[1], _ends[2], _ends[3]);
+				else
+					value = DistanceCaclulator.bearingTo(_ends[0], _ends[1], _ends[2], _ends[3]);
+
+				writer.writeNumber(value, _decimals);
+				return true;
+			}
+		}
+	}
+
+	//
+	// the two ends of the record in _ends (latitude, longitude, latitude, longitude), a locator
+	// stands for the centre of its cell
+	//
+	private boolean readEnds(LineReader line)
+	{
+		int field = 0;
+		for (int end = 0; end < 4; end += 2)
+		{
+			if (field == line.fieldCount())
+				return false;
+
+			char first = line.charAt(line.fieldStart(field));
+			if ((first >= 'A' && first <= 'Z') || (first >= 'a' && first <= 'z'))
+			{
+				long code = LocatorDecoder.decode(line, line.fieldStart(field), line.fieldEnd(field), true);
+				if (code == LocatorCode.INVALID)
+					return false;
+
+				_ends[end] = LocatorCode.centreLatitude(code);
+				_ends[end + 1] = LocatorCode.centreLongitude(code);
+				field++;
+			}
+			else
+			{
+				if (field + 1 == line.fieldCount())
+					return false;
+
+				_ends[end] = number(line, field);
+				_ends[end + 1] = number(line, field + 1);
+				if (!LocatorEncoder.isValid(_ends[end], _ends[end + 1]))
+					return false;
+				field += 2;
+			}
+		}
+
+		return field == line.fieldCount();
+	}
+
+	private static double number(LineReader line, int field)
+	{
+		return Numbers.parse(line, line.fieldStart(field), line.fieldEnd(field));
+	}
+
+	private static int usage(PrintStream err, String message)
+	{
+		if (message != null)
+			err.println("hamutils: " + message);
+		err.print(USAGE);
+		return EXIT_USAGE;
+	}
+
+}
@@ -0,0 +1,223 @@
+//
+// reads the records of a channel one line at a time straight from a byte buffer.
+// the current line is the CharSequence (one byte per character, the input is
+// ascii) and its fields are the runs between separators (comma, semicolon,
+// space, tab). empty lines and lines starting with # are skipped.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+final class LineReader implements CharSequence
+{
+
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int MAX_FIELDS = 16;
+
+	private final ReadableByteChannel _channel;
+
+	private byte[] _buffer = new byte[BUFFER_SIZE];
+	private ByteBuffer _wrapper = ByteBuffer.wrap(_buffer);
+	private int _position;		// the first byte not returned yet
+	private int _limit;			// the end of the bytes read
+	private boolean _eof;
+
+	private int _lineStart;
+	private int _lineEnd;
+	private long _lineNumber;
+
+	// start/end (relative to the line) of each field
+	private final int[] _fieldStarts = new int[MAX_FIELDS];
+	private final int[] _fieldEnds = new int[MAX_FIELDS];
+	private int _fieldCount;
+
+	LineReader(ReadableByteChannel channel)
+	{
+		_channel = channel;
+	}
+
+	//
+	// moves to the next line with fields, false at the end of the input
+	//
+	boolean next() throws IOException
+	{
+		while (true)
+		{
+			if (!nextLine())
+				return false;
+
+			split();
+			if (_fieldCount > 0 && charAt(_fieldStarts[0]) != '#')
+				return true;
+		}
+	}
+
+	//
+	// the number of the current line (1 is the first line of the input)
+	//
+	long lineNumber()
+	{
+		return _lineNumber;
+	}
+
+	//
+	// the fields of the current line, MAX_FIELDS at most (the rest are ignored)
+	//
+	int fieldCount()
+	{
+		return _fieldCount;
+	}
+
+	int fieldStart(int field)
+	{
+		return _fieldStarts[field];
+	}
+
+	int fieldEnd(int field)
+	{
+		return _fieldEnds[field];
+	}
+
+	public int length()
+	{
+		return _lineEnd - _lineStart;
+	}
+
+	public char charAt(int index)
+	{
+		return (char)(_buffer[_lineStart + index] & 0xFF);
+	}
+
+	public CharSequence subSequence(int start, int end)
+	{
+		return toString().substring(start, end);
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder(length());
+		for (int i = 0; i < length(); i++)
+			sb.append(charAt(i));
+		return sb.toString();
+	}
+
+	private boolean nextLine() throws IOException
+	{
+		int scan = _position;
+
+		while (true)
+		{
+			for (; scan < _limit; scan++)
+			{
+				if (_buffer[scan] == '\n')
+				{
+					setLine(_position, scan);
+					_position = scan + 1;
+					return true;
+				}
+			}
+
+			if (_eof)
+			{
+				// the last line may have no line end
+				if (_position == _limit)
+					return false;
+
+				setLine(_position, _limit);
+				_position = _limit;
+				return true;
+			}
+
+			scan -= _position;
+			fill();
+		}
+	}
+
+	private void setLine(int start, int end)
+	{
+		if (end > start && _buffer[end - 1] == '\r')
+			end--;
+
+		_lineStart = start;
+		_lineEnd = end;
+		_lineNumber++;
+	}
+
+	//
+	// moves the bytes not returned yet to the start of the buffer (growing it for a very long line) and reads more
+	//
+	private void fill() throws IOException
+	{
+		int remaining = _limit - _position;
+
+		if (remaining == _buffer.length)
+		{
+			byte[] larger = new byte[_buffer.length * 2];
+			System.arraycopy(_buffer, _position, larger, 0, remaining);
+			_buffer = larger;
+			_wrapper = ByteBuffer.wrap(_buffer);
+		}
+		else if (_position > 0)
+		{
+			System.arraycopy(_buffer, _position, _buffer, 0, remaining);
+		}
+
+		_position = 0;
+		_limit = remaining;
+
+		_wrapper.limit(_buffer.length);
+		_wrapper.position(_limit);
+
+		int read = _channel.read(_wrapper);
+		if (read < 0)
+			_eof = true;
+		else
+			_limit += read;
+	}
+
+	private void split()
+	{
+		_fieldCount = 0;
+
+		int length = length();
+		int i = 0;
+		while (i < length && _fieldCount < MAX_FIELDS)
+		{
+			while (i < length && isSeparator(charAt(i)))
+				i++;
+			if (i == length)
+				break;
+
+			_fieldStarts[_fieldCount] = i;
+			while (i < length && !isSeparator(charAt(i)))
+				i++;
+			_fieldEnds[_fieldCount++] = i;
+		}
+	}
+
+	private static boolean isSeparator(char c)
+	{
+		return c == ',' || c == ';' || c == ' ' || c == '\t';
+	}
+
+}
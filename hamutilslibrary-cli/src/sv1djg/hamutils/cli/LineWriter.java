@@ -0,0 +1,98 @@
+//
+// writes the results to a channel through one byte buffer, without creating
+// a string per value. flush() must be called at the end.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import sv1djg.hamutils.locator.LocatorCode;
+
+final class LineWriter
+{
+
+	private final WritableByteChannel _channel;
+	private final ByteBuffer _buffer = ByteBuffer.allocate(LineReader.BUFFER_SIZE);
+
+	private IOException _error;
+
+	LineWriter(WritableByteChannel channel)
+	{
+		_channel = channel;
+	}
+
+	void write(char c)
+	{
+		if (!_buffer.hasRemaining())
+			drain();
+		_buffer.put((byte)c);
+	}
+
+	void write(CharSequence text)
+	{
+		for (int i = 0; i < text.length(); i++)
+			write(text.charAt(i));
+	}
+
+	void writeLocator(long code)
+	{
+		int length = LocatorCode.length(code);
+		for (int i = 0; i < length; i++)
+			write(LocatorCode.charAt(code, i));
+	}
+
+	void writeNumber(double value, int decimals)
+	{
+		Numbers.format(value, decimals, this);
+	}
+
+	void newLine()
+	{
+		write('\n');
+	}
+
+	//
+	// writes what is left in the buffer. the first write error (if any) is thrown here,
+	// so the per value methods need no throws clause
+	//
+	void flush() throws IOException
+	{
+		drain();
+		if (_error != null)
+			throw _error;
+	}
+
+	private void drain()
+	{
+		_buffer.flip();
+		try
+		{
+			while (_error == null && _buffer.hasRemaining())
+				_channel.write(_buffer);
+		}
+		catch (IOException e)
+		{
+			_error = e;
+		}
+		_buffer.clear();
+	}
+
+}
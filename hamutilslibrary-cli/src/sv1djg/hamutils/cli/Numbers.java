@@ -0,0 +1,171 @@
+//
+// parses and formats the numbers of the records without creating strings.
+// plain decimals (the usual coordinates) take a fast exact path, anything else
+// (exponents, very long fractions) falls back to Double.parseDouble().
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.cli;
+
+final class Numbers
+{
+
+	// the powers of ten that are exact doubles
+	private static final double[] POWERS = new double[23];
+
+	// the digits a long can take, and that a double holds exactly (below 2^53)
+	private static final int EXACT_DIGITS = 15;
+
+	static final int MAX_DECIMALS = 12;
+
+	// the largest scaled value (value * 10^decimals) that format() writes digit by digit
+	private static final double MAX_EXACT = 1e15;
+
+	private static final long[] SCALES = new long[MAX_DECIMALS + 1];
+
+	static
+	{
+		POWERS[0] = 1.0;
+		for (int i = 1; i < POWERS.length; i++)
+			POWERS[i] = POWERS[i - 1] * 10.0;
+
+		SCALES[0] = 1L;
+		for (int i = 1; i < SCALES.length; i++)
+			SCALES[i] = SCALES[i - 1] * 10L;
+	}
+
+	private Numbers()
+	{
+	}
+
+	//
+	// the number in text start .. end-1, NaN if it is not a number
+	//
+	static double parse(CharSequence text, int start, int end)
+	{
+		int i = start;
+		boolean negative = false;
+		if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+'))
+			negative = text.charAt(i++) == '-';
+
+		long mantissa = 0;
+		int seen = 0;
+		int digits = 0;
+		int decimals = 0;
+		boolean point = false;
+
+		for (; i < end; i++)
+		{
+			char c = text.charAt(i);
+			if (c >= '0' && c <= '9')
+			{
+				seen++;
+
+				// leading zeros do not count
+				if (mantissa != 0 || c != '0')
+					digits++;
+				if (digits > EXACT_DIGITS)
+					return slowParse(text, start, end);
+
+				mantissa = mantissa * 10 + (c - '0');
+				if (point)
+					decimals++;
+			}
+			else if (c == '.' && !point)
+			{
+				point = true;
+			}
+			else
+			{
+				return slowParse(text, start, end);
+			}
+		}
+
+		if (seen == 0)
+			return Double.NaN;
+
+		// many leading zeros after the point
+		if (decimals >= POWERS.length)
+			return slowParse(text, start, end);
+
+		// both are exact doubles, so the division is correctly rounded (the same as Double.parseDouble())
+		double value = mantissa / POWERS[decimals];
+		return negative ? -value : value;
+	}
+
+	//
+	// writes value rounded to decimals (0..MAX_DECIMALS) digits after the point, nothing for NaN
+	//
+	static void format(double value, int decimals, LineWriter out)
+	{
+		if (Double.isNaN(value))
+			return;
+
+		// only EXACT_DIGITS digits of the scaled value are exact. above that the last digits would be made up
+		// (and from about 9.2e18 Math.round() saturates at Long.MAX_VALUE), so those values are written as they are
+		double magnitude = Math.abs(value) * SCALES[decimals];
+		if (Double.isInfinite(value) || magnitude >= MAX_EXACT)
+		{
+			out.write(Double.toString(value));
+			return;
+		}
+
+		long scaled = Math.round(magnitude);
+		if (value < 0 && scaled != 0)
+			out.write('-');
+
+		writeDigits(scaled / SCALES[decimals], 1, out);
+		if (decimals > 0)
+		{
+			out.write('.');
+			writeDigits(scaled % SCALES[decimals], decimals, out);
+		}
+	}
+
+	//
+	// the digits of a non negative number, with leading zeros up to width
+	//
+	private static void writeDigits(long number, int width, LineWriter out)
+	{
+		int length = 1;
+		for (long n = number / 10; n != 0; n /= 10)
+			length++;
+
+		for (int i = length; i < width; i++)
+			out.write('0');
+
+		long divisor = 1;
+		for (int i = 1; i < length; i++)
+			divisor *= 10;
+
+		for (; divisor != 0; divisor /= 10)
+			out.write((char)('0' + (number / divisor) % 10));
+	}
+
+	private static double slowParse(CharSequence text, int start, int end)
+	{
+		try
+		{
+			return Double.parseDouble(text.subSequence(start, end).toString());
+		}
+		catch (NumberFormatException e)
+		{
+			return Double.NaN;
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+package sv1djg.hamutils.cli;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+
+import org.junit.Test;
+
+public class HamUtilsTest
+{
+
+    private String _output;
+    private String _errors;
+
+    @Test
+    public void testEncode() throws Exception
+    {
+	assertEquals(HamUtils.EXIT_OK, run("38.05737,23.79665\n-34.6268 -58.36955\r\n", "encode"));
+	assertEquals("KM18VB53\nGF05TI59\n", _output);
+
+	assertEquals(HamUtils.EXIT_OK, run("38.05737;23.79665", "encode", "-l", "4"));
+	assertEquals("KM18\n", _output);
+    }
+
+    @Test
+    public void testDecode() throws Exception
+    {
+	assertEquals(HamUtils.EXIT_OK, run("KM18\nkm18vb\n", "decode", "-p", "3"));
+	assertEquals("38.500,23.000\n38.062,23.792\n", _output);
+    }
+
+    @Test
+    public void testDistanceAndBearing() throws Exception
+    {
+	assertEquals(HamUtils.EXIT_OK, run("38.05737 23.79665 38.01686 23.80057\n", "distance", "-p", "3"));
+	assertEquals("4.518\n", _output);
+
+	// a locator and a pair of coordinates
+	assertEquals(HamUtils.EXIT_OK, run("KM18 38.5 25.0\n", "bearing", "-p", "1"));
+	assertEquals("89.4\n", _output);
+    }
+
+    @Test
+    public void testCommentsAndInvalidRecords() throws Exception
+    {
+	String input = "# latitude longitude\n\n38.05737,23.79665\n91.0,23.0\nxyz\n38.05737,23.79665,1\n51.50484,-0.11367";
+	assertEquals(HamUtils.EXIT_INVALID_RECORDS, run(input, "encode", "-l", "6"));
+
+	// one line per record, empty for the invalid ones
+	assertEquals("KM18VB\n\n\n\nIO91WM\n", _output);
+	assertTrue(_errors.contains("3 invalid"));
+
+	// where they are, the comment and the empty line count as lines too
+	assertTrue(_errors.contains("<stdin>:4: invalid record"));
+	assertTrue(_errors.contains("<stdin>:5: invalid record"));
+	assertTrue(_errors.contains("<stdin>:6: invalid record"));
+    }
+
+    @Test
+    public void testLongLines() throws Exception
+    {
+	// a line longer than the buffer, and many lines that cross its end
+	StringBuilder input = new StringBuilder();
+	StringBuilder expected = new StringBuilder();
+	for (int i = 0; i < LineReader.BUFFER_SIZE; i++)
+	    input.append(' ');
+	input.append("KM18\n");
+	expected.append("38.5,23.0\n");
+	for (int i = 0; i < 20000; i++)
+	{
+	    input.append("IO91\n");
+	    expected.append("51.5,-1.0\n");
+	}
+
+	assertEquals(HamUtils.EXIT_OK, run(input.toString(), "decode", "-p", "1"));
+	assertEquals(expected.toString(), _output);
+    }
+
+    @Test
+    public void testFiles() throws Exception
+    {
+	File first = File.createTempFile("hamutils", ".txt");
+	File second = File.createTempFile("hamutils", ".txt");
+	try
+	{
+	    write(first, "KM18\n");
+	    write(second, "IO91\n");
+
+	    assertEquals(HamUtils.EXIT_OK, run("", "decode", "-p", "0", first.getPath(), second.getPath()));
+	    assertEquals("39,23\n52,-1\n", _output);
+
+	    // an unreadable file is an i/o error, the results of the files before it are still written
+	    assertEquals(HamUtils.EXIT_IO_ERROR, run("", "decode", "-p", "0", first.getPath(), first.getPath() + ".missing"));
+	    assertEquals("39,23\n", _output);
+	    assertTrue(_errors.contains(".missing"));
+	}
+	finally
+	{
+	    first.delete();
+	    second.delete();
+	}
+    }
+
+    @Test
+    public void testFewInvalidRecordsReported() throws Exception
+    {
+	StringBuilder input = new StringBuilder();
+	for (int i = 0; i < 50; i++)
+	    input.append("XX99\n");
+
+	assertEquals(HamUtils.EXIT_INVALID_RECORDS, run(input.toString(), "decode"));
+	assertTrue(_errors.contains("<stdin>:" + HamUtils.REPORTED_INVALID_RECORDS + ": invalid record"));
+	assertFalse(_errors.contains("<stdin>:" + (HamUtils.REPORTED_INVALID_RECORDS + 1) + ":"));
+	assertTrue(_errors.contains("50 invalid"));
+    }
+
+    @Test
+    public void testUsage() throws Exception
+    {
+	assertEquals(HamUtils.EXIT_USAGE, run(""));
+	assertEquals(HamUtils.EXIT_USAGE, run("", "convert"));
+	assertEquals(HamUtils.EXIT_USAGE, run("", "encode", "-l", "5"));
+	assertEquals(HamUtils.EXIT_USAGE, run("", "encode", "-p", "3"));
+	assertEquals(HamUtils.EXIT_USAGE, run("", "decode", "-p"));
+	assertTrue(_errors.contains("usage"));
+    }
+
+    private int run(String input, String... args) throws Exception
+    {
+	ByteArrayOutputStream output = new ByteArrayOutputStream();
+	ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+	int exitCode = HamUtils.run(args, Channels.newChannel(new ByteArrayInputStream(input.getBytes("US-ASCII"))),
+		Channels.newChannel(output), new PrintStream(errors, true, "US-ASCII"));
+
+	_output = output.toString("US-ASCII");
+	_errors = errors.toString("US-ASCII");
+	return exitCode;
+    }
+
+    private static void write(File file, String text) throws Exception
+    {
+	FileOutputStream out = new FileOutputStream(file);
+	try
+	{
+	    out.write(text.getBytes("US-ASCII"));
+	}
+	finally
+	{
+	    out.close();
+	}
+    }
+
+}
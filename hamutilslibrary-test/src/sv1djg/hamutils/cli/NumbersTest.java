@@ -0,0 +1,94 @@
+package sv1djg.hamutils.cli;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class NumbersTest
+{
+
+    @Test
+    public void testParse()
+    {
+	assertEquals(38.05737, parse("38.05737"), 0.0);
+	assertEquals(-58.36955, parse("-58.36955"), 0.0);
+	assertEquals(23.0, parse("+23"), 0.0);
+	assertEquals(0.5, parse(".5"), 0.0);
+	assertEquals(12.0, parse("12."), 0.0);
+	assertEquals(-0.0, parse("-0"), 0.0);
+
+	// the slow path
+	assertEquals(1.5e-3, parse("1.5e-3"), 0.0);
+	assertEquals(0.12345678901234567, parse("0.12345678901234567"), 0.0);
+	assertEquals(1e-30, parse("0.000000000000000000000000000001"), 0.0);
+
+	assertTrue(Double.isNaN(parse("")));
+	assertTrue(Double.isNaN(parse("-")));
+	assertTrue(Double.isNaN(parse(".")));
+	assertTrue(Double.isNaN(parse("1.2.3")));
+	assertTrue(Double.isNaN(parse("KM18")));
+    }
+
+    @Test
+    public void testParseSameAsParseDouble()
+    {
+	Random random = new Random(24);
+	for (int i = 0; i < 10000; i++)
+	{
+	    String text = String.format("%." + random.nextInt(10) + "f", random.nextDouble() * 360.0 - 180.0);
+	    assertEquals(text, Double.parseDouble(text), parse(text), 0.0);
+	}
+    }
+
+    @Test
+    public void testParsePartOfText()
+    {
+	String text = "38.05737,23.79665";
+	assertEquals(38.05737, Numbers.parse(text, 0, 8), 0.0);
+	assertEquals(23.79665, Numbers.parse(text, 9, text.length()), 0.0);
+    }
+
+    @Test
+    public void testFormat()
+    {
+	assertEquals("38.057370", format(38.05737, 6));
+	assertEquals("-58.370", format(-58.36955, 3));
+	assertEquals("24", format(23.5, 0));
+	assertEquals("0.00", format(-0.001, 2));
+	assertEquals("0.05", format(0.05, 2));
+	assertEquals("2388.864683", format(2388.8646834, 6));
+	assertEquals("123.250000000000", format(123.25, 12));
+
+	// too many digits for the fixed decimals, written as Double.toString() does
+	assertEquals("9300000.5", format(9300000.5, 12));
+	assertEquals("-2.00150865E7", format(-20015086.5, 12));
+	assertEquals("1.0E20", format(1e20, 0));
+	assertEquals("", format(Double.NaN, 6));
+    }
+
+    private static double parse(String text)
+    {
+	return Numbers.parse(text, 0, text.length());
+    }
+
+    private static String format(double value, int decimals)
+    {
+	try
+	{
+	    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	    LineWriter writer = new LineWriter(Channels.newChannel(bytes));
+	    Numbers.format(value, decimals, writer);
+	    writer.flush();
+	    return bytes.toString("US-ASCII");
+	}
+	catch (Exception e)
+	{
+	    throw new AssertionError(e);
+	}
+    }
+
+}
@@ -0,0 +1,169 @@
+package sv1djg.hamutils.datasets;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class DatasetReaderTest
+{
+
+    private static final int ROWS = 10000;
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+	double[] latitudes = new double[ROWS];
+	double[] longitudes = new double[ROWS];
+	DatasetReader reader = DatasetReader.of(ByteBuffer.wrap(write(new Random(20), latitudes, longitudes, 6, 1000)));
+
+	assertEquals(ROWS, reader.size());
+	assertEquals(6, reader.getLocatorLength());
+	assertEquals(10, reader.getBlockCount());
+
+	DatasetReader.Cursor cursor = reader.cursor();
+	assertEquals(-1, cursor.row());
+	for (int i = 0; i < ROWS; i++)
+	{
+	    assertTrue(cursor.next());
+	    assertEquals(i, cursor.row());
+	    assertEquals(latitudes[i], cursor.latitude(), 0.0000005);
+	    assertEquals(longitudes[i], cursor.longitude(), 0.0000005);
+	    assertEquals(LocatorEncoder.encode(latitudes[i], longitudes[i], 6), cursor.locator());
+	}
+	assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testSeekAndRead() throws Exception
+    {
+	double[] latitudes = new double[ROWS];
+	double[] longitudes = new double[ROWS];
+	DatasetReader reader = DatasetReader.of(ByteBuffer.wrap(write(new Random(3), latitudes, longitudes, 8, 256)));
+
+	DatasetReader.Cursor cursor = reader.cursor();
+	for (int row : new int[] { 0, 255, 256, 257, 5000, ROWS - 1 })
+	{
+	    cursor.seek(row);
+	    assertTrue(cursor.next());
+	    assertEquals(row, cursor.row());
+	    assertEquals(latitudes[row], cursor.latitude(), 0.0000005);
+	}
+
+	cursor.seek(ROWS);
+	assertFalse(cursor.next());
+
+	double[] readLatitudes = new double[110];
+	double[] readLongitudes = new double[110];
+	long[] locators = new long[110];
+	assertEquals(100, reader.read(ROWS - 100, readLatitudes, readLongitudes, locators, 10, 200));
+	assertEquals(longitudes[ROWS - 1], readLongitudes[109], 0.0000005);
+	assertEquals(LocatorEncoder.encode(latitudes[ROWS - 100], longitudes[ROWS - 100]), locators[10]);
+    }
+
+    @Test
+    public void testForEachWithin() throws Exception
+    {
+	double[] latitudes = new double[ROWS];
+	double[] longitudes = new double[ROWS];
+	DatasetReader reader = DatasetReader.of(ByteBuffer.wrap(write(new Random(8), latitudes, longitudes, 8, 100)));
+
+	final List<Integer> found = new ArrayList<Integer>();
+	DatasetReader.Visitor collector = new DatasetReader.Visitor()
+	{
+	    public void visit(int row, double latitude, double longitude, long locator)
+	    {
+		assertTrue(LocatorCode.isValid(locator));
+		found.add(row);
+	    }
+	};
+
+	// across the antimeridian
+	int visited = reader.forEachWithin(-20.0, 170.0, 20.0, -170.0, collector);
+
+	List<Integer> expected = new ArrayList<Integer>();
+	for (int i = 0; i < ROWS; i++)
+	{
+	    double latitude = Math.round(latitudes[i] * 1000000.0) / 1000000.0;
+	    double longitude = Math.round(longitudes[i] * 1000000.0) / 1000000.0;
+	    if (latitude >= -20.0 && latitude <= 20.0 && (longitude >= 170.0 || longitude <= -170.0))
+		expected.add(i);
+	}
+	assertEquals(expected, found);
+	assertEquals(expected.size(), visited);
+    }
+
+    @Test
+    public void testMappedFile() throws Exception
+    {
+	double[] latitudes = new double[ROWS];
+	double[] longitudes = new double[ROWS];
+	File file = File.createTempFile("dataset", ".bin");
+	file.deleteOnExit();
+
+	DatasetWriter writer = new DatasetWriter(file);
+	for (int i = 0; i < 100; i++)
+	    writer.add(i * 0.5, i * -1.5);
+	writer.close();
+
+	DatasetReader reader = DatasetReader.map(file);
+	assertEquals(100, reader.size());
+	assertEquals(100, reader.read(0, latitudes, longitudes, null, 0, 100));
+	assertEquals(49.5, latitudes[99], 0.0);
+	assertEquals(-148.5, longitudes[99], 0.0);
+    }
+
+    @Test
+    public void testEmpty() throws Exception
+    {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	new DatasetWriter(bytes).close();
+
+	DatasetReader reader = DatasetReader.of(ByteBuffer.wrap(bytes.toByteArray()));
+	assertEquals(0, reader.size());
+	assertEquals(0, reader.getBlockCount());
+	assertFalse(reader.cursor().next());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNotADataset()
+    {
+	DatasetReader.of(ByteBuffer.wrap(new byte[100]));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testTruncated() throws Exception
+    {
+	byte[] bytes = write(new Random(1), new double[ROWS], new double[ROWS], 8, 1000);
+	ByteBuffer buffer = ByteBuffer.wrap(bytes);
+	// the start of the file missing
+	buffer.position(16);
+	DatasetReader.of(buffer);
+    }
+
+    private static byte[] write(Random random, double[] latitudes, double[] longitudes, int locatorLength, int blockSize) throws Exception
+    {
+	for (int i = 0; i < latitudes.length; i++)
+	{
+	    latitudes[i] = random.nextDouble() * 180.0 - 90.0;
+	    longitudes[i] = random.nextDouble() * 360.0 - 180.0;
+	}
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DatasetWriter writer = new DatasetWriter(bytes, locatorLength, blockSize);
+	writer.addAll(latitudes, longitudes, 0, latitudes.length);
+	writer.close();
+
+	return bytes.toByteArray();
+    }
+
+}
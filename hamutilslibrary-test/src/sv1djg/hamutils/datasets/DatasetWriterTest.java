@@ -0,0 +1,112 @@
+package sv1djg.hamutils.datasets;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.locator.GridLocator;
+
+public class DatasetWriterTest
+{
+
+    @Test
+    public void testSameLocatorsAsGridLocator() throws Exception
+    {
+	double[] latitudes = { 38.05737, -34.6268, 51.50484, 90.0, -90.0, 0.0 };
+	double[] longitudes = { 23.79665, -58.36955, -0.11367, 180.0, -180.0, 0.0 };
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DatasetWriter writer = new DatasetWriter(bytes);
+	writer.addAll(latitudes, longitudes, 0, latitudes.length);
+	writer.close();
+
+	DatasetReader.Cursor cursor = DatasetReader.of(ByteBuffer.wrap(bytes.toByteArray())).cursor();
+	StringBuilder sb = new StringBuilder();
+	for (int i = 0; i < latitudes.length; i++)
+	{
+	    assertTrue(cursor.next());
+	    sb.setLength(0);
+	    cursor.appendLocator(sb);
+	    assertEquals(new GridLocator(latitudes[i], longitudes[i]).getLocator(), sb.toString());
+	}
+	assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testLocatorFromUnroundedCoordinates() throws Exception
+    {
+	// a millionth of a degree inside JN, rounding the coordinates would put it in KN
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DatasetWriter writer = new DatasetWriter(bytes, 2, 16);
+	writer.add(45.0, 19.9999999);
+	writer.close();
+
+	DatasetReader.Cursor cursor = DatasetReader.of(ByteBuffer.wrap(bytes.toByteArray())).cursor();
+	assertTrue(cursor.next());
+	assertEquals(20.0, cursor.longitude(), 0.0);
+	StringBuilder sb = new StringBuilder();
+	cursor.appendLocator(sb);
+	assertEquals("JN", sb.toString());
+    }
+
+    @Test
+    public void testSmallerThanText() throws Exception
+    {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DatasetWriter writer = new DatasetWriter(bytes);
+	StringBuilder text = new StringBuilder();
+
+	// a station list sorted by locator, as they usually are
+	for (int i = 0; i < 10000; i++)
+	{
+	    double latitude = 35.0 + (i / 100) * 0.25;
+	    double longitude = -10.0 + (i % 100) * 0.4;
+	    writer.add(latitude, longitude);
+	    text.append(latitude).append(',').append(longitude).append(',').append(new GridLocator(latitude, longitude).getLocator()).append('\n');
+	}
+	writer.close();
+
+	assertEquals(10000, writer.size());
+	assertTrue(bytes.size() * 3 < text.length());
+    }
+
+    @Test
+    public void testInvalidRowsAreNotAdded() throws Exception
+    {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	DatasetWriter writer = new DatasetWriter(bytes);
+
+	try
+	{
+	    writer.addAll(new double[] { 10.0, Double.NaN }, new double[] { 10.0, 10.0 }, 0, 2);
+	    fail("NaN was added");
+	}
+	catch (IllegalArgumentException e)
+	{
+	}
+	assertEquals(0, writer.size());
+
+	writer.add(10.0, 10.0);
+	writer.close();
+	assertEquals(1, DatasetReader.of(ByteBuffer.wrap(bytes.toByteArray())).size());
+    }
+
+    @Test(expected=IOException.class)
+    public void testAddAfterClose() throws Exception
+    {
+	DatasetWriter writer = new DatasetWriter(new ByteArrayOutputStream());
+	writer.close();
+	writer.add(10.0, 10.0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidLocatorLength() throws Exception
+    {
+	new DatasetWriter(new ByteArrayOutputStream(), 7, 16);
+    }
+
+}
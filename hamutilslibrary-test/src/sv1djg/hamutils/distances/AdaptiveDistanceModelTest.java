@@ -0,0 +1,90 @@
+package sv1djg.hamutils.distances;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public class AdaptiveDistanceModelTest
+{
+
+    @Test
+    public void testSphericalModels()
+    {
+	DistanceModel haversine = new HaversineModel();
+	DistanceModel cosines = new SphericalCosinesModel();
+
+	assertEquals(2388.864683, haversine.distance(38.05737, 23.79665, 51.50484, -0.11367), 0.00001);
+	assertEquals(2388.864683, cosines.distance(38.05737, 23.79665, 51.50484, -0.11367), 0.00001);
+	assertEquals(DistanceCaclulator.bearingTo(38.05737, 23.79665, 51.50484, -0.11367), cosines.bearing(38.05737, 23.79665, 51.50484, -0.11367), 0.0);
+	assertEquals(0.0, cosines.distance(38.05737, 23.79665, 38.05737, 23.79665), 0.0);
+    }
+
+    @Test
+    public void testWithinTolerance()
+    {
+	VincentyModel ellipsoid = new VincentyModel();
+	Random random = new Random(8);
+
+	double[] tolerances = { 0.001, 1.0, 20.0 };
+	for (double tolerance : tolerances)
+	{
+	    AdaptiveDistanceModel model = new AdaptiveDistanceModel(tolerance, 0.25);
+
+	    for (int i = 0; i < 20000; i++)
+	    {
+		double fromLatitude = Math.toDegrees(Math.asin(2.0 * random.nextDouble() - 1.0));
+		double fromLongitude = random.nextDouble() * 360.0 - 180.0;
+		double toLatitude = Math.max(-90.0, Math.min(90.0, fromLatitude + random.nextGaussian() * 20.0));
+		double toLongitude = fromLongitude + random.nextGaussian() * 40.0;
+
+		double exact = ellipsoid.distance(fromLatitude, fromLongitude, toLatitude, toLongitude);
+		assertEquals(exact, model.distance(fromLatitude, fromLongitude, toLatitude, toLongitude), tolerance);
+
+		double bearing = Math.abs(ellipsoid.bearing(fromLatitude, fromLongitude, toLatitude, toLongitude)
+			- model.bearing(fromLatitude, fromLongitude, toLatitude, toLongitude));
+		if (exact > 0.01)
+		    assertTrue(Math.min(bearing, 360.0 - bearing) <= 0.25);
+
+		double heading = random.nextDouble() * 360.0;
+		CoordinateSet expected = ellipsoid.targetAtBearingDistance(fromLatitude, fromLongitude, heading, exact);
+		CoordinateSet target = model.targetAtBearingDistance(fromLatitude, fromLongitude, heading, exact);
+		assertTrue(ellipsoid.distance(expected.getLatitude(), expected.getLongitude(), target.getLatitude(), target.getLongitude()) <= tolerance);
+	    }
+	}
+    }
+
+    @Test
+    public void testOnlyLongPathsIterate()
+    {
+	final int[] calls = new int[1];
+	AdaptiveDistanceModel model = new AdaptiveDistanceModel(1.0, 0.0, new VincentyModel.IterationListener()
+	{
+	    public void iterations(int count, boolean converged)
+	    {
+		calls[0]++;
+	    }
+	});
+
+	// 4.5 Km is within 1 Km whatever the model
+	model.distance(38.05737, 23.79665, 38.01686, 23.80057);
+	assertEquals(0, calls[0]);
+
+	model.distance(38.05737, 23.79665, 51.50484, -0.11367);
+	assertEquals(1, calls[0]);
+
+	// a zero bearing tolerance always needs the ellipsoid
+	model.bearing(38.05737, 23.79665, 38.01686, 23.80057);
+	assertEquals(2, calls[0]);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeTolerance()
+    {
+	new AdaptiveDistanceModel(-1.0, 0.0);
+    }
+
+}
@@ -0,0 +1,143 @@
+package sv1djg.hamutils.distances;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ApproximateDistancesTest
+{
+
+    private static final int CASES = 400000;
+
+    //
+    // random pairs of points of every kind: anywhere, short paths, a few degrees apart, nearly antipodal,
+    // across the antimeridian and around the poles
+    //
+    private static double[] randomPair(Random random, int kind)
+    {
+	double fromLatitude = Math.toDegrees(Math.asin(2.0 * random.nextDouble() - 1.0));
+	double fromLongitude = random.nextDouble() * 360.0 - 180.0;
+	double toLatitude;
+	double toLongitude;
+
+	switch (kind)
+	{
+	case 0:
+	    toLatitude = Math.toDegrees(Math.asin(2.0 * random.nextDouble() - 1.0));
+	    toLongitude = random.nextDouble() * 360.0 - 180.0;
+	    break;
+	case 1:
+	    toLatitude = fromLatitude + random.nextGaussian() * 0.2;
+	    toLongitude = fromLongitude + random.nextGaussian() * 0.2;
+	    break;
+	case 2:
+	    toLatitude = fromLatitude + random.nextGaussian() * 3.0;
+	    toLongitude = fromLongitude + random.nextGaussian() * 3.0;
+	    break;
+	case 3:
+	    toLatitude = -fromLatitude + random.nextGaussian() * 0.2;
+	    toLongitude = fromLongitude + 180.0 + random.nextGaussian() * 0.2;
+	    break;
+	case 4:
+	    fromLongitude = 179.9 + random.nextDouble() * 0.1;
+	    toLatitude = fromLatitude + random.nextGaussian() * 0.2;
+	    toLongitude = -179.9 - random.nextDouble() * 0.1;
+	    break;
+	default:
+	    fromLatitude = 89.0 + random.nextDouble();
+	    toLatitude = 89.0 + random.nextDouble();
+	    toLongitude = random.nextDouble() * 360.0 - 180.0;
+	    break;
+	}
+
+	toLatitude = Math.max(-90.0, Math.min(90.0, toLatitude));
+	if (toLongitude > 180.0)
+	    toLongitude -= 360.0;
+	if (toLongitude < -180.0)
+	    toLongitude += 360.0;
+
+	return new double[] { fromLatitude, fromLongitude, toLatitude, toLongitude };
+    }
+
+    @Test
+    public void testDistanceError()
+    {
+	Random random = new Random(2011);
+
+	for (int i = 0; i < CASES; i++)
+	{
+	    double[] p = randomPair(random, i % 6);
+
+	    double exact = DistanceCaclulator.distanceFrom(p[0], p[1], p[2], p[3]);
+	    double approximate = ApproximateDistances.distanceFrom(p[0], p[1], p[2], p[3]);
+
+	    assertEquals("distance of " + p[0] + "," + p[1] + " " + p[2] + "," + p[3], exact, approximate, ApproximateDistances.MAX_DISTANCE_ERROR_KM);
+	}
+    }
+
+    @Test
+    public void testBearingError()
+    {
+	Random random = new Random(1);
+
+	for (int i = 0; i < CASES; i++)
+	{
+	    double[] p = randomPair(random, i % 6);
+
+	    // the bearing of a point on top of another means nothing
+	    if (DistanceCaclulator.distanceFrom(p[0], p[1], p[2], p[3]) < 0.01)
+		continue;
+
+	    double exact = DistanceCaclulator.bearingTo(p[0], p[1], p[2], p[3]);
+	    double approximate = ApproximateDistances.bearingTo(p[0], p[1], p[2], p[3]);
+
+	    double difference = Math.abs(exact - approximate);
+	    difference = Math.min(difference, 360.0 - difference);
+
+	    assertTrue("bearing of " + p[0] + "," + p[1] + " " + p[2] + "," + p[3] + " is off by " + difference,
+		    difference <= ApproximateDistances.MAX_BEARING_ERROR_DEGREES);
+	    assertTrue(approximate >= 0.0 && approximate < 360.0);
+	}
+    }
+
+    @Test
+    public void testIsWithinIsExact()
+    {
+	Random random = new Random(77);
+
+	for (int i = 0; i < CASES; i++)
+	{
+	    double[] p = randomPair(random, i % 6);
+	    double exact = DistanceCaclulator.distanceFrom(p[0], p[1], p[2], p[3]);
+
+	    // limits around the distance itself, where the approximation can not decide alone
+	    double limit = i % 2 == 0 ? exact + random.nextGaussian() * 0.3 : random.nextDouble() * 20000.0;
+
+	    assertEquals(exact <= limit, ApproximateDistances.isWithin(p[0], p[1], p[2], p[3], limit));
+	}
+    }
+
+    @Test
+    public void testTrigonometry()
+    {
+	Random random = new Random(9);
+
+	for (int i = 0; i < CASES; i++)
+	{
+	    double x = (random.nextDouble() - 0.5) * 8 * Math.PI;
+	    assertEquals(Math.sin(x), ApproximateDistances.sin(x), 0.000000001);
+	    assertEquals(Math.cos(x), ApproximateDistances.cos(x), 0.000000001);
+
+	    double y = random.nextGaussian();
+	    double z = random.nextGaussian();
+	    assertEquals(Math.atan2(y, z), ApproximateDistances.atan2(y, z), 0.00002);
+	}
+
+	assertEquals(0.0, ApproximateDistances.atan2(0.0, 0.0), 0.0);
+	assertEquals(Math.PI, ApproximateDistances.atan2(0.0, -1.0), 0.00001);
+	assertEquals(-Math.PI / 2, ApproximateDistances.atan2(-1.0, 0.0), 0.00001);
+    }
+
+}
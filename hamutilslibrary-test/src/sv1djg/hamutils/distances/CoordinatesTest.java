@@ -0,0 +1,52 @@
+package sv1djg.hamutils.distances;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public class CoordinatesTest
+{
+
+    @Test
+    public void testValue()
+    {
+	Coordinates athens = new Coordinates(38.05737, 23.79665);
+	assertEquals(athens, new Coordinates(38.05737, 23.79665));
+	assertEquals(athens.hashCode(), new Coordinates(38.05737, 23.79665).hashCode());
+	assertFalse(athens.equals(new Coordinates(23.79665, 38.05737)));
+	assertEquals(new Coordinates(Double.NaN, 0.0), new Coordinates(Double.NaN, 0.0));
+
+	Set<Coordinates> set = new HashSet<Coordinates>();
+	set.add(athens);
+	set.add(new Coordinates(38.05737, 23.79665));
+	assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testCoordinateSet()
+    {
+	Coordinates athens = new Coordinates(38.05737, 23.79665);
+	CoordinateSet set = athens.toCoordinateSet();
+	set.setLatitude(0.0);
+
+	// the copy can change, the value can not
+	assertEquals(38.05737, athens.getLatitude(), 0.0);
+	assertEquals(new Coordinates(0.0, 23.79665), Coordinates.of(set));
+    }
+
+    @Test
+    public void testDistance()
+    {
+	Coordinates athens = new Coordinates(38.05737, 23.79665);
+	Coordinates london = new Coordinates(51.50484, -0.11367);
+
+	assertEquals(2388.864683, athens.distanceTo(london), 0.00001);
+	assertEquals(DistanceCaclulator.bearingTo(38.05737, 23.79665, 51.50484, -0.11367), athens.bearingTo(london), 0.0);
+    }
+
+}
@@ -2,6 +2,8 @@ package sv1djg.hamutils.distances;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
@@ -71,4 +73,78 @@ public class DistanceCaclulatorTest
 	assertEquals(11.724257,targetPointCoords.getLongitude(), 0.00001);
     }
 
+    @Test
+    public void testDistancesFromBatch()
+    {
+	Random random = new Random(38);
+	int count = 10000;
+	double[] latitudes = randomLatitudes(random, count);
+	double[] longitudes = randomLongitudes(random, count);
+	double[] distances = new double[count];
+
+	DistanceCaclulator.distancesFrom(38.05737, 23.79665, latitudes, longitudes, distances, 0, count);
+
+	for (int i = 0; i < count; i++)
+	    assertEquals(DistanceCaclulator.distanceFrom(38.05737, 23.79665, latitudes[i], longitudes[i]), distances[i], 0.000000001);
+    }
+
+    @Test
+    public void testDistancesFromBatchPairs()
+    {
+	Random random = new Random(23);
+	int count = 10000;
+	double[] fromLatitudes = randomLatitudes(random, count);
+	double[] fromLongitudes = randomLongitudes(random, count);
+	double[] toLatitudes = randomLatitudes(random, count);
+	double[] toLongitudes = randomLongitudes(random, count);
+	double[] distances = new double[count];
+
+	// only the middle of the arrays is calculated
+	DistanceCaclulator.distancesFrom(fromLatitudes, fromLongitudes, toLatitudes, toLongitudes, distances, 100, count - 200);
+
+	for (int i = 0; i < count; i++)
+	{
+	    if (i < 100 || i >= count - 100)
+		assertEquals(0.0, distances[i], 0.0);
+	    else
+		assertEquals(DistanceCaclulator.distanceFrom(fromLatitudes[i], fromLongitudes[i], toLatitudes[i], toLongitudes[i]), distances[i], 0.000000001);
+	}
+    }
+
+    @Test
+    public void testBearingsToBatch()
+    {
+	Random random = new Random(175);
+	int count = 10000;
+	double[] fromLatitudes = randomLatitudes(random, count);
+	double[] fromLongitudes = randomLongitudes(random, count);
+	double[] toLatitudes = randomLatitudes(random, count);
+	double[] toLongitudes = randomLongitudes(random, count);
+	double[] bearings = new double[count];
+
+	DistanceCaclulator.bearingsTo(-34.6268, -58.36955, toLatitudes, toLongitudes, bearings, 0, count);
+	for (int i = 0; i < count; i++)
+	    assertEquals(DistanceCaclulator.bearingTo(-34.6268, -58.36955, toLatitudes[i], toLongitudes[i]), bearings[i], 0.000000001);
+
+	DistanceCaclulator.bearingsTo(fromLatitudes, fromLongitudes, toLatitudes, toLongitudes, bearings, 0, count);
+	for (int i = 0; i < count; i++)
+	    assertEquals(DistanceCaclulator.bearingTo(fromLatitudes[i], fromLongitudes[i], toLatitudes[i], toLongitudes[i]), bearings[i], 0.000000001);
+    }
+
+    private static double[] randomLatitudes(Random random, int count)
+    {
+	double[] latitudes = new double[count];
+	for (int i = 0; i < count; i++)
+	    latitudes[i] = random.nextDouble() * 180.0 - 90.0;
+	return latitudes;
+    }
+
+    private static double[] randomLongitudes(Random random, int count)
+    {
+	double[] longitudes = new double[count];
+	for (int i = 0; i < count; i++)
+	    longitudes[i] = random.nextDouble() * 360.0 - 180.0;
+	return longitudes;
+    }
+
 }
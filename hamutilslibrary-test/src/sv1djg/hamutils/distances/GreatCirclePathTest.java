@@ -0,0 +1,236 @@
+package sv1djg.hamutils.distances;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class GreatCirclePathTest
+{
+
+    @Test
+    public void testWaypointsOnThePath()
+    {
+	Random random = new Random(13);
+	double[] latitudes = new double[101];
+	double[] longitudes = new double[101];
+
+	for (int i = 0; i < 2000; i++)
+	{
+	    double fromLatitude = random.nextDouble() * 180.0 - 90.0;
+	    double fromLongitude = random.nextDouble() * 360.0 - 180.0;
+	    double toLatitude = random.nextDouble() * 180.0 - 90.0;
+	    double toLongitude = random.nextDouble() * 360.0 - 180.0;
+
+	    GreatCirclePath path = new GreatCirclePath(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	    assertEquals(101, path.waypoints(101, latitudes, longitudes, 0));
+
+	    double bearing = DistanceCaclulator.bearingTo(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	    double step = path.getDistance() / 100;
+
+	    for (int k = 0; k <= 100; k++)
+	    {
+		DistanceCaclulator.CoordinateSet expected = DistanceCaclulator.targetAtBearingDistance(fromLatitude, fromLongitude, bearing, k * step);
+		double error = DistanceCaclulator.distanceFrom(expected.getLatitude(), expected.getLongitude(), latitudes[k], longitudes[k]);
+		assertTrue("waypoint " + k + " is " + error + " Km off", error < 0.00001);
+	    }
+
+	    assertEquals(fromLatitude, latitudes[0], 0.0);
+	    assertEquals(toLongitude, longitudes[100], 0.0);
+	}
+    }
+
+    @Test
+    public void testWaypointsEvery()
+    {
+	GreatCirclePath path = new GreatCirclePath(38.05737, 23.79665, 51.50484, -0.11367);
+	assertEquals(2388.864683, path.getDistance(), 0.00001);
+
+	// a waypoint every 100 Km and the end, 88.86 Km after the last one
+	assertEquals(25, path.waypointCountEvery(100.0));
+
+	final List<double[]> points = new ArrayList<double[]>();
+	assertEquals(25, path.waypointsEvery(100.0, new GreatCirclePath.WaypointVisitor()
+	{
+	    public void waypoint(int index, double latitude, double longitude, double distance)
+	    {
+		assertEquals(points.size(), index);
+		points.add(new double[] { latitude, longitude, distance });
+	    }
+	}));
+
+	for (int k = 1; k < points.size(); k++)
+	{
+	    double[] previous = points.get(k - 1);
+	    double[] point = points.get(k);
+	    double expected = k < points.size() - 1 ? 100.0 : 88.864683;
+	    assertEquals(expected, DistanceCaclulator.distanceFrom(previous[0], previous[1], point[0], point[1]), 0.00001);
+	    assertEquals(expected, point[2] - previous[2], 0.00001);
+	}
+
+	// an exact multiple of the step does not repeat the end
+	assertEquals(3, new GreatCirclePath(0.0, 0.0, 0.0, 2.0).waypointCountEvery(DistanceCaclulator.EARTH_RADIUS * Math.toRadians(1.0)));
+    }
+
+    @Test
+    public void testSquaresAlongTheEquator()
+    {
+	final List<String> squares = new ArrayList<String>();
+	final List<Double> entries = new ArrayList<Double>();
+	int count = new GreatCirclePath(0.5, 1.0, 0.5, 7.0).squares(4, new GreatCirclePath.SquareVisitor()
+	{
+	    public void square(long code, double distance)
+	    {
+		squares.add(LocatorCode.toString(code));
+		entries.add(distance);
+	    }
+	});
+
+	assertEquals(4, count);
+	assertEquals("JJ00", squares.get(0));
+	assertEquals("JJ10", squares.get(1));
+	assertEquals("JJ20", squares.get(2));
+	assertEquals("JJ30", squares.get(3));
+	assertEquals(0.0, entries.get(0), 0.0);
+	assertEquals(DistanceCaclulator.distanceFrom(0.5, 1.0, 0.5, 2.0), entries.get(1), 0.01);
+    }
+
+    @Test
+    public void testSquaresOverThePole()
+    {
+	final List<String> squares = new ArrayList<String>();
+	GreatCirclePath.SquareVisitor collector = new GreatCirclePath.SquareVisitor()
+	{
+	    public void square(long code, double distance)
+	    {
+		squares.add(LocatorCode.toString(code));
+	    }
+	};
+
+	// straight north over the pole and down the other side, the top row is crossed on both meridians
+	assertEquals(6, new GreatCirclePath(87.5, 1.0, 87.5, -179.0).squares(4, collector));
+	assertEquals(Arrays.asList("JR07", "JR08", "JR09", "AR09", "AR08", "AR07"), squares);
+
+	squares.clear();
+	assertEquals(6, new GreatCirclePath(-87.5, 1.0, -87.5, -179.0).squares(4, collector));
+	assertEquals(Arrays.asList("JA02", "JA01", "JA00", "AA00", "AA01", "AA02"), squares);
+    }
+
+    @Test
+    public void testSquaresMatchDenseSampling()
+    {
+	Random random = new Random(17);
+
+	for (int i = 0; i < 300; i++)
+	{
+	    double fromLatitude = random.nextDouble() * 180.0 - 90.0;
+	    double fromLongitude = random.nextDouble() * 360.0 - 180.0;
+	    double toLatitude = random.nextDouble() * 180.0 - 90.0;
+	    double toLongitude = random.nextDouble() * 360.0 - 180.0;
+	    int length = i % 3 == 0 ? 2 : 4;
+
+	    GreatCirclePath path = new GreatCirclePath(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	    final List<Long> squares = new ArrayList<Long>();
+	    path.squares(length, new GreatCirclePath.SquareVisitor()
+	    {
+		public void square(long code, double distance)
+		{
+		    squares.add(code);
+		}
+	    });
+
+	    assertEquals(LocatorEncoder.encode(fromLatitude, fromLongitude, length), squares.get(0).longValue());
+	    assertEquals(LocatorEncoder.encode(toLatitude, toLongitude, length), squares.get(squares.size() - 1).longValue());
+
+	    // every square seen by sampling the path every 2 Km is there, in the same order
+	    final List<Long> sampled = new ArrayList<Long>();
+	    final int sampleLength = length;
+	    path.waypointsEvery(2.0, new GreatCirclePath.WaypointVisitor()
+	    {
+		public void waypoint(int index, double latitude, double longitude, double distance)
+		{
+		    long code = LocatorEncoder.encode(latitude, longitude, sampleLength);
+		    if (sampled.isEmpty() || sampled.get(sampled.size() - 1) != code)
+			sampled.add(code);
+		}
+	    });
+
+	    int next = 0;
+	    for (Long code : sampled)
+	    {
+		while (next < squares.size() && !squares.get(next).equals(code))
+		    next++;
+		assertTrue("missing " + LocatorCode.toString(code), next < squares.size());
+	    }
+
+	    // and every square shares an edge or a corner with the one before it
+	    for (int k = 1; k < squares.size(); k++)
+	    {
+		long previous = squares.get(k - 1);
+		long square = squares.get(k);
+		int cells = LocatorCode.cellsPerAxis(length / 2);
+		int dlon = Math.abs(LocatorCode.longitudeIndex(square) - LocatorCode.longitudeIndex(previous));
+		int dlat = Math.abs(LocatorCode.latitudeIndex(square) - LocatorCode.latitudeIndex(previous));
+		assertTrue(Math.min(dlon, cells - dlon) <= 1 && dlat <= 1);
+	    }
+	}
+    }
+
+    @Test
+    public void testBetweenLocators()
+    {
+	GreatCirclePath path = GreatCirclePath.between("KM18VB", "IO91WM");
+	final List<String> squares = new ArrayList<String>();
+	path.squares(2, new GreatCirclePath.SquareVisitor()
+	{
+	    public void square(long code, double distance)
+	    {
+		squares.add(LocatorCode.toString(code));
+	    }
+	});
+
+	assertEquals("KM", squares.get(0));
+	assertEquals("IO", squares.get(squares.size() - 1));
+	assertTrue(squares.contains("JN"));
+    }
+
+    @Test
+    public void testSamePoint()
+    {
+	GreatCirclePath path = new GreatCirclePath(10.0, 20.0, 10.0, 20.0);
+	double[] latitudes = new double[3];
+	double[] longitudes = new double[3];
+
+	assertEquals(0.0, path.getDistance(), 0.0);
+	assertEquals(3, path.waypoints(3, latitudes, longitudes, 0));
+	assertEquals(10.0, latitudes[1], 0.000000001);
+	assertEquals(20.0, longitudes[1], 0.000000001);
+	assertEquals(1, path.waypointCountEvery(100.0));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testTooFewWaypoints()
+    {
+	new GreatCirclePath(0.0, 0.0, 1.0, 1.0).waypoints(1, new double[1], new double[1], 0);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testArraysTooSmall()
+    {
+	new GreatCirclePath(0.0, 0.0, 1.0, 1.0).waypoints(10, new double[5], new double[10], 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidLocator()
+    {
+	GreatCirclePath.between("KM18", "ZZ00");
+    }
+
+}
@@ -0,0 +1,80 @@
+package sv1djg.hamutils.distances;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+
+public class ObserverTest
+{
+
+    @Test
+    public void testSameAsDistanceCaclulator()
+    {
+	Random random = new Random(11);
+	Observer.Path path = new Observer.Path();
+
+	for (int i = 0; i < 10000; i++)
+	{
+	    double homeLatitude = random.nextDouble() * 180.0 - 90.0;
+	    double homeLongitude = random.nextDouble() * 360.0 - 180.0;
+	    double latitude = random.nextDouble() * 180.0 - 90.0;
+	    double longitude = random.nextDouble() * 360.0 - 180.0;
+
+	    Observer observer = new Observer(homeLatitude, homeLongitude);
+
+	    double distance = DistanceCaclulator.distanceFrom(homeLatitude, homeLongitude, latitude, longitude);
+	    double bearing = DistanceCaclulator.bearingTo(homeLatitude, homeLongitude, latitude, longitude);
+	    double reverse = DistanceCaclulator.bearingTo(latitude, longitude, homeLatitude, homeLongitude);
+
+	    assertEquals(distance, observer.distanceTo(latitude, longitude), 0.0);
+	    assertEquals(bearing, observer.bearingTo(latitude, longitude), 0.0);
+	    assertEquals(reverse, observer.reverseBearingFrom(latitude, longitude), 0.0);
+
+	    observer.pathTo(latitude, longitude, path);
+	    assertEquals(distance, path.getDistance(), 0.0);
+	    assertEquals(bearing, path.getBearing(), 0.0);
+	    assertEquals(reverse, path.getReverseBearing(), 0.000000001);
+	}
+    }
+
+    @Test
+    public void testLongPath()
+    {
+	Observer observer = new Observer(38.05737, 23.79665);
+	Observer.Path path = observer.pathTo(51.50484, -0.11367, new Observer.Path());
+
+	assertEquals(2388.864683, path.getDistance(), 0.00001);
+	assertEquals(40030.173592 - 2388.864683, path.getLongPathDistance(), 0.00001);
+	assertEquals((path.getBearing() + 180.0) % 360.0, path.getLongPathBearing(), 0.0);
+	assertTrue(path.getLongPathBearing() < 180.0);
+    }
+
+    @Test
+    public void testOfLocator()
+    {
+	Observer observer = Observer.ofLocator("km18vb");
+	long code = LocatorDecoder.decode("KM18VB");
+
+	assertEquals(LocatorCode.centreLatitude(code), observer.getLatitude(), 0.0);
+	assertEquals(LocatorCode.centreLongitude(code), observer.getLongitude(), 0.0);
+	assertEquals(0.0, observer.distanceTo(observer.getLatitude(), observer.getLongitude()), 0.0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidLocator()
+    {
+	Observer.ofLocator("ZZ99");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidCoordinates()
+    {
+	new Observer(Double.NaN, 0.0);
+    }
+
+}
@@ -0,0 +1,91 @@
+package sv1djg.hamutils.distances;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public class VincentyModelTest
+{
+
+    // the example of Vincenty's paper, Flinders Peak to Buninyong
+    private static final double FLINDERS_LATITUDE = -(37 + 57 / 60.0 + 3.72030 / 3600.0);
+    private static final double FLINDERS_LONGITUDE = 144 + 25 / 60.0 + 29.52440 / 3600.0;
+    private static final double BUNINYONG_LATITUDE = -(37 + 39 / 60.0 + 10.15610 / 3600.0);
+    private static final double BUNINYONG_LONGITUDE = 143 + 55 / 60.0 + 35.38390 / 3600.0;
+
+    @Test
+    public void testInverse()
+    {
+	VincentyModel model = new VincentyModel();
+
+	assertEquals(54.972271, model.distance(FLINDERS_LATITUDE, FLINDERS_LONGITUDE, BUNINYONG_LATITUDE, BUNINYONG_LONGITUDE), 0.000001);
+	assertEquals(306 + 52 / 60.0 + 5.37 / 3600.0, model.bearing(FLINDERS_LATITUDE, FLINDERS_LONGITUDE, BUNINYONG_LATITUDE, BUNINYONG_LONGITUDE), 0.00001);
+
+	// a quarter of the equator and a half meridian
+	assertEquals(Math.PI * VincentyModel.SEMI_MAJOR_AXIS / 2, model.distance(0.0, 0.0, 0.0, 90.0), 0.000001);
+	assertEquals(VincentyModel.HALF_MERIDIAN, model.distance(90.0, 0.0, -90.0, 0.0), 0.000001);
+
+	assertEquals(0.0, model.distance(38.05737, 23.79665, 38.05737, 23.79665), 0.0);
+    }
+
+    @Test
+    public void testDirect()
+    {
+	VincentyModel model = new VincentyModel();
+
+	CoordinateSet target = model.targetAtBearingDistance(FLINDERS_LATITUDE, FLINDERS_LONGITUDE, 306 + 52 / 60.0 + 5.37 / 3600.0, 54.972271);
+	assertEquals(BUNINYONG_LATITUDE, target.getLatitude(), 0.000001);
+	assertEquals(BUNINYONG_LONGITUDE, target.getLongitude(), 0.000001);
+    }
+
+    @Test
+    public void testDirectInverseRoundTrip()
+    {
+	VincentyModel model = new VincentyModel();
+	Random random = new Random(3);
+
+	for (int i = 0; i < 1000; i++)
+	{
+	    double latitude = random.nextDouble() * 160.0 - 80.0;
+	    double longitude = random.nextDouble() * 360.0 - 180.0;
+	    double bearing = random.nextDouble() * 360.0;
+	    double distance = random.nextDouble() * 15000.0;
+
+	    CoordinateSet target = model.targetAtBearingDistance(latitude, longitude, bearing, distance);
+
+	    assertEquals(distance, model.distance(latitude, longitude, target.getLatitude(), target.getLongitude()), 0.000001);
+	}
+    }
+
+    @Test
+    public void testIterationListener()
+    {
+	final int[] calls = new int[3];
+	VincentyModel model = new VincentyModel(new VincentyModel.IterationListener()
+	{
+	    public void iterations(int count, boolean converged)
+	    {
+		calls[0]++;
+		calls[1] += count;
+		if (!converged)
+		    calls[2]++;
+	    }
+	});
+
+	model.distance(38.05737, 23.79665, 51.50484, -0.11367);
+	assertEquals(1, calls[0]);
+	assertTrue(calls[1] > 1);
+	assertEquals(0, calls[2]);
+
+	// nearly antipodal points do not converge, the result is still close to the geodesic
+	double distance = model.distance(0.0, 0.0, 0.5, 179.7);
+	assertEquals(2, calls[0]);
+	assertEquals(1, calls[2]);
+	assertEquals(19980.0, distance, 50.0);
+    }
+
+}
@@ -0,0 +1,171 @@
+package sv1djg.hamutils.locator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class BulkLocatorEncoderTest
+{
+
+    private static final int ROWS = 100000;
+
+    private static class Station
+    {
+	double latitude;
+	double longitude;
+	long code;
+	byte status = -1;
+    }
+
+    @Test
+    public void testParallelMatchesEncoder()
+    {
+	double[] latitudes = new double[ROWS];
+	double[] longitudes = new double[ROWS];
+	int expectedInvalid = fill(new Random(12), latitudes, longitudes);
+
+	long[] codes = new long[ROWS];
+	byte[] status = new byte[ROWS];
+
+	ForkJoinPool pool = new ForkJoinPool(4);
+	assertEquals(expectedInvalid, BulkLocatorEncoder.encodeParallel(pool, latitudes, longitudes, 8, codes, status, 0, ROWS));
+	pool.shutdown();
+
+	for (int i = 0; i < ROWS; i++)
+	{
+	    assertEquals(LocatorEncoder.encode(latitudes[i], longitudes[i]), codes[i]);
+	    assertEquals(LocatorEncoder.validate(latitudes[i], longitudes[i]), status[i]);
+	}
+    }
+
+    @Test
+    public void testSequentialWithOffset()
+    {
+	double[] latitudes = { 0.0, 38.05737, 91.0, Double.NaN, 51.50484, 10.0 };
+	double[] longitudes = { 0.0, 23.79665, 0.0, 0.0, -0.11367, 181.0 };
+	long[] codes = new long[6];
+	byte[] status = new byte[6];
+
+	assertEquals(3, BulkLocatorEncoder.encode(latitudes, longitudes, 6, codes, status, 1, 5));
+
+	assertEquals(0, codes[0]);
+	assertEquals("KM18VB", LocatorCode.toString(codes[1]));
+	assertEquals(LocatorCode.INVALID, codes[2]);
+	assertEquals(LocatorEncoder.LATITUDE_OUT_OF_RANGE, status[2]);
+	assertEquals(LocatorEncoder.NOT_A_NUMBER, status[3]);
+	assertEquals("IO91WM", LocatorCode.toString(codes[4]));
+	assertEquals(LocatorEncoder.OK, status[4]);
+	assertEquals(LocatorEncoder.LONGITUDE_OUT_OF_RANGE, status[5]);
+    }
+
+    @Test
+    public void testParallelWithOffset()
+    {
+	double[] latitudes = new double[ROWS];
+	double[] longitudes = new double[ROWS];
+	fill(new Random(3), latitudes, longitudes);
+
+	long[] codes = new long[ROWS];
+	byte[] status = new byte[ROWS];
+
+	// an unaligned part of the arrays, the rows around it are not touched
+	int offset = 1001;
+	int count = ROWS - 2002;
+	BulkLocatorEncoder.encodeParallel(latitudes, longitudes, 4, codes, status, offset, count);
+
+	for (int i = 0; i < ROWS; i++)
+	{
+	    if (i < offset || i >= offset + count)
+		assertEquals(0, codes[i]);
+	    else
+		assertEquals(LocatorEncoder.encode(latitudes[i], longitudes[i], 4), codes[i]);
+	}
+    }
+
+    @Test
+    public void testSpliterator()
+    {
+	Random random = new Random(5);
+	List<Station> stations = new ArrayList<Station>();
+	for (int i = 0; i < ROWS; i++)
+	{
+	    Station station = new Station();
+	    station.latitude = random.nextDouble() * 190.0 - 95.0;
+	    station.longitude = random.nextDouble() * 360.0 - 180.0;
+	    stations.add(station);
+	}
+
+	ForkJoinPool pool = new ForkJoinPool(3);
+	int invalid = BulkLocatorEncoder.encodeParallel(pool, stations.spliterator(), 8, new BulkLocatorEncoder.Accessor<Station>()
+	{
+	    public double latitude(Station row)
+	    {
+		return row.latitude;
+	    }
+
+	    public double longitude(Station row)
+	    {
+		return row.longitude;
+	    }
+
+	    public void result(Station row, long code, byte status)
+	    {
+		assertEquals(-1, row.status);
+		row.code = code;
+		row.status = status;
+	    }
+	});
+	pool.shutdown();
+
+	int expectedInvalid = 0;
+	for (Station station : stations)
+	{
+	    assertEquals(LocatorEncoder.encode(station.latitude, station.longitude), station.code);
+	    assertEquals(LocatorEncoder.validate(station.latitude, station.longitude), station.status);
+	    if (station.status != LocatorEncoder.OK)
+		expectedInvalid++;
+	}
+	assertEquals(expectedInvalid, invalid);
+	assertTrue(invalid > 0);
+    }
+
+    @Test
+    public void testChunkSize()
+    {
+	assertEquals(BulkLocatorEncoder.MIN_CHUNK, BulkLocatorEncoder.chunkSize(1000, 8));
+
+	int chunk = BulkLocatorEncoder.chunkSize(10000000, 8);
+	assertEquals(0, chunk % BulkLocatorEncoder.ALIGNMENT);
+	assertTrue(chunk >= 10000000 / 32);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testOutOfRange()
+    {
+	BulkLocatorEncoder.encode(new double[10], new double[10], 8, new long[10], new byte[5], 0, 10);
+    }
+
+    private static int fill(Random random, double[] latitudes, double[] longitudes)
+    {
+	int invalid = 0;
+	for (int i = 0; i < latitudes.length; i++)
+	{
+	    latitudes[i] = random.nextDouble() * 180.0 - 90.0;
+	    longitudes[i] = random.nextDouble() * 360.0 - 180.0;
+
+	    // a bad row now and then
+	    if (i % 97 == 0)
+	    {
+		latitudes[i] = i % 2 == 0 ? Double.NaN : 95.0;
+		invalid++;
+	    }
+	}
+	return invalid;
+    }
+
+}
@@ -6,6 +6,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import sv1djg.hamutils.distances.HaversineModel;
+import sv1djg.hamutils.distances.VincentyModel;
+
 import sv1djg.hamutils.locator.GridLocator.LocatorLength;
 
 public class GridLocatorTest 
@@ -219,6 +222,75 @@ public class GridLocatorTest
 
     }
 
+    @Test
+    public void testNotANumber() throws Exception
+    {
+	exception.expect(Exception.class);
+	exception.expectMessage("Longitude is not a number");
+
+	new GridLocator(10.0, Double.NaN);
+    }
+
+    @Test
+    public void testTryCreate() throws Exception
+    {
+	assertEquals(new GridLocator(37.866887, 21.349081).getLocator(), GridLocator.tryCreate(37.866887, 21.349081).getLocator());
+	assertEquals(37.866887, GridLocator.tryCreate(37.866887, 21.349081).getLatitude(), 0.0);
+
+	assertNull(GridLocator.tryCreate(Double.NaN, 21.0));
+	assertNull(GridLocator.tryCreate(37.0, Double.NaN));
+	assertNull(GridLocator.tryCreate(Double.POSITIVE_INFINITY, 21.0));
+	assertNull(GridLocator.tryCreate(37.0, Double.NEGATIVE_INFINITY));
+	assertNull(GridLocator.tryCreate(90.000001, 21.0));
+	assertNull(GridLocator.tryCreate(37.0, -180.000001));
+
+	// the north and east edges are the last field, not a 19th one past 'R'
+	assertEquals("RR99XX99", GridLocator.tryCreate(90.0, 180.0).getLocator());
+	assertEquals("AA00AA00", GridLocator.tryCreate(-90.0, -180.0).getLocator());
+	assertEquals("RR99XX99", new GridLocator(90.0, 180.0).getLocator());
+    }
+
+    @Test
+    public void testValidate()
+    {
+	assertEquals(LocatorEncoder.OK, GridLocator.validate(90.0, -180.0));
+	assertEquals(LocatorEncoder.NOT_A_NUMBER, GridLocator.validate(Double.NaN, Double.NaN));
+	assertEquals(LocatorEncoder.LATITUDE_OUT_OF_RANGE, GridLocator.validate(Double.NEGATIVE_INFINITY, 0.0));
+	assertEquals(LocatorEncoder.LONGITUDE_OUT_OF_RANGE, GridLocator.validate(0.0, 180.5));
+    }
+
+    @Test
+    public void testSharedLocatorStrings() throws Exception
+    {
+	GridLocator d1 = new GridLocator(38.05723, 23.83344);
+	GridLocator d2 = new GridLocator(38.05737, 23.83000);
+
+	// the short locators come from the pool, the same string for the same cell
+	assertSame(d1.getLocator(LocatorLength.FourDigit), d2.getLocator(LocatorLength.FourDigit));
+	assertSame(d1.getLocator(LocatorLength.SixDigit), d1.getLocator(LocatorLength.SixDigit));
+	assertSame(d1.getLocator(), d1.getLocator());
+	assertEquals("KM18WB03", d1.getLocator(LocatorLength.EightDigit));
+
+	assertEquals(LocatorDecoder.decode("KM18WB03"), d1.getLocatorCode());
+	assertSame(Locator.parse("KM18WB"), d1.toLocator(LocatorLength.SixDigit));
+	assertEquals("KM18WB03", d1.toLocator(LocatorLength.Full).toString());
+	assertEquals(38.05723, d1.getCoordinates().getLatitude(), 0.0);
+    }
+
+    @Test
+    public void testDistanceModel() throws Exception
+    {
+	GridLocator athens = new GridLocator(38.05737, 23.79665);
+	GridLocator london = new GridLocator(51.50484, -0.11367);
+
+	// the spherical model is the same as distanceFrom/bearingTo
+	assertEquals(athens.distanceFrom(london), athens.distanceFrom(london, new HaversineModel()), 0.000000001);
+	assertEquals(athens.bearingTo(london), athens.bearingTo(london, new HaversineModel()), 0.000000001);
+
+	// the ellipsoid is a few Km longer on this path
+	assertEquals(2392.328, athens.distanceFrom(london, new VincentyModel()), 0.001);
+    }
+
     @Test(expected=Exception.class)
     public void testInvalidGridLocator() throws Exception
     {
@@ -0,0 +1,256 @@
+package sv1djg.hamutils.locator;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.locator.GridLocator.LocatorLength;
+
+public class GridSetTest
+{
+
+    @Test
+    public void testSameAsStrings() throws Exception
+    {
+	Random random = new Random(22);
+	GridSet set = new GridSet(true);
+	Set<String> squares = new HashSet<String>();
+	Set<String> subsquares = new HashSet<String>();
+
+	for (int i = 0; i < 5000; i++)
+	{
+	    double latitude = random.nextDouble() * 180.0 - 90.0;
+	    double longitude = random.nextDouble() * 360.0 - 180.0;
+	    GridLocator locator = new GridLocator(latitude, longitude);
+
+	    boolean added = set.add(latitude, longitude);
+	    boolean newSubsquare = subsquares.add(locator.getLocator(LocatorLength.SixDigit));
+	    squares.add(locator.getLocator(LocatorLength.FourDigit));
+	    assertEquals(newSubsquare, added);
+	}
+
+	assertEquals(squares.size(), set.squareCount());
+	assertEquals(subsquares.size(), set.subsquareCount());
+	assertEquals(squares, names(set, false));
+	assertEquals(subsquares, names(set, true));
+
+	for (String square : squares)
+	    assertTrue(set.contains(square));
+	assertTrue(set.contains(subsquares.iterator().next().toLowerCase()));
+    }
+
+    @Test
+    public void testLocatorStrings()
+    {
+	GridSet set = new GridSet(true);
+	assertTrue(set.add("KM18"));
+	assertTrue(set.add("km18wb"));
+	assertFalse(set.add("KM18WB03"));
+	assertTrue(set.add("KM18UB"));
+	assertFalse(set.add("KM"));
+	assertFalse(set.add("not a locator"));
+
+	assertEquals(1, set.squareCount());
+	assertEquals(2, set.subsquareCount());
+	assertTrue(set.contains("KM"));
+	assertTrue(set.contains("KM18WB99"));
+	assertFalse(set.contains("KM18VB"));
+	assertFalse(set.contains("KN18"));
+
+	// a set of squares ignores the subsquares
+	GridSet squares = new GridSet();
+	assertTrue(squares.add("KM18WB"));
+	assertFalse(squares.add("KM18UB"));
+	assertEquals(0, squares.subsquareCount());
+	assertFalse(squares.contains("KM18WB"));
+    }
+
+    @Test
+    public void testSetOperations() throws Exception
+    {
+	Random random = new Random(5);
+	GridSet first = new GridSet(true);
+	GridSet second = new GridSet(true);
+	Set<String> firstNames = new HashSet<String>();
+	Set<String> secondNames = new HashSet<String>();
+
+	// both in europe so they overlap
+	for (int i = 0; i < 3000; i++)
+	{
+	    double latitude = 35.0 + random.nextDouble() * 10.0;
+	    double longitude = random.nextDouble() * 20.0;
+	    GridSet set = i % 2 == 0 ? first : second;
+	    Set<String> names = i % 2 == 0 ? firstNames : secondNames;
+	    set.add(latitude, longitude);
+	    GridLocator locator = new GridLocator(latitude, longitude);
+	    names.add(locator.getLocator(LocatorLength.FourDigit));
+	    names.add(locator.getLocator(LocatorLength.SixDigit));
+	}
+
+	GridSet union = new GridSet(first);
+	union.or(second);
+	Set<String> expected = new HashSet<String>(firstNames);
+	expected.addAll(secondNames);
+	assertEquals(expected, allNames(union));
+
+	GridSet intersection = new GridSet(first);
+	intersection.and(second);
+	expected = new HashSet<String>(firstNames);
+	expected.retainAll(secondNames);
+	assertEquals(expected, allNames(intersection));
+
+	GridSet difference = new GridSet(first);
+	difference.andNot(second);
+	assertEquals(withSquares(minus(firstNames, secondNames)), allNames(difference));
+
+	// the copies did not change the originals
+	assertEquals(firstNames, allNames(first));
+    }
+
+    @Test
+    public void testSubsquaresFollowSquares()
+    {
+	GridSet set = new GridSet(true);
+	set.add("KM18WB");
+	set.add("JN58TD");
+
+	// a set of squares only removes the whole squares
+	GridSet squares = new GridSet();
+	squares.add("KM18");
+	set.andNot(squares);
+	assertEquals(1, set.squareCount());
+	assertEquals(1, set.subsquareCount());
+	assertTrue(set.contains("JN58TD"));
+
+	// and keeps the subsquares of the squares it has
+	squares.add("JN58");
+	set.and(squares);
+	assertTrue(set.contains("JN58TD"));
+    }
+
+    @Test
+    public void testFieldCounts()
+    {
+	GridSet set = new GridSet();
+	set.add("KM18");
+	set.add("KM19");
+	set.add("KM99");
+	set.add("KM00");
+	set.add("JN58");
+	set.add("RR99");
+
+	assertEquals(4, set.fieldCount(LocatorDecoder.decode("KM")));
+	assertEquals(4, set.fieldCount(LocatorDecoder.decode("KM55AA")));
+	assertEquals(1, set.fieldCount(LocatorDecoder.decode("JN")));
+	assertEquals(0, set.fieldCount(LocatorDecoder.decode("AA")));
+
+	int[] counts = new int[GridSet.FIELDS];
+	assertEquals(3, set.fieldCounts(counts));
+	assertEquals(4, counts[10 * 18 + 12]);
+	assertEquals(1, counts[17 * 18 + 17]);
+    }
+
+    @Test
+    public void testSerialization() throws Exception
+    {
+	GridSet sparse = new GridSet(true);
+	Random random = new Random(9);
+	for (int i = 0; i < 300; i++)
+	    sparse.add(random.nextDouble() * 180.0 - 90.0, random.nextDouble() * 360.0 - 180.0);
+
+	byte[] bytes = sparse.toBytes();
+	assertEquals(sparse, GridSet.fromBytes(bytes));
+	// about 2 bytes a square and 3 a subsquare
+	assertTrue(bytes.length < 300 * 6);
+
+	// every square is smaller as a bitmap
+	GridSet full = new GridSet();
+	for (int square = 0; square < GridSet.SQUARES; square++)
+	    full.add(LocatorCode.fromCellId(square, 2));
+	bytes = full.toBytes();
+	assertEquals(2 + 507 * 8, bytes.length);
+	GridSet read = GridSet.fromBytes(bytes);
+	assertEquals(full, read);
+	assertEquals(GridSet.SQUARES, read.squareCount());
+
+	GridSet empty = GridSet.fromBytes(new GridSet().toBytes());
+	assertTrue(empty.isEmpty());
+	assertFalse(empty.hasSubsquares());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testDamaged()
+    {
+	GridSet set = new GridSet();
+	set.add("KM18");
+	set.add("JN58");
+	byte[] bytes = set.toBytes();
+	GridSet.fromBytes(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testAddField()
+    {
+	new GridSet().add(LocatorDecoder.decode("KM"));
+    }
+
+    private static Set<String> names(GridSet set, boolean subsquares)
+    {
+	final Set<String> names = new HashSet<String>();
+	GridSet.Visitor collector = new GridSet.Visitor()
+	{
+	    public void visit(long code)
+	    {
+		assertTrue(names.add(LocatorCode.toString(code)));
+	    }
+	};
+
+	if (subsquares)
+	    set.forEachSubsquare(collector);
+	else
+	    set.forEachSquare(collector);
+	return names;
+    }
+
+    private static Set<String> allNames(GridSet set)
+    {
+	Set<String> names = names(set, false);
+	names.addAll(names(set, true));
+	return names;
+    }
+
+    private static Set<String> minus(Set<String> first, Set<String> second)
+    {
+	Set<String> result = new HashSet<String>(first);
+	result.removeAll(second);
+	// a square of the other set takes its subsquares with it
+	for (String name : first)
+	{
+	    if (name.length() == 6 && second.contains(name.substring(0, 4)))
+		result.remove(name);
+	}
+	return result;
+    }
+
+    private static Set<String> withSquares(Set<String> names)
+    {
+	Set<String> result = new HashSet<String>();
+	for (String name : names)
+	{
+	    if (name.length() == 4)
+		result.add(name);
+	}
+	for (String name : names)
+	{
+	    if (name.length() == 6 && result.contains(name.substring(0, 4)))
+		result.add(name);
+	}
+	return result;
+    }
+
+}
@@ -0,0 +1,207 @@
+package sv1djg.hamutils.locator;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+
+public class LocatorCacheTest
+{
+
+    @Test
+    public void testLocator() throws Exception
+    {
+	LocatorCache cache = new LocatorCache(1000);
+
+	String locator = cache.locator(38.05737, 23.79665);
+	assertEquals(new GridLocator(38.05737, 23.79665).getLocator(), locator);
+	assertEquals(0, cache.hits());
+	assertEquals(1, cache.misses());
+
+	// the same instance comes back
+	assertSame(locator, cache.locator(38.05737, 23.79665));
+	assertEquals(1, cache.hits());
+
+	assertEquals(LocatorEncoder.encode(38.05737, 23.79665), cache.locatorCode(38.05737, 23.79665));
+	assertEquals(2, cache.hits());
+	assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLocatorAfterLocatorCode()
+    {
+	LocatorCache cache = new LocatorCache(1000);
+
+	long code = cache.locatorCode(38.05737, 23.79665);
+	assertEquals(1, cache.misses());
+
+	// the code is cached, only the string is made
+	String locator = cache.locator(38.05737, 23.79665);
+	assertEquals(LocatorCode.toString(code), locator);
+	assertEquals(1, cache.hits());
+	assertEquals(1, cache.misses());
+
+	assertSame(locator, cache.locator(38.05737, 23.79665));
+	assertEquals(code, cache.locatorCode(38.05737, 23.79665));
+	assertEquals(3, cache.hits());
+	assertEquals(1, cache.misses());
+	assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testInvalidNotCached()
+    {
+	LocatorCache cache = new LocatorCache(1000);
+
+	assertNull(cache.locator(91.0, 0.0));
+	assertEquals(LocatorCode.INVALID, cache.locatorCode(Double.NaN, 0.0));
+	assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testMatchesGridLocator() throws Exception
+    {
+	Random random = new Random(7);
+	LocatorCache cache = new LocatorCache(64);
+
+	for (int i = 0; i < 5000; i++)
+	{
+	    // few distinct points, so there are hits as well as evictions
+	    double latitude = random.nextInt(100) * 1.7 - 85.0;
+	    double longitude = random.nextInt(100) * 3.55 - 179.0;
+
+	    assertEquals(new GridLocator(latitude, longitude).getLocator(), cache.locator(latitude, longitude));
+	}
+
+	assertTrue(cache.hits() > 0);
+	assertTrue(cache.evictions() > 0);
+	assertEquals(5000, cache.hits() + cache.misses());
+	assertTrue(cache.size() <= cache.capacity());
+    }
+
+    @Test
+    public void testDistanceAndBearing()
+    {
+	LocatorCache cache = new LocatorCache(100);
+
+	long from = LocatorDecoder.decode("KM18UB");
+	long to = LocatorDecoder.decode("IO91WM");
+
+	double distance = DistanceCaclulator.distanceFrom(LocatorCode.centreLatitude(from), LocatorCode.centreLongitude(from),
+		LocatorCode.centreLatitude(to), LocatorCode.centreLongitude(to));
+	double bearing = DistanceCaclulator.bearingTo(LocatorCode.centreLatitude(from), LocatorCode.centreLongitude(from),
+		LocatorCode.centreLatitude(to), LocatorCode.centreLongitude(to));
+	double reverse = DistanceCaclulator.bearingTo(LocatorCode.centreLatitude(to), LocatorCode.centreLongitude(to),
+		LocatorCode.centreLatitude(from), LocatorCode.centreLongitude(from));
+
+	assertEquals(distance, cache.distance(from, to), 0.0);
+	// both directions share the distance entry
+	assertEquals(distance, cache.distance(to, from), 0.0);
+	assertEquals(1, cache.hits());
+
+	assertEquals(bearing, cache.bearing(from, to), 0.0);
+	assertEquals(reverse, cache.bearing(to, from), 0.0);
+	assertEquals(bearing, cache.bearing(from, to), 0.0);
+	assertEquals(2, cache.hits());
+	assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testEviction()
+    {
+	LocatorCache cache = new LocatorCache(8, 1);
+	assertEquals(8, cache.capacity());
+
+	for (int i = 0; i < 8; i++)
+	    cache.locatorCode(i, 0.0);
+	assertEquals(0, cache.evictions());
+
+	// keep 0 recently used, then one more evicts the least recently used (1)
+	cache.locatorCode(0, 0.0);
+	cache.locatorCode(8, 0.0);
+	assertEquals(1, cache.evictions());
+	assertEquals(8, cache.size());
+
+	long hits = cache.hits();
+	cache.locatorCode(0, 0.0);
+	assertEquals(hits + 1, cache.hits());
+	cache.locatorCode(1, 0.0);
+	assertEquals(hits + 1, cache.hits());
+
+	cache.clear();
+	assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+	final LocatorCache cache = new LocatorCache(256, 4);
+	final AtomicInteger failures = new AtomicInteger();
+
+	Thread[] threads = new Thread[4];
+	for (int t = 0; t < threads.length; t++)
+	{
+	    final long seed = t;
+	    threads[t] = new Thread()
+	    {
+		public void run()
+		{
+		    Random random = new Random(seed);
+		    for (int i = 0; i < 20000; i++)
+		    {
+			double latitude = random.nextInt(500) * 0.3 - 75.0;
+			double longitude = random.nextInt(500) * 0.7 - 175.0;
+			if (cache.locatorCode(latitude, longitude) != LocatorEncoder.encode(latitude, longitude))
+			    failures.incrementAndGet();
+		    }
+		}
+	    };
+	    threads[t].start();
+	}
+
+	for (Thread thread : threads)
+	    thread.join();
+
+	assertEquals(0, failures.get());
+	assertEquals(80000, cache.hits() + cache.misses());
+    }
+
+    @Test
+    public void testInvalidCodes()
+    {
+	LocatorCache cache = new LocatorCache(1000);
+	long home = LocatorDecoder.decode("KM18VB");
+	long invalid = LocatorDecoder.decode("KM18ZZ");
+
+	try
+	{
+	    cache.distance(home, invalid);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	}
+
+	try
+	{
+	    cache.bearing(invalid, home);
+	    fail();
+	}
+	catch (IllegalArgumentException e)
+	{
+	}
+
+	assertEquals(0, cache.size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBadStripes()
+    {
+	new LocatorCache(100, 3);
+    }
+
+}
@@ -0,0 +1,104 @@
+package sv1djg.hamutils.locator;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LocatorDecoderTest
+{
+
+    @Test
+    public void testDecode()
+    {
+	long code = LocatorDecoder.decode("KM18WB03");
+
+	assertEquals(8, LocatorCode.length(code));
+	assertEquals("KM18WB03", LocatorCode.toString(code));
+	assertEquals(LocatorEncoder.encode(38.05723, 23.83344), code);
+    }
+
+    @Test
+    public void testDecodeBounds()
+    {
+	long code = LocatorDecoder.decode("KM18");
+
+	assertEquals(38.0, LocatorCode.southLatitude(code), 0.000000001);
+	assertEquals(39.0, LocatorCode.northLatitude(code), 0.000000001);
+	assertEquals(22.0, LocatorCode.westLongitude(code), 0.000000001);
+	assertEquals(24.0, LocatorCode.eastLongitude(code), 0.000000001);
+	assertEquals(38.5, LocatorCode.centreLatitude(code), 0.000000001);
+	assertEquals(23.0, LocatorCode.centreLongitude(code), 0.000000001);
+
+	double[] bounds = new double[5];
+	assertTrue(LocatorDecoder.decodeBounds("IO91WM", 0, 6, false, bounds, 1));
+	assertEquals(51.5, bounds[1], 0.000000001);
+	assertEquals(-2.0 + 22 * 5.0 / 60.0, bounds[2], 0.000000001);
+	assertEquals(51.5 + 2.5 / 60.0, bounds[3], 0.000000001);
+	assertEquals(-2.0 + 23 * 5.0 / 60.0, bounds[4], 0.000000001);
+
+	double[] centre = new double[2];
+	assertTrue(LocatorDecoder.decodeCentre("JJ", 0, 2, false, centre, 0));
+	assertEquals(5.0, centre[0], 0.000000001);
+	assertEquals(10.0, centre[1], 0.000000001);
+    }
+
+    @Test
+    public void testDecodeLenient()
+    {
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("km18wb"));
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("KM18wb"));
+	assertEquals(LocatorDecoder.decode("KM18WB"), LocatorDecoder.decode("km18wb", true));
+	assertEquals(LocatorDecoder.decode("KM18WB"), LocatorDecoder.decode("KM18wb", true));
+    }
+
+    @Test
+    public void testDecodeSlice()
+    {
+	String line = "<gridsquare:8>KM18WB03 <eor>";
+
+	assertEquals("KM18WB03", LocatorCode.toString(LocatorDecoder.decode(line, 14, 22, false)));
+	assertEquals("KM18", LocatorCode.toString(LocatorDecoder.decode(new StringBuilder(line), 14, 18, false)));
+    }
+
+    @Test
+    public void testDecodeInvalid()
+    {
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode(""));
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("K"));
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("KM1"));
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("SM18"));
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("KM1A"));
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("KM18YB"));
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("KM18WB03AB12"));
+	assertEquals(LocatorCode.INVALID, LocatorDecoder.decode("KM 8"));
+    }
+
+    @Test
+    public void testDecodeCentreEncodesBack()
+    {
+	Random random = new Random(1811);
+
+	for (int i = 0; i < 100000; i++)
+	{
+	    int length = 2 + 2 * random.nextInt(5);
+	    long code = LocatorEncoder.encode(random.nextDouble() * 180.0 - 90.0, random.nextDouble() * 360.0 - 180.0, length);
+	    long decoded = LocatorDecoder.decode(LocatorCode.toString(code));
+
+	    assertEquals(code, decoded);
+	    assertEquals(code, LocatorEncoder.encode(LocatorCode.centreLatitude(decoded), LocatorCode.centreLongitude(decoded), length));
+	}
+    }
+
+    @Test
+    public void testCellId()
+    {
+	long square = LocatorDecoder.decode("RR99");
+
+	assertEquals(32399, LocatorCode.cellId(square));
+	assertEquals(0, LocatorCode.cellId(LocatorDecoder.decode("AA00")));
+	assertEquals(square, LocatorCode.fromCellId(32399, 2));
+    }
+
+}
@@ -0,0 +1,151 @@
+package sv1djg.hamutils.locator;
+
+import static org.junit.Assert.*;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LocatorEncoderTest
+{
+
+    @Test
+    public void testEncodeMatchesGridLocator() throws Exception
+    {
+	assertEquals("KM07QU18", LocatorCode.toString(LocatorEncoder.encode(37.866887, 21.349081)));
+	assertEquals("KM18VB53", LocatorCode.toString(LocatorEncoder.encode(38.05737, 23.79665)));
+	assertEquals("KM18VA64", LocatorCode.toString(LocatorEncoder.encode(38.01686, 23.80057)));
+	assertEquals("IO91WM61", LocatorCode.toString(LocatorEncoder.encode(51.50484, -0.11367)));
+	assertEquals("GF05TI59", LocatorCode.toString(LocatorEncoder.encode(-34.6268, -58.36955)));
+    }
+
+    @Test
+    public void testEncodeMatchesLegacyFormatting()
+    {
+	Random random = new Random(20111);
+	char[] chars = new char[8];
+
+	for (int i = 0; i < 200000; i++)
+	{
+	    double latitude = random.nextDouble() * 180.0 - 90.0;
+	    double longitude = random.nextDouble() * 360.0 - 180.0;
+
+	    assertEquals(8, LocatorEncoder.encode(latitude, longitude, 8, chars, 0));
+	    assertEquals(legacyLocator(latitude, longitude), new String(chars));
+	}
+    }
+
+    @Test
+    public void testEncodeLengths()
+    {
+	assertEquals("KM", LocatorCode.toString(LocatorEncoder.encode(38.05723, 23.83344, 2)));
+	assertEquals("KM18", LocatorCode.toString(LocatorEncoder.encode(38.05723, 23.83344, 4)));
+	assertEquals("KM18WB", LocatorCode.toString(LocatorEncoder.encode(38.05723, 23.83344, 6)));
+	assertEquals("KM18WB03", LocatorCode.toString(LocatorEncoder.encode(38.05723, 23.83344, 8)));
+	assertEquals("KM18WB03", LocatorCode.toString(LocatorEncoder.encode(38.05723, 23.83344, 10)).substring(0, 8));
+	assertEquals(10, LocatorCode.length(LocatorEncoder.encode(38.05723, 23.83344, 10)));
+    }
+
+    @Test
+    public void testEncodeInto()
+    {
+	StringBuilder sb = new StringBuilder("loc=");
+	assertTrue(LocatorEncoder.encode(51.50484, -0.11367, 6, sb));
+	assertEquals("loc=IO91WM", sb.toString());
+
+	CharBuffer buffer = CharBuffer.allocate(16);
+	assertTrue(LocatorEncoder.encode(51.50484, -0.11367, 4, buffer));
+	buffer.flip();
+	assertEquals("IO91", buffer.toString());
+
+	char[] chars = new char[12];
+	assertEquals(8, LocatorEncoder.encode(-34.6268, -58.36955, 8, chars, 2));
+	assertEquals("GF05TI59", new String(chars, 2, 8));
+    }
+
+    @Test
+    public void testEncodeInvalid()
+    {
+	assertEquals(LocatorCode.INVALID, LocatorEncoder.encode(90.1, 10.0));
+	assertEquals(LocatorCode.INVALID, LocatorEncoder.encode(10.0, -180.001));
+	assertEquals(LocatorCode.INVALID, LocatorEncoder.encode(Double.NaN, 10.0));
+	assertEquals(0, LocatorEncoder.encode(-90.1, 10.0, 8, new char[8], 0));
+
+	StringBuilder sb = new StringBuilder();
+	assertFalse(LocatorEncoder.encode(10.0, Double.POSITIVE_INFINITY, 8, sb));
+	assertEquals(0, sb.length());
+    }
+
+    @Test
+    public void testValidate()
+    {
+	assertEquals(LocatorEncoder.OK, LocatorEncoder.validate(-90.0, 180.0));
+	assertEquals(LocatorEncoder.LATITUDE_OUT_OF_RANGE, LocatorEncoder.validate(90.00001, 0.0));
+	assertEquals(LocatorEncoder.LONGITUDE_OUT_OF_RANGE, LocatorEncoder.validate(0.0, -180.00001));
+	assertEquals(LocatorEncoder.NOT_A_NUMBER, LocatorEncoder.validate(Double.NaN, 0.0));
+	assertEquals(LocatorEncoder.NOT_A_NUMBER, LocatorEncoder.validate(91.0, Double.NaN));
+	assertEquals(LocatorEncoder.LATITUDE_OUT_OF_RANGE, LocatorEncoder.validate(Double.NEGATIVE_INFINITY, 0.0));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testEncodeBadLength()
+    {
+	LocatorEncoder.encode(10.0, 10.0, 5);
+    }
+
+    @Test
+    public void testEncodeEdges()
+    {
+	assertEquals("JR09AX09", LocatorCode.toString(LocatorEncoder.encode(90.0, 0.0)));
+	assertEquals("RJ90XA90", LocatorCode.toString(LocatorEncoder.encode(0.0, 180.0)));
+	assertEquals("AA00AA00", LocatorCode.toString(LocatorEncoder.encode(-90.0, -180.0)));
+    }
+
+    @Test
+    public void testCodeTruncateAndCellId()
+    {
+	long code = LocatorEncoder.encode(38.05723, 23.83344);
+	long square = LocatorCode.truncate(code, 2);
+
+	assertEquals("KM18", LocatorCode.toString(square));
+	assertEquals(square, LocatorEncoder.encode(38.05723, 23.83344, 4));
+	assertEquals(square, LocatorCode.fromCellId(LocatorCode.cellId(square), 2));
+	assertEquals(('K' - 'A') * 10 + 1, LocatorCode.longitudeIndex(square));
+	assertEquals(('M' - 'A') * 10 + 8, LocatorCode.latitudeIndex(square));
+	assertTrue(LocatorCode.cellId(square) < 32400);
+	assertEquals(code, LocatorCode.fromCellId(LocatorCode.cellId(code), 4));
+    }
+
+    //
+    // the conversion as GridLocator originally did it, kept here as the reference
+    //
+    private static String legacyLocator(double latitude, double longitude)
+    {
+	String[] fieldChars = {"A","B","C","D","E","F","G","H","I","J","K","L","M","N","O","P","Q","R","S","T","U","V","W","X"};
+
+	double normalisedLatitude  = latitude + 90.0;
+	double normalisedLongitude = longitude + 180.0;
+
+	int latitudeField = (int)(normalisedLatitude / 10.0);
+	int longitudeField = (int)(normalisedLongitude / 20.0);
+
+	int latitudeSquare = (int)(normalisedLatitude - (double)(latitudeField * 10.0));
+	int longitudeSquare = (int)((normalisedLongitude - (double)(longitudeField *  20.0)) /2 );
+
+	double latitudeMinutes = (normalisedLatitude - (double)(latitudeField * 10.0) - (double)latitudeSquare)*60.0;
+	double longitudeMinutes = (normalisedLongitude - (double)(longitudeField *  20.0) - (double)(longitudeSquare *2))*60.0;
+
+	int latitudeSubField = (int)(latitudeMinutes / 2.5);
+	int longitudSubField = (int)(longitudeMinutes / 5.0);
+
+	double p = latitudeMinutes - (double)(latitudeSubField * 2.5);
+	double l = longitudeMinutes - (double)(longitudSubField * 5.0);
+
+	int latitudeSubSquare= (int)(p * 60.0 / 15.0);
+	int longitudSubSquare = (int)(l * 60.0 / 30.0);
+
+	return String.format("%s%s%d%d%s%s%d%d", fieldChars[longitudeField],fieldChars[latitudeField],longitudeSquare,latitudeSquare,fieldChars[longitudSubField],fieldChars[latitudeSubField],longitudSubSquare,latitudeSubSquare);
+    }
+
+}
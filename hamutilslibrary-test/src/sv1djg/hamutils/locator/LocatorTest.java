@@ -0,0 +1,76 @@
+package sv1djg.hamutils.locator;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LocatorTest
+{
+
+    @Test
+    public void testInterned()
+    {
+	Locator square = Locator.parse("km18");
+	assertSame(square, Locator.parse("KM18"));
+	assertSame(square, Locator.of(38.05737, 23.79665, 4));
+	assertEquals("KM18", square.toString());
+
+	Locator subsquare = Locator.parse("KM18VB");
+	assertSame(subsquare, Locator.of(38.05737, 23.79665, 6));
+	assertSame(square, subsquare.truncate(4));
+	assertTrue(square.contains(subsquare));
+	assertFalse(subsquare.contains(square));
+
+	// longer locators are not pooled, but equal
+	Locator full = Locator.of(38.05737, 23.79665, 8);
+	assertNotSame(full, Locator.of(38.05737, 23.79665, 8));
+	assertEquals(full, Locator.of(38.05737, 23.79665, 8));
+	assertEquals(full.hashCode(), Locator.of(38.05737, 23.79665, 8).hashCode());
+	assertSame(subsquare, full.truncate(6));
+	assertSame(full, full.truncate(10));
+    }
+
+    @Test
+    public void testEverySubsquareOfASquare()
+    {
+	// every subsquare of the square has its own instance, with the right string
+	Random random = new Random(18);
+	for (int i = 0; i < 20000; i++)
+	{
+	    double latitude = random.nextDouble() * 180.0 - 90.0;
+	    double longitude = random.nextDouble() * 360.0 - 180.0;
+	    long code = LocatorEncoder.encode(latitude, longitude, 6);
+
+	    Locator locator = Locator.of(code);
+	    assertEquals(code, locator.getCode());
+	    assertEquals(LocatorCode.toString(code), locator.toString());
+	    assertSame(locator, Locator.of(code));
+	    assertEquals(6, locator.length());
+	}
+    }
+
+    @Test
+    public void testCentre()
+    {
+	Locator square = Locator.parse("KM18");
+	assertEquals(38.5, square.getCentreLatitude(), 0.0);
+	assertEquals(23.0, square.getCentreLongitude(), 0.0);
+    }
+
+    @Test
+    public void testInvalid()
+    {
+	assertNull(Locator.parse("KZ18"));
+	assertNull(Locator.of(LocatorCode.INVALID));
+	assertNull(Locator.of(Double.NaN, 0.0, 4));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBadTruncate()
+    {
+	Locator.parse("KM18VB").truncate(3);
+    }
+
+}
@@ -0,0 +1,145 @@
+package sv1djg.hamutils.locator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LocatorTrackerTest
+{
+
+    private static final class Events implements LocatorTracker.Listener
+    {
+	final List<String> squares = new ArrayList<String>();
+	final List<String> subsquares = new ArrayList<String>();
+
+	public void squareChanged(int id, long previous, long square)
+	{
+	    squares.add(id + ":" + name(previous) + ">" + LocatorCode.toString(square));
+	}
+
+	public void subsquareChanged(int id, long previous, long subsquare)
+	{
+	    subsquares.add(id + ":" + name(previous) + ">" + LocatorCode.toString(subsquare));
+	}
+
+	private static String name(long code)
+	{
+	    return code == LocatorCode.INVALID ? "-" : LocatorCode.toString(code);
+	}
+    }
+
+    @Test
+    public void testSameAsEncoder() throws Exception
+    {
+	Random random = new Random(21);
+	Events events = new Events();
+	LocatorTracker tracker = new LocatorTracker(3, 8, events);
+
+	double latitude = 38.05737;
+	double longitude = 23.79665;
+	long previous = LocatorCode.INVALID;
+	int squareChanges = 0;
+	int subsquareChanges = 0;
+	int cellChanges = 0;
+
+	// a rover wandering for a while, about 50m per fix
+	for (int fix = 0; fix < 200000; fix++)
+	{
+	    latitude += (random.nextDouble() - 0.5) * 0.001;
+	    longitude += (random.nextDouble() - 0.5) * 0.001;
+
+	    long expected = LocatorEncoder.encode(latitude, longitude);
+	    boolean changed = expected != previous;
+	    assertEquals(changed, tracker.update(latitude, longitude));
+	    assertEquals(expected, tracker.getLocatorCode());
+
+	    if (changed)
+	    {
+		cellChanges++;
+		if (previous == LocatorCode.INVALID || LocatorCode.truncate(previous, 2) != LocatorCode.truncate(expected, 2))
+		    squareChanges++;
+		if (previous == LocatorCode.INVALID || LocatorCode.truncate(previous, 3) != LocatorCode.truncate(expected, 3))
+		    subsquareChanges++;
+		assertEquals(new GridLocator(latitude, longitude).getLocator(), tracker.getLocator());
+	    }
+	    previous = expected;
+	}
+
+	assertEquals(200000, tracker.getFixes());
+	assertEquals(cellChanges, tracker.getCellChanges());
+	assertEquals(squareChanges, events.squares.size());
+	assertEquals(subsquareChanges, events.subsquares.size());
+	assertTrue(subsquareChanges > 1);
+    }
+
+    @Test
+    public void testEvents()
+    {
+	Events events = new Events();
+	LocatorTracker tracker = new LocatorTracker(7, 6, events);
+
+	assertTrue(tracker.update(38.05737, 23.79665));
+	assertEquals("KM18VB", tracker.getLocator());
+	assertEquals("[7:->KM18]", events.squares.toString());
+	assertEquals("[7:->KM18VB]", events.subsquares.toString());
+
+	// a few metres, the same subsquare
+	assertFalse(tracker.update(38.0574, 23.7967));
+
+	// the next subsquare to the east
+	assertTrue(tracker.update(38.05737, 23.8340));
+	assertEquals("KM18WB", tracker.getLocator());
+	assertEquals(1, events.squares.size());
+	assertEquals("7:KM18VB>KM18WB", events.subsquares.get(1));
+
+	// across into the next square
+	assertTrue(tracker.update(38.05737, 24.0001));
+	assertEquals("7:KM18>KM28", events.squares.get(1));
+	assertEquals("7:KM18WB>KM28AB", events.subsquares.get(2));
+    }
+
+    @Test
+    public void testEdges()
+    {
+	LocatorTracker tracker = new LocatorTracker();
+
+	// exactly on the west edge of a cell belongs to it, like the encoder
+	for (double longitude : new double[] { 24.0, 23.9999999999, 24.0000000001, -180.0, 180.0 })
+	{
+	    for (double latitude : new double[] { 38.0, 90.0, -90.0, 37.9999999999 })
+	    {
+		tracker.update(latitude, longitude);
+		assertEquals(LocatorEncoder.encode(latitude, longitude), tracker.getLocatorCode());
+	    }
+	}
+    }
+
+    @Test
+    public void testRejectedFixes()
+    {
+	LocatorTracker tracker = new LocatorTracker();
+	assertNull(tracker.getLocator());
+	assertEquals(LocatorCode.INVALID, tracker.getLocatorCode());
+
+	assertFalse(tracker.update(Double.NaN, 10.0));
+	assertTrue(tracker.update(10.0, 10.0));
+	assertFalse(tracker.update(91.0, 10.0));
+	assertFalse(tracker.update(10.0, Double.NaN));
+
+	assertEquals(3, tracker.getRejectedFixes());
+	assertEquals(1, tracker.getFixes());
+	assertEquals(10.0, tracker.getLatitude(), 0.0);
+	assertEquals(LocatorEncoder.encode(10.0, 10.0), tracker.getLocatorCode());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFieldsOnly()
+    {
+	new LocatorTracker(0, 2, null);
+    }
+
+}
@@ -0,0 +1,119 @@
+package sv1djg.hamutils.locator;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+
+public class SquareDistanceMatrixTest
+{
+
+    private static SquareDistanceMatrix _matrix;
+
+    @BeforeClass
+    public static void generate()
+    {
+	_matrix = SquareDistanceMatrix.generate();
+    }
+
+    @Test
+    public void testAgainstDistanceCaclulator()
+    {
+	Random random = new Random(14);
+
+	for (int i = 0; i < 200000; i++)
+	{
+	    long from = LocatorCode.pack(2, random.nextInt(180), random.nextInt(180));
+	    long to = LocatorCode.pack(2, random.nextInt(180), random.nextInt(180));
+	    check(_matrix, from, to);
+	}
+    }
+
+    @Test
+    public void testLongerLocators()
+    {
+	long from = LocatorDecoder.decode("KM18VB");
+	long to = LocatorDecoder.decode("IO91WM");
+
+	assertEquals(_matrix.distance(LocatorDecoder.decode("KM18"), LocatorDecoder.decode("IO91")), _matrix.distance(from, to), 0.0);
+	assertEquals(DistanceCaclulator.distanceFrom(38.5, 23.0, 51.5, -1.0), _matrix.distance(from, to), SquareDistanceMatrix.DISTANCE_UNIT_KM / 2);
+	assertEquals(0.0, _matrix.distance(from, LocatorDecoder.decode("KM18UA")), 0.0);
+    }
+
+    @Test
+    public void testInvalidCodes()
+    {
+	assertTrue(Double.isNaN(_matrix.distance(LocatorCode.INVALID, LocatorDecoder.decode("KM18"))));
+	assertTrue(Double.isNaN(_matrix.bearing(LocatorDecoder.decode("KM"), LocatorDecoder.decode("KM18"))));
+    }
+
+    @Test
+    public void testFile() throws Exception
+    {
+	File file = File.createTempFile("squares", ".bin");
+	file.deleteOnExit();
+	file.delete();
+
+	SquareDistanceMatrix generated = SquareDistanceMatrix.openOrGenerate(file);
+	assertTrue(file.isFile());
+	SquareDistanceMatrix mapped = SquareDistanceMatrix.openOrGenerate(file);
+
+	Random random = new Random(3);
+	for (int i = 0; i < 10000; i++)
+	{
+	    long from = LocatorCode.pack(2, random.nextInt(180), random.nextInt(180));
+	    long to = LocatorCode.pack(2, random.nextInt(180), random.nextInt(180));
+	    assertEquals(_matrix.distance(from, to), mapped.distance(from, to), 0.0);
+	    assertEquals(_matrix.bearing(from, to), mapped.bearing(from, to), 0.0);
+	    assertEquals(generated.bearing(from, to), mapped.bearing(from, to), 0.0);
+	}
+    }
+
+    @Test
+    public void testDamagedFileIsGeneratedAgain() throws Exception
+    {
+	File file = File.createTempFile("squares", ".bin");
+	file.deleteOnExit();
+	FileOutputStream out = new FileOutputStream(file);
+	out.write(new byte[100]);
+	out.close();
+
+	try
+	{
+	    SquareDistanceMatrix.map(file);
+	    fail("a damaged file was mapped");
+	}
+	catch (java.io.IOException e)
+	{
+	}
+
+	check(SquareDistanceMatrix.openOrGenerate(file), LocatorDecoder.decode("KM18"), LocatorDecoder.decode("GF05"));
+    }
+
+    private static void check(SquareDistanceMatrix matrix, long from, long to)
+    {
+	double fromLatitude = LocatorCode.centreLatitude(from);
+	double fromLongitude = LocatorCode.centreLongitude(from);
+	double toLatitude = LocatorCode.centreLatitude(to);
+	double toLongitude = LocatorCode.centreLongitude(to);
+
+	double distance = DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	assertEquals(distance, matrix.distance(from, to), SquareDistanceMatrix.DISTANCE_UNIT_KM / 2 + 0.000001);
+
+	// the bearing between two points (nearly) opposite each other is not defined
+	if (distance > 20000.0 || distance == 0.0)
+	    return;
+
+	double bearing = DistanceCaclulator.bearingTo(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	double error = Math.abs(bearing - matrix.bearing(from, to));
+	assertTrue(LocatorCode.toString(from) + " " + LocatorCode.toString(to) + " " + bearing + " " + matrix.bearing(from, to),
+		Math.min(error, 360.0 - error) <= SquareDistanceMatrix.BEARING_UNIT_DEGREES / 2 + 0.000001);
+    }
+
+}
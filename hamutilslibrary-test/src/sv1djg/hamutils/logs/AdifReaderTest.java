@@ -0,0 +1,92 @@
+package sv1djg.hamutils.logs;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.Test;
+
+public class AdifReaderTest
+{
+
+    private static final String LOG =
+	    "exported by a logger <PROGRAMID:6>LOGGER\n<ADIF_VER:5>3.1.0\n<EOH>\n"
+	    + "<CALL:5>SV1AB <GRIDSQUARE:6>KM18uB <QSO_DATE:8:D>20110312 <eor>\n"
+	    + "<call:6>G4XYZ1<BAND:3>20m <LAT:11>N051 30.290 <LON:11>W000 06.820<EOR>\n"
+	    + "stray < text <CALL:4>W1AW<EOR>\n"
+	    + "<CALL:4>K1AB";
+
+    @Test
+    public void testRecords() throws Exception
+    {
+	AdifReader reader = new AdifReader(new ByteArrayInputStream(LOG.getBytes("ISO-8859-1")));
+	checkLog(reader);
+	reader.close();
+    }
+
+    @Test
+    public void testSmallBuffer() throws Exception
+    {
+	// records cross the buffer boundaries and the buffer has to grow
+	AdifReader reader = new AdifReader(new ByteArrayInputStream(LOG.getBytes("ISO-8859-1")), 8);
+	checkLog(reader);
+	reader.close();
+    }
+
+    @Test
+    public void testMappedFile() throws Exception
+    {
+	File file = File.createTempFile("log", ".adi");
+	file.deleteOnExit();
+	FileOutputStream out = new FileOutputStream(file);
+	out.write(LOG.getBytes("ISO-8859-1"));
+	out.close();
+
+	AdifReader reader = new AdifReader(file);
+	checkLog(reader);
+	reader.close();
+    }
+
+    @Test
+    public void testNoHeader() throws Exception
+    {
+	AdifReader reader = new AdifReader(new ByteArrayInputStream("<CALL:4>W1AW<EOR><EOR><CALL:3>K1A<EOR>".getBytes("ISO-8859-1")));
+
+	assertTrue(reader.next());
+	assertEquals("W1AW", reader.getRecord().getField("CALL").toString());
+	assertTrue(reader.next());
+	assertEquals("K1A", reader.getRecord().getField("CALL").toString());
+	assertEquals(2, reader.getRecord().getNumber());
+	assertFalse(reader.next());
+    }
+
+    private static void checkLog(AdifReader reader) throws Exception
+    {
+	assertTrue(reader.next());
+	QsoRecord record = reader.getRecord();
+	assertEquals(1, record.getNumber());
+	assertEquals(3, record.getFieldCount());
+	assertEquals("SV1AB", record.getField("call").toString());
+	assertEquals("KM18uB", record.getField("GRIDSQUARE").toString());
+	assertEquals("QSO_DATE", record.getFieldName(2).toString());
+	assertEquals("20110312", record.getFieldValue(2).toString());
+	assertNull(record.getField("PROGRAMID"));
+
+	assertTrue(reader.next());
+	record = reader.getRecord();
+	assertEquals("G4XYZ1", record.getField("CALL").toString());
+	assertEquals("N051 30.290", record.getField("LAT").toString());
+	assertEquals("W000 06.820", record.getField("LON").toString());
+
+	assertTrue(reader.next());
+	assertEquals("W1AW", reader.getRecord().getField("CALL").toString());
+	assertEquals(3, reader.getRecord().getNumber());
+
+	// the last record has no <EOR>
+	assertFalse(reader.next());
+	assertFalse(reader.next());
+    }
+
+}
@@ -0,0 +1,84 @@
+package sv1djg.hamutils.logs;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+
+public class CabrilloReaderTest
+{
+
+    private static final String LOG =
+	    "START-OF-LOG: 3.0\r\n"
+	    + "CALLSIGN: SV1DJG\r\n"
+	    + "GRID-LOCATOR: KM18\r\n"
+	    + "CONTEST: IARU-VHF\r\n"
+	    + "QSO:  144000 PH 2011-03-12 1200 SV1DJG        59  001 KM18UB SV2XYZ        59  014 KN10AA\r\n"
+	    + "QSO:  144000 CW 2011-03-12 1205 SV1DJG        599 002        SV9ABC        599 033        1\r\n"
+	    + "X-QSO: 144000 CW 2011-03-12 1206 SV1DJG       599 003        SV9ABD        599 034\r\n"
+	    + "QSO:  144000 CW 2011-03-12 1210 SV1DJG        599 004 km18   OE1XYZ        599 101 jn88ee\r\n"
+	    + "END-OF-LOG:\r\n"
+	    + "QSO:  144000 CW 2011-03-12 1210 SV1DJG        599 005        OE1XYZ        599 102\r\n";
+
+    @Test
+    public void testRecords() throws Exception
+    {
+	checkLog(new CabrilloReader(new ByteArrayInputStream(LOG.getBytes("ISO-8859-1"))));
+    }
+
+    @Test
+    public void testSmallBuffer() throws Exception
+    {
+	checkLog(new CabrilloReader(new ByteArrayInputStream(LOG.getBytes("ISO-8859-1")), 16));
+    }
+
+    @Test
+    public void testLastLineWithoutNewline() throws Exception
+    {
+	CabrilloReader reader = new CabrilloReader(new ByteArrayInputStream("QSO: 7000 CW 2011-03-12 1200 SV1DJG 599 1 W1AW 599 2".getBytes("ISO-8859-1")));
+
+	assertTrue(reader.next());
+	assertEquals("W1AW", reader.getRecord().getField("CALL").toString());
+	assertEquals(LocatorCode.INVALID, reader.getRecord().getLogLocator());
+	assertFalse(reader.next());
+    }
+
+    private static void checkLog(CabrilloReader reader) throws Exception
+    {
+	assertTrue(reader.next());
+	QsoRecord record = reader.getRecord();
+	assertEquals("144000", record.getField("FREQ").toString());
+	assertEquals("PH", record.getField("MODE").toString());
+	assertEquals("2011-03-12", record.getField("QSO_DATE").toString());
+	assertEquals("1200", record.getField("TIME_ON").toString());
+	assertEquals("SV1DJG", record.getField("STATION_CALLSIGN").toString());
+	assertEquals("SV2XYZ", record.getField("CALL").toString());
+	assertEquals("KM18UB", record.getField("MY_GRIDSQUARE").toString());
+	assertEquals("KN10AA", record.getField("GRIDSQUARE").toString());
+	assertEquals("59", record.getField("SENT").toString());
+	assertEquals(LocatorDecoder.decode("KM18"), record.getLogLocator());
+
+	// the transmitter id is not part of the exchange
+	assertTrue(reader.next());
+	record = reader.getRecord();
+	assertEquals("SV9ABC", record.getField("CALL").toString());
+	assertNull(record.getField("GRIDSQUARE"));
+	assertNull(record.getField("MY_GRIDSQUARE"));
+	assertEquals(10, record.getFieldCount());
+
+	assertTrue(reader.next());
+	record = reader.getRecord();
+	assertEquals(3, record.getNumber());
+	assertEquals("OE1XYZ", record.getField("CALL").toString());
+	assertEquals("jn88ee", record.getField("GRIDSQUARE").toString());
+	assertEquals("km18", record.getField("MY_GRIDSQUARE").toString());
+
+	assertFalse(reader.next());
+	reader.close();
+    }
+
+}
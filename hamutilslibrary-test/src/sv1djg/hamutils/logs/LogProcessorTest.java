@@ -0,0 +1,142 @@
+package sv1djg.hamutils.logs;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.distances.VincentyModel;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class LogProcessorTest
+{
+
+    @Test
+    public void testAnnotateAdif() throws Exception
+    {
+	String log = "<EOH>"
+		+ "<CALL:4>K1AB<GRIDSQUARE:4>fn42<EOR>"
+		+ "<CALL:4>G4AB<LAT:11>N051 30.290<LON:11>W000 06.820<EOR>"
+		+ "<CALL:4>W1AW<MY_GRIDSQUARE:6>IO91WM<GRIDSQUARE:6>FN31PR<EOR>"
+		+ "<CALL:4>N0NE<EOR>";
+
+	final List<String> results = new ArrayList<String>();
+	LogProcessor processor = new LogProcessor(38.05737, 23.79665);
+
+	long count = processor.process(new AdifReader(new ByteArrayInputStream(log.getBytes("ISO-8859-1"))), new LogProcessor.Listener()
+	{
+	    public void qso(QsoRecord record)
+	    {
+		results.add(record.getField("CALL") + " " + LocatorCode.toString(record.getLocator()) + " "
+			+ LocatorCode.toString(record.getMyLocator()) + " " + Math.round(record.getDistance()));
+	    }
+	});
+
+	assertEquals(4, count);
+	assertEquals(4, processor.getRecords());
+	assertEquals(3, processor.getAnnotated());
+	assertTrue(processor.getRecordsPerSecond() > 0);
+
+	long fn42 = LocatorDecoder.decode("FN42");
+	long k1ab = Math.round(DistanceCaclulator.distanceFrom(38.05737, 23.79665, LocatorCode.centreLatitude(fn42), LocatorCode.centreLongitude(fn42)));
+	assertEquals("K1AB FN42 KM18VB " + k1ab, results.get(0));
+
+	// the locator is worked out from the coordinates, the distance is from the coordinates
+	long g4ab = Math.round(DistanceCaclulator.distanceFrom(38.05737, 23.79665, 51.504833333, -0.113666667));
+	assertEquals("G4AB IO91WM KM18VB " + g4ab, results.get(1));
+
+	long io91wm = LocatorDecoder.decode("IO91WM");
+	long fn31pr = LocatorDecoder.decode("FN31PR");
+	long w1aw = Math.round(DistanceCaclulator.distanceFrom(LocatorCode.centreLatitude(io91wm), LocatorCode.centreLongitude(io91wm),
+		LocatorCode.centreLatitude(fn31pr), LocatorCode.centreLongitude(fn31pr)));
+	assertEquals("W1AW FN31PR IO91WM " + w1aw, results.get(2));
+
+	assertEquals("N0NE INVALID KM18VB 0", results.get(3));
+    }
+
+    @Test
+    public void testAnnotateCabrillo() throws Exception
+    {
+	String log = "GRID-LOCATOR: KM18UB\n"
+		+ "QSO: 144000 CW 2011-03-12 1200 SV1DJG 599 001 SV2XYZ 599 KN10AA\n";
+
+	LogProcessor processor = new LogProcessor(Double.NaN, Double.NaN, new VincentyModel());
+	CabrilloReader reader = new CabrilloReader(new ByteArrayInputStream(log.getBytes("ISO-8859-1")));
+
+	assertTrue(reader.next());
+	QsoRecord record = reader.getRecord();
+	processor.annotate(record);
+
+	long from = LocatorDecoder.decode("KM18UB");
+	long to = LocatorDecoder.decode("KN10AA");
+	assertEquals(from, record.getMyLocator());
+	assertEquals(to, record.getLocator());
+	assertEquals(new VincentyModel().distance(LocatorCode.centreLatitude(from), LocatorCode.centreLongitude(from),
+		LocatorCode.centreLatitude(to), LocatorCode.centreLongitude(to)), record.getDistance(), 0.0);
+	assertTrue(record.isAnnotated());
+    }
+
+    @Test
+    public void testNoHome() throws Exception
+    {
+	LogProcessor processor = new LogProcessor();
+	AdifReader reader = new AdifReader(new ByteArrayInputStream("<CALL:4>K1AB<GRIDSQUARE:4>FN42<EOR>".getBytes("ISO-8859-1")));
+
+	assertTrue(reader.next());
+	processor.annotate(reader.getRecord());
+
+	assertEquals(LocatorDecoder.decode("FN42"), reader.getRecord().getLocator());
+	assertEquals(LocatorCode.INVALID, reader.getRecord().getMyLocator());
+	assertFalse(reader.getRecord().isAnnotated());
+	assertTrue(Double.isNaN(reader.getRecord().getBearing()));
+    }
+
+    @Test
+    public void testParseCoordinate()
+    {
+	assertEquals(51.504833333, LogProcessor.parseCoordinate("N051 30.290", false), 0.000000001);
+	assertEquals(-0.113666667, LogProcessor.parseCoordinate("W000 06.820", true), 0.000000001);
+	assertEquals(-33.5, LogProcessor.parseCoordinate("S033 30", false), 0.0);
+	assertEquals(179.999, LogProcessor.parseCoordinate("e179 59.94", true), 0.000001);
+
+	assertTrue(Double.isNaN(LogProcessor.parseCoordinate("E051 30.290", false)));
+	assertTrue(Double.isNaN(LogProcessor.parseCoordinate("N091 00.000", false)));
+	assertTrue(Double.isNaN(LogProcessor.parseCoordinate("N051 60.000", false)));
+	assertTrue(Double.isNaN(LogProcessor.parseCoordinate("N051", false)));
+	assertTrue(Double.isNaN(LogProcessor.parseCoordinate("", false)));
+	assertTrue(Double.isNaN(LogProcessor.parseCoordinate(null, false)));
+    }
+
+    @Test
+    public void testConstantMemory() throws Exception
+    {
+	// a long log through a small buffer, the record and the buffer are reused
+	StringBuilder log = new StringBuilder("<EOH>\n");
+	for (int i = 0; i < 20000; i++)
+	    log.append("<CALL:4>K1AB<GRIDSQUARE:4>FN42<MY_GRIDSQUARE:6>KM18UB<EOR>\n");
+
+	final QsoRecord[] seen = new QsoRecord[1];
+	LogProcessor processor = new LogProcessor();
+	long count = processor.process(new AdifReader(new ByteArrayInputStream(log.toString().getBytes("ISO-8859-1")), 256), new LogProcessor.Listener()
+	{
+	    public void qso(QsoRecord record)
+	    {
+		if (seen[0] == null)
+		    seen[0] = record;
+		assertSame(seen[0], record);
+		assertEquals(LocatorEncoder.encode(LocatorCode.centreLatitude(record.getLocator()), LocatorCode.centreLongitude(record.getLocator()), 4),
+			record.getLocator());
+	    }
+	});
+
+	assertEquals(20000, count);
+	assertEquals(20000, processor.getAnnotated());
+    }
+
+}
@@ -0,0 +1,77 @@
+package sv1djg.hamutils.metrics;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+
+    @Test
+    public void testBuckets()
+    {
+	// every value falls in its own bucket, and the buckets follow each other with no gaps
+	assertEquals(0, LatencyHistogram.bucketOf(0));
+	assertEquals(15, LatencyHistogram.bucketOf(15));
+	assertEquals(16, LatencyHistogram.bucketOf(16));
+
+	Random random = new Random(15);
+	for (int i = 0; i < 100000; i++)
+	{
+	    long value = random.nextLong() >>> (1 + random.nextInt(63));
+	    int bucket = LatencyHistogram.bucketOf(value);
+	    assertTrue(LatencyHistogram.lowestValueOf(bucket) <= value);
+	    assertTrue(LatencyHistogram.highestValueOf(bucket) >= value);
+	    assertTrue(LatencyHistogram.highestValueOf(bucket) - LatencyHistogram.lowestValueOf(bucket) <= value / 16);
+	}
+
+	for (int bucket = 1; bucket < LatencyHistogram.bucketOf(Long.MAX_VALUE); bucket++)
+	    assertEquals(LatencyHistogram.highestValueOf(bucket - 1) + 1, LatencyHistogram.lowestValueOf(bucket));
+	assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles()
+    {
+	LatencyHistogram histogram = new LatencyHistogram();
+	Random random = new Random(5);
+	long[] values = new long[10000];
+	for (int i = 0; i < values.length; i++)
+	{
+	    values[i] = 50 + random.nextInt(100000);
+	    histogram.record(values[i]);
+	}
+	Arrays.sort(values);
+
+	assertEquals(values.length, histogram.getCount());
+	assertEquals(values[values.length - 1], histogram.getMax());
+
+	for (double percentile : new double[] { 1.0, 50.0, 90.0, 99.0, 99.9 })
+	{
+	    long exact = values[(int)Math.ceil(percentile / 100.0 * values.length) - 1];
+	    long reported = histogram.getValueAtPercentile(percentile);
+	    assertTrue(reported >= exact);
+	    assertTrue(reported <= exact + exact / 16);
+	}
+	assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100.0));
+
+	long total = 0;
+	for (long value : values)
+	    total += value;
+	assertEquals((double)total / values.length, histogram.getMean(), 0.000001);
+
+	histogram.reset();
+	assertEquals(0, histogram.getCount());
+	assertEquals(0, histogram.getValueAtPercentile(50.0));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBadPercentile()
+    {
+	new LatencyHistogram().getValueAtPercentile(101.0);
+    }
+
+}
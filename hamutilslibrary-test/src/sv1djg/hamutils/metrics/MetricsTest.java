@@ -0,0 +1,162 @@
+package sv1djg.hamutils.metrics;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.BulkLocatorEncoder;
+import sv1djg.hamutils.locator.GridLocator;
+import sv1djg.hamutils.locator.LocatorCache;
+import sv1djg.hamutils.locator.LocatorDecoder;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class MetricsTest
+{
+
+    @Test
+    public void testRegistry()
+    {
+	MetricsRegistry registry = new MetricsRegistry();
+	registry.record(Operation.DISTANCE, 100);
+	registry.record(Operation.DISTANCE, 300);
+	registry.validationFailure(ValidationFailure.NOT_A_NUMBER);
+	registry.cacheLookup(true);
+	registry.cacheLookup(false);
+	registry.cacheLookup(false);
+	registry.batch(1000, 3);
+
+	assertEquals(2, registry.getCalls(Operation.DISTANCE));
+	assertEquals(0, registry.getCalls(Operation.BEARING));
+	assertEquals(200.0, registry.getLatency(Operation.DISTANCE).getMean(), 0.0);
+	assertEquals(300, registry.getLatency(Operation.DISTANCE).getMax());
+	assertEquals(1, registry.getValidationFailures(ValidationFailure.NOT_A_NUMBER));
+	assertEquals(1, registry.getCacheHits());
+	assertEquals(2, registry.getCacheMisses());
+	assertEquals(1, registry.getBatches());
+	assertEquals(1000, registry.getBatchRows());
+	assertEquals(3, registry.getBatchInvalidRows());
+
+	registry.reset();
+	assertEquals(0, registry.getCalls(Operation.DISTANCE));
+	assertEquals(0, registry.getLatency(Operation.DISTANCE).getCount());
+	assertEquals(0, registry.getCacheMisses());
+    }
+
+    @Test
+    public void testInstrumentedCalls() throws Exception
+    {
+	// the build runs this test a second time with -Dsv1djg.hamutils.metrics=true (the metrics execution of surefire)
+	assumeTrue(Metrics.ENABLED);
+
+	MetricsSource metrics = Metrics.get();
+	long distances = metrics.getCalls(Operation.DISTANCE);
+	long bearings = metrics.getCalls(Operation.BEARING);
+	long encodes = metrics.getCalls(Operation.LOCATOR_ENCODE);
+	long decodes = metrics.getCalls(Operation.LOCATOR_DECODE);
+	long notANumber = metrics.getValidationFailures(ValidationFailure.NOT_A_NUMBER);
+	long latitudes = metrics.getValidationFailures(ValidationFailure.LATITUDE_OUT_OF_RANGE);
+	long locators = metrics.getValidationFailures(ValidationFailure.INVALID_LOCATOR);
+	long batchRows = metrics.getBatchRows();
+	long batchInvalidRows = metrics.getBatchInvalidRows();
+	long hits = metrics.getCacheHits();
+	long misses = metrics.getCacheMisses();
+
+	DistanceCaclulator.distanceFrom(38.05737, 23.79665, 51.50484, -0.11367);
+	DistanceCaclulator.bearingTo(38.05737, 23.79665, 51.50484, -0.11367);
+	LocatorEncoder.encode(38.05737, 23.79665);
+	LocatorEncoder.encode(Double.NaN, 23.79665);
+	new GridLocator(38.05737, 23.79665);
+	try
+	{
+	    new GridLocator(95.0, 0.0);
+	    fail();
+	}
+	catch (Exception e)
+	{
+	}
+	LocatorDecoder.decode("KM18VB");
+	LocatorDecoder.decode("KZ18");
+	BulkLocatorEncoder.encode(new double[] { 1.0, 100.0 }, new double[] { 1.0, 1.0 }, 6, new long[2], new byte[2], 0, 2);
+
+	LocatorCache cache = new LocatorCache(16);
+	cache.locatorCode(38.05737, 23.79665);
+	cache.locatorCode(38.05737, 23.79665);
+
+	// other tests may run at the same time, so the counts are at least the calls made here
+	assertTrue(metrics.getCalls(Operation.DISTANCE) >= distances + 1);
+	assertTrue(metrics.getCalls(Operation.BEARING) >= bearings + 1);
+	assertTrue(metrics.getCalls(Operation.LOCATOR_ENCODE) >= encodes + 3);
+	assertTrue(metrics.getCalls(Operation.LOCATOR_DECODE) >= decodes + 1);
+	assertTrue(metrics.getValidationFailures(ValidationFailure.NOT_A_NUMBER) >= notANumber + 1);
+	assertTrue(metrics.getValidationFailures(ValidationFailure.LATITUDE_OUT_OF_RANGE) >= latitudes + 2);
+	assertTrue(metrics.getValidationFailures(ValidationFailure.INVALID_LOCATOR) >= locators + 1);
+	assertTrue(metrics.getBatchRows() >= batchRows + 2);
+	assertTrue(metrics.getBatchInvalidRows() >= batchInvalidRows + 1);
+	assertTrue(metrics.getCacheHits() >= hits + 1);
+	assertTrue(metrics.getCacheMisses() >= misses + 1);
+	assertTrue(metrics.getLatency(Operation.DISTANCE).getCount() > 0);
+    }
+
+    @Test
+    public void testDisabledRecordsNothing() throws Exception
+    {
+	// the default, as in production
+	assumeTrue(!Metrics.ENABLED);
+
+	DistanceCaclulator.distanceFrom(38.05737, 23.79665, 51.50484, -0.11367);
+	LocatorEncoder.encode(Double.NaN, 23.79665);
+	new GridLocator(38.05737, 23.79665);
+	LocatorDecoder.decode("KZ18");
+	BulkLocatorEncoder.encode(new double[] { 1.0, 100.0 }, new double[] { 1.0, 1.0 }, 6, new long[2], new byte[2], 0, 2);
+	LocatorCache cache = new LocatorCache(16);
+	cache.locatorCode(38.05737, 23.79665);
+	cache.locatorCode(38.05737, 23.79665);
+
+	MetricsSource metrics = Metrics.get();
+	for (Operation operation : Operation.values())
+	    assertEquals(0, metrics.getCalls(operation));
+	for (ValidationFailure failure : ValidationFailure.values())
+	    assertEquals(0, metrics.getValidationFailures(failure));
+	assertEquals(0, metrics.getCacheHits());
+	assertEquals(0, metrics.getCacheMisses());
+	assertEquals(0, metrics.getBatches());
+	assertEquals(0, Metrics.start());
+    }
+
+    @Test
+    public void testMBean() throws Exception
+    {
+	ObjectName name = Metrics.registerMBean();
+	try
+	{
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    assertEquals(Boolean.valueOf(Metrics.ENABLED), server.getAttribute(name, "Enabled"));
+	    assertTrue(server.getAttribute(name, "CacheHits") instanceof Long);
+
+	    // the maps are open data tables of key/value rows
+	    TabularData calls = (TabularData)server.getAttribute(name, "Calls");
+	    CompositeData row = calls.get(new Object[] { Operation.DISTANCE.name() });
+	    assertNotNull(row);
+	    assertTrue(row.get("value") instanceof Long);
+
+	    TabularData failures = (TabularData)server.getAttribute(name, "ValidationFailures");
+	    assertEquals(ValidationFailure.values().length, failures.size());
+	}
+	finally
+	{
+	    Metrics.unregisterMBean();
+	}
+
+	assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+}
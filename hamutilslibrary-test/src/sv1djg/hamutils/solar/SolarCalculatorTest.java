@@ -0,0 +1,66 @@
+package sv1djg.hamutils.solar;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+
+import org.junit.Test;
+
+public class SolarCalculatorTest
+{
+
+    @Test
+    public void testBuckets()
+    {
+	SolarCalculator calculator = new SolarCalculator(60000L, -6.0, 6.0, 16);
+	long time = SubsolarPointTest.utc(2024, Calendar.JUNE, 20, 12, 0);
+
+	SolarSnapshot snapshot = calculator.at(time);
+	assertEquals(time + 30000L, snapshot.getTime());
+	assertSame(snapshot, calculator.at(time + 59999L));
+	assertNotSame(snapshot, calculator.at(time + 60000L));
+	assertEquals(time + 90000L, calculator.at(time + 60000L).getTime());
+
+	// a bucket that took the same slot replaced it
+	calculator.at(time + 16 * 60000L);
+	assertNotSame(snapshot, calculator.at(time));
+	assertEquals(snapshot.getSubsolarLongitude(), calculator.at(time).getSubsolarLongitude(), 0.0);
+    }
+
+    @Test
+    public void testBeforeEpoch()
+    {
+	SolarCalculator calculator = new SolarCalculator();
+	assertEquals(-150000L, calculator.at(-1L).getTime());
+	assertEquals(150000L, calculator.at(0L).getTime());
+    }
+
+    @Test
+    public void testClassify()
+    {
+	SolarCalculator calculator = new SolarCalculator();
+	long time = SubsolarPointTest.utc(2024, Calendar.JUNE, 20, 12, 0);
+
+	double[] latitudes = { 38.05737, -34.6268, 90.0 };
+	double[] longitudes = { 23.79665, -58.36955, 0.0 };
+	byte[] states = new byte[3];
+	calculator.classify(time, latitudes, longitudes, states, 0, 3);
+
+	assertEquals(SolarSnapshot.DAY, states[0]);
+	assertEquals(SolarSnapshot.DAY, states[1]);
+	assertEquals(SolarSnapshot.DAY, states[2]);
+
+	// 02:00 UTC, night in athens and buenos aires
+	calculator.classify(time - 10 * 3600000L, latitudes, longitudes, states, 0, 3);
+	assertEquals(SolarSnapshot.NIGHT, states[0]);
+	assertEquals(SolarSnapshot.NIGHT, states[1]);
+	assertEquals(SolarSnapshot.DAY, states[2]);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidBucket()
+    {
+	new SolarCalculator(0L, -6.0, 6.0, 16);
+    }
+
+}
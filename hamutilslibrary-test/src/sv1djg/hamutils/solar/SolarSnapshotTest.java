@@ -0,0 +1,138 @@
+package sv1djg.hamutils.solar;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+import sv1djg.hamutils.locator.GridSet;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+
+public class SolarSnapshotTest
+{
+
+    private static final long TIME = SubsolarPointTest.utc(2024, Calendar.JUNE, 20, 12, 0);
+
+    @Test
+    public void testElevation()
+    {
+	SolarSnapshot snapshot = new SolarSnapshot(TIME);
+
+	// overhead at the subsolar point, on the horizon 90 degrees away, straight down at the antipode
+	assertEquals(90.0, snapshot.elevation(snapshot.getSubsolarLatitude(), snapshot.getSubsolarLongitude()), 0.000001);
+	assertEquals(0.0, snapshot.elevation(snapshot.getSubsolarLatitude() - 90.0, snapshot.getSubsolarLongitude()), 0.000001);
+	assertEquals(-90.0, snapshot.elevation(-snapshot.getSubsolarLatitude(), snapshot.getSubsolarLongitude() + 180.0), 0.000001);
+
+	// midsummer midnight sun at the north pole
+	assertEquals(snapshot.getSubsolarLatitude(), snapshot.elevation(90.0, 0.0), 0.000001);
+	assertEquals(SolarSnapshot.DAY, snapshot.classify(90.0, 0.0));
+	assertEquals(SolarSnapshot.NIGHT, snapshot.classify(-90.0, 0.0));
+    }
+
+    @Test
+    public void testClassifyBatches()
+    {
+	Random random = new Random(23);
+	int count = 5000;
+	double[] latitudes = new double[count];
+	double[] longitudes = new double[count];
+	for (int i = 0; i < count; i++)
+	{
+	    latitudes[i] = random.nextDouble() * 180.0 - 90.0;
+	    longitudes[i] = random.nextDouble() * 360.0 - 180.0;
+	}
+
+	SolarSnapshot snapshot = new SolarSnapshot(TIME, -12.0, 3.0);
+	byte[] states = new byte[count];
+	byte[] vectorStates = new byte[count];
+	double[] vectors = new double[count * 3];
+
+	snapshot.classify(latitudes, longitudes, states, 0, count);
+	SolarSnapshot.toVectors(latitudes, longitudes, vectors, 0, count);
+	snapshot.classifyVectors(vectors, vectorStates, 0, count);
+
+	int[] seen = new int[3];
+	for (int i = 0; i < count; i++)
+	{
+	    double elevation = snapshot.elevation(latitudes[i], longitudes[i]);
+	    byte expected = elevation > 3.0 ? SolarSnapshot.DAY : elevation < -12.0 ? SolarSnapshot.NIGHT : SolarSnapshot.GRAYLINE;
+	    assertEquals(expected, states[i]);
+	    assertEquals(expected, vectorStates[i]);
+	    seen[expected]++;
+	}
+	assertTrue(seen[SolarSnapshot.GRAYLINE] > 0 && seen[SolarSnapshot.DAY] > 0 && seen[SolarSnapshot.NIGHT] > 0);
+
+	// the paths between the points, with their midpoints
+	int paths = count - 1;
+	byte[] from = new byte[paths];
+	byte[] midpoint = new byte[paths];
+	byte[] to = new byte[paths];
+	double[] toVectors = new double[paths * 3];
+	System.arraycopy(vectors, 3, toVectors, 0, paths * 3);
+	snapshot.classifyPaths(vectors, toVectors, from, midpoint, to, 0, paths);
+
+	for (int i = 0; i < paths; i++)
+	{
+	    assertEquals(states[i], from[i]);
+	    assertEquals(states[i + 1], to[i]);
+
+	    CoordinateSet middle = DistanceCaclulator.midpointOf(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]);
+	    double elevation = snapshot.elevation(middle.getLatitude(), middle.getLongitude());
+	    // away from the edges of the bands, where rounding could go either way
+	    if (Math.abs(elevation - 3.0) > 0.000001 && Math.abs(elevation + 12.0) > 0.000001)
+		assertEquals(snapshot.classify(middle.getLatitude(), middle.getLongitude()), midpoint[i]);
+	}
+    }
+
+    @Test
+    public void testTerminator()
+    {
+	SolarSnapshot snapshot = new SolarSnapshot(TIME);
+	double[] latitudes = new double[SolarSnapshot.TERMINATOR_POINTS + 1];
+	double[] longitudes = new double[SolarSnapshot.TERMINATOR_POINTS + 1];
+	snapshot.terminator(latitudes, longitudes, 1);
+
+	for (int i = 1; i <= SolarSnapshot.TERMINATOR_POINTS; i++)
+	    assertEquals(0.0, snapshot.elevation(latitudes[i], longitudes[i]), 0.000001);
+
+	// the first point is the northernmost, past the pole from the subsolar point
+	assertEquals(90.0 - snapshot.getSubsolarLatitude(), latitudes[1], 0.000001);
+	assertEquals(snapshot.getSubsolarLongitude() + 180.0, longitudes[1] < 0 ? longitudes[1] + 360.0 : longitudes[1], 0.000001);
+    }
+
+    @Test
+    public void testSquares()
+    {
+	SolarSnapshot snapshot = new SolarSnapshot(TIME);
+
+	long athens = LocatorDecoder.decode("KM18WB");
+	assertEquals(snapshot.classify(LocatorCode.centreLatitude(LocatorCode.truncate(athens, 2)),
+		LocatorCode.centreLongitude(LocatorCode.truncate(athens, 2))), snapshot.classify(athens));
+	assertEquals(SolarSnapshot.DAY, snapshot.classify(athens));
+
+	GridSet day = snapshot.squares(SolarSnapshot.DAY);
+	GridSet grayline = snapshot.squares(SolarSnapshot.GRAYLINE);
+	GridSet night = snapshot.squares(SolarSnapshot.NIGHT);
+	assertEquals(GridSet.SQUARES, day.squareCount() + grayline.squareCount() + night.squareCount());
+	assertTrue(day.contains("KM18"));
+
+	for (int square = 0; square < GridSet.SQUARES; square++)
+	{
+	    long code = LocatorCode.fromCellId(square, 2);
+	    byte state = snapshot.classify(LocatorCode.centreLatitude(code), LocatorCode.centreLongitude(code));
+	    assertEquals(state == SolarSnapshot.NIGHT, night.contains(code));
+	}
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidGrayline()
+    {
+	new SolarSnapshot(TIME, 5.0, -5.0);
+    }
+
+}
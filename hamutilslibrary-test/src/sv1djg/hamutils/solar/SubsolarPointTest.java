@@ -0,0 +1,61 @@
+package sv1djg.hamutils.solar;
+
+import static org.junit.Assert.*;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.Coordinates;
+
+public class SubsolarPointTest
+{
+
+    @Test
+    public void testEquinoxAndSolstice()
+    {
+	// the march equinox of 2024 was at 03:06 UTC
+	assertEquals(0.0, SubsolarPoint.at(utc(2024, Calendar.MARCH, 20, 3, 6)).getLatitude(), 0.02);
+	// the june solstice at 20:51 UTC
+	assertEquals(23.44, SubsolarPoint.at(utc(2024, Calendar.JUNE, 20, 20, 51)).getLatitude(), 0.01);
+	// the december solstice at 09:21 UTC
+	assertEquals(-23.44, SubsolarPoint.at(utc(2024, Calendar.DECEMBER, 21, 9, 21)).getLatitude(), 0.01);
+    }
+
+    @Test
+    public void testEquationOfTime()
+    {
+	// at 12:00 UTC the sun is over greenwich, less the equation of time (4 minutes a degree):
+	// -7.5 minutes late in march, 16.4 minutes early in november
+	assertEquals(1.87, SubsolarPoint.at(utc(2024, Calendar.MARCH, 20, 12, 0)).getLongitude(), 0.05);
+	assertEquals(-4.1, SubsolarPoint.at(utc(2024, Calendar.NOVEMBER, 3, 12, 0)).getLongitude(), 0.05);
+
+	// and moves west 15 degrees an hour (the equation of time itself changes about 18 seconds a day)
+	double noon = SubsolarPoint.at(utc(2024, Calendar.MARCH, 20, 12, 0)).getLongitude();
+	assertEquals(noon - 90.0, SubsolarPoint.at(utc(2024, Calendar.MARCH, 20, 18, 0)).getLongitude(), 0.05);
+	assertEquals(noon + 180.0, SubsolarPoint.at(utc(2024, Calendar.MARCH, 20, 0, 0)).getLongitude() + 360.0, 0.05);
+    }
+
+    @Test
+    public void testBeforeEpoch()
+    {
+	Coordinates point = SubsolarPoint.at(utc(1969, Calendar.JUNE, 21, 12, 0));
+	assertEquals(23.44, point.getLatitude(), 0.02);
+	assertEquals(0.0, point.getLongitude(), 1.0);
+
+	double[] coordinates = new double[3];
+	SubsolarPoint.calculate(utc(1969, Calendar.JUNE, 21, 12, 0), coordinates, 1);
+	assertEquals(point.getLatitude(), coordinates[1], 0.0);
+	assertEquals(point.getLongitude(), coordinates[2], 0.0);
+    }
+
+    static long utc(int year, int month, int day, int hour, int minute)
+    {
+	Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+	calendar.clear();
+	calendar.set(year, month, day, hour, minute);
+	return calendar.getTimeInMillis();
+    }
+
+}
@@ -0,0 +1,181 @@
+package sv1djg.hamutils.spots;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.Observer;
+
+public class BeamQueryTest
+{
+
+    private static final int POINTS = 20000;
+
+    private static final double HOME_LATITUDE = 38.05737;
+    private static final double HOME_LONGITUDE = 23.79665;
+
+    @Test
+    public void testSameAsEveryPoint()
+    {
+	Random random = new Random(19);
+	double[] latitudes = new double[POINTS];
+	double[] longitudes = new double[POINTS];
+	randomPoints(random, latitudes, longitudes);
+
+	BeamQuery.Sector[] sectors = {
+		BeamQuery.Sector.beam(300.0, 30.0, 0.0, 3000.0, false),
+		new BeamQuery.Sector(350.0, 10.0, 1000.0, 8000.0, false),
+		BeamQuery.Sector.beam(90.0, 60.0, 20000.0, 40000.0, true),
+		BeamQuery.Sector.beam(0.0, 360.0, 0.0, 500.0, false) };
+	BeamQuery query = new BeamQuery(HOME_LATITUDE, HOME_LONGITUDE, sectors);
+
+	long[][] matches = new long[sectors.length][BeamQuery.wordsFor(POINTS)];
+	long[] any = new long[BeamQuery.wordsFor(POINTS)];
+
+	int matched = query.evaluate(latitudes, longitudes, 0, POINTS, matches);
+	assertEquals(matched, query.evaluate(latitudes, longitudes, 0, POINTS, any));
+
+	Observer home = new Observer(HOME_LATITUDE, HOME_LONGITUDE);
+	Observer.Path path = new Observer.Path();
+	int expectedMatched = 0;
+	for (int i = 0; i < POINTS; i++)
+	{
+	    home.pathTo(latitudes[i], longitudes[i], path);
+	    boolean expectedAny = false;
+	    for (int s = 0; s < sectors.length; s++)
+	    {
+		boolean expected = inSector(sectors[s], path);
+		assertEquals("point " + i + " sector " + s, expected, isSet(matches[s], i));
+		expectedAny |= expected;
+	    }
+	    assertEquals(expectedAny, isSet(any, i));
+	    if (expectedAny)
+		expectedMatched++;
+	}
+	assertEquals(expectedMatched, matched);
+
+	// narrow beams never look at most of the points
+	assertTrue(query.getPrunedPoints() > POINTS);
+    }
+
+    @Test
+    public void testWrapAround()
+    {
+	// 20 degrees either side of north
+	BeamQuery query = new BeamQuery(0.0, 0.0, new BeamQuery.Sector(340.0, 20.0, 0.0, 20000.0, false));
+
+	assertTrue(query.matches(10.0, 1.0));
+	assertTrue(query.matches(10.0, -1.0));
+	assertFalse(query.matches(10.0, 10.0));
+	assertFalse(query.matches(-10.0, 1.0));
+
+	assertEquals(340.0, query.getSector(0).getFromBearing(), 0.0);
+	assertEquals(20.0, query.getSector(0).getToBearing(), 0.0);
+
+	// a beam across north is the same window
+	BeamQuery.Sector beam = BeamQuery.Sector.beam(0.0, 40.0, 0.0, 20000.0, false);
+	assertEquals(340.0, beam.getFromBearing(), 0.0);
+	assertEquals(20.0, beam.getToBearing(), 0.000000001);
+    }
+
+    @Test
+    public void testLongPath()
+    {
+	// a point due east on the short path is due west on the long path
+	BeamQuery.Sector west = BeamQuery.Sector.beam(270.0, 10.0, 30000.0, 40100.0, true);
+	BeamQuery.Sector east = BeamQuery.Sector.beam(90.0, 10.0, 30000.0, 40100.0, true);
+	BeamQuery query = new BeamQuery(0.0, 0.0, west, east);
+
+	double[] latitudes = { 0.0, 0.0 };
+	double[] longitudes = { 60.0, -60.0 };
+	long[][] matches = new long[2][1];
+
+	assertEquals(2, query.evaluate(latitudes, longitudes, 0, 2, matches));
+	assertEquals(1L, matches[0][0]);
+	assertEquals(2L, matches[1][0]);
+
+	// 60 degrees away is 6672Km on the short path, 33359Km the long way round
+	assertTrue(west.contains(6671.7, 90.0));
+	assertFalse(west.contains(6671.7, 270.0));
+	assertFalse(BeamQuery.Sector.beam(270.0, 10.0, 0.0, 10000.0, true).contains(6671.7, 90.0));
+    }
+
+    @Test
+    public void testSpotTable()
+    {
+	Random random = new Random(7);
+	double[] latitudes = new double[1000];
+	double[] longitudes = new double[1000];
+	randomPoints(random, latitudes, longitudes);
+	latitudes[5] = Double.NaN;
+
+	SpotTable table = new SpotTable(HOME_LATITUDE, HOME_LONGITUDE);
+	table.addAll(latitudes, longitudes, 0, latitudes.length);
+
+	BeamQuery query = new BeamQuery(HOME_LATITUDE, HOME_LONGITUDE, BeamQuery.Sector.beam(315.0, 90.0, 0.0, 5000.0, false));
+	long[][] matches = new long[1][BeamQuery.wordsFor(1000)];
+
+	int matched = query.evaluate(table, 0, table.size(), matches);
+	assertTrue(matched > 0);
+	for (int i = 0; i < table.size(); i++)
+	    assertEquals(query.getSector(0).contains(table.distanceAt(i), table.bearingAt(i)), isSet(matches[0], i));
+	assertFalse(isSet(matches[0], 5));
+    }
+
+    @Test
+    public void testInvalidPoints()
+    {
+	BeamQuery query = new BeamQuery(HOME_LATITUDE, HOME_LONGITUDE, BeamQuery.Sector.beam(0.0, 360.0, 0.0, 40100.0, false));
+
+	double[] latitudes = { Double.NaN, 91.0, 10.0, 90.0 };
+	double[] longitudes = { 0.0, 0.0, 181.0, 180.0 };
+	long[] any = { -1L };
+
+	assertEquals(1, query.evaluate(latitudes, longitudes, 0, 4, any));
+	assertEquals(8L, any[0]);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidBand()
+    {
+	BeamQuery.Sector.beam(0.0, 30.0, 500.0, 100.0, false);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testWrongBitsetCount()
+    {
+	BeamQuery query = new BeamQuery(0.0, 0.0, BeamQuery.Sector.beam(0.0, 30.0, 0.0, 100.0, false));
+	query.evaluate(new double[1], new double[1], 0, 1, new long[2][1]);
+    }
+
+    private static boolean inSector(BeamQuery.Sector sector, Observer.Path path)
+    {
+	double distance = sector.isLongPath() ? path.getLongPathDistance() : path.getDistance();
+	double bearing = sector.isLongPath() ? path.getLongPathBearing() : path.getBearing();
+	if (distance < sector.getMinDistance() || distance > sector.getMaxDistance())
+	    return false;
+
+	double from = sector.getFromBearing();
+	double to = sector.getToBearing();
+	if (from == to)
+	    return true;
+	return from < to ? bearing >= from && bearing <= to : bearing >= from || bearing <= to;
+    }
+
+    private static boolean isSet(long[] bits, int i)
+    {
+	return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void randomPoints(Random random, double[] latitudes, double[] longitudes)
+    {
+	for (int i = 0; i < latitudes.length; i++)
+	{
+	    latitudes[i] = Math.toDegrees(Math.asin(2.0 * random.nextDouble() - 1.0));
+	    longitudes[i] = random.nextDouble() * 360.0 - 180.0;
+	}
+    }
+
+}
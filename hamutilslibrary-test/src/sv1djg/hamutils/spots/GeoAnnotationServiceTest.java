@@ -0,0 +1,196 @@
+package sv1djg.hamutils.spots;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class GeoAnnotationServiceTest
+{
+
+    private static final double[] HOME_LATITUDES = { 38.05737, 51.50484 };
+    private static final double[] HOME_LONGITUDES = { 23.79665, -0.11367 };
+
+    @Test
+    public void testManyProducers() throws Exception
+    {
+	final GeoAnnotationService service = new GeoAnnotationService(HOME_LATITUDES, HOME_LONGITUDES, 6, 64, 32, 1, TimeUnit.MILLISECONDS, null);
+
+	final int producers = 4;
+	final int spots = 2000;
+	final List<List<double[]>> submitted = new ArrayList<List<double[]>>();
+	final List<List<CompletableFuture<GeoAnnotationService.Annotation>>> futures = new ArrayList<List<CompletableFuture<GeoAnnotationService.Annotation>>>();
+	Thread[] threads = new Thread[producers];
+
+	for (int p = 0; p < producers; p++)
+	{
+	    final List<double[]> points = new ArrayList<double[]>();
+	    final List<CompletableFuture<GeoAnnotationService.Annotation>> results = new ArrayList<CompletableFuture<GeoAnnotationService.Annotation>>();
+	    submitted.add(points);
+	    futures.add(results);
+
+	    final Random random = new Random(p);
+	    threads[p] = new Thread()
+	    {
+		public void run()
+		{
+		    try
+		    {
+			for (int i = 0; i < spots; i++)
+			{
+			    double[] point = { random.nextDouble() * 180.0 - 90.0, random.nextDouble() * 360.0 - 180.0 };
+			    points.add(point);
+			    results.add(service.annotate(point[0], point[1]));
+			}
+		    }
+		    catch (InterruptedException e)
+		    {
+			throw new RuntimeException(e);
+		    }
+		}
+	    };
+	    threads[p].start();
+	}
+
+	for (Thread thread : threads)
+	    thread.join();
+
+	for (int p = 0; p < producers; p++)
+	{
+	    for (int i = 0; i < spots; i++)
+	    {
+		double[] point = submitted.get(p).get(i);
+		GeoAnnotationService.Annotation annotation = futures.get(p).get(i).get(10, TimeUnit.SECONDS);
+
+		assertEquals(point[0], annotation.getLatitude(), 0.0);
+		assertEquals(LocatorEncoder.encode(point[0], point[1], 6), annotation.getLocatorCode());
+		assertEquals(2, annotation.getHomeCount());
+		for (int home = 0; home < 2; home++)
+		{
+		    assertEquals(DistanceCaclulator.distanceFrom(HOME_LATITUDES[home], HOME_LONGITUDES[home], point[0], point[1]), annotation.getDistance(home), 0.0);
+		    assertEquals(DistanceCaclulator.bearingTo(HOME_LATITUDES[home], HOME_LONGITUDES[home], point[0], point[1]), annotation.getBearing(home), 0.0);
+		}
+	    }
+	}
+
+	service.close();
+	assertEquals(producers * spots, service.getAnnotated());
+	// every batch holds at most 32 requests
+	assertTrue(service.getBatches() >= producers * spots / 32);
+    }
+
+    @Test
+    public void testDeadline() throws Exception
+    {
+	// a lone request does not wait for a full batch
+	GeoAnnotationService service = new GeoAnnotationService(HOME_LATITUDES, HOME_LONGITUDES, 8, 16, 1000, 5, TimeUnit.MILLISECONDS, null);
+
+	GeoAnnotationService.Annotation annotation = service.annotate(-34.6268, -58.36955).get(2, TimeUnit.SECONDS);
+	assertEquals(LocatorCode.toString(LocatorEncoder.encode(-34.6268, -58.36955)), annotation.getLocator());
+	assertEquals(1, service.getBatches());
+
+	service.close();
+    }
+
+    @Test
+    public void testInvalidSpot() throws Exception
+    {
+	GeoAnnotationService service = new GeoAnnotationService(HOME_LATITUDES, HOME_LONGITUDES);
+
+	GeoAnnotationService.Annotation annotation = service.annotate(Double.NaN, 10.0).get(2, TimeUnit.SECONDS);
+	assertFalse(annotation.isValid());
+	assertEquals(LocatorCode.INVALID, annotation.getLocatorCode());
+	assertNull(annotation.getLocator());
+	assertTrue(Double.isNaN(annotation.getDistance(0)));
+	assertTrue(Double.isNaN(annotation.getBearing(1)));
+
+	service.close();
+    }
+
+    @Test
+    public void testCloseWhenInterrupted() throws Exception
+    {
+	GeoAnnotationService service = new GeoAnnotationService(HOME_LATITUDES, HOME_LONGITUDES);
+	CompletableFuture<GeoAnnotationService.Annotation> future = service.annotate(38.05737, 23.79665);
+
+	// close() still waits for the worker, and keeps the interrupt for the caller
+	Thread.currentThread().interrupt();
+	service.close();
+	assertTrue(Thread.interrupted());
+
+	assertTrue(future.isDone());
+	assertTrue(service.isClosed());
+    }
+
+    @Test
+    public void testBackpressureAndClose() throws Exception
+    {
+	// the worker only starts when the test lets it, so the queue fills up
+	final CountDownLatch start = new CountDownLatch(1);
+	ThreadFactory held = new ThreadFactory()
+	{
+	    public Thread newThread(final Runnable work)
+	    {
+		return new Thread()
+		{
+		    public void run()
+		    {
+			try
+			{
+			    start.await();
+			}
+			catch (InterruptedException e)
+			{
+			    return;
+			}
+			work.run();
+		    }
+		};
+	    }
+	};
+
+	GeoAnnotationService service = new GeoAnnotationService(HOME_LATITUDES, HOME_LONGITUDES, 4, 4, 2, 0, TimeUnit.MILLISECONDS, held);
+
+	List<CompletableFuture<GeoAnnotationService.Annotation>> futures = new ArrayList<CompletableFuture<GeoAnnotationService.Annotation>>();
+	for (int i = 0; i < 4; i++)
+	    futures.add(service.tryAnnotate(10.0 + i, 20.0));
+
+	assertNull(service.tryAnnotate(0.0, 0.0));
+	assertEquals(4, service.getQueued());
+
+	start.countDown();
+
+	// close() still annotates what was queued
+	service.close();
+	for (CompletableFuture<GeoAnnotationService.Annotation> future : futures)
+	    assertTrue(future.isDone() && future.get().isValid());
+	assertEquals(4, service.getAnnotated());
+
+	try
+	{
+	    service.tryAnnotate(0.0, 0.0);
+	    fail("a closed service took a request");
+	}
+	catch (IllegalStateException e)
+	{
+	}
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidHome()
+    {
+	new GeoAnnotationService(new double[] { 95.0 }, new double[] { 0.0 });
+    }
+
+}
@@ -0,0 +1,178 @@
+package sv1djg.hamutils.spots;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+
+public class SpotIndexTest
+{
+
+    private static final int POINTS = 5000;
+
+    @Test
+    public void testWithinDistance()
+    {
+	Random random = new Random(500);
+	SpotIndex index = randomIndex(random);
+
+	for (int query = 0; query < 50; query++)
+	{
+	    double latitude = random.nextDouble() * 180.0 - 90.0;
+	    double longitude = random.nextDouble() * 360.0 - 180.0;
+	    double radius = 100.0 + random.nextDouble() * 3000.0;
+
+	    final List<Integer> found = new ArrayList<Integer>();
+	    int count = index.withinDistance(latitude, longitude, radius, new SpotIndex.Visitor()
+	    {
+		public void visit(int id, double distance)
+		{
+		    found.add(id);
+		}
+	    });
+
+	    List<Integer> expected = new ArrayList<Integer>();
+	    for (int id = 0; id < POINTS; id++)
+	    {
+		if (DistanceCaclulator.distanceFrom(latitude, longitude, index.latitudeOf(id), index.longitudeOf(id)) <= radius)
+		    expected.add(id);
+	    }
+
+	    Collections.sort(found);
+	    assertEquals(expected, found);
+	    assertEquals(expected.size(), count);
+	}
+    }
+
+    @Test
+    public void testNearest()
+    {
+	Random random = new Random(10);
+	SpotIndex index = randomIndex(random);
+
+	int k = 10;
+	int[] ids = new int[k];
+	double[] distances = new double[k];
+
+	for (int query = 0; query < 50; query++)
+	{
+	    double latitude = random.nextDouble() * 180.0 - 90.0;
+	    double longitude = random.nextDouble() * 360.0 - 180.0;
+
+	    assertEquals(k, index.nearest(latitude, longitude, k, ids, distances));
+
+	    double[] all = new double[POINTS];
+	    for (int id = 0; id < POINTS; id++)
+		all[id] = DistanceCaclulator.distanceFrom(latitude, longitude, index.latitudeOf(id), index.longitudeOf(id));
+	    Arrays.sort(all);
+
+	    for (int i = 0; i < k; i++)
+	    {
+		assertEquals(all[i], distances[i], 0.000000001);
+		assertEquals(distances[i], DistanceCaclulator.distanceFrom(latitude, longitude, index.latitudeOf(ids[i]), index.longitudeOf(ids[i])), 0.000000001);
+	    }
+	}
+    }
+
+    @Test
+    public void testNearestFewPoints()
+    {
+	SpotIndex index = new SpotIndex();
+	index.insert(7, 38.01686, 23.80057);
+	index.insert(3, 51.50484, -0.11367);
+
+	int[] ids = new int[5];
+	double[] distances = new double[5];
+
+	assertEquals(2, index.nearest(38.05737, 23.79665, 5, ids, distances));
+	assertEquals(7, ids[0]);
+	assertEquals(4.517570, distances[0], 0.00001);
+	assertEquals(3, ids[1]);
+	assertEquals(2388.864683, distances[1], 0.00001);
+    }
+
+    @Test
+    public void testWithinBounds()
+    {
+	SpotIndex index = new SpotIndex();
+	index.insert(1, 10.0, 179.5);
+	index.insert(2, 10.0, -179.5);
+	index.insert(3, 10.0, 0.0);
+	index.insert(4, 30.0, 179.5);
+
+	final List<Integer> found = new ArrayList<Integer>();
+	SpotIndex.Visitor collector = new SpotIndex.Visitor()
+	{
+	    public void visit(int id, double distance)
+	    {
+		found.add(id);
+	    }
+	};
+
+	// across the antimeridian
+	assertEquals(2, index.withinBounds(5.0, 179.0, 15.0, -179.0, collector));
+	Collections.sort(found);
+	assertEquals(Arrays.asList(1, 2), found);
+
+	found.clear();
+	assertEquals(1, index.withinBounds(-5.0, -1.0, 15.0, 1.0, collector));
+	assertEquals(Arrays.asList(3), found);
+    }
+
+    @Test
+    public void testInsertMoveRemove()
+    {
+	SpotIndex index = new SpotIndex(4);
+	index.insert(0, 38.05737, 23.79665);
+	index.insert(100, 38.01686, 23.80057);
+	index.insert(5, -34.6268, -58.36955);
+
+	assertEquals(3, index.size());
+	assertTrue(index.contains(100));
+
+	// moving a point keeps the size
+	index.insert(100, 51.50484, -0.11367);
+	assertEquals(3, index.size());
+
+	int[] ids = new int[1];
+	double[] distances = new double[1];
+	index.nearest(51.5, -0.1, 1, ids, distances);
+	assertEquals(100, ids[0]);
+
+	assertTrue(index.remove(100));
+	assertFalse(index.remove(100));
+	assertFalse(index.contains(100));
+	assertEquals(2, index.size());
+
+	index.nearest(51.5, -0.1, 1, ids, distances);
+	assertEquals(0, ids[0]);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInsertInvalid()
+    {
+	new SpotIndex().insert(1, 91.0, 0.0);
+    }
+
+    private static SpotIndex randomIndex(Random random)
+    {
+	SpotIndex index = new SpotIndex();
+	for (int id = 0; id < POINTS; id++)
+	{
+	    // half of the points in europe, where the squares are crowded
+	    if (id % 2 == 0)
+		index.insert(id, 35.0 + random.nextDouble() * 25.0, -10.0 + random.nextDouble() * 40.0);
+	    else
+		index.insert(id, Math.toDegrees(Math.asin(2.0 * random.nextDouble() - 1.0)), random.nextDouble() * 360.0 - 180.0);
+	}
+	return index;
+    }
+
+}
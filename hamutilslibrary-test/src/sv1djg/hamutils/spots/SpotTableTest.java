@@ -0,0 +1,127 @@
+package sv1djg.hamutils.spots;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+import sv1djg.hamutils.locator.GridLocator;
+import sv1djg.hamutils.locator.LocatorCode;
+
+public class SpotTableTest
+{
+
+    @Test
+    public void testAdd() throws Exception
+    {
+	SpotTable table = new SpotTable(38.05737, 23.79665);
+
+	int index = table.add(51.50484, -0.11367);
+
+	assertEquals(0, index);
+	assertEquals(1, table.size());
+	assertEquals(51.50484, table.latitudeAt(0), 0.000000001);
+	assertEquals(-0.11367, table.longitudeAt(0), 0.000000001);
+	assertEquals("IO91WM61", LocatorCode.toString(table.locatorAt(0)));
+	assertEquals(2388.864683, table.distanceAt(0), 0.000001);
+	assertEquals(316.460501, table.bearingAt(0), 0.000001);
+    }
+
+    @Test
+    public void testAddAllGrows()
+    {
+	SpotTable table = new SpotTable(38.05737, 23.79665, 4, 16);
+
+	int count = 5000;
+	double[] latitudes = new double[count];
+	double[] longitudes = new double[count];
+	for (int i = 0; i < count; i++)
+	{
+	    latitudes[i] = -80.0 + (i % 160);
+	    longitudes[i] = -170.0 + (i % 340);
+	}
+
+	table.addAll(latitudes, longitudes, 0, 2000);
+	table.addAll(latitudes, longitudes, 2000, 3000);
+
+	assertEquals(count, table.size());
+	for (int i = 0; i < count; i++)
+	{
+	    assertEquals(latitudes[i], table.latitudeAt(i), 0.0);
+	    assertEquals(4, LocatorCode.length(table.locatorAt(i)));
+	    assertEquals(DistanceCaclulator.distanceFrom(38.05737, 23.79665, latitudes[i], longitudes[i]), table.distanceAt(i), 0.000000001);
+	    assertEquals(DistanceCaclulator.bearingTo(38.05737, 23.79665, latitudes[i], longitudes[i]), table.bearingAt(i), 0.000000001);
+	}
+    }
+
+    @Test
+    public void testInvalidRow()
+    {
+	SpotTable table = new SpotTable(38.05737, 23.79665);
+	table.add(91.0, 10.0);
+
+	assertEquals(LocatorCode.INVALID, table.locatorAt(0));
+	assertTrue(Double.isNaN(table.distanceAt(0)));
+	assertTrue(Double.isNaN(table.bearingAt(0)));
+    }
+
+    @Test
+    public void testForEach()
+    {
+	SpotTable table = new SpotTable(38.05737, 23.79665);
+	table.add(38.01686, 23.80057);
+	table.add(-34.6268, -58.36955);
+	table.add(51.50484, -0.11367);
+
+	final double[] total = new double[1];
+	final int[] visited = new int[1];
+	table.forEach(1, 3, new SpotTable.Visitor()
+	{
+	    public void visit(int index, double latitude, double longitude, long locator, double distance, double bearing)
+	    {
+		total[0] += distance;
+		visited[0]++;
+	    }
+	});
+
+	assertEquals(2, visited[0]);
+	assertEquals(11696.277387 + 2388.864683, total[0], 0.00001);
+    }
+
+    @Test
+    public void testViews() throws Exception
+    {
+	SpotTable table = new SpotTable(38.05737, 23.79665);
+	table.add(-34.6268, -58.36955);
+
+	CoordinateSet coordinates = table.coordinateSetAt(0);
+	GridLocator grid = table.gridLocatorAt(0);
+
+	assertEquals(-34.6268, coordinates.getLatitude(), 0.000000001);
+	assertEquals(-58.36955, coordinates.getLongitude(), 0.000000001);
+	assertEquals("GF05TI59", grid.getLocator());
+    }
+
+    @Test
+    public void testSetHome()
+    {
+	SpotTable table = new SpotTable(0.0, 0.0);
+	table.add(38.01686, 23.80057);
+	table.setHome(38.05737, 23.79665);
+
+	assertEquals(4.517570, table.distanceAt(0), 0.00001);
+	assertEquals(175.640464, table.bearingAt(0), 0.00001);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds()
+    {
+	SpotTable table = new SpotTable(38.05737, 23.79665);
+	table.add(38.01686, 23.80057);
+	table.clear();
+
+	table.latitudeAt(0);
+    }
+
+}
@@ -0,0 +1,275 @@
+package sv1djg.hamutils.spots;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class SpotWindowTest
+{
+
+    private static final long MINUTE = 60000L;
+    private static final int BANDS = 3;
+    private static final int TOP = 20;
+
+    private static final class Spot
+    {
+	final long time;
+	final int band;
+	final double distance;
+	final int square;
+
+	Spot(long time, int band, double distance, int square)
+	{
+	    this.time = time;
+	    this.band = band;
+	    this.distance = distance;
+	    this.square = square;
+	}
+    }
+
+    @Test
+    public void testSameAsRescan()
+    {
+	Random random = new Random(25);
+	SpotWindow window = new SpotWindow(BANDS, 15, 1, TimeUnit.MINUTES, TOP);
+	List<Spot> spots = new ArrayList<Spot>();
+
+	long time = 1300000000000L;
+	for (int round = 0; round < 40; round++)
+	{
+	    for (int i = 0; i < 300; i++)
+	    {
+		time += random.nextInt(400);
+		int band = random.nextInt(BANDS);
+		double fromLatitude = 35.0 + random.nextDouble() * 25.0;
+		double fromLongitude = -10.0 + random.nextDouble() * 40.0;
+		double toLatitude = Math.toDegrees(Math.asin(2.0 * random.nextDouble() - 1.0));
+		double toLongitude = random.nextDouble() * 360.0 - 180.0;
+
+		assertTrue(window.add(time, band, fromLatitude, fromLongitude, toLatitude, toLongitude, spots.size()));
+		spots.add(new Spot(time, band, DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude),
+			LocatorCode.cellId(LocatorEncoder.encode(toLatitude, toLongitude, 4))));
+	    }
+
+	    // the whole minutes of the window, up to the newest spot
+	    long oldest = (time / MINUTE - 14) * MINUTE;
+	    check(window, spots, oldest);
+	}
+    }
+
+    @Test
+    public void testExpiry()
+    {
+	SpotWindow window = new SpotWindow(1, 10, 1, TimeUnit.MINUTES, TOP);
+	long home = LocatorDecoder.decode("KM18VB");
+	long time = 1300000000000L;
+
+	assertTrue(window.add(time, 0, home, LocatorDecoder.decode("IO91WM"), 1));
+	assertTrue(window.add(time + 5 * MINUTE, 0, home, LocatorDecoder.decode("GF05TJ"), 2));
+	assertEquals(2, window.getSpots());
+	assertEquals(1, window.squareCount(LocatorDecoder.decode("IO91")));
+
+	long[] ids = new long[TOP];
+	double[] distances = new double[TOP];
+	assertEquals(2, window.longestPaths(0, ids, distances));
+	assertEquals(2, ids[0]);
+	assertEquals(1, ids[1]);
+
+	// the first spot leaves the window
+	window.advance(time + 10 * MINUTE);
+	assertEquals(1, window.getSpots());
+	assertEquals(0, window.squareCount(LocatorDecoder.decode("IO91WM")));
+	assertEquals(1, window.longestPaths(0, ids, distances));
+	assertEquals(2, ids[0]);
+
+	// and it is too old to come back
+	assertFalse(window.add(time, 0, home, LocatorDecoder.decode("IO91WM"), 3));
+	assertEquals(1, window.getRejected());
+
+	window.advance(time + 60 * MINUTE);
+	assertEquals(0, window.getSpots());
+	assertEquals(0, window.longestPaths(0, ids, distances));
+
+	long[] codes = new long[5];
+	int[] counts = new int[5];
+	assertEquals(0, window.busiestSquares(codes, counts));
+    }
+
+    @Test
+    public void testSpotFromTheFuture()
+    {
+	SpotWindow window = new SpotWindow(1, 10, 1, TimeUnit.MINUTES, TOP);
+	long home = LocatorDecoder.decode("KM18VB");
+	long dx = LocatorDecoder.decode("IO91WM");
+	long time = 1300000000000L;
+
+	assertTrue(window.add(time, 0, home, dx, 1));
+
+	// a time in microseconds, far ahead of the window
+	assertFalse(window.add(time * 1000, 0, home, dx, 2));
+	assertEquals(1, window.getRejected());
+
+	// the window is where it was, the next spots are taken
+	assertTrue(window.add(time + MINUTE, 0, home, dx, 3));
+	assertEquals(2, window.getSpots());
+	assertEquals(2, window.squareCount(dx));
+
+	// up to a window ahead is fine, the window moves on
+	assertTrue(window.add(time + 10 * MINUTE, 0, home, dx, 4));
+	assertEquals(2, window.getSpots());
+	assertEquals(1, window.getRejected());
+    }
+
+    @Test
+    public void testBusiestSquares()
+    {
+	SpotWindow window = new SpotWindow(2, 15, 1, TimeUnit.MINUTES, TOP);
+	long home = LocatorDecoder.decode("KM18");
+	String[] squares = { "IO91", "JN58", "IO91", "FN31", "IO91", "JN58" };
+	for (int i = 0; i < squares.length; i++)
+	    assertTrue(window.add(i * 1000L, i % 2, home, LocatorDecoder.decode(squares[i] + "AA"), i));
+
+	long[] codes = new long[2];
+	int[] counts = new int[2];
+	assertEquals(2, window.busiestSquares(codes, counts));
+	assertEquals("IO91", LocatorCode.toString(codes[0]));
+	assertEquals(3, counts[0]);
+	assertEquals("JN58", LocatorCode.toString(codes[1]));
+	assertEquals(2, counts[1]);
+    }
+
+    @Test
+    public void testInvalidSpots()
+    {
+	SpotWindow window = new SpotWindow(BANDS, 15, 1, TimeUnit.MINUTES, TOP);
+
+	assertFalse(window.add(0L, 0, 91.0, 0.0, 38.0, 23.0, 1));
+	assertFalse(window.add(0L, 0, 38.0, 23.0, Double.NaN, 23.0, 2));
+	assertFalse(window.add(0L, 0, LocatorDecoder.decode("KM18"), LocatorDecoder.decode("KM"), 3));
+	assertFalse(window.add(0L, 0, LocatorCode.INVALID, LocatorDecoder.decode("KM18"), 4));
+	assertEquals(4, window.getRejected());
+	assertEquals(0, window.getSpots());
+
+	try
+	{
+	    window.add(0L, BANDS, 38.0, 23.0, 38.0, 23.0, 5);
+	    fail();
+	}
+	catch (IndexOutOfBoundsException e)
+	{
+	}
+    }
+
+    @Test
+    public void testSeveralThreads() throws Exception
+    {
+	final SpotWindow window = new SpotWindow(BANDS, 15, 1, TimeUnit.MINUTES, TOP, 4);
+	final int perThread = 20000;
+	final List<Spot> spots = new ArrayList<Spot>();
+
+	Thread[] threads = new Thread[4];
+	for (int t = 0; t < threads.length; t++)
+	{
+	    final Random random = new Random(t);
+	    final int first = t * perThread;
+	    final List<Spot> own = new ArrayList<Spot>();
+
+	    threads[t] = new Thread(new Runnable()
+	    {
+		public void run()
+		{
+		    for (int i = 0; i < perThread; i++)
+		    {
+			// all in the window, some threads behind the others
+			long time = random.nextInt(10) * MINUTE;
+			int band = random.nextInt(BANDS);
+			double latitude = random.nextDouble() * 160.0 - 80.0;
+			double longitude = random.nextDouble() * 360.0 - 180.0;
+
+			window.add(time, band, 38.05737, 23.79665, latitude, longitude, first + i);
+			own.add(new Spot(time, band, DistanceCaclulator.distanceFrom(38.05737, 23.79665, latitude, longitude),
+				LocatorCode.cellId(LocatorEncoder.encode(latitude, longitude, 4))));
+		    }
+
+		    synchronized (spots)
+		    {
+			spots.addAll(own);
+		    }
+		}
+	    });
+	}
+
+	for (Thread thread : threads)
+	    thread.start();
+	for (Thread thread : threads)
+	    thread.join();
+
+	assertEquals(threads.length * perThread, window.getSpots());
+	check(window, spots, 0L);
+    }
+
+    //
+    // the answers of the window against a scan of the spots from oldest on
+    //
+    private static void check(SpotWindow window, List<Spot> spots, long oldest)
+    {
+	long[] ids = new long[TOP];
+	double[] distances = new double[TOP];
+
+	int[] squareCounts = new int[180 * 180];
+	long inWindow = 0;
+
+	for (int band = 0; band < BANDS; band++)
+	{
+	    List<Double> expected = new ArrayList<Double>();
+	    for (Spot spot : spots)
+	    {
+		if (spot.time >= oldest && spot.band == band)
+		    expected.add(-spot.distance);
+	    }
+	    Collections.sort(expected);
+
+	    int count = window.longestPaths(band, ids, distances);
+	    assertEquals(Math.min(TOP, expected.size()), count);
+	    for (int i = 0; i < count; i++)
+		assertEquals(-expected.get(i), distances[i], 0.0);
+	}
+
+	for (Spot spot : spots)
+	{
+	    if (spot.time >= oldest)
+	    {
+		squareCounts[spot.square]++;
+		inWindow++;
+	    }
+	}
+
+	assertEquals(inWindow, window.getSpots());
+	for (int square = 0; square < squareCounts.length; square += 7)
+	    assertEquals(squareCounts[square], window.squareCount(LocatorCode.fromCellId(square, 2)));
+
+	long[] codes = new long[10];
+	int[] counts = new int[10];
+	int found = window.busiestSquares(codes, counts);
+	int[] sorted = squareCounts.clone();
+	Arrays.sort(sorted);
+	for (int i = 0; i < found; i++)
+	{
+	    assertEquals(sorted[sorted.length - 1 - i], counts[i]);
+	    assertEquals(squareCounts[LocatorCode.cellId(codes[i])], counts[i]);
+	}
+    }
+
+}
@@ -0,0 +1,74 @@
+//
+// the layout of a binary locator/coordinate dataset, shared by DatasetWriter
+// and DatasetReader:
+//
+//   header   magic "HLD1", version, locator length, rows per block (4 ints)
+//   blocks   per row: latitude, longitude (fixed point, 1e-6 degree), longitude
+//            and latitude index of the locator, each as the zigzag varint of
+//            its difference from the previous row of the block (the first row
+//            of a block from 0)
+//   index    per block: its offset (long) and the south, west, north, east
+//            fixed point bounds of its rows (4 ints)
+//   trailer  index offset (long), rows (long), blocks (int), magic (int)
+//
+// all the numbers are big endian.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.datasets;
+
+final class DatasetFormat
+{
+
+	static final int MAGIC = 0x484C4431;
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 16;
+	static final int INDEX_ENTRY_SIZE = 24;
+	static final int TRAILER_SIZE = 24;
+
+	// fixed point units per degree, about 0.11m of latitude
+	static final double SCALE = 1000000.0;
+
+	// the longest varint of an int
+	static final int MAX_VARINT_SIZE = 5;
+
+	private DatasetFormat()
+	{
+	}
+
+	static int toFixed(double degrees)
+	{
+		return (int)Math.round(degrees * SCALE);
+	}
+
+	static double toDegrees(int fixed)
+	{
+		return fixed / SCALE;
+	}
+
+	static int zigzag(int value)
+	{
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static int unzigzag(int value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
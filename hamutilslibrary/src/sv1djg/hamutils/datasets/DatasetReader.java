@@ -0,0 +1,340 @@
+//
+// reads a binary locator/coordinate dataset (see DatasetFormat) from a
+// ByteBuffer or a memory mapped file. rows are decoded by cursors (any number,
+// one per thread, over the same buffer) or handed to a visitor, neither
+// allocates anything per row. the bounds of each block let forEachWithin()
+// skip the blocks outside an area without decoding them.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.datasets;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import sv1djg.hamutils.locator.LocatorCode;
+
+public final class DatasetReader
+{
+
+	//
+	// receives the rows of the dataset without creating any objects
+	//
+	public interface Visitor
+	{
+		void visit(int row, double latitude, double longitude, long locator);
+	}
+
+	//
+	// steps through the rows one at a time: next() decodes the next row into the cursor.
+	// a cursor is used by one thread at a time
+	//
+	public final class Cursor
+	{
+		// the current row, and the first row after the decoded part of its block
+		private int _row = -1;
+		private int _blockEnd;
+		private int _position;
+
+		private int _latitude;
+		private int _longitude;
+		private int _longitudeIndex;
+		private int _latitudeIndex;
+
+		private Cursor()
+		{
+		}
+
+		public boolean next()
+		{
+			if (_row + 1 >= _rows)
+				return false;
+
+			_row++;
+			if (_row == _blockEnd)
+				startBlock(_row / _blockSize);
+
+			_latitude += DatasetFormat.unzigzag(readVarint());
+			_longitude += DatasetFormat.unzigzag(readVarint());
+			_longitudeIndex += DatasetFormat.unzigzag(readVarint());
+			_latitudeIndex += DatasetFormat.unzigzag(readVarint());
+
+			return true;
+		}
+
+		//
+		// moves to just before row, so next() decodes it. only the rows of its block before it are decoded
+		//
+		public void seek(int row)
+		{
+			if (row < 0 || row > _rows)
+				throw new IndexOutOfBoundsException("row " + row + " of " + _rows);
+
+			_row = row / _blockSize * _blockSize - 1;
+			_blockEnd = _row + 1;
+			while (_row < row - 1)
+				next();
+		}
+
+		//
+		// the current row, -1 before the first next()
+		//
+		public int row()
+		{
+			return _row;
+		}
+
+		public double latitude()
+		{
+			return DatasetFormat.toDegrees(_latitude);
+		}
+
+		public double longitude()
+		{
+			return DatasetFormat.toDegrees(_longitude);
+		}
+
+		//
+		// the packed locator code (see LocatorCode) of the row
+		//
+		public long locator()
+		{
+			return LocatorCode.pack(_pairs, _longitudeIndex, _latitudeIndex);
+		}
+
+		public void appendLocator(StringBuilder sb)
+		{
+			LocatorCode.appendTo(locator(), sb);
+		}
+
+		private void startBlock(int block)
+		{
+			_position = (int)_buffer.getLong(indexEntry(block));
+			_blockEnd = Math.min((block + 1) * _blockSize, _rows);
+			_latitude = 0;
+			_longitude = 0;
+			_longitudeIndex = 0;
+			_latitudeIndex = 0;
+		}
+
+		private int readVarint()
+		{
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do
+			{
+				b = _buffer.get(_position++);
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while (b < 0);
+
+			return value;
+		}
+	}
+
+	private final ByteBuffer _buffer;
+	private final int _locatorLength;
+	private final int _pairs;
+	private final int _blockSize;
+	private final int _rows;
+	private final int _blocks;
+	private final int _indexOffset;
+
+	private DatasetReader(ByteBuffer buffer, int locatorLength, int blockSize, int rows, int blocks, int indexOffset)
+	{
+		_buffer = buffer;
+		_locatorLength = locatorLength;
+		_pairs = locatorLength / 2;
+		_blockSize = blockSize;
+		_rows = rows;
+		_blocks = blocks;
+		_indexOffset = indexOffset;
+	}
+
+	//
+	// reads the dataset in the bytes from the position to the limit of the buffer (which is not modified),
+	// throws IllegalArgumentException if they are not a dataset
+	//
+	public static DatasetReader of(ByteBuffer buffer)
+	{
+		// a slice is big endian and indexed from the position of the buffer
+		ByteBuffer bytes = buffer.slice();
+		int size = bytes.limit();
+
+		if (size < DatasetFormat.HEADER_SIZE + DatasetFormat.TRAILER_SIZE
+				|| bytes.getInt(0) != DatasetFormat.MAGIC || bytes.getInt(size - 4) != DatasetFormat.MAGIC)
+			throw new IllegalArgumentException("not a dataset");
+		if (bytes.getInt(4) != DatasetFormat.VERSION)
+			throw new IllegalArgumentException("unsupported dataset version " + bytes.getInt(4));
+
+		int locatorLength = bytes.getInt(8);
+		int blockSize = bytes.getInt(12);
+		long indexOffset = bytes.getLong(size - DatasetFormat.TRAILER_SIZE);
+		long rows = bytes.getLong(size - DatasetFormat.TRAILER_SIZE + 8);
+		int blocks = bytes.getInt(size - DatasetFormat.TRAILER_SIZE + 16);
+
+		if (locatorLength < LocatorCode.MIN_PAIRS * 2 || locatorLength > LocatorCode.MAX_PAIRS * 2 || (locatorLength & 1) != 0
+				|| blockSize <= 0 || rows < 0 || rows > Integer.MAX_VALUE || blocks != (rows + blockSize - 1) / blockSize
+				|| indexOffset != size - DatasetFormat.TRAILER_SIZE - (long)blocks * DatasetFormat.INDEX_ENTRY_SIZE)
+			throw new IllegalArgumentException("damaged dataset");
+
+		return new DatasetReader(bytes, locatorLength, blockSize, (int)rows, blocks, (int)indexOffset);
+	}
+
+	//
+	// maps a file written by DatasetWriter
+	//
+	public static DatasetReader map(File file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is too large to be mapped");
+
+			// the mapping stays valid after the file is closed
+			return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IOException(file + " is not a dataset: " + e.getMessage());
+		}
+		finally
+		{
+			raf.close();
+		}
+	}
+
+	public int size()
+	{
+		return _rows;
+	}
+
+	public int getLocatorLength()
+	{
+		return _locatorLength;
+	}
+
+	public int getBlockSize()
+	{
+		return _blockSize;
+	}
+
+	public int getBlockCount()
+	{
+		return _blocks;
+	}
+
+	public Cursor cursor()
+	{
+		return new Cursor();
+	}
+
+	public void forEach(Visitor visitor)
+	{
+		Cursor cursor = new Cursor();
+		while (cursor.next())
+			visitor.visit(cursor._row, cursor.latitude(), cursor.longitude(), cursor.locator());
+	}
+
+	//
+	// visits the rows inside the box and returns their number. a box with west > east crosses the antimeridian
+	//
+	public int forEachWithin(double south, double west, double north, double east, Visitor visitor)
+	{
+		Cursor cursor = new Cursor();
+		int visited = 0;
+
+		for (int block = 0; block < _blocks; block++)
+		{
+			int entry = indexEntry(block);
+			double blockSouth = DatasetFormat.toDegrees(_buffer.getInt(entry + 8));
+			double blockWest = DatasetFormat.toDegrees(_buffer.getInt(entry + 12));
+			double blockNorth = DatasetFormat.toDegrees(_buffer.getInt(entry + 16));
+			double blockEast = DatasetFormat.toDegrees(_buffer.getInt(entry + 20));
+
+			if (blockNorth < south || blockSouth > north || !overlaps(blockWest, blockEast, west, east))
+				continue;
+
+			cursor.seek(block * _blockSize);
+			int end = Math.min((block + 1) * _blockSize, _rows);
+			while (cursor._row + 1 < end && cursor.next())
+			{
+				double latitude = cursor.latitude();
+				double longitude = cursor.longitude();
+				if (latitude >= south && latitude <= north && inLongitudeRange(longitude, west, east))
+				{
+					visitor.visit(cursor._row, latitude, longitude, cursor.locator());
+					visited++;
+				}
+			}
+		}
+
+		return visited;
+	}
+
+	//
+	// decodes up to count rows starting at row from into the arrays starting at offset (locators may be null),
+	// returns the number of rows read
+	//
+	public int read(int from, double[] latitudes, double[] longitudes, long[] locators, int offset, int count)
+	{
+		Cursor cursor = new Cursor();
+		cursor.seek(from);
+
+		int read = 0;
+		while (read < count && cursor.next())
+		{
+			latitudes[offset + read] = cursor.latitude();
+			longitudes[offset + read] = cursor.longitude();
+			if (locators != null)
+				locators[offset + read] = cursor.locator();
+			read++;
+		}
+
+		return read;
+	}
+
+	private int indexEntry(int block)
+	{
+		return _indexOffset + block * DatasetFormat.INDEX_ENTRY_SIZE;
+	}
+
+	private static boolean overlaps(double blockWest, double blockEast, double west, double east)
+	{
+		if (west <= east)
+			return blockEast >= west && blockWest <= east;
+
+		// the box crosses the antimeridian, it is west..180 and -180..east
+		return blockEast >= west || blockWest <= east;
+	}
+
+	private static boolean inLongitudeRange(double longitude, double west, double east)
+	{
+		if (west <= east)
+			return longitude >= west && longitude <= east;
+		else
+			return longitude >= west || longitude <= east;
+	}
+
+}
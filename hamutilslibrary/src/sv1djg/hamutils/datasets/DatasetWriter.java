@@ -0,0 +1,265 @@
+//
+// writes a binary locator/coordinate dataset (see DatasetFormat) to a stream.
+// the locator of every row is encoded from the coordinates as they are given,
+// the same as GridLocator, before they are rounded to the fixed point of the
+// file. rows are written a block at a time, the index and the trailer when
+// the writer is closed.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.datasets;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public final class DatasetWriter implements Closeable
+{
+
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final DataOutputStream _out;
+	private final int _locatorLength;
+	private final int _blockSize;
+
+	// the block being filled
+	private byte[] _block = new byte[1024];
+	private int _blockLength;
+	private int _blockRows;
+	private int _latitude;
+	private int _longitude;
+	private int _longitudeIndex;
+	private int _latitudeIndex;
+	private int _south;
+	private int _west;
+	private int _north;
+	private int _east;
+
+	// the index entries of the blocks written so far
+	private long[] _offsets = new long[16];
+	private int[] _bounds = new int[16 * 4];
+	private int _blocks;
+
+	private long _position;
+	private long _rows;
+	private boolean _closed;
+
+	//
+	// 8 character locators (the same as GridLocator.getLocator()) in blocks of DEFAULT_BLOCK_SIZE rows
+	//
+	public DatasetWriter(OutputStream out) throws IOException
+	{
+		this(out, LocatorEncoder.DEFAULT_LENGTH, DEFAULT_BLOCK_SIZE);
+	}
+
+	public DatasetWriter(File file) throws IOException
+	{
+		this(new FileOutputStream(file));
+	}
+
+	//
+	// locatorLength is the length (2..10) of the locators kept for each row, blockSize the number of
+	// rows decoded together (and skipped together by the bounds of the block)
+	//
+	public DatasetWriter(OutputStream out, int locatorLength, int blockSize) throws IOException
+	{
+		if (locatorLength < LocatorCode.MIN_PAIRS * 2 || locatorLength > LocatorCode.MAX_PAIRS * 2 || (locatorLength & 1) != 0)
+			throw new IllegalArgumentException("locator length must be 2, 4, 6, 8 or 10 characters");
+		if (blockSize <= 0)
+			throw new IllegalArgumentException("the block size must be positive");
+
+		_out = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+		_locatorLength = locatorLength;
+		_blockSize = blockSize;
+
+		_out.writeInt(DatasetFormat.MAGIC);
+		_out.writeInt(DatasetFormat.VERSION);
+		_out.writeInt(locatorLength);
+		_out.writeInt(blockSize);
+		_position = DatasetFormat.HEADER_SIZE;
+	}
+
+	public int getLocatorLength()
+	{
+		return _locatorLength;
+	}
+
+	public int getBlockSize()
+	{
+		return _blockSize;
+	}
+
+	//
+	// the number of rows added so far
+	//
+	public long size()
+	{
+		return _rows;
+	}
+
+	//
+	// adds one row, throws IllegalArgumentException for bad coordinates (which have no locator)
+	//
+	public void add(double latitude, double longitude) throws IOException
+	{
+		long code = LocatorEncoder.encode(latitude, longitude, _locatorLength);
+		if (code == LocatorCode.INVALID)
+			throw new IllegalArgumentException("invalid coordinates " + latitude + ", " + longitude);
+
+		append(latitude, longitude, code);
+	}
+
+	//
+	// adds count rows from the arrays starting at offset. if any of the coordinates
+	// are bad nothing is added and IllegalArgumentException is thrown
+	//
+	public void addAll(double[] latitudes, double[] longitudes, int offset, int count) throws IOException
+	{
+		for (int i = offset; i < offset + count; i++)
+		{
+			if (!LocatorEncoder.isValid(latitudes[i], longitudes[i]))
+				throw new IllegalArgumentException("invalid coordinates " + latitudes[i] + ", " + longitudes[i]);
+		}
+
+		for (int i = offset; i < offset + count; i++)
+			append(latitudes[i], longitudes[i], LocatorEncoder.encode(latitudes[i], longitudes[i], _locatorLength));
+	}
+
+	//
+	// writes the last block, the index and the trailer, and closes the stream
+	//
+	public void close() throws IOException
+	{
+		if (_closed)
+			return;
+		_closed = true;
+
+		try
+		{
+			writeBlock();
+
+			long indexOffset = _position;
+			for (int block = 0; block < _blocks; block++)
+			{
+				_out.writeLong(_offsets[block]);
+				for (int i = 0; i < 4; i++)
+					_out.writeInt(_bounds[block * 4 + i]);
+			}
+
+			_out.writeLong(indexOffset);
+			_out.writeLong(_rows);
+			_out.writeInt(_blocks);
+			_out.writeInt(DatasetFormat.MAGIC);
+		}
+		finally
+		{
+			_out.close();
+		}
+	}
+
+	private void append(double latitude, double longitude, long code) throws IOException
+	{
+		if (_closed)
+			throw new IOException("the writer is closed");
+
+		int fixedLatitude = DatasetFormat.toFixed(latitude);
+		int fixedLongitude = DatasetFormat.toFixed(longitude);
+		int longitudeIndex = LocatorCode.longitudeIndex(code);
+		int latitudeIndex = LocatorCode.latitudeIndex(code);
+
+		if (_block.length - _blockLength < 4 * DatasetFormat.MAX_VARINT_SIZE)
+			_block = Arrays.copyOf(_block, _block.length * 2);
+
+		putVarint(DatasetFormat.zigzag(fixedLatitude - _latitude));
+		putVarint(DatasetFormat.zigzag(fixedLongitude - _longitude));
+		putVarint(DatasetFormat.zigzag(longitudeIndex - _longitudeIndex));
+		putVarint(DatasetFormat.zigzag(latitudeIndex - _latitudeIndex));
+
+		_latitude = fixedLatitude;
+		_longitude = fixedLongitude;
+		_longitudeIndex = longitudeIndex;
+		_latitudeIndex = latitudeIndex;
+
+		if (_blockRows == 0)
+		{
+			_south = _north = fixedLatitude;
+			_west = _east = fixedLongitude;
+		}
+		else
+		{
+			_south = Math.min(_south, fixedLatitude);
+			_north = Math.max(_north, fixedLatitude);
+			_west = Math.min(_west, fixedLongitude);
+			_east = Math.max(_east, fixedLongitude);
+		}
+
+		_rows++;
+		if (++_blockRows == _blockSize)
+			writeBlock();
+	}
+
+	private void putVarint(int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			_block[_blockLength++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		_block[_blockLength++] = (byte)value;
+	}
+
+	private void writeBlock() throws IOException
+	{
+		if (_blockRows == 0)
+			return;
+
+		if (_blocks == _offsets.length)
+		{
+			_offsets = Arrays.copyOf(_offsets, _blocks * 2);
+			_bounds = Arrays.copyOf(_bounds, _blocks * 2 * 4);
+		}
+
+		_offsets[_blocks] = _position;
+		_bounds[_blocks * 4] = _south;
+		_bounds[_blocks * 4 + 1] = _west;
+		_bounds[_blocks * 4 + 2] = _north;
+		_bounds[_blocks * 4 + 3] = _east;
+		_blocks++;
+
+		_out.write(_block, 0, _blockLength);
+		_position += _blockLength;
+
+		// the next block starts from 0 so it can be decoded on its own
+		_blockLength = 0;
+		_blockRows = 0;
+		_latitude = 0;
+		_longitude = 0;
+		_longitudeIndex = 0;
+		_latitudeIndex = 0;
+	}
+
+}
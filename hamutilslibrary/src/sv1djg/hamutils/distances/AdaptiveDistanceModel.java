@@ -0,0 +1,97 @@
+//
+// picks the cheapest model that is good enough for each call: the spherical
+// (haversine) result when its worst case error is within the tolerance, the
+// WGS-84 ellipsoid (VincentyModel) otherwise. short paths never pay for the
+// ellipsoidal iterations, long paths are exact when the tolerance is tight.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public class AdaptiveDistanceModel implements DistanceModel
+{
+
+	// the spherical distances (and targets) differ from the WGS-84 ones by up to 0.56% of the distance
+	static final double SPHERICAL_RELATIVE_ERROR = 0.006;
+
+	// up to 10000 Km the spherical bearings are within 0.2 degrees of the WGS-84 ones (beyond that the difference reaches 2 degrees)
+	static final double SPHERICAL_BEARING_ERROR = 0.2;
+	static final double SPHERICAL_BEARING_RANGE = 10000.0;
+
+	private final double _toleranceKm;
+	private final double _toleranceDegrees;
+	private final VincentyModel _ellipsoid;
+
+	public AdaptiveDistanceModel(double toleranceKm, double toleranceDegrees)
+	{
+		this(toleranceKm, toleranceDegrees, null);
+	}
+
+	//
+	// toleranceKm is the error accepted in distances and targets, toleranceDegrees in bearings.
+	// the listener is told about the iterations of the calls that needed the ellipsoid
+	//
+	public AdaptiveDistanceModel(double toleranceKm, double toleranceDegrees, VincentyModel.IterationListener listener)
+	{
+		if (!(toleranceKm >= 0) || !(toleranceDegrees >= 0))
+			throw new IllegalArgumentException("the tolerance cannot be negative");
+
+		_toleranceKm = toleranceKm;
+		_toleranceDegrees = toleranceDegrees;
+		_ellipsoid = new VincentyModel(listener);
+	}
+
+	public double distance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		double spherical = DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude);
+
+		if (spherical * SPHERICAL_RELATIVE_ERROR <= _toleranceKm)
+			return spherical;
+
+		return _ellipsoid.distance(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	}
+
+	public double bearing(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		if (_toleranceDegrees >= SPHERICAL_BEARING_ERROR
+				&& DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude) <= SPHERICAL_BEARING_RANGE)
+			return DistanceCaclulator.bearingTo(fromLatitude, fromLongitude, toLatitude, toLongitude);
+
+		return _ellipsoid.bearing(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	}
+
+	public CoordinateSet targetAtBearingDistance(double fromLatitude, double fromLongitude, double bearing, double distance)
+	{
+		if (distance * SPHERICAL_RELATIVE_ERROR <= _toleranceKm)
+			return DistanceCaclulator.targetAtBearingDistance(fromLatitude, fromLongitude, bearing, distance);
+
+		return _ellipsoid.targetAtBearingDistance(fromLatitude, fromLongitude, bearing, distance);
+	}
+
+	public double getToleranceKm()
+	{
+		return _toleranceKm;
+	}
+
+	public double getToleranceDegrees()
+	{
+		return _toleranceDegrees;
+	}
+
+}
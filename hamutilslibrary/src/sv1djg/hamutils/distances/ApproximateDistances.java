@@ -0,0 +1,180 @@
+//
+// cheaper distances and bearings for filtering (is a spot in range?), not for
+// scoring. sin/cos/atan2 are polynomials instead of the exact Math calls and
+// short paths use the equirectangular projection. the results are within
+// MAX_DISTANCE_ERROR_KM and MAX_BEARING_ERROR_DEGREES of DistanceCaclulator's
+// (ApproximateDistancesTest checks it), isWithin() falls back to the exact
+// distance when the approximate one is too close to the limit to decide.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+public final class ApproximateDistances
+{
+
+	// the largest difference from DistanceCaclulator.distanceFrom() (in Km) and bearingTo() (in degrees)
+	public static final double MAX_DISTANCE_ERROR_KM = 0.2;
+	public static final double MAX_BEARING_ERROR_DEGREES = 0.005;
+
+	// both sides of a short path are below this (in degrees) for the equirectangular projection
+	static final double SHORT_PATH_DEGREES = 0.5;
+
+	// and it is not used closer than this to the poles
+	static final double SHORT_PATH_MAX_LATITUDE = 80.0;
+
+	// the haversine of a distance within about 40 Km of the antipode, and the same (roughly) in degrees for bearings
+	static final double NEAR_ANTIPODE = 0.99999;
+	static final double ANTIPODE_DEGREES = 0.5;
+
+	private static final double TWO_PI = 2 * Math.PI;
+	private static final double HALF_PI = Math.PI / 2;
+	private static final double KM_PER_RADIAN = DistanceCaclulator.EARTH_RADIUS;
+
+	private ApproximateDistances()
+	{
+	}
+
+	//
+	// the distance in Km between 2 points, within MAX_DISTANCE_ERROR_KM of DistanceCaclulator.distanceFrom()
+	//
+	public static double distanceFrom(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		double dlatDegrees = toLatitude - fromLatitude;
+		double dlonDegrees = toLongitude - fromLongitude;
+
+		// the short way around the antimeridian
+		if (dlonDegrees > 180.0)
+			dlonDegrees -= 360.0;
+		else if (dlonDegrees < -180.0)
+			dlonDegrees += 360.0;
+
+		double lat1 = Math.toRadians(fromLatitude);
+		double lat2 = Math.toRadians(toLatitude);
+
+		if (Math.abs(dlatDegrees) < SHORT_PATH_DEGREES && Math.abs(dlonDegrees) < SHORT_PATH_DEGREES
+				&& Math.abs(fromLatitude) < SHORT_PATH_MAX_LATITUDE)
+		{
+			// equirectangular: a flat earth around the middle latitude
+			double x = Math.toRadians(dlonDegrees) * cos((lat1 + lat2) / 2);
+			double y = Math.toRadians(dlatDegrees);
+			return KM_PER_RADIAN * Math.sqrt(x * x + y * y);
+		}
+
+		double sinHalfDlat = sin(Math.toRadians(dlatDegrees) / 2);
+		double sinHalfDlon = sin(Math.toRadians(dlonDegrees) / 2);
+
+		double a = sinHalfDlat * sinHalfDlat + cos(lat1) * cos(lat2) * sinHalfDlon * sinHalfDlon;
+
+		// close to the antipode the polynomial error is blown up by sqrt(1 - a), the exact calculation takes over
+		if (a > NEAR_ANTIPODE)
+			return DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude);
+
+		return KM_PER_RADIAN * 2 * atan2(Math.sqrt(a), Math.sqrt(1 - a));
+	}
+
+	//
+	// the bearing (in degrees) of a distant point from a reference point, within MAX_BEARING_ERROR_DEGREES of DistanceCaclulator.bearingTo()
+	//
+	public static double bearingTo(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		// near the antipode every direction is almost the shortest, the bearing changes too fast to be approximated
+		if (Math.abs(fromLatitude + toLatitude) < ANTIPODE_DEGREES
+				&& Math.abs(Math.abs(toLongitude - fromLongitude) - 180.0) < ANTIPODE_DEGREES)
+			return DistanceCaclulator.bearingTo(fromLatitude, fromLongitude, toLatitude, toLongitude);
+
+		double lat1 = Math.toRadians(fromLatitude);
+		double lat2 = Math.toRadians(toLatitude);
+		double dlon = Math.toRadians(toLongitude - fromLongitude);
+
+		double cosLat2 = cos(lat2);
+		double y = sin(dlon) * cosLat2;
+		double x = cos(lat1) * sin(lat2) - sin(lat1) * cosLat2 * cos(dlon);
+
+		double brng = Math.toDegrees(atan2(y, x));
+
+		return (360.0 + brng) % 360.0;
+	}
+
+	//
+	// whether the points are at most km apart, the answer is always the same as with DistanceCaclulator.distanceFrom()
+	//
+	public static boolean isWithin(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude, double km)
+	{
+		// a whole lot of spots are rejected by the difference in latitude alone
+		if (Math.toRadians(Math.abs(toLatitude - fromLatitude)) * KM_PER_RADIAN > km + MAX_DISTANCE_ERROR_KM)
+			return false;
+
+		double approximate = distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude);
+
+		if (approximate < km - MAX_DISTANCE_ERROR_KM)
+			return true;
+		if (approximate > km + MAX_DISTANCE_ERROR_KM)
+			return false;
+
+		return DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude) <= km;
+	}
+
+	//
+	// sine with an error below 1e-9 (taylor series to x^13 after reducing x to -pi/2..pi/2)
+	//
+	static double sin(double x)
+	{
+		x -= TWO_PI * Math.floor(x / TWO_PI + 0.5);
+
+		// sin(pi - x) = sin(x)
+		if (x > HALF_PI)
+			x = Math.PI - x;
+		else if (x < -HALF_PI)
+			x = -Math.PI - x;
+
+		double x2 = x * x;
+		return x * (1 + x2 * (-1.0 / 6 + x2 * (1.0 / 120 + x2 * (-1.0 / 5040 + x2 * (1.0 / 362880
+				+ x2 * (-1.0 / 39916800 + x2 * (1.0 / 6227020800.0)))))));
+	}
+
+	static double cos(double x)
+	{
+		return sin(x + HALF_PI);
+	}
+
+	//
+	// arc tangent of y/x in -pi..pi with an error below 2e-5 (Abramowitz & Stegun 4.4.49 on 0..1)
+	//
+	static double atan2(double y, double x)
+	{
+		double ax = Math.abs(x);
+		double ay = Math.abs(y);
+
+		if (ax == 0 && ay == 0)
+			return 0.0;
+
+		double t = ay > ax ? ax / ay : ay / ax;
+		double t2 = t * t;
+		double r = t * (0.9998660 + t2 * (-0.3302995 + t2 * (0.1801410 + t2 * (-0.0851330 + t2 * 0.0208351))));
+
+		if (ay > ax)
+			r = HALF_PI - r;
+		if (x < 0)
+			r = Math.PI - r;
+		if (y < 0)
+			r = -r;
+
+		return r;
+	}
+
+}
@@ -0,0 +1,97 @@
+//
+// an immutable latitude/longitude pair, safe to share between threads and to
+// use as a map key, unlike the mutable DistanceCaclulator.CoordinateSet.
+// the instances hold no identity of their own (equals/hashCode are the
+// values), so the class can become a value class when the language has them.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public final class Coordinates
+{
+
+	private final double _latitude;
+	private final double _longitude;
+
+	public Coordinates(double latitude, double longitude)
+	{
+		_latitude = latitude;
+		_longitude = longitude;
+	}
+
+	public static Coordinates of(CoordinateSet coordinates)
+	{
+		return new Coordinates(coordinates.getLatitude(), coordinates.getLongitude());
+	}
+
+	public double getLatitude()
+	{
+		return _latitude;
+	}
+
+	public double getLongitude()
+	{
+		return _longitude;
+	}
+
+	//
+	// a new (mutable) CoordinateSet for the methods that take one
+	//
+	public CoordinateSet toCoordinateSet()
+	{
+		return new CoordinateSet(_latitude, _longitude);
+	}
+
+	public double distanceTo(Coordinates other)
+	{
+		return DistanceCaclulator.distanceFrom(_latitude, _longitude, other._latitude, other._longitude);
+	}
+
+	public double bearingTo(Coordinates other)
+	{
+		return DistanceCaclulator.bearingTo(_latitude, _longitude, other._latitude, other._longitude);
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof Coordinates))
+			return false;
+
+		// compared as bits, like Double.equals (NaN equals NaN, 0.0 differs from -0.0), so it agrees with hashCode
+		Coordinates coordinates = (Coordinates)other;
+		return Double.doubleToLongBits(_latitude) == Double.doubleToLongBits(coordinates._latitude)
+				&& Double.doubleToLongBits(_longitude) == Double.doubleToLongBits(coordinates._longitude);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		long bits = Double.doubleToLongBits(_latitude) * 31 + Double.doubleToLongBits(_longitude);
+		return (int)(bits ^ (bits >>> 32));
+	}
+
+	@Override
+	public String toString()
+	{
+		return _latitude + "," + _longitude;
+	}
+
+}
@@ -19,11 +19,13 @@
 
 package sv1djg.hamutils.distances;
 
+import sv1djg.hamutils.metrics.Metrics;
+import sv1djg.hamutils.metrics.Operation;
 
 public class DistanceCaclulator
 {
 
-    private static final double EARTH_RADIUS = 6371.0; // in km;
+    public static final double EARTH_RADIUS = 6371.0; // in km;
 
 
     public static class CoordinateSet
@@ -64,6 +66,8 @@ public class DistanceCaclulator
     //
     public static double distanceFrom(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
     {
+	long start = Metrics.start();
+
 	double lat1 = Math.toRadians(fromLatitude);
 	double lon1 = Math.toRadians(fromLongitude);
 	double lat2 = Math.toRadians(toLatitude);
@@ -80,6 +84,9 @@ public class DistanceCaclulator
 	double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
 	double km = EARTH_RADIUS * c;
 
+	if (Metrics.ENABLED)
+	    Metrics.record(Operation.DISTANCE, start);
+
 	return km ;
     }
 
@@ -88,6 +95,7 @@ public class DistanceCaclulator
     //
     public static double bearingTo(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
     {
+	long start = Metrics.start();
 
 	double lat1 = Math.toRadians(fromLatitude);
 	double lon1 = Math.toRadians(fromLongitude);
@@ -106,15 +114,141 @@ public class DistanceCaclulator
 
 	brng = (360.0 + brng) % 360.0;
 
+	if (Metrics.ENABLED)
+	    Metrics.record(Operation.BEARING, start);
+
 	return brng;
     }
 
 
+    //
+    // calculates the distances in Km from one point to many points, toLatitudes[i],toLongitudes[i] -> distances[i] for i in offset .. offset+count-1.
+    // the trigonometry of the reference point is done once, the results are the same as calling distanceFrom() for each point.
+    //
+    public static void distancesFrom(double fromLatitude, double fromLongitude, double[] toLatitudes, double[] toLongitudes, double[] distances, int offset, int count)
+    {
+	if (Metrics.ENABLED)
+	    Metrics.batch(count, 0);
+
+	double lat1 = Math.toRadians(fromLatitude);
+	double lon1 = Math.toRadians(fromLongitude);
+	double cosLat1 = Math.cos(lat1);
+
+	int end = offset + count;
+	for (int i = offset; i < end; i++)
+	{
+	    double lat2 = Math.toRadians(toLatitudes[i]);
+	    double lon2 = Math.toRadians(toLongitudes[i]);
+
+	    double dlon = (lon2 - lon1);
+	    double dlat = (lat2 - lat1);
+
+	    double sinHalfDlat = Math.sin(dlat / 2);
+	    double sinHalfDlon = Math.sin(dlon / 2);
+
+	    double a = sinHalfDlat * sinHalfDlat + (cosLat1 * Math.cos(lat2) * sinHalfDlon * sinHalfDlon);
+
+	    distances[i] = EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
+	}
+    }
+
+    //
+    // calculates the distances in Km between pairs of points, (fromLatitudes[i],fromLongitudes[i]) -> (toLatitudes[i],toLongitudes[i]) 
+    // into distances[i] for i in offset .. offset+count-1
+    //
+    public static void distancesFrom(double[] fromLatitudes, double[] fromLongitudes, double[] toLatitudes, double[] toLongitudes, double[] distances, int offset, int count)
+    {
+	if (Metrics.ENABLED)
+	    Metrics.batch(count, 0);
+
+	int end = offset + count;
+	for (int i = offset; i < end; i++)
+	{
+	    double lat1 = Math.toRadians(fromLatitudes[i]);
+	    double lon1 = Math.toRadians(fromLongitudes[i]);
+	    double lat2 = Math.toRadians(toLatitudes[i]);
+	    double lon2 = Math.toRadians(toLongitudes[i]);
+
+	    double dlon = (lon2 - lon1);
+	    double dlat = (lat2 - lat1);
+
+	    double sinHalfDlat = Math.sin(dlat / 2);
+	    double sinHalfDlon = Math.sin(dlon / 2);
+
+	    double a = sinHalfDlat * sinHalfDlat + (Math.cos(lat1) * Math.cos(lat2) * sinHalfDlon * sinHalfDlon);
+
+	    distances[i] = EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
+	}
+    }
+
+    //
+    // calculates the bearings (in degrees) of many points from one reference point, toLatitudes[i],toLongitudes[i] -> bearings[i] 
+    // for i in offset .. offset+count-1. the trigonometry of the reference point is done once.
+    //
+    public static void bearingsTo(double fromLatitude, double fromLongitude, double[] toLatitudes, double[] toLongitudes, double[] bearings, int offset, int count)
+    {
+	if (Metrics.ENABLED)
+	    Metrics.batch(count, 0);
+
+	double lat1 = Math.toRadians(fromLatitude);
+	double lon1 = Math.toRadians(fromLongitude);
+	double sinLat1 = Math.sin(lat1);
+	double cosLat1 = Math.cos(lat1);
+
+	int end = offset + count;
+	for (int i = offset; i < end; i++)
+	{
+	    double lat2 = Math.toRadians(toLatitudes[i]);
+	    double lon2 = Math.toRadians(toLongitudes[i]);
+
+	    double dlon = (lon2 - lon1);
+	    double cosLat2 = Math.cos(lat2);
+
+	    double y = Math.sin(dlon) * cosLat2;
+	    double x = cosLat1*Math.sin(lat2) - sinLat1*cosLat2*Math.cos(dlon);
+
+	    double brng = Math.toDegrees(Math.atan2(y, x));
+
+	    bearings[i] = (360.0 + brng) % 360.0;
+	}
+    }
+
+    //
+    // calculates the bearings (in degrees) between pairs of points, (fromLatitudes[i],fromLongitudes[i]) -> (toLatitudes[i],toLongitudes[i]) 
+    // into bearings[i] for i in offset .. offset+count-1
+    //
+    public static void bearingsTo(double[] fromLatitudes, double[] fromLongitudes, double[] toLatitudes, double[] toLongitudes, double[] bearings, int offset, int count)
+    {
+	if (Metrics.ENABLED)
+	    Metrics.batch(count, 0);
+
+	int end = offset + count;
+	for (int i = offset; i < end; i++)
+	{
+	    double lat1 = Math.toRadians(fromLatitudes[i]);
+	    double lon1 = Math.toRadians(fromLongitudes[i]);
+	    double lat2 = Math.toRadians(toLatitudes[i]);
+	    double lon2 = Math.toRadians(toLongitudes[i]);
+
+	    double dlon = (lon2 - lon1);
+	    double cosLat2 = Math.cos(lat2);
+
+	    double y = Math.sin(dlon) * cosLat2;
+	    double x = Math.cos(lat1)*Math.sin(lat2) - Math.sin(lat1)*cosLat2*Math.cos(dlon);
+
+	    double brng = Math.toDegrees(Math.atan2(y, x));
+
+	    bearings[i] = (360.0 + brng) % 360.0;
+	}
+    }
+
+
     //
     // calculates the coordinates af the midpoind (the point that lies in half great-circle distance between two points)
     //
     public static CoordinateSet midpointOf(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
     {
+	long start = Metrics.start();
 
 	double lat1 = Math.toRadians(toLatitude);
 	double lon1 = Math.toRadians(toLongitude);
@@ -130,6 +264,9 @@ public class DistanceCaclulator
 	double midPointLat = Math.atan2(y, x);
 	double midPointLon = lon1 + Math.atan2(By, Math.cos(lat1)+Bx);
 
+	if (Metrics.ENABLED)
+	    Metrics.record(Operation.MIDPOINT, start);
+
 	return new CoordinateSet(Math.toDegrees(midPointLat),Math.toDegrees(midPointLon));
 
     }
@@ -140,6 +277,7 @@ public class DistanceCaclulator
     //
     public static CoordinateSet targetAtBearingDistance(double fromLatitude, double fromLongitude, double bearing, double distance)
     {
+	long start = Metrics.start();
 
 	double brng = Math.toRadians(bearing % 360.0);
 	double lat1 = Math.toRadians(fromLatitude);
@@ -155,6 +293,8 @@ public class DistanceCaclulator
 	double targetPointLatInDegrees = Math.toDegrees(targetPointLat);
 	double targetPointLonInDegrees = Math.toDegrees(targetPointLon);
 
+	if (Metrics.ENABLED)
+	    Metrics.record(Operation.TARGET, start);
 
 	return new CoordinateSet(Math.toDegrees(targetPointLat),Math.toDegrees(targetPointLon));
     }
@@ -0,0 +1,44 @@
+//
+// a way of calculating distances, bearings and targets on the earth. the
+// spherical models are the cheap ones, VincentyModel follows the WGS-84
+// ellipsoid and AdaptiveDistanceModel picks between them per call.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public interface DistanceModel
+{
+
+	//
+	// the distance in Km between 2 points
+	//
+	double distance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude);
+
+	//
+	// the initial bearing (in degrees, 0..360) of the distant point from the reference point
+	//
+	double bearing(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude);
+
+	//
+	// the point that lies in a specific bearing and distance (in Km) from a reference point
+	//
+	CoordinateSet targetAtBearingDistance(double fromLatitude, double fromLongitude, double bearing, double distance);
+
+}
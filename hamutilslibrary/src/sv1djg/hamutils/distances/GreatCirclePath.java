@@ -0,0 +1,394 @@
+//
+// the great circle (short path) between two points as waypoints or as the
+// locator squares it crosses. the points on the circle are unit vectors
+// P(t) = A cos(t) + U sin(t), so equally spaced waypoints follow from the
+// recurrence P(k+1) = 2 cos(h) P(k) - P(k-1) with no trigonometry per point
+// but the conversion back to latitude/longitude.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import java.util.Arrays;
+
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public final class GreatCirclePath
+{
+
+	//
+	// receives the waypoints, distance is along the path from the start (in Km)
+	//
+	public interface WaypointVisitor
+	{
+		void waypoint(int index, double latitude, double longitude, double distance);
+	}
+
+	//
+	// receives the squares crossed in order, distance is where the path enters the square (in Km from the start)
+	//
+	public interface SquareVisitor
+	{
+		void square(long code, double distance);
+	}
+
+	private final double _fromLatitude;
+	private final double _fromLongitude;
+	private final double _toLatitude;
+	private final double _toLongitude;
+
+	// the angle of the whole path, in radians
+	private final double _angle;
+	private final double _bearing;
+
+	// the start (A) and the direction of travel at the start (U), both unit vectors
+	private final double _ax, _ay, _az;
+	private final double _ux, _uy, _uz;
+
+	public GreatCirclePath(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		if (!LocatorEncoder.isValid(fromLatitude, fromLongitude) || !LocatorEncoder.isValid(toLatitude, toLongitude))
+			throw new IllegalArgumentException("invalid path " + fromLatitude + "," + fromLongitude + " - " + toLatitude + "," + toLongitude);
+
+		_fromLatitude = fromLatitude;
+		_fromLongitude = fromLongitude;
+		_toLatitude = toLatitude;
+		_toLongitude = toLongitude;
+
+		_angle = DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude) / DistanceCaclulator.EARTH_RADIUS;
+		_bearing = DistanceCaclulator.bearingTo(fromLatitude, fromLongitude, toLatitude, toLongitude);
+
+		double lat = Math.toRadians(fromLatitude);
+		double lon = Math.toRadians(fromLongitude);
+		double sinLat = Math.sin(lat);
+		double cosLat = Math.cos(lat);
+		double sinLon = Math.sin(lon);
+		double cosLon = Math.cos(lon);
+
+		_ax = cosLat * cosLon;
+		_ay = cosLat * sinLon;
+		_az = sinLat;
+
+		// the direction of the bearing, from the north and the east unit vectors at the start
+		double brng = Math.toRadians(_bearing);
+		double cosBrng = Math.cos(brng);
+		double sinBrng = Math.sin(brng);
+
+		_ux = -sinLat * cosLon * cosBrng - sinLon * sinBrng;
+		_uy = -sinLat * sinLon * cosBrng + cosLon * sinBrng;
+		_uz = cosLat * cosBrng;
+	}
+
+	//
+	// the path between the centres of two locators
+	//
+	public static GreatCirclePath between(CharSequence fromLocator, CharSequence toLocator)
+	{
+		long from = LocatorDecoder.decode(fromLocator, true);
+		long to = LocatorDecoder.decode(toLocator, true);
+		if (from == LocatorCode.INVALID || to == LocatorCode.INVALID)
+			throw new IllegalArgumentException("invalid locators " + fromLocator + " - " + toLocator);
+
+		return new GreatCirclePath(LocatorCode.centreLatitude(from), LocatorCode.centreLongitude(from),
+				LocatorCode.centreLatitude(to), LocatorCode.centreLongitude(to));
+	}
+
+	//
+	// the length of the path in Km
+	//
+	public double getDistance()
+	{
+		return _angle * DistanceCaclulator.EARTH_RADIUS;
+	}
+
+	public double getBearing()
+	{
+		return _bearing;
+	}
+
+	//
+	// count (at least 2) evenly spaced waypoints, the first is the start and the last the end of the path
+	//
+	public int waypoints(int count, double[] latitudes, double[] longitudes, int offset)
+	{
+		checkArrays(count, latitudes, longitudes, offset);
+		return generate(count, spacing(count), latitudes, longitudes, offset, null);
+	}
+
+	public int waypoints(int count, WaypointVisitor visitor)
+	{
+		return generate(count, spacing(count), null, null, 0, visitor);
+	}
+
+	//
+	// the number of waypoints of waypointsEvery(km)
+	//
+	public int waypointCountEvery(double km)
+	{
+		if (!(km > 0))
+			throw new IllegalArgumentException("the step must be more than 0 Km");
+
+		double steps = getDistance() / km;
+		if (steps >= Integer.MAX_VALUE - 2)
+			throw new IllegalArgumentException("too many waypoints, " + steps);
+
+		int whole = (int)steps;
+		// the end of the path is always the last waypoint, closer than km to the one before it if needed
+		return whole + (steps > whole ? 2 : 1);
+	}
+
+	//
+	// a waypoint every km from the start, then the end of the path
+	//
+	public int waypointsEvery(double km, double[] latitudes, double[] longitudes, int offset)
+	{
+		int count = waypointCountEvery(km);
+		checkArrays(count, latitudes, longitudes, offset);
+		return generate(count, km / DistanceCaclulator.EARTH_RADIUS, latitudes, longitudes, offset, null);
+	}
+
+	public int waypointsEvery(double km, WaypointVisitor visitor)
+	{
+		return generate(waypointCountEvery(km), km / DistanceCaclulator.EARTH_RADIUS, null, null, 0, visitor);
+	}
+
+	private double spacing(int count)
+	{
+		if (count < 2)
+			throw new IllegalArgumentException("a path needs at least 2 waypoints");
+		return _angle / (count - 1);
+	}
+
+	private int generate(int count, double step, double[] latitudes, double[] longitudes, int offset, WaypointVisitor visitor)
+	{
+		double twiceCosStep = 2 * Math.cos(step);
+		double sinStep = Math.sin(step);
+		double cosStep = Math.cos(step);
+
+		// P(0) and P(1)
+		double px = _ax, py = _ay, pz = _az;
+		double qx = _ax * cosStep + _ux * sinStep;
+		double qy = _ay * cosStep + _uy * sinStep;
+		double qz = _az * cosStep + _uz * sinStep;
+
+		for (int i = 0; i < count; i++)
+		{
+			double latitude;
+			double longitude;
+			double distance;
+
+			if (i == count - 1)
+			{
+				// the end exactly, not the accumulated recurrence
+				latitude = _toLatitude;
+				longitude = _toLongitude;
+				distance = getDistance();
+			}
+			else if (i == 0)
+			{
+				latitude = _fromLatitude;
+				longitude = _fromLongitude;
+				distance = 0.0;
+			}
+			else
+			{
+				latitude = Math.toDegrees(Math.atan2(pz, Math.sqrt(px * px + py * py)));
+				longitude = Math.toDegrees(Math.atan2(py, px));
+				distance = i * step * DistanceCaclulator.EARTH_RADIUS;
+			}
+
+			if (visitor != null)
+			{
+				visitor.waypoint(i, latitude, longitude, distance);
+			}
+			else
+			{
+				latitudes[offset + i] = latitude;
+				longitudes[offset + i] = longitude;
+			}
+
+			double nx = twiceCosStep * qx - px;
+			double ny = twiceCosStep * qy - py;
+			double nz = twiceCosStep * qz - pz;
+			px = qx; py = qy; pz = qz;
+			qx = nx; qy = ny; qz = nz;
+		}
+
+		return count;
+	}
+
+	//
+	// the distinct squares (locators of length 2,4,6,8 or 10) the path goes through, in order. returns how many.
+	// the path is cut where it crosses the meridians and the parallels of the grid, each piece lies in one square
+	//
+	public int squares(int length, SquareVisitor visitor)
+	{
+		if (length < LocatorCode.MIN_PAIRS * 2 || length > LocatorCode.MAX_PAIRS * 2 || (length & 1) != 0)
+			throw new IllegalArgumentException("locator length must be 2, 4, 6, 8 or 10 characters");
+
+		int pairs = length / 2;
+		double[] crossings = new double[64];
+		int size = 0;
+
+		crossings[size++] = 0.0;
+		crossings[size++] = _angle;
+
+		// the longitude changes in one direction along a great circle, east or west as at the start
+		double sinBearing = Math.sin(Math.toRadians(_bearing));
+		if (Math.abs(sinBearing) > 1e-15 && _angle > 0)
+		{
+			double width = LocatorCode.cellWidth(pairs);
+			boolean east = sinBearing > 0;
+
+			double travelled = east ? _toLongitude - _fromLongitude : _fromLongitude - _toLongitude;
+			travelled = ((travelled % 360.0) + 360.0) % 360.0;
+
+			// the meridians of the grid after the start, in the direction of travel
+			double first = east ? Math.floor((_fromLongitude + 180.0) / width) + 1 : Math.ceil((_fromLongitude + 180.0) / width) - 1;
+			int meridians = (int)Math.ceil(travelled / width) + 1;
+
+			for (int k = 0; k < meridians; k++)
+			{
+				double meridian = (east ? first + k : first - k) * width - 180.0;
+				double theta = meridianCrossing(Math.toRadians(meridian));
+				if (theta > 0 && theta < _angle)
+				{
+					if (size == crossings.length)
+						crossings = Arrays.copyOf(crossings, size * 2);
+					crossings[size++] = theta;
+				}
+			}
+		}
+
+		// the parallels of the grid between the lowest and the highest latitude of the path
+		double height = LocatorCode.cellHeight(pairs);
+		double amplitude = Math.sqrt(_az * _az + _uz * _uz);
+		double phase = Math.atan2(_uz, _az);
+
+		double lowest = Math.min(_fromLatitude, _toLatitude);
+		double highest = Math.max(_fromLatitude, _toLatitude);
+		// the northern or southern vertex of the circle, if the path reaches it
+		for (int n = -1; n <= 1; n++)
+		{
+			double vertex = phase + n * Math.PI;
+			if (vertex > 0 && vertex < _angle)
+			{
+				double z = _az * Math.cos(vertex) + _uz * Math.sin(vertex);
+				double latitude = Math.toDegrees(Math.asin(Math.max(-1.0, Math.min(1.0, z))));
+				lowest = Math.min(lowest, latitude);
+				highest = Math.max(highest, latitude);
+
+				// a cut at the vertex too: on a path over a pole (bearing 0 or 180, no meridian cuts) the middle of the
+				// piece around the pole would be the pole itself, which has no longitude. cut there, each side is then
+				// classified on its own meridian
+				if (size == crossings.length)
+					crossings = Arrays.copyOf(crossings, size * 2);
+				crossings[size++] = vertex;
+			}
+		}
+
+		for (double row = Math.ceil((lowest + 90.0) / height); row * height - 90.0 <= highest; row++)
+		{
+			double parallel = row * height - 90.0;
+			if (parallel <= -90.0 || parallel >= 90.0 || amplitude == 0)
+				continue;
+
+			double ratio = Math.sin(Math.toRadians(parallel)) / amplitude;
+			if (ratio < -1.0 || ratio > 1.0)
+				continue;
+
+			// z(t) = amplitude cos(t - phase) = sin(parallel)
+			double offset = Math.acos(ratio);
+			for (int turn = -1; turn <= 1; turn++)
+			{
+				for (int side = -1; side <= 1; side += 2)
+				{
+					double theta = phase + side * offset + turn * 2 * Math.PI;
+					if (theta > 0 && theta < _angle)
+					{
+						if (size == crossings.length)
+							crossings = Arrays.copyOf(crossings, size * 2);
+						crossings[size++] = theta;
+					}
+				}
+			}
+		}
+
+		Arrays.sort(crossings, 0, size);
+
+		// the square of the middle of each piece
+		int squares = 0;
+		long previous = LocatorCode.INVALID;
+		for (int i = 0; i + 1 < size; i++)
+		{
+			if (crossings[i + 1] - crossings[i] < 1e-12 && size > 2)
+				continue;
+
+			long code = squareAt((crossings[i] + crossings[i + 1]) / 2, pairs);
+			if (code != previous)
+			{
+				visitor.square(code, crossings[i] * DistanceCaclulator.EARTH_RADIUS);
+				previous = code;
+				squares++;
+			}
+		}
+
+		return squares;
+	}
+
+	//
+	// the angle along the path where it crosses the plane of a meridian, in 0..pi
+	//
+	private double meridianCrossing(double meridian)
+	{
+		// the normal of the plane of the meridian
+		double nx = -Math.sin(meridian);
+		double ny = Math.cos(meridian);
+
+		double a = _ax * nx + _ay * ny;
+		double u = _ux * nx + _uy * ny;
+
+		// a cos(t) + u sin(t) = 0
+		double theta = Math.atan2(-a, u);
+		if (theta < 0)
+			theta += Math.PI;
+		return theta;
+	}
+
+	private long squareAt(double theta, int pairs)
+	{
+		double cos = Math.cos(theta);
+		double sin = Math.sin(theta);
+		double x = _ax * cos + _ux * sin;
+		double y = _ay * cos + _uy * sin;
+		double z = _az * cos + _uz * sin;
+
+		double latitude = Math.toDegrees(Math.atan2(z, Math.sqrt(x * x + y * y)));
+		double longitude = Math.toDegrees(Math.atan2(y, x));
+
+		return LocatorEncoder.encode(latitude, longitude, pairs * 2);
+	}
+
+	private static void checkArrays(int count, double[] latitudes, double[] longitudes, int offset)
+	{
+		if (offset < 0 || offset + count > latitudes.length || offset + count > longitudes.length)
+			throw new IndexOutOfBoundsException(count + " waypoints do not fit in the arrays from " + offset);
+	}
+
+}
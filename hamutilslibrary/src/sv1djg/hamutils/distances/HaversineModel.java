@@ -0,0 +1,42 @@
+//
+// the spherical earth of DistanceCaclulator (haversine formula) as a DistanceModel.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public class HaversineModel implements DistanceModel
+{
+
+	public double distance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		return DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	}
+
+	public double bearing(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		return DistanceCaclulator.bearingTo(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	}
+
+	public CoordinateSet targetAtBearingDistance(double fromLatitude, double fromLongitude, double bearing, double distance)
+	{
+		return DistanceCaclulator.targetAtBearingDistance(fromLatitude, fromLongitude, bearing, distance);
+	}
+
+}
@@ -0,0 +1,190 @@
+//
+// a fixed station (the home of a logger or a skimmer) with the radians, sine
+// and cosine of its latitude worked out once. distances and bearings to any
+// target give the same results as DistanceCaclulator with about half of the
+// trigonometric calls. it can not change, so it can be shared by any threads.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+
+public final class Observer
+{
+
+	// the length of a great circle, the short and the long path to a target add up to it
+	public static final double CIRCUMFERENCE = 2 * Math.PI * DistanceCaclulator.EARTH_RADIUS;
+
+	//
+	// both paths to a target, filled in by Observer.pathTo() (it can be reused for many targets)
+	//
+	public static final class Path
+	{
+		double _distance;
+		double _bearing;
+		double _reverseBearing;
+
+		public double getDistance()
+		{
+			return _distance;
+		}
+
+		public double getBearing()
+		{
+			return _bearing;
+		}
+
+		//
+		// the bearing of the observer seen from the target
+		//
+		public double getReverseBearing()
+		{
+			return _reverseBearing;
+		}
+
+		public double getLongPathDistance()
+		{
+			return CIRCUMFERENCE - _distance;
+		}
+
+		public double getLongPathBearing()
+		{
+			return (_bearing + 180.0) % 360.0;
+		}
+	}
+
+	private final double _latitude;
+	private final double _longitude;
+	private final double _latitudeRadians;
+	private final double _longitudeRadians;
+	private final double _sinLatitude;
+	private final double _cosLatitude;
+
+	public Observer(double latitude, double longitude)
+	{
+		if (!(latitude >= -90.0 && latitude <= 90.0 && longitude >= -180.0 && longitude <= 180.0))
+			throw new IllegalArgumentException("invalid observer coordinates " + latitude + "," + longitude);
+
+		_latitude = latitude;
+		_longitude = longitude;
+		_latitudeRadians = Math.toRadians(latitude);
+		_longitudeRadians = Math.toRadians(longitude);
+		_sinLatitude = Math.sin(_latitudeRadians);
+		_cosLatitude = Math.cos(_latitudeRadians);
+	}
+
+	//
+	// an observer at the centre of a locator (2 to 10 characters, either case)
+	//
+	public static Observer ofLocator(CharSequence locator)
+	{
+		long code = LocatorDecoder.decode(locator, true);
+		if (code == LocatorCode.INVALID)
+			throw new IllegalArgumentException("invalid locator " + locator);
+
+		return new Observer(LocatorCode.centreLatitude(code), LocatorCode.centreLongitude(code));
+	}
+
+	public double getLatitude()
+	{
+		return _latitude;
+	}
+
+	public double getLongitude()
+	{
+		return _longitude;
+	}
+
+	//
+	// the distance in Km to the target, the same as DistanceCaclulator.distanceFrom()
+	//
+	public double distanceTo(double latitude, double longitude)
+	{
+		double lat2 = Math.toRadians(latitude);
+		double lon2 = Math.toRadians(longitude);
+
+		double sinHalfDlat = Math.sin((lat2 - _latitudeRadians) / 2);
+		double sinHalfDlon = Math.sin((lon2 - _longitudeRadians) / 2);
+
+		double a = sinHalfDlat * sinHalfDlat + (_cosLatitude * Math.cos(lat2) * sinHalfDlon * sinHalfDlon);
+
+		return DistanceCaclulator.EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+	}
+
+	//
+	// the bearing in degrees of the target, the same as DistanceCaclulator.bearingTo()
+	//
+	public double bearingTo(double latitude, double longitude)
+	{
+		double lat2 = Math.toRadians(latitude);
+		double dlon = Math.toRadians(longitude) - _longitudeRadians;
+
+		double cosLat2 = Math.cos(lat2);
+		double y = Math.sin(dlon) * cosLat2;
+		double x = _cosLatitude * Math.sin(lat2) - _sinLatitude * cosLat2 * Math.cos(dlon);
+
+		return (360.0 + Math.toDegrees(Math.atan2(y, x))) % 360.0;
+	}
+
+	//
+	// the bearing in degrees of the observer seen from the target
+	//
+	public double reverseBearingFrom(double latitude, double longitude)
+	{
+		double lat2 = Math.toRadians(latitude);
+		double dlon = _longitudeRadians - Math.toRadians(longitude);
+
+		double y = Math.sin(dlon) * _cosLatitude;
+		double x = Math.cos(lat2) * _sinLatitude - Math.sin(lat2) * _cosLatitude * Math.cos(dlon);
+
+		return (360.0 + Math.toDegrees(Math.atan2(y, x))) % 360.0;
+	}
+
+	//
+	// the distance, the bearing and the reverse bearing (and so the long path) at once, sharing the trigonometry of the target
+	//
+	public Path pathTo(double latitude, double longitude, Path path)
+	{
+		double lat2 = Math.toRadians(latitude);
+		double dlat = lat2 - _latitudeRadians;
+		double dlon = Math.toRadians(longitude) - _longitudeRadians;
+
+		double sinLat2 = Math.sin(lat2);
+		double cosLat2 = Math.cos(lat2);
+		double sinDlon = Math.sin(dlon);
+		double cosDlon = Math.cos(dlon);
+
+		// (1 - cos(dlon)) / 2 would save a sine but loses the short distances
+		double sinHalfDlat = Math.sin(dlat / 2);
+		double sinHalfDlon = Math.sin(dlon / 2);
+		double a = sinHalfDlat * sinHalfDlat + (_cosLatitude * cosLat2 * sinHalfDlon * sinHalfDlon);
+		path._distance = DistanceCaclulator.EARTH_RADIUS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+		double y = sinDlon * cosLat2;
+		double x = _cosLatitude * sinLat2 - _sinLatitude * cosLat2 * cosDlon;
+		path._bearing = (360.0 + Math.toDegrees(Math.atan2(y, x))) % 360.0;
+
+		double reverseY = -sinDlon * _cosLatitude;
+		double reverseX = cosLat2 * _sinLatitude - sinLat2 * _cosLatitude * cosDlon;
+		path._reverseBearing = (360.0 + Math.toDegrees(Math.atan2(reverseY, reverseX))) % 360.0;
+
+		return path;
+	}
+
+}
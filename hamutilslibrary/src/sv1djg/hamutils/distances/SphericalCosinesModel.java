@@ -0,0 +1,52 @@
+//
+// the spherical law of cosines. one acos instead of the haversine's square
+// roots, it loses precision for points closer than about a metre.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public class SphericalCosinesModel implements DistanceModel
+{
+
+	public double distance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		double lat1 = Math.toRadians(fromLatitude);
+		double lat2 = Math.toRadians(toLatitude);
+		double dlon = Math.toRadians(toLongitude - fromLongitude);
+
+		double cosC = Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(dlon);
+
+		// rounding can take it just outside -1..1
+		cosC = Math.max(-1.0, Math.min(1.0, cosC));
+
+		return DistanceCaclulator.EARTH_RADIUS * Math.acos(cosC);
+	}
+
+	public double bearing(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		return DistanceCaclulator.bearingTo(fromLatitude, fromLongitude, toLatitude, toLongitude);
+	}
+
+	public CoordinateSet targetAtBearingDistance(double fromLatitude, double fromLongitude, double bearing, double distance)
+	{
+		return DistanceCaclulator.targetAtBearingDistance(fromLatitude, fromLongitude, bearing, distance);
+	}
+
+}
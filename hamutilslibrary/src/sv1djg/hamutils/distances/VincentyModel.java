@@ -0,0 +1,229 @@
+//
+// distances, bearings and targets on the WGS-84 ellipsoid (Vincenty's inverse
+// and direct formulae), good to a fraction of a millimetre. the iterations of
+// every calculation can be reported to an IterationListener.
+//
+// for nearly antipodal points the inverse formula may not converge, the
+// spherical result (scaled to the length of a half meridian) is returned then.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.distances;
+
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+
+public class VincentyModel implements DistanceModel
+{
+
+	// WGS-84, in Km
+	public static final double SEMI_MAJOR_AXIS = 6378.137;
+	public static final double FLATTENING = 1 / 298.257223563;
+	public static final double SEMI_MINOR_AXIS = SEMI_MAJOR_AXIS * (1 - FLATTENING);
+
+	// half of the length of a meridian (pole to pole), the longest geodesic between nearly antipodal points
+	static final double HALF_MERIDIAN = 20003.931458623;
+
+	private static final double SECOND_ECCENTRICITY_SQUARED = (SEMI_MAJOR_AXIS * SEMI_MAJOR_AXIS - SEMI_MINOR_AXIS * SEMI_MINOR_AXIS) / (SEMI_MINOR_AXIS * SEMI_MINOR_AXIS);
+	private static final double PRECISION = 1e-12;
+	private static final int MAXIMUM_ITERATIONS = 200;
+
+	public interface IterationListener
+	{
+		//
+		// called after each inverse or direct calculation. converged is false when the maximum iterations were reached
+		//
+		void iterations(int count, boolean converged);
+	}
+
+	private final IterationListener _listener;
+
+	public VincentyModel()
+	{
+		this(null);
+	}
+
+	public VincentyModel(IterationListener listener)
+	{
+		_listener = listener;
+	}
+
+	public double distance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		return inverse(fromLatitude, fromLongitude, toLatitude, toLongitude, false);
+	}
+
+	public double bearing(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude)
+	{
+		return inverse(fromLatitude, fromLongitude, toLatitude, toLongitude, true);
+	}
+
+	//
+	// solves the inverse problem, returns the distance in Km or the initial bearing in degrees
+	//
+	private double inverse(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude, boolean wantBearing)
+	{
+		double L = Math.toRadians(toLongitude - fromLongitude);
+
+		// the reduced latitudes
+		double U1 = Math.atan((1 - FLATTENING) * Math.tan(Math.toRadians(fromLatitude)));
+		double U2 = Math.atan((1 - FLATTENING) * Math.tan(Math.toRadians(toLatitude)));
+		double sinU1 = Math.sin(U1);
+		double cosU1 = Math.cos(U1);
+		double sinU2 = Math.sin(U2);
+		double cosU2 = Math.cos(U2);
+
+		double lambda = L;
+		double sinLambda;
+		double cosLambda;
+		double sinSigma;
+		double cosSigma;
+		double sigma;
+		double sinAlpha;
+		double cosSqAlpha;
+		double cos2SigmaM;
+
+		int iterations = 0;
+		boolean converged;
+
+		do
+		{
+			sinLambda = Math.sin(lambda);
+			cosLambda = Math.cos(lambda);
+
+			double t1 = cosU2 * sinLambda;
+			double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+			sinSigma = Math.sqrt(t1 * t1 + t2 * t2);
+
+			if (sinSigma == 0)
+			{
+				// the same point
+				report(iterations + 1, true);
+				return 0.0;
+			}
+
+			cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+			sigma = Math.atan2(sinSigma, cosSigma);
+			sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+			cosSqAlpha = 1 - sinAlpha * sinAlpha;
+
+			// on the equator cosSqAlpha is 0
+			cos2SigmaM = cosSqAlpha != 0 ? cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha : 0;
+
+			double C = FLATTENING / 16 * cosSqAlpha * (4 + FLATTENING * (4 - 3 * cosSqAlpha));
+			double previous = lambda;
+			lambda = L + (1 - C) * FLATTENING * sinAlpha
+					* (sigma + C * sinSigma * (cos2SigmaM + C * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+
+			iterations++;
+			converged = Math.abs(lambda - previous) <= PRECISION;
+		}
+		while (!converged && iterations < MAXIMUM_ITERATIONS);
+
+		report(iterations, converged);
+
+		if (!converged)
+		{
+			if (wantBearing)
+				return DistanceCaclulator.bearingTo(fromLatitude, fromLongitude, toLatitude, toLongitude);
+			else
+				return DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude) * HALF_MERIDIAN / (Math.PI * DistanceCaclulator.EARTH_RADIUS);
+		}
+
+		if (wantBearing)
+		{
+			double brng = Math.toDegrees(Math.atan2(cosU2 * sinLambda, cosU1 * sinU2 - sinU1 * cosU2 * cosLambda));
+			return (360.0 + brng) % 360.0;
+		}
+
+		double uSq = cosSqAlpha * SECOND_ECCENTRICITY_SQUARED;
+		double A = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+		double B = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+		double deltaSigma = B * sinSigma * (cos2SigmaM + B / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+				- B / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+
+		return SEMI_MINOR_AXIS * A * (sigma - deltaSigma);
+	}
+
+	public CoordinateSet targetAtBearingDistance(double fromLatitude, double fromLongitude, double bearing, double distance)
+	{
+		double alpha1 = Math.toRadians(bearing % 360.0);
+		double sinAlpha1 = Math.sin(alpha1);
+		double cosAlpha1 = Math.cos(alpha1);
+
+		double tanU1 = (1 - FLATTENING) * Math.tan(Math.toRadians(fromLatitude));
+		double cosU1 = 1 / Math.sqrt(1 + tanU1 * tanU1);
+		double sinU1 = tanU1 * cosU1;
+
+		double sigma1 = Math.atan2(tanU1, cosAlpha1);
+		double sinAlpha = cosU1 * sinAlpha1;
+		double cosSqAlpha = 1 - sinAlpha * sinAlpha;
+		double uSq = cosSqAlpha * SECOND_ECCENTRICITY_SQUARED;
+		double A = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+		double B = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+
+		double sigma = distance / (SEMI_MINOR_AXIS * A);
+		double sinSigma;
+		double cosSigma;
+		double cos2SigmaM;
+
+		int iterations = 0;
+		boolean converged;
+
+		do
+		{
+			cos2SigmaM = Math.cos(2 * sigma1 + sigma);
+			sinSigma = Math.sin(sigma);
+			cosSigma = Math.cos(sigma);
+
+			double deltaSigma = B * sinSigma * (cos2SigmaM + B / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+					- B / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+
+			double previous = sigma;
+			sigma = distance / (SEMI_MINOR_AXIS * A) + deltaSigma;
+
+			iterations++;
+			converged = Math.abs(sigma - previous) <= PRECISION;
+		}
+		while (!converged && iterations < MAXIMUM_ITERATIONS);
+
+		report(iterations, converged);
+
+		cos2SigmaM = Math.cos(2 * sigma1 + sigma);
+		sinSigma = Math.sin(sigma);
+		cosSigma = Math.cos(sigma);
+
+		double tmp = sinU1 * sinSigma - cosU1 * cosSigma * cosAlpha1;
+		double lat2 = Math.atan2(sinU1 * cosSigma + cosU1 * sinSigma * cosAlpha1,
+				(1 - FLATTENING) * Math.sqrt(sinAlpha * sinAlpha + tmp * tmp));
+		double lambda = Math.atan2(sinSigma * sinAlpha1, cosU1 * cosSigma - sinU1 * sinSigma * cosAlpha1);
+		double C = FLATTENING / 16 * cosSqAlpha * (4 + FLATTENING * (4 - 3 * cosSqAlpha));
+		double L = lambda - (1 - C) * FLATTENING * sinAlpha
+				* (sigma + C * sinSigma * (cos2SigmaM + C * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+
+		// normalize longitude into E/W (-180 ...180)
+		double lon2 = (Math.toRadians(fromLongitude) + L + 3 * Math.PI) % (2 * Math.PI) - Math.PI;
+
+		return new CoordinateSet(Math.toDegrees(lat2), Math.toDegrees(lon2));
+	}
+
+	private void report(int iterations, boolean converged)
+	{
+		if (_listener != null)
+			_listener.iterations(iterations, converged);
+	}
+
+}
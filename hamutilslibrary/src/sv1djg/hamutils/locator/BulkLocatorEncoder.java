@@ -0,0 +1,278 @@
+//
+// converts whole columns of coordinates to packed locator codes, in parallel
+// on a fork/join pool. bad rows do not stop the conversion, they get the
+// INVALID code and their reason (LocatorEncoder.validate()) in a status array.
+// the rows are split in chunks of at least MIN_CHUNK rows that start on a
+// multiple of ALIGNMENT rows, so two threads only ever write the few cache
+// lines around a chunk boundary of the output arrays.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.locator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import sv1djg.hamutils.metrics.Metrics;
+
+public final class BulkLocatorEncoder
+{
+
+	// the smallest number of rows a task converts
+	static final int MIN_CHUNK = 4096;
+
+	// chunks start on a multiple of 64 rows: 64 status bytes, 8 cache lines of codes
+	static final int ALIGNMENT = 64;
+
+	// how many chunks each thread of the pool gets, so the work evens out
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	//
+	// reads the coordinates of the rows of any source and takes back the results
+	//
+	public interface Accessor<T>
+	{
+		double latitude(T row);
+
+		double longitude(T row);
+
+		//
+		// called once for every row, code is LocatorCode.INVALID when status is not LocatorEncoder.OK.
+		// with a parallel conversion it is called from many threads (but never twice for the same row)
+		//
+		void result(T row, long code, byte status);
+	}
+
+	private BulkLocatorEncoder()
+	{
+	}
+
+	//
+	// converts the rows offset .. offset+count-1 in this thread. returns the number of invalid rows
+	//
+	public static int encode(double[] latitudes, double[] longitudes, int length, long[] codes, byte[] status, int offset, int count)
+	{
+		int pairs = LocatorEncoder.pairsOf(length);
+		checkRange(latitudes, longitudes, codes, status, offset, count);
+
+		int invalid = encodeRange(latitudes, longitudes, pairs, codes, status, offset, offset + count);
+		if (Metrics.ENABLED)
+			Metrics.batch(count, invalid);
+
+		return invalid;
+	}
+
+	//
+	// the same as encode(), on the common fork/join pool
+	//
+	public static int encodeParallel(double[] latitudes, double[] longitudes, int length, long[] codes, byte[] status, int offset, int count)
+	{
+		return encodeParallel(ForkJoinPool.commonPool(), latitudes, longitudes, length, codes, status, offset, count);
+	}
+
+	public static int encodeParallel(ForkJoinPool pool, double[] latitudes, double[] longitudes, int length, long[] codes, byte[] status, int offset, int count)
+	{
+		int pairs = LocatorEncoder.pairsOf(length);
+		checkRange(latitudes, longitudes, codes, status, offset, count);
+
+		int chunk = chunkSize(count, pool.getParallelism());
+		int invalid;
+		if (count <= chunk)
+			invalid = encodeRange(latitudes, longitudes, pairs, codes, status, offset, offset + count);
+		else
+			invalid = pool.invoke(new ArrayTask(latitudes, longitudes, pairs, codes, status, offset, offset + count, chunk)).intValue();
+
+		if (Metrics.ENABLED)
+			Metrics.batch(count, invalid);
+
+		return invalid;
+	}
+
+	//
+	// converts every row of a source that can be split (e.g. collection.spliterator()), the results go back through the accessor.
+	// returns the number of invalid rows
+	//
+	public static <T> int encodeParallel(ForkJoinPool pool, Spliterator<T> rows, int length, Accessor<T> accessor)
+	{
+		int pairs = LocatorEncoder.pairsOf(length);
+
+		long size = rows.estimateSize();
+		long chunk = size == Long.MAX_VALUE ? MIN_CHUNK : chunkSize(size, pool.getParallelism());
+
+		int invalid = pool.invoke(new SpliteratorTask<T>(rows, pairs, accessor, chunk)).intValue();
+
+		// the rows of a source of unknown size are not counted
+		if (Metrics.ENABLED)
+			Metrics.batch(size == Long.MAX_VALUE ? 0 : size, invalid);
+
+		return invalid;
+	}
+
+	static int chunkSize(long count, int parallelism)
+	{
+		long chunk = count / ((long)Math.max(parallelism, 1) * CHUNKS_PER_THREAD);
+		chunk = (chunk + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+		return (int)Math.min(Math.max(chunk, MIN_CHUNK), Integer.MAX_VALUE / 2);
+	}
+
+	private static int encodeRange(double[] latitudes, double[] longitudes, int pairs, long[] codes, byte[] status, int from, int to)
+	{
+		int invalid = 0;
+
+		for (int i = from; i < to; i++)
+		{
+			byte result = LocatorEncoder.validate(latitudes[i], longitudes[i]);
+
+			status[i] = result;
+			if (result == LocatorEncoder.OK)
+			{
+				codes[i] = LocatorEncoder.encodeUnchecked(latitudes[i], longitudes[i], pairs);
+			}
+			else
+			{
+				codes[i] = LocatorCode.INVALID;
+				invalid++;
+
+				if (Metrics.ENABLED)
+					LocatorEncoder.recordFailure(result);
+			}
+		}
+
+		return invalid;
+	}
+
+	private static void checkRange(double[] latitudes, double[] longitudes, long[] codes, byte[] status, int offset, int count)
+	{
+		int end = offset + count;
+		if (offset < 0 || count < 0 || end < 0 || end > latitudes.length || end > longitudes.length || end > codes.length || end > status.length)
+			throw new IndexOutOfBoundsException("rows " + offset + ".." + end + " do not fit in the arrays");
+	}
+
+	private static final class ArrayTask extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final double[] _latitudes;
+		private final double[] _longitudes;
+		private final int _pairs;
+		private final long[] _codes;
+		private final byte[] _status;
+		private final int _from;
+		private final int _to;
+		private final int _chunk;
+
+		ArrayTask(double[] latitudes, double[] longitudes, int pairs, long[] codes, byte[] status, int from, int to, int chunk)
+		{
+			_latitudes = latitudes;
+			_longitudes = longitudes;
+			_pairs = pairs;
+			_codes = codes;
+			_status = status;
+			_from = from;
+			_to = to;
+			_chunk = chunk;
+		}
+
+		protected Integer compute()
+		{
+			if (_to - _from <= _chunk)
+				return Integer.valueOf(encodeRange(_latitudes, _longitudes, _pairs, _codes, _status, _from, _to));
+
+			// split on an aligned row, the chunk is much larger than the alignment so both halves are not empty
+			int middle = (_from + (_to - _from) / 2) / ALIGNMENT * ALIGNMENT;
+
+			ArrayTask left = new ArrayTask(_latitudes, _longitudes, _pairs, _codes, _status, _from, middle, _chunk);
+			ArrayTask right = new ArrayTask(_latitudes, _longitudes, _pairs, _codes, _status, middle, _to, _chunk);
+
+			left.fork();
+			int invalid = right.compute().intValue();
+			return Integer.valueOf(invalid + left.join().intValue());
+		}
+	}
+
+	private static final class SpliteratorTask<T> extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Spliterator<T> _rows;
+		private final int _pairs;
+		private final Accessor<T> _accessor;
+		private final long _chunk;
+
+		SpliteratorTask(Spliterator<T> rows, int pairs, Accessor<T> accessor, long chunk)
+		{
+			_rows = rows;
+			_pairs = pairs;
+			_accessor = accessor;
+			_chunk = chunk;
+		}
+
+		protected Integer compute()
+		{
+			List<SpliteratorTask<T>> forked = null;
+
+			// hand the split off parts to other threads while this part is too large
+			Spliterator<T> split;
+			while (_rows.estimateSize() > _chunk && (split = _rows.trySplit()) != null)
+			{
+				SpliteratorTask<T> task = new SpliteratorTask<T>(split, _pairs, _accessor, _chunk);
+				task.fork();
+
+				if (forked == null)
+					forked = new ArrayList<SpliteratorTask<T>>();
+				forked.add(task);
+			}
+
+			final int[] invalid = new int[1];
+			_rows.forEachRemaining(new Consumer<T>()
+			{
+				public void accept(T row)
+				{
+					double latitude = _accessor.latitude(row);
+					double longitude = _accessor.longitude(row);
+					byte status = LocatorEncoder.validate(latitude, longitude);
+
+					if (status == LocatorEncoder.OK)
+					{
+						_accessor.result(row, LocatorEncoder.encodeUnchecked(latitude, longitude, _pairs), status);
+					}
+					else
+					{
+						_accessor.result(row, LocatorCode.INVALID, status);
+						invalid[0]++;
+
+						if (Metrics.ENABLED)
+							LocatorEncoder.recordFailure(status);
+					}
+				}
+			});
+
+			int total = invalid[0];
+			if (forked != null)
+			{
+				for (SpliteratorTask<T> task : forked)
+					total += task.join().intValue();
+			}
+			return Integer.valueOf(total);
+		}
+	}
+
+}
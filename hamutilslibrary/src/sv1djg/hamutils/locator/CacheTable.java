@@ -0,0 +1,272 @@
+//
+// a bounded map of (long, long) keys to a long value (and optionally an object)
+// used by LocatorCache. the entries are kept in sets of a few ways, the least
+// recently used way of a set is evicted when a new key arrives. the table is
+// split in stripes, each with its own lock and counters, so threads working
+// on different keys rarely meet.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.locator;
+
+import sv1djg.hamutils.metrics.Metrics;
+
+final class CacheTable
+{
+
+	// returned by get() for a key that is not in the table. it is a NaN that arithmetic never produces,
+	// so double values stored as raw bits can not be mistaken for it
+	static final long MISS = 0x7FF0DEADBEEF0001L;
+
+	private static final int WAYS = 8;
+
+	private static final class Stripe
+	{
+		final long[] keys1;
+		final long[] keys2;
+		final long[] values;
+		final Object[] objects;
+		final long[] stamps;	// 0 is an empty way
+		long clock;
+
+		long hits;
+		long misses;
+		long evictions;
+		int size;
+
+		Stripe(int ways)
+		{
+			keys1 = new long[ways];
+			keys2 = new long[ways];
+			values = new long[ways];
+			objects = new Object[ways];
+			stamps = new long[ways];
+		}
+	}
+
+	private final Stripe[] _stripes;
+	private final int _setMask;
+	private final int _setShift;
+
+	//
+	// maximumEntries is rounded up so each stripe holds a power of 2 sets of WAYS entries
+	//
+	CacheTable(int maximumEntries, int stripes)
+	{
+		if (maximumEntries <= 0)
+			throw new IllegalArgumentException("the cache must hold at least one entry");
+		if (stripes <= 0 || (stripes & (stripes - 1)) != 0)
+			throw new IllegalArgumentException("the number of stripes must be a power of 2");
+
+		int setsPerStripe = 1;
+		while ((long)setsPerStripe * WAYS * stripes < maximumEntries)
+			setsPerStripe <<= 1;
+
+		_stripes = new Stripe[stripes];
+		for (int i = 0; i < stripes; i++)
+			_stripes[i] = new Stripe(setsPerStripe * WAYS);
+
+		_setMask = setsPerStripe - 1;
+		_setShift = Integer.numberOfTrailingZeros(stripes);
+	}
+
+	//
+	// the value of the key, or MISS
+	//
+	long get(long key1, long key2)
+	{
+		int hash = hash(key1, key2);
+		Stripe stripe = _stripes[hash & (_stripes.length - 1)];
+		int first = ((hash >>> _setShift) & _setMask) * WAYS;
+
+		synchronized (stripe)
+		{
+			int way = find(stripe, first, key1, key2);
+			if (way < 0)
+			{
+				stripe.misses++;
+				if (Metrics.ENABLED)
+					Metrics.cacheLookup(false);
+				return MISS;
+			}
+
+			stripe.hits++;
+			if (Metrics.ENABLED)
+				Metrics.cacheLookup(true);
+			stripe.stamps[way] = ++stripe.clock;
+			return stripe.values[way];
+		}
+	}
+
+	//
+	// the object of the key, or its value as a Long if it was put without one (still a hit, the caller
+	// can make the object from the value), null if the key is not in the table
+	//
+	Object getObject(long key1, long key2)
+	{
+		int hash = hash(key1, key2);
+		Stripe stripe = _stripes[hash & (_stripes.length - 1)];
+		int first = ((hash >>> _setShift) & _setMask) * WAYS;
+
+		synchronized (stripe)
+		{
+			int way = find(stripe, first, key1, key2);
+			if (way < 0)
+			{
+				stripe.misses++;
+				if (Metrics.ENABLED)
+					Metrics.cacheLookup(false);
+				return null;
+			}
+
+			stripe.hits++;
+			if (Metrics.ENABLED)
+				Metrics.cacheLookup(true);
+			stripe.stamps[way] = ++stripe.clock;
+			if (stripe.objects[way] == null)
+				return Long.valueOf(stripe.values[way]);
+			return stripe.objects[way];
+		}
+	}
+
+	void put(long key1, long key2, long value, Object object)
+	{
+		int hash = hash(key1, key2);
+		Stripe stripe = _stripes[hash & (_stripes.length - 1)];
+		int first = ((hash >>> _setShift) & _setMask) * WAYS;
+
+		synchronized (stripe)
+		{
+			int way = find(stripe, first, key1, key2);
+
+			if (way < 0)
+			{
+				// an empty way, or else the least recently used one
+				way = first;
+				for (int i = first; i < first + WAYS; i++)
+				{
+					if (stripe.stamps[i] < stripe.stamps[way])
+						way = i;
+				}
+
+				if (stripe.stamps[way] != 0)
+					stripe.evictions++;
+				else
+					stripe.size++;
+
+				stripe.keys1[way] = key1;
+				stripe.keys2[way] = key2;
+			}
+
+			stripe.values[way] = value;
+			stripe.objects[way] = object;
+			stripe.stamps[way] = ++stripe.clock;
+		}
+	}
+
+	void clear()
+	{
+		for (Stripe stripe : _stripes)
+		{
+			synchronized (stripe)
+			{
+				java.util.Arrays.fill(stripe.stamps, 0L);
+				java.util.Arrays.fill(stripe.objects, null);
+				stripe.size = 0;
+			}
+		}
+	}
+
+	int capacity()
+	{
+		return _stripes.length * _stripes[0].stamps.length;
+	}
+
+	int size()
+	{
+		int size = 0;
+		for (Stripe stripe : _stripes)
+		{
+			synchronized (stripe)
+			{
+				size += stripe.size;
+			}
+		}
+		return size;
+	}
+
+	long hits()
+	{
+		long hits = 0;
+		for (Stripe stripe : _stripes)
+		{
+			synchronized (stripe)
+			{
+				hits += stripe.hits;
+			}
+		}
+		return hits;
+	}
+
+	long misses()
+	{
+		long misses = 0;
+		for (Stripe stripe : _stripes)
+		{
+			synchronized (stripe)
+			{
+				misses += stripe.misses;
+			}
+		}
+		return misses;
+	}
+
+	long evictions()
+	{
+		long evictions = 0;
+		for (Stripe stripe : _stripes)
+		{
+			synchronized (stripe)
+			{
+				evictions += stripe.evictions;
+			}
+		}
+		return evictions;
+	}
+
+	private static int find(Stripe stripe, int first, long key1, long key2)
+	{
+		for (int i = first; i < first + WAYS; i++)
+		{
+			if (stripe.stamps[i] != 0 && stripe.keys1[i] == key1 && stripe.keys2[i] == key2)
+				return i;
+		}
+		return -1;
+	}
+
+	private static int hash(long key1, long key2)
+	{
+		// a 64 bit mix (murmur3 finalizer) of both keys, folded to 32 bits
+		long h = key1 * 0x9E3779B97F4A7C15L + key2;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return (int)h;
+	}
+
+}
@@ -19,20 +19,36 @@
 
 package sv1djg.hamutils.locator;
 
+import sv1djg.hamutils.distances.Coordinates;
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.distances.DistanceModel;
+import sv1djg.hamutils.metrics.Metrics;
+import sv1djg.hamutils.metrics.Operation;
+
 public class GridLocator
 {
 
 	private double _latitude;
 	private double _longitude;
+	// the 8 character locator packed (see LocatorCode), its string is made when it is first asked for
+	private long _code;
 	private String _locator;
-
-	private final String[] _fieldChars = {"A","B","C","D","E","F","G","H","I","J","K","L","M","N","O","P","Q","R","S","T","U","V","W","X"};
+	// the shared strings of the Locator pool, looked up the first time they are asked for
+	private String _square;
+	private String _subsquare;
 
 	public enum LocatorLength{Full,FourDigit,SixDigit,EightDigit};
 
 	public GridLocator(double latitude, double longitude) throws Exception
 	{
+		if (Metrics.ENABLED && !LocatorEncoder.isValid(latitude, longitude))
+			LocatorEncoder.recordFailure(LocatorEncoder.validate(latitude, longitude));
 
+		if (Double.isNaN(latitude))
+			throw new Exception("Latitude is not a number");
+
+		if (Double.isNaN(longitude))
+			throw new Exception("Longitude is not a number");
 
 		if (latitude<-90.0)
 			throw new Exception("Latitude cannot be less than -90.0 degrees");
@@ -46,34 +62,122 @@ public class GridLocator
 		if (longitude<-180.0)
 			throw new Exception("Longitude cannot be less than 180.0 degrees");
 
+		setCoordinates(latitude, longitude);
+	}
+
+	private GridLocator()
+	{
+	}
+
+	//
+	// the same as the constructor without throwing, null for coordinates that are out of range or not numbers
+	// (validate() tells which). for noisy feeds, where building an exception for every bad row costs far more than the conversion
+	//
+	public static GridLocator tryCreate(double latitude, double longitude)
+	{
+		byte status = LocatorEncoder.validate(latitude, longitude);
+		if (status != LocatorEncoder.OK)
+		{
+			if (Metrics.ENABLED)
+				LocatorEncoder.recordFailure(status);
+			return null;
+		}
+
+		GridLocator grid = new GridLocator();
+		grid.setCoordinates(latitude, longitude);
+		return grid;
+	}
+
+	//
+	// what the constructor would reject, without throwing: LocatorEncoder.OK, NOT_A_NUMBER, LATITUDE_OUT_OF_RANGE
+	// or LONGITUDE_OUT_OF_RANGE. -90..90 and -180..180 are valid including the ends, infinities are out of range
+	//
+	public static byte validate(double latitude, double longitude)
+	{
+		return LocatorEncoder.validate(latitude, longitude);
+	}
+
+	private void setCoordinates(double latitude, double longitude)
+	{
+		long start = Metrics.start();
+
 		_latitude = latitude;
 		_longitude = longitude;
 
 		calculateGridLocator();
+
+		if (Metrics.ENABLED)
+			Metrics.record(Operation.LOCATOR_ENCODE, start);
 	}
 
 	public String getLocator()
 	{
-		return _locator;
+		// a race only makes the same string twice
+		String locator = _locator;
+		if (locator == null)
+		{
+			locator = LocatorCode.toString(_code);
+			_locator = locator;
+		}
+		return locator;
 	}
 
 	public String getLocator(LocatorLength precision)
 	{
+		// the 4 and 6 character strings are the shared ones of the Locator pool, not a substring each time
 		if (precision == LocatorLength.FourDigit)
-			return _locator.substring(0, 4);
+		{
+			String square = _square;
+			if (square == null)
+			{
+				square = Locator.square(_code).toString();
+				_square = square;
+			}
+			return square;
+		}
 		else if (precision == LocatorLength.SixDigit)
-			return _locator.substring(0, 6);
-		else if (precision == LocatorLength.EightDigit)
-			return _locator.substring(0, 8);
+		{
+			String subsquare = _subsquare;
+			if (subsquare == null)
+			{
+				subsquare = Locator.subsquare(_code).toString();
+				_subsquare = subsquare;
+			}
+			return subsquare;
+		}
 		else
-			return _locator;
+			return getLocator();
 
 	}
 
-	public double distanceFrom(GridLocator distantGrid)
+	//
+	// the 8 character locator packed (see LocatorCode)
+	//
+	public long getLocatorCode()
 	{
-	    double earthRadius = 6371.0; // in km
+		return _code;
+	}
 
+	//
+	// the locator as an immutable value, the shared instance for 4 and 6 characters
+	//
+	public Locator toLocator(LocatorLength precision)
+	{
+		if (precision == LocatorLength.FourDigit)
+			return Locator.square(_code);
+		else if (precision == LocatorLength.SixDigit)
+			return Locator.subsquare(_code);
+		else
+			return Locator.of(_code);
+	}
+
+	public Coordinates getCoordinates()
+	{
+		return new Coordinates(_latitude, _longitude);
+	}
+
+	public double distanceFrom(GridLocator distantGrid)
+	{
 	    double lat1 = Math.toRadians(distantGrid.getLatitude());
 	    double lon1 = Math.toRadians(distantGrid.getLongitude());
 	    double lat2 = Math.toRadians(getLatitude());
@@ -88,7 +192,7 @@ public class GridLocator
 			    .sin(dlon / 2));
 
 	    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-	    double km = earthRadius * c;
+	    double km = DistanceCaclulator.EARTH_RADIUS * c;
 
 	    return km;
 	}
@@ -114,6 +218,19 @@ public class GridLocator
 	    return brng;
 	}
 
+	//
+	// the distance (in Km) and bearing calculated with a specific model (e.g. the WGS-84 ellipsoid)
+	//
+	public double distanceFrom(GridLocator distantGrid, DistanceModel model)
+	{
+		return model.distance(getLatitude(), getLongitude(), distantGrid.getLatitude(), distantGrid.getLongitude());
+	}
+
+	public double bearingTo(GridLocator distantGrid, DistanceModel model)
+	{
+		return model.bearing(getLatitude(), getLongitude(), distantGrid.getLatitude(), distantGrid.getLongitude());
+	}
+
 	public double getLongitude()
 	{
 		return _longitude;
@@ -126,52 +243,11 @@ public class GridLocator
 
 	private void calculateGridLocator()
 	{
-		// normalise lon to south and lat to antimeridian of greenwich (this normalisation gives the Prime Meridian a false easting of 180 degrees
-		//and the equator a false northing of 90 degrees.)
-
-		double normalisedLatitude  = _latitude + 90.0;
-		double normalisedLongitude = _longitude + 180.0;
-
-		//
-		// calculate the first pair (the field)
-		// this is made from 18 zones - A to R
-
-		int latitudeField = (int)(normalisedLatitude / 10.0);
-		int longitudeField = (int)(normalisedLongitude / 20.0);
-
-
-		//
-		// calculate the second pair (the square)
-		// this is made from 10 zones - 0 to 9
-
-		int latitudeSquare = (int)(normalisedLatitude - (double)(latitudeField * 10.0));
-		int longitudeSquare = (int)((normalisedLongitude - (double)(longitudeField *  20.0)) /2 );
-
-
-		//
-		// calculate the third pair (the sub field)
-		// this is made from 10 zones - A to W
-
-		double latitudeMinutes = (normalisedLatitude - (double)(latitudeField * 10.0) - (double)latitudeSquare)*60.0;
-		double longitudeMinutes = (normalisedLongitude - (double)(longitudeField *  20.0) - (double)(longitudeSquare *2))*60.0;
-
-		int latitudeSubField = (int)(latitudeMinutes / 2.5);
-		int longitudSubField = (int)(longitudeMinutes / 5.0);
-
-		//
-		// calculate the fourth pair (the sub square)
-		// this is made from 10 zones - A to W
-
-		double p = latitudeMinutes - (double)(latitudeSubField * 2.5);
-		double l = longitudeMinutes - (double)(longitudSubField * 5.0);
-
-		double latitudeSeconds =  p * 60.0;
-		double longitudeSeconds = l * 60.0;
-
-		int latitudeSubSquare= (int)(latitudeSeconds / 15.0);
-		int longitudSubSquare = (int)(longitudeSeconds / 30.0);
-
-		_locator =  String.format("%s%s%d%d%s%s%d%d", _fieldChars[longitudeField],_fieldChars[latitudeField],longitudeSquare,latitudeSquare,_fieldChars[longitudSubField],_fieldChars[latitudeSubField],longitudSubSquare,latitudeSubSquare);
+		// the conversion itself is done by LocatorEncoder
+		_code = LocatorEncoder.encodeUnchecked(_latitude, _longitude, LocatorEncoder.DEFAULT_LENGTH / 2);
+		_locator = null;
+		_square = null;
+		_subsquare = null;
 	}
 
 
@@ -0,0 +1,695 @@
+//
+// a set of worked squares (and optionally subsquares) for grid awards. each
+// of the 32400 squares is a bit of a fixed bitmap, so union, intersection and
+// difference are a pass over 507 longs. subsquares are kept in 576 bit blocks,
+// only for the squares that have any, in the order of the squares. every
+// subsquare in the set has its square in the set too.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.locator;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+public final class GridSet
+{
+
+	//
+	// receives the packed codes (see LocatorCode) of the squares or subsquares of the set, in the order of their ids
+	//
+	public interface Visitor
+	{
+		void visit(long code);
+	}
+
+	public static final int SQUARES = 180 * 180;
+	public static final int FIELDS = 18 * 18;
+
+	private static final int SQUARE_PAIRS = 2;
+	private static final int SUBSQUARE_PAIRS = 3;
+	private static final int SQUARE_WORDS = (SQUARES + 63) >>> 6;
+	private static final int SUBSQUARES_PER_SQUARE = 24 * 24;
+	private static final int BLOCK_WORDS = SUBSQUARES_PER_SQUARE / 64;
+
+	// the first byte of the serialized form, and its flags
+	private static final int FORMAT = 0x47;
+	private static final int WITH_SUBSQUARES = 1;
+	private static final int SQUARE_BITMAP = 2;
+
+	private static final int[] NO_KEYS = new int[0];
+	private static final long[][] NO_BLOCKS = new long[0][];
+
+	private final boolean _withSubsquares;
+	private final long[] _squares = new long[SQUARE_WORDS];
+
+	// the square ids that have subsquares, ascending, and their blocks
+	private int[] _keys = NO_KEYS;
+	private long[][] _blocks = NO_BLOCKS;
+	private int _blockCount;
+
+	//
+	// a set of squares only
+	//
+	public GridSet()
+	{
+		this(false);
+	}
+
+	public GridSet(boolean withSubsquares)
+	{
+		_withSubsquares = withSubsquares;
+	}
+
+	public GridSet(GridSet other)
+	{
+		_withSubsquares = other._withSubsquares;
+		System.arraycopy(other._squares, 0, _squares, 0, SQUARE_WORDS);
+
+		_keys = Arrays.copyOf(other._keys, other._blockCount);
+		_blocks = new long[other._blockCount][];
+		for (int i = 0; i < other._blockCount; i++)
+			_blocks[i] = other._blocks[i].clone();
+		_blockCount = other._blockCount;
+	}
+
+	public boolean hasSubsquares()
+	{
+		return _withSubsquares;
+	}
+
+	//
+	// adds the square (and the subsquare) of the coordinates, returns false if they were already in the set
+	// or the coordinates are bad
+	//
+	public boolean add(double latitude, double longitude)
+	{
+		if (!LocatorEncoder.isValid(latitude, longitude))
+			return false;
+
+		return addCode(LocatorEncoder.encodeUnchecked(latitude, longitude, _withSubsquares ? SUBSQUARE_PAIRS : SQUARE_PAIRS));
+	}
+
+	//
+	// adds the square (and the subsquare) of a locator of 4 or more characters, upper or lower case.
+	// returns false if it was already in the set or it is not such a locator
+	//
+	public boolean add(CharSequence locator)
+	{
+		long code = LocatorDecoder.decode(locator, true);
+		if (code == LocatorCode.INVALID || LocatorCode.pairs(code) < SQUARE_PAIRS)
+			return false;
+
+		return addCode(code);
+	}
+
+	//
+	// adds the square (and the subsquare) of a packed code of 4 or more characters, returns false if it was already in the set
+	//
+	public boolean add(long code)
+	{
+		if (!LocatorCode.isValid(code) || LocatorCode.pairs(code) < SQUARE_PAIRS)
+			throw new IllegalArgumentException("not a code of a square or a smaller cell");
+
+		return addCode(code);
+	}
+
+	//
+	// whether the cell of the code is in the set: a field with any of its squares, a square, or
+	// (for a set with subsquares) the subsquare of a longer code
+	//
+	public boolean contains(long code)
+	{
+		if (!LocatorCode.isValid(code))
+			return false;
+
+		int pairs = LocatorCode.pairs(code);
+		if (pairs < SQUARE_PAIRS)
+			return fieldCount(code) > 0;
+
+		int square = LocatorCode.cellId(LocatorCode.truncate(code, SQUARE_PAIRS));
+		if (!get(_squares, square))
+			return false;
+		if (pairs == SQUARE_PAIRS)
+			return true;
+		if (!_withSubsquares)
+			return false;
+
+		int block = Arrays.binarySearch(_keys, 0, _blockCount, square);
+		return block >= 0 && get(_blocks[block], subsquareOf(code));
+	}
+
+	public boolean contains(CharSequence locator)
+	{
+		return contains(LocatorDecoder.decode(locator, true));
+	}
+
+	public boolean isEmpty()
+	{
+		for (long word : _squares)
+		{
+			if (word != 0)
+				return false;
+		}
+		return true;
+	}
+
+	public int squareCount()
+	{
+		return count(_squares);
+	}
+
+	public int subsquareCount()
+	{
+		int count = 0;
+		for (int i = 0; i < _blockCount; i++)
+			count += count(_blocks[i]);
+		return count;
+	}
+
+	//
+	// the number of squares in the set in the field of the code (of any length)
+	//
+	public int fieldCount(long code)
+	{
+		if (!LocatorCode.isValid(code))
+			throw new IllegalArgumentException("invalid locator code");
+
+		long field = LocatorCode.truncate(code, 1);
+		int firstColumn = LocatorCode.longitudeIndex(field) * 10;
+		int firstRow = LocatorCode.latitudeIndex(field) * 10;
+
+		// the 10 squares of a column of the field are next to each other
+		int count = 0;
+		for (int column = firstColumn; column < firstColumn + 10; column++)
+		{
+			int first = column * 180 + firstRow;
+			count += countRange(_squares, first, first + 10);
+		}
+		return count;
+	}
+
+	//
+	// the number of squares of every field (counts[longitudeIndex * 18 + latitudeIndex] of the field),
+	// returns the number of fields with any
+	//
+	public int fieldCounts(int[] counts)
+	{
+		Arrays.fill(counts, 0, FIELDS, 0);
+
+		int fields = 0;
+		for (int w = 0; w < SQUARE_WORDS; w++)
+		{
+			long word = _squares[w];
+			while (word != 0)
+			{
+				int square = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+
+				int field = (square / 180 / 10) * 18 + (square % 180) / 10;
+				if (counts[field]++ == 0)
+					fields++;
+			}
+		}
+		return fields;
+	}
+
+	//
+	// adds all the squares (and subsquares) of other
+	//
+	public void or(GridSet other)
+	{
+		for (int w = 0; w < SQUARE_WORDS; w++)
+			_squares[w] |= other._squares[w];
+
+		if (!_withSubsquares || other._blockCount == 0)
+			return;
+
+		int[] keys = new int[_blockCount + other._blockCount];
+		long[][] blocks = new long[keys.length][];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+
+		while (i < _blockCount || j < other._blockCount)
+		{
+			int key = i < _blockCount ? _keys[i] : Integer.MAX_VALUE;
+			int otherKey = j < other._blockCount ? other._keys[j] : Integer.MAX_VALUE;
+
+			if (key < otherKey)
+			{
+				keys[count] = key;
+				blocks[count++] = _blocks[i++];
+			}
+			else if (otherKey < key)
+			{
+				keys[count] = otherKey;
+				blocks[count++] = other._blocks[j++].clone();
+			}
+			else
+			{
+				long[] block = _blocks[i++];
+				long[] otherBlock = other._blocks[j++];
+				for (int b = 0; b < BLOCK_WORDS; b++)
+					block[b] |= otherBlock[b];
+				keys[count] = key;
+				blocks[count++] = block;
+			}
+		}
+
+		_keys = keys;
+		_blocks = blocks;
+		_blockCount = count;
+	}
+
+	//
+	// keeps only the squares (and subsquares) that are in other too. if other has no subsquares,
+	// the subsquares of the squares that are kept stay
+	//
+	public void and(GridSet other)
+	{
+		for (int w = 0; w < SQUARE_WORDS; w++)
+			_squares[w] &= other._squares[w];
+
+		if (other._withSubsquares)
+			combineBlocks(other, false);
+		else
+			dropOrphanBlocks();
+	}
+
+	//
+	// removes the squares (and subsquares) that are in other
+	//
+	public void andNot(GridSet other)
+	{
+		for (int w = 0; w < SQUARE_WORDS; w++)
+			_squares[w] &= ~other._squares[w];
+
+		if (other._withSubsquares)
+			combineBlocks(other, true);
+		dropOrphanBlocks();
+	}
+
+	public void clear()
+	{
+		Arrays.fill(_squares, 0L);
+		_keys = NO_KEYS;
+		_blocks = NO_BLOCKS;
+		_blockCount = 0;
+	}
+
+	public void forEachSquare(Visitor visitor)
+	{
+		for (int w = 0; w < SQUARE_WORDS; w++)
+		{
+			long word = _squares[w];
+			while (word != 0)
+			{
+				int square = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				visitor.visit(LocatorCode.fromCellId(square, SQUARE_PAIRS));
+			}
+		}
+	}
+
+	public void forEachSubsquare(Visitor visitor)
+	{
+		for (int i = 0; i < _blockCount; i++)
+		{
+			long square = LocatorCode.fromCellId(_keys[i], SQUARE_PAIRS);
+			long[] block = _blocks[i];
+			for (int w = 0; w < BLOCK_WORDS; w++)
+			{
+				long word = block[w];
+				while (word != 0)
+				{
+					int subsquare = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+					visitor.visit(LocatorCode.pack(SUBSQUARE_PAIRS, LocatorCode.longitudeIndex(square) * 24 + subsquare / 24,
+							LocatorCode.latitudeIndex(square) * 24 + subsquare % 24));
+				}
+			}
+		}
+	}
+
+	//
+	// the serialized form: the squares as varint gaps between their ids (or as the bitmap when that is
+	// smaller), then the subsquares as varint gaps between square id * 576 + subsquare
+	//
+	public byte[] toBytes()
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		int squares = squareCount();
+		boolean bitmap = gapsSize() > SQUARE_WORDS * 8;
+		out.write(FORMAT);
+		out.write((_withSubsquares ? WITH_SUBSQUARES : 0) | (bitmap ? SQUARE_BITMAP : 0));
+
+		if (bitmap)
+		{
+			for (long word : _squares)
+			{
+				for (int shift = 56; shift >= 0; shift -= 8)
+					out.write((int)(word >>> shift));
+			}
+		}
+		else
+		{
+			writeVarint(out, squares);
+			int previous = -1;
+			for (int w = 0; w < SQUARE_WORDS; w++)
+			{
+				long word = _squares[w];
+				while (word != 0)
+				{
+					int square = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+					writeVarint(out, square - previous);
+					previous = square;
+				}
+			}
+		}
+
+		if (_withSubsquares)
+		{
+			writeVarint(out, subsquareCount());
+			int previous = -1;
+			for (int i = 0; i < _blockCount; i++)
+			{
+				for (int w = 0; w < BLOCK_WORDS; w++)
+				{
+					long word = _blocks[i][w];
+					while (word != 0)
+					{
+						int id = _keys[i] * SUBSQUARES_PER_SQUARE + (w << 6) + Long.numberOfTrailingZeros(word);
+						word &= word - 1;
+						writeVarint(out, id - previous);
+						previous = id;
+					}
+				}
+			}
+		}
+
+		return out.toByteArray();
+	}
+
+	//
+	// reads the form written by toBytes(), throws IllegalArgumentException if it is damaged
+	//
+	public static GridSet fromBytes(byte[] bytes)
+	{
+		if (bytes.length < 2 || (bytes[0] & 0xFF) != FORMAT || (bytes[1] & ~(WITH_SUBSQUARES | SQUARE_BITMAP)) != 0)
+			throw new IllegalArgumentException("not a grid set");
+
+		GridSet set = new GridSet((bytes[1] & WITH_SUBSQUARES) != 0);
+		int[] position = { 2 };
+
+		if ((bytes[1] & SQUARE_BITMAP) != 0)
+		{
+			if (bytes.length < 2 + SQUARE_WORDS * 8)
+				throw new IllegalArgumentException("damaged grid set");
+
+			for (int w = 0; w < SQUARE_WORDS; w++)
+			{
+				long word = 0;
+				for (int b = 0; b < 8; b++)
+					word = (word << 8) | (bytes[position[0]++] & 0xFF);
+				set._squares[w] = word;
+			}
+			if (set._squares[SQUARE_WORDS - 1] >>> (SQUARES & 63) != 0)
+				throw new IllegalArgumentException("damaged grid set");
+		}
+		else
+		{
+			int count = readVarint(bytes, position);
+			int square = -1;
+			for (int i = 0; i < count; i++)
+			{
+				square += readVarint(bytes, position);
+				if (square < 0 || square >= SQUARES)
+					throw new IllegalArgumentException("damaged grid set");
+				set(set._squares, square);
+			}
+		}
+
+		if (set._withSubsquares)
+		{
+			int count = readVarint(bytes, position);
+			int id = -1;
+			for (int i = 0; i < count; i++)
+			{
+				id += readVarint(bytes, position);
+				if (id < 0 || id >= SQUARES * SUBSQUARES_PER_SQUARE || !get(set._squares, id / SUBSQUARES_PER_SQUARE))
+					throw new IllegalArgumentException("damaged grid set");
+				set(set.block(id / SUBSQUARES_PER_SQUARE), id % SUBSQUARES_PER_SQUARE);
+			}
+		}
+
+		if (position[0] != bytes.length)
+			throw new IllegalArgumentException("damaged grid set");
+
+		return set;
+	}
+
+	public boolean equals(Object other)
+	{
+		if (this == other)
+			return true;
+		if (!(other instanceof GridSet))
+			return false;
+
+		GridSet set = (GridSet)other;
+		if (_withSubsquares != set._withSubsquares || _blockCount != set._blockCount || !Arrays.equals(_squares, set._squares))
+			return false;
+
+		for (int i = 0; i < _blockCount; i++)
+		{
+			if (_keys[i] != set._keys[i] || !Arrays.equals(_blocks[i], set._blocks[i]))
+				return false;
+		}
+		return true;
+	}
+
+	public int hashCode()
+	{
+		int hash = Arrays.hashCode(_squares);
+		for (int i = 0; i < _blockCount; i++)
+			hash = hash * 31 + Arrays.hashCode(_blocks[i]);
+		return hash;
+	}
+
+	private boolean addCode(long code)
+	{
+		int square = LocatorCode.cellId(LocatorCode.truncate(code, SQUARE_PAIRS));
+		boolean added = set(_squares, square);
+
+		if (_withSubsquares && LocatorCode.pairs(code) >= SUBSQUARE_PAIRS)
+			added |= set(block(square), subsquareOf(code));
+
+		return added;
+	}
+
+	//
+	// the index (0..575) of the subsquare of a code of 6 or more characters inside its square
+	//
+	private static int subsquareOf(long code)
+	{
+		long subsquare = LocatorCode.truncate(code, SUBSQUARE_PAIRS);
+		return (LocatorCode.longitudeIndex(subsquare) % 24) * 24 + LocatorCode.latitudeIndex(subsquare) % 24;
+	}
+
+	//
+	// the block of the square, created if it has none yet
+	//
+	private long[] block(int square)
+	{
+		int index = Arrays.binarySearch(_keys, 0, _blockCount, square);
+		if (index >= 0)
+			return _blocks[index];
+
+		index = -index - 1;
+		if (_blockCount == _keys.length)
+		{
+			int capacity = Math.max(8, _blockCount * 2);
+			_keys = Arrays.copyOf(_keys, capacity);
+			_blocks = Arrays.copyOf(_blocks, capacity);
+		}
+
+		System.arraycopy(_keys, index, _keys, index + 1, _blockCount - index);
+		System.arraycopy(_blocks, index, _blocks, index + 1, _blockCount - index);
+		_keys[index] = square;
+		_blocks[index] = new long[BLOCK_WORDS];
+		_blockCount++;
+
+		return _blocks[index];
+	}
+
+	//
+	// and (or and not) of the blocks of both sets, keeping the non empty ones
+	//
+	private void combineBlocks(GridSet other, boolean not)
+	{
+		int count = 0;
+		int j = 0;
+
+		for (int i = 0; i < _blockCount; i++)
+		{
+			while (j < other._blockCount && other._keys[j] < _keys[i])
+				j++;
+
+			long[] block = _blocks[i];
+			long[] otherBlock = j < other._blockCount && other._keys[j] == _keys[i] ? other._blocks[j] : null;
+			boolean empty = true;
+
+			for (int w = 0; w < BLOCK_WORDS; w++)
+			{
+				long bits = otherBlock == null ? 0 : otherBlock[w];
+				block[w] &= not ? ~bits : bits;
+				empty &= block[w] == 0;
+			}
+
+			if (!empty)
+			{
+				_keys[count] = _keys[i];
+				_blocks[count++] = block;
+			}
+		}
+
+		Arrays.fill(_blocks, count, _blockCount, null);
+		_blockCount = count;
+	}
+
+	//
+	// drops the blocks of the squares that are no longer in the set
+	//
+	private void dropOrphanBlocks()
+	{
+		int count = 0;
+		for (int i = 0; i < _blockCount; i++)
+		{
+			if (get(_squares, _keys[i]))
+			{
+				_keys[count] = _keys[i];
+				_blocks[count++] = _blocks[i];
+			}
+		}
+
+		Arrays.fill(_blocks, count, _blockCount, null);
+		_blockCount = count;
+	}
+
+	//
+	// the size of the squares written as gaps, stops counting once it is larger than the bitmap
+	//
+	private int gapsSize()
+	{
+		int size = 0;
+		int previous = -1;
+		for (int w = 0; w < SQUARE_WORDS && size <= SQUARE_WORDS * 8; w++)
+		{
+			long word = _squares[w];
+			while (word != 0)
+			{
+				int square = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				size += varintSize(square - previous);
+				previous = square;
+			}
+		}
+		return size + varintSize(squareCount());
+	}
+
+	private static boolean get(long[] bits, int index)
+	{
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	//
+	// sets the bit, returns false if it was already set
+	//
+	private static boolean set(long[] bits, int index)
+	{
+		long word = bits[index >>> 6];
+		long mask = 1L << index;
+		bits[index >>> 6] = word | mask;
+		return (word & mask) == 0;
+	}
+
+	private static int count(long[] bits)
+	{
+		int count = 0;
+		for (long word : bits)
+			count += Long.bitCount(word);
+		return count;
+	}
+
+	//
+	// the number of bits set in from .. to-1, a range inside one or two words
+	//
+	private static int countRange(long[] bits, int from, int to)
+	{
+		int count = 0;
+		for (int w = from >>> 6; w <= (to - 1) >>> 6; w++)
+		{
+			long word = bits[w];
+			if (w == from >>> 6)
+				word &= -1L << from;
+			if (w == (to - 1) >>> 6)
+				word &= -1L >>> (63 - ((to - 1) & 63));
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	private static int varintSize(int value)
+	{
+		int size = 1;
+		while ((value & ~0x7F) != 0)
+		{
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(byte[] bytes, int[] position)
+	{
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7)
+		{
+			if (position[0] >= bytes.length)
+				throw new IllegalArgumentException("damaged grid set");
+
+			byte b = bytes[position[0]++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IllegalArgumentException("damaged grid set");
+	}
+
+}
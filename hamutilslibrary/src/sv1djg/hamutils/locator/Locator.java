@@ -0,0 +1,196 @@
+//
+// an immutable locator: the packed code (see LocatorCode) and its string,
+// made once. Locator.of() shares one instance per cell for the 4 and 6
+// character locators (the ones spots and logs repeat all the time), so they
+// can be compared with == and their strings are never built twice. longer
+// locators get a new instance each time.
+//
+// the instances hold no identity of their own (equals/hashCode are the code),
+// so the class can become a value class when the language has them.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.locator;
+
+public final class Locator
+{
+
+	private static final int SQUARE_PAIRS = 2;
+	private static final int SUBSQUARE_PAIRS = 3;
+	private static final int SQUARES_PER_AXIS = 180;
+	private static final int SUBSQUARES_PER_AXIS = 24;
+
+	// the 32400 squares by cell id, and the subsquares in pages of one square, both filled as they are asked for.
+	// they are plain arrays read without a lock: a Locator has only final fields, so a thread that sees one sees it whole,
+	// and a thread that sees null takes the lock and looks again, so there is never more than one instance of a cell
+	private static final Locator[] SQUARES = new Locator[SQUARES_PER_AXIS * SQUARES_PER_AXIS];
+	private static final Locator[][] SUBSQUARES = new Locator[SQUARES.length][];
+	private static final Object POOL_LOCK = new Object();
+
+	private final long _code;
+	private final String _string;
+
+	private Locator(long code)
+	{
+		_code = code;
+		_string = LocatorCode.toString(code);
+	}
+
+	//
+	// the locator of a packed code, the same instance every time for 4 and 6 character codes. null for an invalid code
+	//
+	public static Locator of(long code)
+	{
+		if (!LocatorCode.isValid(code))
+			return null;
+
+		int pairs = LocatorCode.pairs(code);
+		if (pairs == SQUARE_PAIRS)
+			return square(code);
+		if (pairs == SUBSQUARE_PAIRS)
+			return subsquare(code);
+
+		return new Locator(code);
+	}
+
+	//
+	// the locator of the coordinates (2,4,6,8 or 10 characters), null for bad coordinates
+	//
+	public static Locator of(double latitude, double longitude, int length)
+	{
+		return of(LocatorEncoder.encode(latitude, longitude, length));
+	}
+
+	//
+	// parses a locator in upper or lower case, null if it is not valid
+	//
+	public static Locator parse(CharSequence locator)
+	{
+		return of(LocatorDecoder.decode(locator, true));
+	}
+
+	//
+	// the shared square of a valid code of 4 or more characters
+	//
+	static Locator square(long code)
+	{
+		long square = LocatorCode.truncate(code, SQUARE_PAIRS);
+		int id = LocatorCode.longitudeIndex(square) * SQUARES_PER_AXIS + LocatorCode.latitudeIndex(square);
+
+		Locator locator = SQUARES[id];
+		if (locator != null)
+			return locator;
+
+		synchronized (POOL_LOCK)
+		{
+			if (SQUARES[id] == null)
+				SQUARES[id] = new Locator(square);
+			return SQUARES[id];
+		}
+	}
+
+	//
+	// the shared subsquare of a valid code of 6 or more characters
+	//
+	static Locator subsquare(long code)
+	{
+		long subsquare = LocatorCode.truncate(code, SUBSQUARE_PAIRS);
+		int longitudeIndex = LocatorCode.longitudeIndex(subsquare);
+		int latitudeIndex = LocatorCode.latitudeIndex(subsquare);
+
+		int id = (longitudeIndex / SUBSQUARES_PER_AXIS) * SQUARES_PER_AXIS + latitudeIndex / SUBSQUARES_PER_AXIS;
+		int index = (longitudeIndex % SUBSQUARES_PER_AXIS) * SUBSQUARES_PER_AXIS + latitudeIndex % SUBSQUARES_PER_AXIS;
+
+		Locator[] page = SUBSQUARES[id];
+		if (page != null)
+		{
+			Locator locator = page[index];
+			if (locator != null)
+				return locator;
+		}
+
+		synchronized (POOL_LOCK)
+		{
+			page = SUBSQUARES[id];
+			if (page == null)
+			{
+				page = new Locator[SUBSQUARES_PER_AXIS * SUBSQUARES_PER_AXIS];
+				SUBSQUARES[id] = page;
+			}
+			if (page[index] == null)
+				page[index] = new Locator(subsquare);
+			return page[index];
+		}
+	}
+
+	public long getCode()
+	{
+		return _code;
+	}
+
+	public int length()
+	{
+		return LocatorCode.length(_code);
+	}
+
+	//
+	// the same locator with fewer characters ("KM18WB03" -> "KM18"), itself if it is not longer
+	//
+	public Locator truncate(int length)
+	{
+		if (length >= length())
+			return this;
+		if (length < LocatorCode.MIN_PAIRS * 2 || (length & 1) != 0)
+			throw new IllegalArgumentException("locator length must be 2, 4, 6, 8 or 10 characters");
+
+		return of(LocatorCode.truncate(_code, length / 2));
+	}
+
+	public double getCentreLatitude()
+	{
+		return LocatorCode.centreLatitude(_code);
+	}
+
+	public double getCentreLongitude()
+	{
+		return LocatorCode.centreLongitude(_code);
+	}
+
+	public boolean contains(Locator other)
+	{
+		return other.length() >= length() && LocatorCode.truncate(other._code, LocatorCode.pairs(_code)) == _code;
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		return other instanceof Locator && ((Locator)other)._code == _code;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (int)(_code ^ (_code >>> 32));
+	}
+
+	@Override
+	public String toString()
+	{
+		return _string;
+	}
+
+}
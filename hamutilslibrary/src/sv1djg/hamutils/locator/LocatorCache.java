@@ -0,0 +1,190 @@
+//
+// an optional cache for repetitive spot streams: the same few thousand
+// stations ask for the same locators and the same locator to locator
+// distances/bearings over and over.
+//
+// coordinates -> locator is keyed by the exact coordinates (so the result is
+// always the same as GridLocator's), distances and bearings are keyed by the
+// pair of packed locator codes and are calculated between the cell centres.
+// each table holds up to maximumEntries, the least recently used entries are
+// evicted first. it can be shared by any number of threads.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.locator;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+
+public class LocatorCache
+{
+
+	private static final int DEFAULT_STRIPES = 16;
+
+	private final CacheTable _locators;
+	private final CacheTable _distances;
+	private final CacheTable _bearings;
+
+	public LocatorCache(int maximumEntries)
+	{
+		this(maximumEntries, DEFAULT_STRIPES);
+	}
+
+	//
+	// stripes (a power of 2) is the number of independently locked parts of each table
+	//
+	public LocatorCache(int maximumEntries, int stripes)
+	{
+		_locators = new CacheTable(maximumEntries, stripes);
+		_distances = new CacheTable(maximumEntries, stripes);
+		_bearings = new CacheTable(maximumEntries, stripes);
+	}
+
+	//
+	// the 8 character locator code of the coordinates, LocatorCode.INVALID for bad coordinates (which are not cached)
+	//
+	public long locatorCode(double latitude, double longitude)
+	{
+		long latitudeBits = Double.doubleToLongBits(latitude);
+		long longitudeBits = Double.doubleToLongBits(longitude);
+
+		long code = _locators.get(latitudeBits, longitudeBits);
+		if (code != CacheTable.MISS)
+			return code;
+
+		code = LocatorEncoder.encode(latitude, longitude);
+		if (code != LocatorCode.INVALID)
+			_locators.put(latitudeBits, longitudeBits, code, null);
+
+		return code;
+	}
+
+	//
+	// the same string as new GridLocator(latitude, longitude).getLocator(), null for bad coordinates
+	//
+	public String locator(double latitude, double longitude)
+	{
+		long latitudeBits = Double.doubleToLongBits(latitude);
+		long longitudeBits = Double.doubleToLongBits(longitude);
+
+		Object cached = _locators.getObject(latitudeBits, longitudeBits);
+		if (cached instanceof String)
+			return (String)cached;
+
+		long code;
+		if (cached != null)
+		{
+			// put by locatorCode(), the code is there and only the string is made
+			code = ((Long)cached).longValue();
+		}
+		else
+		{
+			code = LocatorEncoder.encode(latitude, longitude);
+			if (code == LocatorCode.INVALID)
+				return null;
+		}
+
+		String locator = LocatorCode.toString(code);
+		_locators.put(latitudeBits, longitudeBits, code, locator);
+
+		return locator;
+	}
+
+	//
+	// the distance in Km between the centres of the two cells (any precision).
+	// throws IllegalArgumentException for LocatorCode.INVALID (e.g. a locator that did not decode)
+	//
+	public double distance(long from, long to)
+	{
+		checkCodes(from, to);
+
+		// the distance is the same both ways, so both orders share one entry
+		long first = Math.min(from, to);
+		long second = Math.max(from, to);
+
+		long bits = _distances.get(first, second);
+		if (bits != CacheTable.MISS)
+			return Double.longBitsToDouble(bits);
+
+		double distance = DistanceCaclulator.distanceFrom(LocatorCode.centreLatitude(first), LocatorCode.centreLongitude(first),
+				LocatorCode.centreLatitude(second), LocatorCode.centreLongitude(second));
+		_distances.put(first, second, Double.doubleToRawLongBits(distance), null);
+
+		return distance;
+	}
+
+	//
+	// the bearing in degrees of the centre of the to cell from the centre of the from cell
+	//
+	public double bearing(long from, long to)
+	{
+		checkCodes(from, to);
+
+		long bits = _bearings.get(from, to);
+		if (bits != CacheTable.MISS)
+			return Double.longBitsToDouble(bits);
+
+		double bearing = DistanceCaclulator.bearingTo(LocatorCode.centreLatitude(from), LocatorCode.centreLongitude(from),
+				LocatorCode.centreLatitude(to), LocatorCode.centreLongitude(to));
+		_bearings.put(from, to, Double.doubleToRawLongBits(bearing), null);
+
+		return bearing;
+	}
+
+	public void clear()
+	{
+		_locators.clear();
+		_distances.clear();
+		_bearings.clear();
+	}
+
+	//
+	// counters of all the tables, for sizing the cache
+	//
+	public long hits()
+	{
+		return _locators.hits() + _distances.hits() + _bearings.hits();
+	}
+
+	public long misses()
+	{
+		return _locators.misses() + _distances.misses() + _bearings.misses();
+	}
+
+	public long evictions()
+	{
+		return _locators.evictions() + _distances.evictions() + _bearings.evictions();
+	}
+
+	public int size()
+	{
+		return _locators.size() + _distances.size() + _bearings.size();
+	}
+
+	//
+	// the number of entries each of the three tables (locators, distances, bearings) can hold
+	//
+	public int capacity()
+	{
+		return _locators.capacity();
+	}
+
+	private static void checkCodes(long from, long to)
+	{
+		if (!LocatorCode.isValid(from) || !LocatorCode.isValid(to))
+			throw new IllegalArgumentException("not a locator code");
+	}
+
+}
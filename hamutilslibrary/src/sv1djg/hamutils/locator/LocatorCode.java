@@ -0,0 +1,270 @@
+//
+// a packed primitive representation of a grid locator, so locators can be
+// kept in long[] / int[] arrays and compared without building strings.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.locator;
+
+import java.nio.CharBuffer;
+
+//
+// layout of a packed locator code (a long):
+//
+//   bits 56..59  number of character pairs (1 = "KM", 2 = "KM18", ... 5 = "KM18WB03AB")
+//   bits 28..55  longitude index of the cell at that precision
+//   bits  0..27  latitude index of the cell at that precision
+//
+// the index of an axis is the mixed radix number made of the digits of that axis,
+// e.g. for "KM18" the longitude index is K*10+1 and the latitude index is M*10+8.
+// so a shorter locator is just the longer one with the last digits divided away.
+//
+public final class LocatorCode
+{
+
+	public static final long INVALID = -1L;
+
+	public static final int MIN_PAIRS = 1;
+	public static final int MAX_PAIRS = 5;
+
+	// the radix of each pair: field (A-R), square (0-9), subsquare (A-X), extended square (0-9), extended subsquare (A-X)
+	private static final int[] RADIX = {18, 10, 24, 10, 24};
+
+	// number of cells along one axis for a locator of 0..5 pairs
+	private static final int[] CELLS_PER_AXIS = {1, 18, 180, 4320, 43200, 1036800};
+
+	// size of a cell in degrees for a locator of 0..5 pairs
+	private static final double[] CELL_HEIGHT = new double[MAX_PAIRS + 1];
+	private static final double[] CELL_WIDTH = new double[MAX_PAIRS + 1];
+
+	static
+	{
+		for (int pairs = 0; pairs <= MAX_PAIRS; pairs++)
+		{
+			CELL_HEIGHT[pairs] = 180.0 / CELLS_PER_AXIS[pairs];
+			CELL_WIDTH[pairs] = 360.0 / CELLS_PER_AXIS[pairs];
+		}
+	}
+
+	private static final long INDEX_MASK = 0xFFFFFFFL;
+
+	private LocatorCode()
+	{
+	}
+
+	public static long pack(int pairs, int longitudeIndex, int latitudeIndex)
+	{
+		return ((long)pairs << 56) | ((long)longitudeIndex << 28) | (long)latitudeIndex;
+	}
+
+	public static boolean isValid(long code)
+	{
+		if (code < 0)
+			return false;
+
+		int pairs = pairs(code);
+		if (pairs < MIN_PAIRS || pairs > MAX_PAIRS)
+			return false;
+
+		return longitudeIndex(code) < CELLS_PER_AXIS[pairs] && latitudeIndex(code) < CELLS_PER_AXIS[pairs];
+	}
+
+	public static int pairs(long code)
+	{
+		return (int)(code >>> 56);
+	}
+
+	//
+	// number of characters of the locator this code represents
+	//
+	public static int length(long code)
+	{
+		return pairs(code) * 2;
+	}
+
+	public static int longitudeIndex(long code)
+	{
+		return (int)((code >>> 28) & INDEX_MASK);
+	}
+
+	public static int latitudeIndex(long code)
+	{
+		return (int)(code & INDEX_MASK);
+	}
+
+	public static int cellsPerAxis(int pairs)
+	{
+		return CELLS_PER_AXIS[pairs];
+	}
+
+	//
+	// reduces the precision of a code (e.g. 8 characters -> 4 characters), a code can only be truncated, never extended
+	//
+	public static long truncate(long code, int pairs)
+	{
+		int currentPairs = pairs(code);
+		if (pairs >= currentPairs)
+			return code;
+
+		int divisor = CELLS_PER_AXIS[currentPairs] / CELLS_PER_AXIS[pairs];
+		return pack(pairs, longitudeIndex(code) / divisor, latitudeIndex(code) / divisor);
+	}
+
+	//
+	// a dense integer id of the cell (0 .. cellsPerAxis^2-1) for locators of up to 8 characters.
+	// the ids of the 32400 squares (4 characters) are longitudeIndex*180 + latitudeIndex
+	//
+	public static int cellId(long code)
+	{
+		int pairs = pairs(code);
+		if (pairs > 4)
+			throw new IllegalArgumentException("cell ids are only available for locators of up to 8 characters");
+
+		return longitudeIndex(code) * CELLS_PER_AXIS[pairs] + latitudeIndex(code);
+	}
+
+	public static long fromCellId(int cellId, int pairs)
+	{
+		int cells = CELLS_PER_AXIS[pairs];
+		return pack(pairs, cellId / cells, cellId % cells);
+	}
+
+	//
+	// the size of a cell (in degrees) for a locator of the given number of pairs
+	//
+	public static double cellHeight(int pairs)
+	{
+		return CELL_HEIGHT[pairs];
+	}
+
+	public static double cellWidth(int pairs)
+	{
+		return CELL_WIDTH[pairs];
+	}
+
+	//
+	// the edges of the cell. the south/west edges belong to the cell, the north/east ones to the next cell
+	// (except at 90N and 180E)
+	//
+	public static double southLatitude(long code)
+	{
+		return latitudeIndex(code) * 180.0 / CELLS_PER_AXIS[pairs(code)] - 90.0;
+	}
+
+	public static double northLatitude(long code)
+	{
+		return (latitudeIndex(code) + 1) * 180.0 / CELLS_PER_AXIS[pairs(code)] - 90.0;
+	}
+
+	public static double westLongitude(long code)
+	{
+		return longitudeIndex(code) * 360.0 / CELLS_PER_AXIS[pairs(code)] - 180.0;
+	}
+
+	public static double eastLongitude(long code)
+	{
+		return (longitudeIndex(code) + 1) * 360.0 / CELLS_PER_AXIS[pairs(code)] - 180.0;
+	}
+
+	public static double centreLatitude(long code)
+	{
+		return southLatitude(code) + CELL_HEIGHT[pairs(code)] / 2.0;
+	}
+
+	public static double centreLongitude(long code)
+	{
+		return westLongitude(code) + CELL_WIDTH[pairs(code)] / 2.0;
+	}
+
+	//
+	// writes south, west, north, east (in this order) in bounds starting at offset
+	//
+	public static void boundsOf(long code, double[] bounds, int offset)
+	{
+		int cells = CELLS_PER_AXIS[pairs(code)];
+		int latitudeIndex = latitudeIndex(code);
+		int longitudeIndex = longitudeIndex(code);
+
+		bounds[offset] = latitudeIndex * 180.0 / cells - 90.0;
+		bounds[offset + 1] = longitudeIndex * 360.0 / cells - 180.0;
+		bounds[offset + 2] = (latitudeIndex + 1) * 180.0 / cells - 90.0;
+		bounds[offset + 3] = (longitudeIndex + 1) * 360.0 / cells - 180.0;
+	}
+
+	//
+	// the character at position (0 .. length-1) of the locator
+	//
+	public static char charAt(long code, int position)
+	{
+		int pairs = pairs(code);
+		int pair = position >> 1;
+		int index = (position & 1) == 0 ? longitudeIndex(code) : latitudeIndex(code);
+		int divisor = CELLS_PER_AXIS[pairs] / CELLS_PER_AXIS[pair + 1];
+
+		return digitChar(pair, (index / divisor) % RADIX[pair]);
+	}
+
+	//
+	// writes the locator characters in dst starting at offset. returns the number of characters written
+	//
+	public static int toChars(long code, char[] dst, int offset)
+	{
+		int length = length(code);
+		for (int i = 0; i < length; i++)
+			dst[offset + i] = charAt(code, i);
+
+		return length;
+	}
+
+	public static void appendTo(long code, StringBuilder sb)
+	{
+		int length = length(code);
+		for (int i = 0; i < length; i++)
+			sb.append(charAt(code, i));
+	}
+
+	public static void putTo(long code, CharBuffer dst)
+	{
+		int length = length(code);
+		for (int i = 0; i < length; i++)
+			dst.put(charAt(code, i));
+	}
+
+	public static String toString(long code)
+	{
+		if (!isValid(code))
+			return "INVALID";
+
+		char[] chars = new char[length(code)];
+		toChars(code, chars, 0);
+		return new String(chars);
+	}
+
+	static char digitChar(int pair, int digit)
+	{
+		// even pairs (field, subsquare, extended subsquare) are letters, odd pairs are numbers
+		if ((pair & 1) == 0)
+			return (char)('A' + digit);
+		else
+			return (char)('0' + digit);
+	}
+
+	static int radix(int pair)
+	{
+		return RADIX[pair];
+	}
+
+}
@@ -0,0 +1,139 @@
+//
+// a grid locator -> coordinates decoder. parses locators of 2 to 10 characters
+// into packed codes (see LocatorCode), which then give the corners, centre and
+// bounds of the cell. no regular expressions or substrings are used, any
+// CharSequence (or a slice of it) can be decoded.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.locator;
+
+import sv1djg.hamutils.metrics.Metrics;
+import sv1djg.hamutils.metrics.Operation;
+import sv1djg.hamutils.metrics.ValidationFailure;
+
+public final class LocatorDecoder
+{
+
+	private LocatorDecoder()
+	{
+	}
+
+	//
+	// decodes an upper case locator ("KM18WB03"), returns LocatorCode.INVALID if it is not a valid locator
+	//
+	public static long decode(CharSequence locator)
+	{
+		return decode(locator, 0, locator.length(), false);
+	}
+
+	//
+	// decodes a locator, in lenient mode lower case letters are accepted too ("km18wb", "KM18wb")
+	//
+	public static long decode(CharSequence locator, boolean lenient)
+	{
+		return decode(locator, 0, locator.length(), lenient);
+	}
+
+	//
+	// decodes the characters start .. end-1 of text, returns LocatorCode.INVALID if they are not a valid locator
+	//
+	public static long decode(CharSequence text, int start, int end, boolean lenient)
+	{
+		if (!Metrics.ENABLED)
+			return parse(text, start, end, lenient);
+
+		long startTime = Metrics.start();
+		long code = parse(text, start, end, lenient);
+		if (code == LocatorCode.INVALID)
+			Metrics.validationFailure(ValidationFailure.INVALID_LOCATOR);
+		else
+			Metrics.record(Operation.LOCATOR_DECODE, startTime);
+
+		return code;
+	}
+
+	private static long parse(CharSequence text, int start, int end, boolean lenient)
+	{
+		int length = end - start;
+		if (length < LocatorCode.MIN_PAIRS * 2 || length > LocatorCode.MAX_PAIRS * 2 || (length & 1) != 0)
+			return LocatorCode.INVALID;
+
+		int pairs = length / 2;
+		int longitudeIndex = 0;
+		int latitudeIndex = 0;
+
+		for (int pair = 0; pair < pairs; pair++)
+		{
+			int radix = LocatorCode.radix(pair);
+			int longitudeDigit = digitOf(pair, text.charAt(start + pair * 2), lenient);
+			int latitudeDigit = digitOf(pair, text.charAt(start + pair * 2 + 1), lenient);
+
+			if (longitudeDigit < 0 || longitudeDigit >= radix || latitudeDigit < 0 || latitudeDigit >= radix)
+				return LocatorCode.INVALID;
+
+			longitudeIndex = longitudeIndex * radix + longitudeDigit;
+			latitudeIndex = latitudeIndex * radix + latitudeDigit;
+		}
+
+		return LocatorCode.pack(pairs, longitudeIndex, latitudeIndex);
+	}
+
+	//
+	// decodes a locator and writes south, west, north, east of its cell in bounds starting at offset.
+	// returns false (and writes nothing) if it is not a valid locator
+	//
+	public static boolean decodeBounds(CharSequence text, int start, int end, boolean lenient, double[] bounds, int offset)
+	{
+		long code = decode(text, start, end, lenient);
+		if (code == LocatorCode.INVALID)
+			return false;
+
+		LocatorCode.boundsOf(code, bounds, offset);
+		return true;
+	}
+
+	//
+	// decodes a locator and writes the latitude and longitude of the centre of its cell in coordinates starting at offset.
+	// returns false (and writes nothing) if it is not a valid locator
+	//
+	public static boolean decodeCentre(CharSequence text, int start, int end, boolean lenient, double[] coordinates, int offset)
+	{
+		long code = decode(text, start, end, lenient);
+		if (code == LocatorCode.INVALID)
+			return false;
+
+		coordinates[offset] = LocatorCode.centreLatitude(code);
+		coordinates[offset + 1] = LocatorCode.centreLongitude(code);
+		return true;
+	}
+
+	private static int digitOf(int pair, char c, boolean lenient)
+	{
+		// even pairs (field, subsquare, extended subsquare) are letters, odd pairs are numbers
+		if ((pair & 1) != 0)
+			return c >= '0' && c <= '9' ? c - '0' : -1;
+
+		if (c >= 'A' && c <= 'Z')
+			return c - 'A';
+
+		if (lenient && c >= 'a' && c <= 'z')
+			return c - 'a';
+
+		return -1;
+	}
+
+}
@@ -0,0 +1,250 @@
+//
+// a static, allocation free coordinates -> grid locator encoder.
+// it produces exactly the same locators as GridLocator but writes them
+// in caller supplied buffers or returns them as packed codes (see LocatorCode)
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.locator;
+
+import java.nio.CharBuffer;
+
+import sv1djg.hamutils.metrics.Metrics;
+import sv1djg.hamutils.metrics.Operation;
+import sv1djg.hamutils.metrics.ValidationFailure;
+
+public final class LocatorEncoder
+{
+
+	// the length of the locator GridLocator produces
+	public static final int DEFAULT_LENGTH = 8;
+
+	// the results of validate()
+	public static final byte OK = 0;
+	public static final byte LATITUDE_OUT_OF_RANGE = 1;
+	public static final byte LONGITUDE_OUT_OF_RANGE = 2;
+	public static final byte NOT_A_NUMBER = 3;
+
+	private LocatorEncoder()
+	{
+	}
+
+	//
+	// checks the coordinates without throwing, NaN is never valid
+	//
+	public static boolean isValid(double latitude, double longitude)
+	{
+		return latitude >= -90.0 && latitude <= 90.0 && longitude >= -180.0 && longitude <= 180.0;
+	}
+
+	//
+	// tells what is wrong with the coordinates (OK if nothing), without throwing
+	//
+	public static byte validate(double latitude, double longitude)
+	{
+		if (Double.isNaN(latitude) || Double.isNaN(longitude))
+			return NOT_A_NUMBER;
+		if (latitude < -90.0 || latitude > 90.0)
+			return LATITUDE_OUT_OF_RANGE;
+		if (longitude < -180.0 || longitude > 180.0)
+			return LONGITUDE_OUT_OF_RANGE;
+		return OK;
+	}
+
+	//
+	// encodes to an 8 character locator (the same as GridLocator.getLocator()), returns LocatorCode.INVALID for bad coordinates
+	//
+	public static long encode(double latitude, double longitude)
+	{
+		return encode(latitude, longitude, DEFAULT_LENGTH);
+	}
+
+	//
+	// encodes to a locator of 2,4,6,8 or 10 characters, returns LocatorCode.INVALID for bad coordinates
+	//
+	public static long encode(double latitude, double longitude, int length)
+	{
+		int pairs = pairsOf(length);
+		long start = Metrics.start();
+
+		if (!isValid(latitude, longitude))
+		{
+			if (Metrics.ENABLED)
+				recordFailure(validate(latitude, longitude));
+			return LocatorCode.INVALID;
+		}
+
+		long code = encodeUnchecked(latitude, longitude, pairs);
+		if (Metrics.ENABLED)
+			Metrics.record(Operation.LOCATOR_ENCODE, start);
+
+		return code;
+	}
+
+	//
+	// counts the reason of a rejected conversion in the metrics
+	//
+	static void recordFailure(byte status)
+	{
+		switch (status)
+		{
+			case NOT_A_NUMBER:
+				Metrics.validationFailure(ValidationFailure.NOT_A_NUMBER);
+				break;
+			case LATITUDE_OUT_OF_RANGE:
+				Metrics.validationFailure(ValidationFailure.LATITUDE_OUT_OF_RANGE);
+				break;
+			case LONGITUDE_OUT_OF_RANGE:
+				Metrics.validationFailure(ValidationFailure.LONGITUDE_OUT_OF_RANGE);
+				break;
+			default:
+				break;
+		}
+	}
+
+	//
+	// writes the locator in dst starting at offset, returns the number of characters written (0 for bad coordinates)
+	//
+	public static int encode(double latitude, double longitude, int length, char[] dst, int offset)
+	{
+		long code = encode(latitude, longitude, length);
+		if (code == LocatorCode.INVALID)
+			return 0;
+
+		return LocatorCode.toChars(code, dst, offset);
+	}
+
+	//
+	// appends the locator to sb, returns false (and appends nothing) for bad coordinates
+	//
+	public static boolean encode(double latitude, double longitude, int length, StringBuilder sb)
+	{
+		long code = encode(latitude, longitude, length);
+		if (code == LocatorCode.INVALID)
+			return false;
+
+		LocatorCode.appendTo(code, sb);
+		return true;
+	}
+
+	//
+	// puts the locator in dst at its current position, returns false (and puts nothing) for bad coordinates
+	//
+	public static boolean encode(double latitude, double longitude, int length, CharBuffer dst)
+	{
+		long code = encode(latitude, longitude, length);
+		if (code == LocatorCode.INVALID)
+			return false;
+
+		LocatorCode.putTo(code, dst);
+		return true;
+	}
+
+	//
+	// the conversion itself, the coordinates are not checked.
+	// the arithmetic is kept step by step the same as the original GridLocator conversion
+	// so both give the same digits for the same input.
+	//
+	static long encodeUnchecked(double latitude, double longitude, int pairs)
+	{
+		// normalise lon to south and lat to antimeridian of greenwich (this normalisation gives the Prime Meridian a false easting of 180 degrees
+		//and the equator a false northing of 90 degrees.)
+
+		double normalisedLatitude  = latitude + 90.0;
+		double normalisedLongitude = longitude + 180.0;
+
+		//
+		// the first pair (the field), 18 zones - A to R
+
+		int latitudeField = (int)(normalisedLatitude / 10.0);
+		int longitudeField = (int)(normalisedLongitude / 20.0);
+
+		int latitudeIndex = latitudeField;
+		int longitudeIndex = longitudeField;
+
+		if (pairs > 1)
+		{
+			//
+			// the second pair (the square), 10 zones - 0 to 9
+
+			int latitudeSquare = (int)(normalisedLatitude - (double)(latitudeField * 10.0));
+			int longitudeSquare = (int)((normalisedLongitude - (double)(longitudeField *  20.0)) /2 );
+
+			latitudeIndex = latitudeIndex * 10 + latitudeSquare;
+			longitudeIndex = longitudeIndex * 10 + longitudeSquare;
+
+			if (pairs > 2)
+			{
+				//
+				// the third pair (the sub field), 24 zones - A to X
+
+				double latitudeMinutes = (normalisedLatitude - (double)(latitudeField * 10.0) - (double)latitudeSquare)*60.0;
+				double longitudeMinutes = (normalisedLongitude - (double)(longitudeField *  20.0) - (double)(longitudeSquare *2))*60.0;
+
+				int latitudeSubField = (int)(latitudeMinutes / 2.5);
+				int longitudSubField = (int)(longitudeMinutes / 5.0);
+
+				latitudeIndex = latitudeIndex * 24 + latitudeSubField;
+				longitudeIndex = longitudeIndex * 24 + longitudSubField;
+
+				if (pairs > 3)
+				{
+					//
+					// the fourth pair (the sub square), 10 zones - 0 to 9
+
+					double latitudeSeconds = (latitudeMinutes - (double)(latitudeSubField * 2.5)) * 60.0;
+					double longitudeSeconds = (longitudeMinutes - (double)(longitudSubField * 5.0)) * 60.0;
+
+					int latitudeSubSquare = (int)(latitudeSeconds / 15.0);
+					int longitudSubSquare = (int)(longitudeSeconds / 30.0);
+
+					latitudeIndex = latitudeIndex * 10 + latitudeSubSquare;
+					longitudeIndex = longitudeIndex * 10 + longitudSubSquare;
+
+					if (pairs > 4)
+					{
+						//
+						// the fifth pair (the extended sub field), 24 zones - A to X
+
+						int latitudeExtendedSubField = (int)((latitudeSeconds - (double)(latitudeSubSquare * 15.0)) / 0.625);
+						int longitudeExtendedSubField = (int)((longitudeSeconds - (double)(longitudSubSquare * 30.0)) / 1.25);
+
+						latitudeIndex = latitudeIndex * 24 + latitudeExtendedSubField;
+						longitudeIndex = longitudeIndex * 24 + longitudeExtendedSubField;
+					}
+				}
+			}
+		}
+
+		// latitude 90 and longitude 180 are the north and east edges of the last cell, not the start of a 19th field
+		int lastCell = LocatorCode.cellsPerAxis(pairs) - 1;
+		if (latitudeIndex > lastCell)
+			latitudeIndex = lastCell;
+		if (longitudeIndex > lastCell)
+			longitudeIndex = lastCell;
+
+		return LocatorCode.pack(pairs, longitudeIndex, latitudeIndex);
+	}
+
+	static int pairsOf(int length)
+	{
+		if (length < LocatorCode.MIN_PAIRS * 2 || length > LocatorCode.MAX_PAIRS * 2 || (length & 1) != 0)
+			throw new IllegalArgumentException("locator length must be 2, 4, 6, 8 or 10 characters");
+
+		return length / 2;
+	}
+
+}
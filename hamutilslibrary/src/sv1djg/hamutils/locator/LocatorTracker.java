@@ -0,0 +1,211 @@
+//
+// follows the locator of a moving station (a rover, an APRS tracker, a
+// balloon) fix after fix. it keeps the bounds of the current cell, so a fix
+// that stays in the cell costs a few comparisons and the locator is only
+// encoded again when the station left it. square and subsquare changes are
+// reported to a listener. nothing is allocated per fix.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.locator;
+
+public final class LocatorTracker
+{
+
+	//
+	// receives the cell changes of one or more trackers. on the first fix previous is LocatorCode.INVALID
+	//
+	public interface Listener
+	{
+		void squareChanged(int id, long previous, long square);
+
+		// only called by trackers of 6 or more characters
+		void subsquareChanged(int id, long previous, long subsquare);
+	}
+
+	private static final int SQUARE_PAIRS = 2;
+	private static final int SUBSQUARE_PAIRS = 3;
+
+	// the bounds are kept this far inside the cell, a fix closer to an edge is encoded again so the
+	// result is always the same as the encoder's (its arithmetic is not exact on the edges)
+	private static final double EDGE = 0.000000001;
+
+	private final int _id;
+	private final int _pairs;
+	private final Listener _listener;
+
+	private long _code = LocatorCode.INVALID;
+	private String _locator;
+
+	// empty until the first fix
+	private double _south = Double.POSITIVE_INFINITY;
+	private double _north = Double.NEGATIVE_INFINITY;
+	private double _west = Double.POSITIVE_INFINITY;
+	private double _east = Double.NEGATIVE_INFINITY;
+
+	private double _latitude = Double.NaN;
+	private double _longitude = Double.NaN;
+
+	private long _fixes;
+	private long _changes;
+	private long _rejected;
+
+	//
+	// an 8 character locator (the same as GridLocator.getLocator()), without a listener
+	//
+	public LocatorTracker()
+	{
+		this(0, LocatorEncoder.DEFAULT_LENGTH, null);
+	}
+
+	//
+	// id is passed to the listener (which can be shared by any number of trackers, or null),
+	// locatorLength is the length (4..10) of the locator followed
+	//
+	public LocatorTracker(int id, int locatorLength, Listener listener)
+	{
+		if (locatorLength < SQUARE_PAIRS * 2)
+			throw new IllegalArgumentException("a tracker follows locators of 4 or more characters");
+
+		_id = id;
+		_pairs = LocatorEncoder.pairsOf(locatorLength);
+		_listener = listener;
+	}
+
+	//
+	// moves the station, returns true when it left its cell (or this is its first fix).
+	// a fix with bad coordinates is counted and ignored
+	//
+	public boolean update(double latitude, double longitude)
+	{
+		// false for NaN too
+		if (latitude > _south && latitude < _north && longitude > _west && longitude < _east)
+		{
+			_latitude = latitude;
+			_longitude = longitude;
+			_fixes++;
+			return false;
+		}
+
+		if (!LocatorEncoder.isValid(latitude, longitude))
+		{
+			_rejected++;
+			return false;
+		}
+
+		_latitude = latitude;
+		_longitude = longitude;
+		_fixes++;
+
+		long code = LocatorEncoder.encodeUnchecked(latitude, longitude, _pairs);
+		if (code == _code)
+			return false;
+
+		long previous = _code;
+		enter(code);
+		_changes++;
+
+		if (_listener != null)
+		{
+			long square = LocatorCode.truncate(code, SQUARE_PAIRS);
+			long previousSquare = previous == LocatorCode.INVALID ? previous : LocatorCode.truncate(previous, SQUARE_PAIRS);
+			if (square != previousSquare)
+				_listener.squareChanged(_id, previousSquare, square);
+
+			if (_pairs >= SUBSQUARE_PAIRS)
+			{
+				long subsquare = LocatorCode.truncate(code, SUBSQUARE_PAIRS);
+				long previousSubsquare = previous == LocatorCode.INVALID ? previous : LocatorCode.truncate(previous, SUBSQUARE_PAIRS);
+				if (subsquare != previousSubsquare)
+					_listener.subsquareChanged(_id, previousSubsquare, subsquare);
+			}
+		}
+
+		return true;
+	}
+
+	public int getId()
+	{
+		return _id;
+	}
+
+	public int getLocatorLength()
+	{
+		return _pairs * 2;
+	}
+
+	//
+	// the packed code of the current cell, LocatorCode.INVALID before the first fix
+	//
+	public long getLocatorCode()
+	{
+		return _code;
+	}
+
+	//
+	// the locator of the current cell, null before the first fix. the string is only built
+	// once per cell
+	//
+	public String getLocator()
+	{
+		if (_locator == null && _code != LocatorCode.INVALID)
+			_locator = LocatorCode.toString(_code);
+		return _locator;
+	}
+
+	//
+	// the last accepted fix, NaN before the first one
+	//
+	public double getLatitude()
+	{
+		return _latitude;
+	}
+
+	public double getLongitude()
+	{
+		return _longitude;
+	}
+
+	//
+	// the number of accepted fixes, how many of them moved the station to another cell, and the rejected ones
+	//
+	public long getFixes()
+	{
+		return _fixes;
+	}
+
+	public long getCellChanges()
+	{
+		return _changes;
+	}
+
+	public long getRejectedFixes()
+	{
+		return _rejected;
+	}
+
+	private void enter(long code)
+	{
+		_code = code;
+		_locator = null;
+		_south = LocatorCode.southLatitude(code) + EDGE;
+		_north = LocatorCode.northLatitude(code) - EDGE;
+		_west = LocatorCode.westLongitude(code) + EDGE;
+		_east = LocatorCode.eastLongitude(code) - EDGE;
+	}
+
+}
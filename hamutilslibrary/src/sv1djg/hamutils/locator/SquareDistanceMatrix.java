@@ -0,0 +1,246 @@
+//
+// the distances and bearings between the centres of all the 32400 squares
+// (4 character locators), calculated once and kept in a file that is memory
+// mapped at startup. a lookup is two array reads, no trigonometry.
+//
+// the distance and the bearing only depend on the latitude rows of the two
+// squares and on how many columns apart they are, so the table holds 180 x 180
+// rows x 91 column differences (a difference of more than 90 columns is the
+// same as a smaller one the other way round, with the bearing mirrored).
+// distances are stored in units of DISTANCE_UNIT_KM and bearings in units of
+// BEARING_UNIT_DEGREES, both as unsigned 16 bit numbers (about 11 MB).
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.locator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import sv1djg.hamutils.distances.Observer;
+
+public final class SquareDistanceMatrix
+{
+
+	// the largest rounding error is half of each unit
+	public static final double DISTANCE_UNIT_KM = 0.32;
+	public static final double BEARING_UNIT_DEGREES = 360.0 / 65536;
+
+	private static final int SQUARE_PAIRS = 2;
+	private static final int ROWS = 180;
+	private static final int COLUMNS = 180;
+	private static final int DIFFERENCES = COLUMNS / 2 + 1;
+
+	private static final int MAGIC = 0x53514D31;	// "SQM1"
+	private static final int HEADER_SIZE = 16;
+	private static final int ENTRIES = ROWS * ROWS * DIFFERENCES;
+	private static final int DISTANCES = HEADER_SIZE;
+	private static final int BEARINGS = DISTANCES + ENTRIES * 2;
+	private static final int FILE_SIZE = BEARINGS + ENTRIES * 2;
+
+	private final ByteBuffer _table;
+
+	private SquareDistanceMatrix(ByteBuffer table)
+	{
+		_table = table;
+	}
+
+	//
+	// calculates the table in memory (about a second)
+	//
+	public static SquareDistanceMatrix generate()
+	{
+		return new SquareDistanceMatrix(calculate());
+	}
+
+	//
+	// calculates the table and writes it to the file, which is then mapped
+	//
+	public static SquareDistanceMatrix generate(File file) throws IOException
+	{
+		ByteBuffer table = calculate();
+
+		// written next to the file and renamed, so a reader never maps half a table
+		File partial = new File(file.getPath() + ".tmp");
+		RandomAccessFile raf = new RandomAccessFile(partial, "rw");
+		try
+		{
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			while (table.hasRemaining())
+				channel.write(table);
+			channel.force(false);
+		}
+		finally
+		{
+			raf.close();
+		}
+
+		if (!partial.renameTo(file))
+		{
+			// renameTo does not replace an existing file on every platform
+			if (!file.delete() || !partial.renameTo(file))
+			{
+				partial.delete();
+				throw new IOException("could not write " + file);
+			}
+		}
+
+		return map(file);
+	}
+
+	//
+	// maps a file written by generate(file)
+	//
+	public static SquareDistanceMatrix map(File file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = raf.getChannel();
+			if (channel.size() != FILE_SIZE)
+				throw new IOException(file + " is not a square distance matrix");
+
+			// the mapping stays valid after the file is closed
+			ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_SIZE);
+			if (table.getInt(0) != MAGIC || table.getInt(4) != ROWS || table.getInt(8) != DIFFERENCES
+					|| table.getInt(12) != (int)Math.round(DISTANCE_UNIT_KM * 1000))
+				throw new IOException(file + " is not a square distance matrix");
+
+			return new SquareDistanceMatrix(table);
+		}
+		finally
+		{
+			raf.close();
+		}
+	}
+
+	//
+	// maps the file, or generates it first if it is missing or not a valid table
+	//
+	public static SquareDistanceMatrix openOrGenerate(File file) throws IOException
+	{
+		if (file.isFile())
+		{
+			try
+			{
+				return map(file);
+			}
+			catch (IOException e)
+			{
+				// written by another version or damaged, calculate it again
+			}
+		}
+
+		return generate(file);
+	}
+
+	//
+	// the distance in Km between the centres of the squares of the two codes (of 4 or more characters),
+	// NaN if a code is invalid or shorter
+	//
+	public double distance(long from, long to)
+	{
+		int entry = entry(from, to);
+		if (entry < 0)
+			return Double.NaN;
+
+		return (_table.getShort(DISTANCES + (entry >>> 1) * 2) & 0xFFFF) * DISTANCE_UNIT_KM;
+	}
+
+	//
+	// the bearing in degrees of the centre of the to square from the centre of the from square,
+	// NaN if a code is invalid or shorter than 4 characters
+	//
+	public double bearing(long from, long to)
+	{
+		int entry = entry(from, to);
+		if (entry < 0)
+			return Double.NaN;
+
+		int bearing = _table.getShort(BEARINGS + (entry >>> 1) * 2) & 0xFFFF;
+		// the other way round in longitude the bearing is mirrored
+		if ((entry & 1) != 0)
+			bearing = (65536 - bearing) & 0xFFFF;
+
+		return bearing * BEARING_UNIT_DEGREES;
+	}
+
+	//
+	// the index of the entry of the two squares shifted left by one, the lowest bit set when the bearing is mirrored
+	//
+	private static int entry(long from, long to)
+	{
+		if (!LocatorCode.isValid(from) || !LocatorCode.isValid(to)
+				|| LocatorCode.pairs(from) < SQUARE_PAIRS || LocatorCode.pairs(to) < SQUARE_PAIRS)
+			return -1;
+
+		from = LocatorCode.truncate(from, SQUARE_PAIRS);
+		to = LocatorCode.truncate(to, SQUARE_PAIRS);
+
+		int columns = LocatorCode.longitudeIndex(to) - LocatorCode.longitudeIndex(from);
+		if (columns < 0)
+			columns += COLUMNS;
+
+		int mirrored = 0;
+		if (columns >= DIFFERENCES)
+		{
+			columns = COLUMNS - columns;
+			mirrored = 1;
+		}
+
+		int index = (LocatorCode.latitudeIndex(from) * ROWS + LocatorCode.latitudeIndex(to)) * DIFFERENCES + columns;
+		return (index << 1) | mirrored;
+	}
+
+	private static ByteBuffer calculate()
+	{
+		ByteBuffer table = ByteBuffer.allocate(FILE_SIZE);
+		table.putInt(0, MAGIC);
+		table.putInt(4, ROWS);
+		table.putInt(8, DIFFERENCES);
+		table.putInt(12, (int)Math.round(DISTANCE_UNIT_KM * 1000));
+
+		Observer.Path path = new Observer.Path();
+
+		for (int fromRow = 0; fromRow < ROWS; fromRow++)
+		{
+			// the squares of the first column, every other column is the same shifted in longitude
+			long from = LocatorCode.pack(SQUARE_PAIRS, 0, fromRow);
+			Observer observer = new Observer(LocatorCode.centreLatitude(from), LocatorCode.centreLongitude(from));
+
+			for (int toRow = 0; toRow < ROWS; toRow++)
+			{
+				for (int columns = 0; columns < DIFFERENCES; columns++)
+				{
+					long to = LocatorCode.pack(SQUARE_PAIRS, columns, toRow);
+					observer.pathTo(LocatorCode.centreLatitude(to), LocatorCode.centreLongitude(to), path);
+
+					int index = (fromRow * ROWS + toRow) * DIFFERENCES + columns;
+					table.putShort(DISTANCES + index * 2, (short)Math.round(path.getDistance() / DISTANCE_UNIT_KM));
+					table.putShort(BEARINGS + index * 2, (short)Math.round(path.getBearing() / BEARING_UNIT_DEGREES));
+				}
+			}
+		}
+
+		return table;
+	}
+
+}
@@ -0,0 +1,153 @@
+//
+// reads ADIF (.adi) logs: <NAME:length[:type]>value fields, a record ends at
+// <EOR> and everything before <EOH> is the header. the field values are the
+// bytes of the input, they are not copied.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.logs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class AdifReader extends LogReader
+{
+
+	// longer values are taken as a broken tag
+	private static final int MAX_FIELD_LENGTH = 1 << 24;
+
+	public AdifReader(InputStream stream)
+	{
+		this(stream, DEFAULT_BUFFER_SIZE);
+	}
+
+	public AdifReader(InputStream stream, int bufferSize)
+	{
+		super(ByteInput.of(stream, bufferSize));
+	}
+
+	//
+	// maps the whole file in memory (up to 2GB)
+	//
+	public AdifReader(File file) throws IOException
+	{
+		super(ByteInput.map(file));
+	}
+
+	int parse(boolean last)
+	{
+		ByteBuffer buffer = _input.buffer();
+		int limit = _input.limit();
+		int p = _position;
+
+		while (true)
+		{
+			while (p < limit && buffer.get(p) != '<')
+				p++;
+
+			int nameStart = p + 1;
+			int q = nameStart;
+			while (q < limit && buffer.get(q) != ':' && buffer.get(q) != '>' && buffer.get(q) != '<')
+				q++;
+
+			if (q >= limit)
+				return last ? END : NEED_MORE;
+
+			int nameEnd = q;
+			byte b = buffer.get(q);
+
+			if (b == '<')
+			{
+				// a stray '<' in the text
+				p = q;
+				continue;
+			}
+
+			if (b == '>')
+			{
+				p = q + 1;
+
+				if (isTag(buffer, nameStart, nameEnd, "EOR"))
+				{
+					_position = p;
+					return _record.getFieldCount() > 0 ? RECORD : SKIPPED;
+				}
+
+				if (isTag(buffer, nameStart, nameEnd, "EOH"))
+				{
+					// the header fields are not QSOs
+					_position = p;
+					return SKIPPED;
+				}
+
+				continue;
+			}
+
+			// the length and the optional type
+			q++;
+			int length = 0;
+			int digits = 0;
+			while (q < limit && buffer.get(q) >= '0' && buffer.get(q) <= '9' && length <= MAX_FIELD_LENGTH)
+			{
+				length = length * 10 + (buffer.get(q) - '0');
+				digits++;
+				q++;
+			}
+
+			if (q < limit && buffer.get(q) == ':')
+			{
+				q++;
+				while (q < limit && buffer.get(q) != '>' && buffer.get(q) != '<')
+					q++;
+			}
+
+			if (q >= limit)
+				return last ? END : NEED_MORE;
+
+			if (buffer.get(q) != '>' || digits == 0 || length > MAX_FIELD_LENGTH)
+			{
+				// not a field tag
+				p = q;
+				continue;
+			}
+
+			int valueStart = q + 1;
+			int valueEnd = valueStart + length;
+			if (valueEnd > limit)
+				return last ? END : NEED_MORE;
+
+			_record.addField(buffer, nameStart, nameEnd, valueStart, valueEnd);
+			p = valueEnd;
+		}
+	}
+
+	private static boolean isTag(ByteBuffer buffer, int start, int end, String tag)
+	{
+		if (end - start != tag.length())
+			return false;
+
+		for (int i = 0; i < tag.length(); i++)
+		{
+			if (Character.toUpperCase((char)buffer.get(start + i)) != tag.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,148 @@
+//
+// the bytes of a log file, read through a fixed buffer from an InputStream
+// or straight from a memory mapped file. the readers parse the bytes in place
+// and only ask for more when a record does not fit in what is loaded.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.logs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+final class ByteInput implements Closeable
+{
+
+	private final InputStream _stream;
+	private final RandomAccessFile _file;
+	private ByteBuffer _buffer;
+	private byte[] _array;
+	private boolean _eof;
+
+	private ByteInput(InputStream stream, int bufferSize)
+	{
+		_stream = stream;
+		_file = null;
+		_array = new byte[bufferSize];
+		_buffer = ByteBuffer.wrap(_array);
+		_buffer.limit(0);
+	}
+
+	private ByteInput(RandomAccessFile file, ByteBuffer mapped)
+	{
+		_stream = null;
+		_file = file;
+		_buffer = mapped;
+		_eof = true;
+	}
+
+	static ByteInput of(InputStream stream, int bufferSize)
+	{
+		if (bufferSize <= 0)
+			throw new IllegalArgumentException("the buffer size must be positive");
+		return new ByteInput(stream, bufferSize);
+	}
+
+	static ByteInput map(File file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("the file is too large to be mapped, read it as an InputStream instead");
+
+			return new ByteInput(raf, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		catch (IOException e)
+		{
+			raf.close();
+			throw e;
+		}
+	}
+
+	//
+	// the loaded bytes are 0..limit() of the buffer
+	//
+	ByteBuffer buffer()
+	{
+		return _buffer;
+	}
+
+	int limit()
+	{
+		return _buffer.limit();
+	}
+
+	byte get(int index)
+	{
+		return _buffer.get(index);
+	}
+
+	//
+	// drops the bytes before keepFrom, moves the rest to the start of the buffer and loads more after them.
+	// returns how far the kept bytes moved (their indexes must be lowered by it), or -1 when there is nothing more to read
+	//
+	int refill(int keepFrom) throws IOException
+	{
+		if (_eof)
+			return -1;
+
+		int kept = _buffer.limit() - keepFrom;
+
+		if (keepFrom == 0 && kept == _array.length)
+		{
+			// a single record larger than the buffer, the buffer grows to hold it
+			byte[] larger = new byte[_array.length * 2];
+			System.arraycopy(_array, 0, larger, 0, kept);
+			_array = larger;
+		}
+		else
+		{
+			System.arraycopy(_array, keepFrom, _array, 0, kept);
+		}
+
+		int read = _stream.read(_array, kept, _array.length - kept);
+		if (read < 0)
+		{
+			_eof = true;
+			read = 0;
+		}
+
+		_buffer = ByteBuffer.wrap(_array);
+		_buffer.limit(kept + read);
+
+		if (read == 0 && _eof && keepFrom == 0)
+			return -1;
+
+		return keepFrom;
+	}
+
+	public void close() throws IOException
+	{
+		if (_stream != null)
+			_stream.close();
+		if (_file != null)
+			_file.close();
+	}
+
+}
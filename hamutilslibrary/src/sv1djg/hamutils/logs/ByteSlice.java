@@ -0,0 +1,112 @@
+//
+// a part of a byte buffer seen as characters (ascii / iso-8859-1), so the
+// fields of a log are handed out without copying or decoding them.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.logs;
+
+import java.nio.ByteBuffer;
+
+final class ByteSlice implements CharSequence
+{
+
+	private ByteBuffer _buffer;
+	private int _start;
+	private int _end;
+
+	ByteSlice()
+	{
+	}
+
+	ByteSlice(String text)
+	{
+		byte[] bytes = new byte[text.length()];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = (byte)text.charAt(i);
+		set(ByteBuffer.wrap(bytes), 0, bytes.length);
+	}
+
+	void set(ByteBuffer buffer, int start, int end)
+	{
+		_buffer = buffer;
+		_start = start;
+		_end = end;
+	}
+
+	ByteBuffer buffer()
+	{
+		return _buffer;
+	}
+
+	int start()
+	{
+		return _start;
+	}
+
+	int end()
+	{
+		return _end;
+	}
+
+	public int length()
+	{
+		return _end - _start;
+	}
+
+	public char charAt(int index)
+	{
+		if (index < 0 || index >= _end - _start)
+			throw new IndexOutOfBoundsException("index " + index + " of " + (_end - _start));
+		return (char)(_buffer.get(_start + index) & 0xFF);
+	}
+
+	public CharSequence subSequence(int start, int end)
+	{
+		if (start < 0 || end > _end - _start || start > end)
+			throw new IndexOutOfBoundsException("range " + start + ".." + end + " of " + (_end - _start));
+
+		ByteSlice slice = new ByteSlice();
+		slice.set(_buffer, _start + start, _start + end);
+		return slice;
+	}
+
+	boolean equalsIgnoreCase(String text)
+	{
+		int length = _end - _start;
+		if (text.length() != length)
+			return false;
+
+		for (int i = 0; i < length; i++)
+		{
+			char c = (char)(_buffer.get(_start + i) & 0xFF);
+			char t = text.charAt(i);
+			if (c != t && Character.toUpperCase(c) != Character.toUpperCase(t))
+				return false;
+		}
+		return true;
+	}
+
+	public String toString()
+	{
+		char[] chars = new char[_end - _start];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = (char)(_buffer.get(_start + i) & 0xFF);
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,233 @@
+//
+// reads Cabrillo logs. every QSO: line becomes a record with the adif names
+// FREQ, MODE, QSO_DATE, TIME_ON, STATION_CALLSIGN and CALL; the exchange
+// tokens are SENT and RCVD fields. the first exchange token of each side that
+// is a 4 to 10 character locator is also given as MY_GRIDSQUARE / GRIDSQUARE,
+// the GRID-LOCATOR: of the header is used when the sent exchange has none.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.logs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+
+public class CabrilloReader extends LogReader
+{
+
+	private static final ByteSlice FREQ = new ByteSlice("FREQ");
+	private static final ByteSlice MODE = new ByteSlice("MODE");
+	private static final ByteSlice QSO_DATE = new ByteSlice("QSO_DATE");
+	private static final ByteSlice TIME_ON = new ByteSlice("TIME_ON");
+	private static final ByteSlice STATION_CALLSIGN = new ByteSlice("STATION_CALLSIGN");
+	private static final ByteSlice CALL = new ByteSlice("CALL");
+	private static final ByteSlice SENT = new ByteSlice("SENT");
+	private static final ByteSlice RCVD = new ByteSlice("RCVD");
+	private static final ByteSlice GRIDSQUARE = new ByteSlice("GRIDSQUARE");
+	private static final ByteSlice MY_GRIDSQUARE = new ByteSlice("MY_GRIDSQUARE");
+
+	// freq mo date time call-sent
+	private static final int FIXED_TOKENS = 5;
+
+	private int[] _tokenStarts = new int[32];
+	private int[] _tokenEnds = new int[32];
+	private final ByteSlice _scratch = new ByteSlice();
+	private long _logLocator = LocatorCode.INVALID;
+
+	public CabrilloReader(InputStream stream)
+	{
+		this(stream, DEFAULT_BUFFER_SIZE);
+	}
+
+	public CabrilloReader(InputStream stream, int bufferSize)
+	{
+		super(ByteInput.of(stream, bufferSize));
+	}
+
+	//
+	// maps the whole file in memory (up to 2GB)
+	//
+	public CabrilloReader(File file) throws IOException
+	{
+		super(ByteInput.map(file));
+	}
+
+	int parse(boolean last)
+	{
+		ByteBuffer buffer = _input.buffer();
+		int limit = _input.limit();
+		int start = _position;
+
+		int end = start;
+		while (end < limit && buffer.get(end) != '\n')
+			end++;
+
+		int next;
+		if (end < limit)
+		{
+			next = end + 1;
+		}
+		else
+		{
+			if (!last)
+				return NEED_MORE;
+			if (start >= limit)
+				return END;
+			next = limit;
+		}
+
+		if (end > start && buffer.get(end - 1) == '\r')
+			end--;
+
+		_position = next;
+
+		int tokens = tokenize(buffer, start, end);
+		if (tokens == 0)
+			return SKIPPED;
+
+		if (isTag(buffer, 0, "QSO:"))
+			return parseQso(buffer, tokens) ? RECORD : SKIPPED;
+
+		if (isTag(buffer, 0, "GRID-LOCATOR:") && tokens > 1)
+			_logLocator = decodeLocator(buffer, 1);
+		else if (isTag(buffer, 0, "END-OF-LOG:"))
+			return END;
+
+		return SKIPPED;
+	}
+
+	private boolean parseQso(ByteBuffer buffer, int tokens)
+	{
+		// QSO: freq mo date time call-sent exch-sent.. call-rcvd exch-rcvd.. [t]
+		int exchange = tokens - 1 - FIXED_TOKENS;
+
+		// both exchanges have the same number of tokens, with call-rcvd the count is odd. an even count means there is a transmitter id at the end
+		if ((exchange & 1) == 0)
+			exchange--;
+		if (exchange < 1)
+			return false;
+
+		int first = 1;
+		int received = first + FIXED_TOKENS + exchange / 2;
+		int endOfLine = first + FIXED_TOKENS + exchange;
+
+		addToken(FREQ, buffer, first);
+		addToken(MODE, buffer, first + 1);
+		addToken(QSO_DATE, buffer, first + 2);
+		addToken(TIME_ON, buffer, first + 3);
+		addToken(STATION_CALLSIGN, buffer, first + 4);
+
+		int myGrid = -1;
+		for (int i = first + FIXED_TOKENS; i < received; i++)
+		{
+			addToken(SENT, buffer, i);
+			if (myGrid < 0 && decodeLocator(buffer, i) != LocatorCode.INVALID)
+				myGrid = i;
+		}
+
+		addToken(CALL, buffer, received);
+
+		int grid = -1;
+		for (int i = received + 1; i < endOfLine; i++)
+		{
+			addToken(RCVD, buffer, i);
+			if (grid < 0 && decodeLocator(buffer, i) != LocatorCode.INVALID)
+				grid = i;
+		}
+
+		if (myGrid >= 0)
+			addToken(MY_GRIDSQUARE, buffer, myGrid);
+		if (grid >= 0)
+			addToken(GRIDSQUARE, buffer, grid);
+
+		_record.setLogLocator(_logLocator);
+
+		return true;
+	}
+
+	private void addToken(ByteSlice name, ByteBuffer buffer, int token)
+	{
+		_record.addField(name, buffer, _tokenStarts[token], _tokenEnds[token]);
+	}
+
+	//
+	// the code of a token that is a locator of 4 or more characters, INVALID otherwise (signal reports, serials, sections..)
+	//
+	private long decodeLocator(ByteBuffer buffer, int token)
+	{
+		if (_tokenEnds[token] - _tokenStarts[token] < 4)
+			return LocatorCode.INVALID;
+
+		_scratch.set(buffer, _tokenStarts[token], _tokenEnds[token]);
+		return LocatorDecoder.decode(_scratch, true);
+	}
+
+	private int tokenize(ByteBuffer buffer, int start, int end)
+	{
+		int tokens = 0;
+		int p = start;
+
+		while (true)
+		{
+			while (p < end && isSpace(buffer.get(p)))
+				p++;
+			if (p >= end)
+				return tokens;
+
+			if (tokens == _tokenStarts.length)
+			{
+				int[] starts = new int[tokens * 2];
+				int[] ends = new int[tokens * 2];
+				System.arraycopy(_tokenStarts, 0, starts, 0, tokens);
+				System.arraycopy(_tokenEnds, 0, ends, 0, tokens);
+				_tokenStarts = starts;
+				_tokenEnds = ends;
+			}
+
+			_tokenStarts[tokens] = p;
+			while (p < end && !isSpace(buffer.get(p)))
+				p++;
+			_tokenEnds[tokens] = p;
+			tokens++;
+		}
+	}
+
+	private boolean isTag(ByteBuffer buffer, int token, String tag)
+	{
+		int start = _tokenStarts[token];
+		if (_tokenEnds[token] - start != tag.length())
+			return false;
+
+		for (int i = 0; i < tag.length(); i++)
+		{
+			if (Character.toUpperCase((char)buffer.get(start + i)) != tag.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isSpace(byte b)
+	{
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+}
@@ -0,0 +1,273 @@
+//
+// the streaming stage that annotates QSOs: for every record of a LogReader
+// it works out both stations (GRIDSQUARE / MY_GRIDSQUARE or LAT/LON and
+// MY_LAT/MY_LON, falling back to the locator of the log and then to the home
+// station), the distance and bearing between them, and hands the record to a
+// listener. nothing is kept between records, the rate is counted.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.logs;
+
+import java.io.IOException;
+
+import sv1djg.hamutils.distances.DistanceModel;
+import sv1djg.hamutils.distances.HaversineModel;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorDecoder;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class LogProcessor
+{
+
+	// the length of the locators worked out from coordinates
+	public static final int DERIVED_LOCATOR_LENGTH = 6;
+
+	public interface Listener
+	{
+		void qso(QsoRecord record);
+	}
+
+	private final double _homeLatitude;
+	private final double _homeLongitude;
+	private final DistanceModel _model;
+
+	private long _records;
+	private long _annotated;
+	private long _elapsedNanos;
+
+	//
+	// without a home station only the QSOs that say where my station was get a distance
+	//
+	public LogProcessor()
+	{
+		this(Double.NaN, Double.NaN);
+	}
+
+	public LogProcessor(double homeLatitude, double homeLongitude)
+	{
+		this(homeLatitude, homeLongitude, new HaversineModel());
+	}
+
+	public LogProcessor(double homeLatitude, double homeLongitude, DistanceModel model)
+	{
+		if (!Double.isNaN(homeLatitude) && !LocatorEncoder.isValid(homeLatitude, homeLongitude))
+			throw new IllegalArgumentException("invalid home coordinates " + homeLatitude + "," + homeLongitude);
+
+		_homeLatitude = homeLatitude;
+		_homeLongitude = homeLongitude;
+		_model = model;
+	}
+
+	//
+	// reads the whole log, annotating every QSO and passing it to the listener. returns the number of QSOs read.
+	// the reader is not closed
+	//
+	public long process(LogReader reader, Listener listener) throws IOException
+	{
+		long start = System.nanoTime();
+		long records = 0;
+
+		try
+		{
+			while (reader.next())
+			{
+				QsoRecord record = reader.getRecord();
+				annotate(record);
+				records++;
+
+				listener.qso(record);
+			}
+		}
+		finally
+		{
+			_records += records;
+			_elapsedNanos += System.nanoTime() - start;
+		}
+
+		return records;
+	}
+
+	//
+	// fills in the locators, coordinates, distance and bearing of the record from its fields
+	//
+	public void annotate(QsoRecord record)
+	{
+		double latitude = parseCoordinate(record.getField("LAT"), false);
+		double longitude = parseCoordinate(record.getField("LON"), true);
+		long locator = decodeLocator(record.getField("GRIDSQUARE"));
+
+		double myLatitude = parseCoordinate(record.getField("MY_LAT"), false);
+		double myLongitude = parseCoordinate(record.getField("MY_LON"), true);
+		long myLocator = decodeLocator(record.getField("MY_GRIDSQUARE"));
+
+		boolean myCoordinates = !Double.isNaN(myLatitude) && !Double.isNaN(myLongitude);
+
+		if (myLocator == LocatorCode.INVALID && !myCoordinates)
+			myLocator = record.getLogLocator();
+
+		if (myLocator == LocatorCode.INVALID && !myCoordinates && !Double.isNaN(_homeLatitude))
+		{
+			myLatitude = _homeLatitude;
+			myLongitude = _homeLongitude;
+		}
+
+		// the coordinates are more precise than a locator, a locator alone gives the centre of its cell
+		if (Double.isNaN(latitude) || Double.isNaN(longitude))
+		{
+			latitude = locator == LocatorCode.INVALID ? Double.NaN : LocatorCode.centreLatitude(locator);
+			longitude = locator == LocatorCode.INVALID ? Double.NaN : LocatorCode.centreLongitude(locator);
+		}
+		else if (locator == LocatorCode.INVALID)
+		{
+			locator = LocatorEncoder.encode(latitude, longitude, DERIVED_LOCATOR_LENGTH);
+		}
+
+		if (Double.isNaN(myLatitude) || Double.isNaN(myLongitude))
+		{
+			myLatitude = myLocator == LocatorCode.INVALID ? Double.NaN : LocatorCode.centreLatitude(myLocator);
+			myLongitude = myLocator == LocatorCode.INVALID ? Double.NaN : LocatorCode.centreLongitude(myLocator);
+		}
+		else if (myLocator == LocatorCode.INVALID)
+		{
+			myLocator = LocatorEncoder.encode(myLatitude, myLongitude, DERIVED_LOCATOR_LENGTH);
+		}
+
+		record.setLocation(locator, latitude, longitude, myLocator, myLatitude, myLongitude);
+
+		if (!Double.isNaN(latitude) && !Double.isNaN(myLatitude))
+		{
+			record.setPath(_model.distance(myLatitude, myLongitude, latitude, longitude),
+					_model.bearing(myLatitude, myLongitude, latitude, longitude));
+			_annotated++;
+		}
+		else
+		{
+			record.setPath(Double.NaN, Double.NaN);
+		}
+	}
+
+	//
+	// the counters of all the logs processed so far
+	//
+	public long getRecords()
+	{
+		return _records;
+	}
+
+	public long getAnnotated()
+	{
+		return _annotated;
+	}
+
+	public long getElapsedNanos()
+	{
+		return _elapsedNanos;
+	}
+
+	public double getRecordsPerSecond()
+	{
+		if (_elapsedNanos == 0)
+			return 0.0;
+		return _records * 1000000000.0 / _elapsedNanos;
+	}
+
+	private static long decodeLocator(CharSequence value)
+	{
+		if (value == null)
+			return LocatorCode.INVALID;
+
+		int start = 0;
+		int end = value.length();
+		while (start < end && value.charAt(start) == ' ')
+			start++;
+		while (end > start && value.charAt(end - 1) == ' ')
+			end--;
+
+		return LocatorDecoder.decode(value, start, end, true);
+	}
+
+	//
+	// an adif location, XDDD MM.MMM (X is N/S for latitudes, E/W for longitudes). NaN if it is missing or malformed
+	//
+	static double parseCoordinate(CharSequence value, boolean isLongitude)
+	{
+		if (value == null)
+			return Double.NaN;
+
+		int length = value.length();
+		int p = 0;
+		while (p < length && value.charAt(p) == ' ')
+			p++;
+		if (p >= length)
+			return Double.NaN;
+
+		char hemisphere = Character.toUpperCase(value.charAt(p++));
+		double sign;
+		if (hemisphere == (isLongitude ? 'E' : 'N'))
+			sign = 1.0;
+		else if (hemisphere == (isLongitude ? 'W' : 'S'))
+			sign = -1.0;
+		else
+			return Double.NaN;
+
+		int degrees = 0;
+		int digits = 0;
+		while (p < length && value.charAt(p) >= '0' && value.charAt(p) <= '9' && digits < 3)
+		{
+			degrees = degrees * 10 + (value.charAt(p++) - '0');
+			digits++;
+		}
+		if (digits == 0 || p >= length || value.charAt(p++) != ' ')
+			return Double.NaN;
+
+		long minutes = 0;
+		long scale = 1;
+		boolean fraction = false;
+		digits = 0;
+		while (p < length)
+		{
+			char c = value.charAt(p++);
+			if (c == '.' && !fraction)
+			{
+				fraction = true;
+			}
+			else if (c >= '0' && c <= '9' && digits < 15)
+			{
+				minutes = minutes * 10 + (c - '0');
+				digits++;
+				if (fraction)
+					scale *= 10;
+			}
+			else if (c == ' ')
+			{
+				break;
+			}
+			else
+			{
+				return Double.NaN;
+			}
+		}
+
+		double result = degrees + (double)minutes / scale / 60.0;
+		if (digits == 0 || (double)minutes / scale >= 60.0 || result > (isLongitude ? 180.0 : 90.0))
+			return Double.NaN;
+
+		return sign * result;
+	}
+
+}
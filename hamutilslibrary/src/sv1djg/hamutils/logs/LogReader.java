@@ -0,0 +1,111 @@
+//
+// the common part of the log readers: walks the input one QSO at a time,
+// reusing one QsoRecord, so a log of any size is read in the same memory
+// (the buffer only grows if a single record is larger than it).
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.logs;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public abstract class LogReader implements Closeable
+{
+
+	static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	// the results of parse()
+	static final int RECORD = 0;
+	static final int SKIPPED = 1;
+	static final int NEED_MORE = 2;
+	static final int END = 3;
+
+	final ByteInput _input;
+	final QsoRecord _record = new QsoRecord();
+
+	// the first byte not parsed yet
+	int _position;
+
+	private boolean _eof;
+	private boolean _ended;
+	private long _count;
+
+	LogReader(ByteInput input)
+	{
+		_input = input;
+	}
+
+	//
+	// reads the next QSO into getRecord(), returns false at the end of the log
+	//
+	public boolean next() throws IOException
+	{
+		if (_ended)
+			return false;
+
+		while (true)
+		{
+			_record.clear();
+
+			int result = parse(_eof);
+
+			if (result == RECORD)
+			{
+				_record.setNumber(++_count);
+				return true;
+			}
+
+			if (result == END || (result == NEED_MORE && _eof))
+			{
+				_record.clear();
+				_ended = true;
+				return false;
+			}
+
+			if (result == NEED_MORE)
+			{
+				int shift = _input.refill(_position);
+				if (shift < 0)
+					_eof = true;
+				else
+					_position -= shift;
+			}
+		}
+	}
+
+	//
+	// the QSO read by the last next(), valid until the next call
+	//
+	public QsoRecord getRecord()
+	{
+		return _record;
+	}
+
+	public void close() throws IOException
+	{
+		_input.close();
+	}
+
+	//
+	// parses one record (or something to skip) from _position into _record. on RECORD or SKIPPED _position
+	// moves after what was parsed, on NEED_MORE it stays at the start of the incomplete part.
+	// last is true when no more bytes will come after the loaded ones
+	//
+	abstract int parse(boolean last);
+
+}
@@ -0,0 +1,233 @@
+//
+// one QSO of a log: its fields, as read, and the locators, coordinates,
+// distance and bearing worked out by LogProcessor. the reader reuses the same
+// record (and the bytes of its fields) for the next QSO, so anything that
+// must be kept has to be copied out (e.g. with toString()) before that.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.logs;
+
+import java.nio.ByteBuffer;
+
+import sv1djg.hamutils.locator.LocatorCode;
+
+public class QsoRecord
+{
+
+	private ByteSlice[] _names = new ByteSlice[16];
+	private ByteSlice[] _values = new ByteSlice[16];
+	private int _fieldCount;
+	private long _number;
+
+	// the station locator given once for the whole log (e.g. in the cabrillo header)
+	private long _logLocator = LocatorCode.INVALID;
+
+	private long _locator;
+	private long _myLocator;
+	private double _latitude;
+	private double _longitude;
+	private double _myLatitude;
+	private double _myLongitude;
+	private double _distance;
+	private double _bearing;
+
+	QsoRecord()
+	{
+		for (int i = 0; i < _names.length; i++)
+		{
+			_names[i] = new ByteSlice();
+			_values[i] = new ByteSlice();
+		}
+		clear();
+	}
+
+	void clear()
+	{
+		_fieldCount = 0;
+		setLocation(LocatorCode.INVALID, Double.NaN, Double.NaN, LocatorCode.INVALID, Double.NaN, Double.NaN);
+		setPath(Double.NaN, Double.NaN);
+	}
+
+	void addField(ByteBuffer buffer, int nameStart, int nameEnd, int valueStart, int valueEnd)
+	{
+		ensureField();
+		_names[_fieldCount].set(buffer, nameStart, nameEnd);
+		_values[_fieldCount].set(buffer, valueStart, valueEnd);
+		_fieldCount++;
+	}
+
+	void addField(ByteSlice name, ByteBuffer buffer, int valueStart, int valueEnd)
+	{
+		ensureField();
+		_names[_fieldCount].set(name.buffer(), name.start(), name.end());
+		_values[_fieldCount].set(buffer, valueStart, valueEnd);
+		_fieldCount++;
+	}
+
+	private void ensureField()
+	{
+		if (_fieldCount < _names.length)
+			return;
+
+		ByteSlice[] names = new ByteSlice[_names.length * 2];
+		ByteSlice[] values = new ByteSlice[_values.length * 2];
+		System.arraycopy(_names, 0, names, 0, _names.length);
+		System.arraycopy(_values, 0, values, 0, _values.length);
+		for (int i = _names.length; i < names.length; i++)
+		{
+			names[i] = new ByteSlice();
+			values[i] = new ByteSlice();
+		}
+		_names = names;
+		_values = values;
+	}
+
+	void setNumber(long number)
+	{
+		_number = number;
+	}
+
+	void setLogLocator(long code)
+	{
+		_logLocator = code;
+	}
+
+	void setLocation(long locator, double latitude, double longitude, long myLocator, double myLatitude, double myLongitude)
+	{
+		_locator = locator;
+		_latitude = latitude;
+		_longitude = longitude;
+		_myLocator = myLocator;
+		_myLatitude = myLatitude;
+		_myLongitude = myLongitude;
+	}
+
+	void setPath(double distance, double bearing)
+	{
+		_distance = distance;
+		_bearing = bearing;
+	}
+
+	//
+	// the fields as read from the log, names as they were written (adif) or adif names for the columns of a cabrillo QSO line
+	//
+	public int getFieldCount()
+	{
+		return _fieldCount;
+	}
+
+	public CharSequence getFieldName(int index)
+	{
+		checkIndex(index);
+		return _names[index];
+	}
+
+	public CharSequence getFieldValue(int index)
+	{
+		checkIndex(index);
+		return _values[index];
+	}
+
+	//
+	// the value of the first field with this name (case is ignored), null if there is none
+	//
+	public CharSequence getField(String name)
+	{
+		for (int i = 0; i < _fieldCount; i++)
+		{
+			if (_names[i].equalsIgnoreCase(name))
+				return _values[i];
+		}
+		return null;
+	}
+
+	//
+	// the position of the QSO in the log, starting from 1
+	//
+	public long getNumber()
+	{
+		return _number;
+	}
+
+	long getLogLocator()
+	{
+		return _logLocator;
+	}
+
+	//
+	// the normalised (upper case, packed) locators, LocatorCode.INVALID when they are not known.
+	// LocatorCode.toString() or appendTo() give the text
+	//
+	public long getLocator()
+	{
+		return _locator;
+	}
+
+	public long getMyLocator()
+	{
+		return _myLocator;
+	}
+
+	//
+	// the coordinates (the centre of the locator when the log has no coordinates), NaN when not known
+	//
+	public double getLatitude()
+	{
+		return _latitude;
+	}
+
+	public double getLongitude()
+	{
+		return _longitude;
+	}
+
+	public double getMyLatitude()
+	{
+		return _myLatitude;
+	}
+
+	public double getMyLongitude()
+	{
+		return _myLongitude;
+	}
+
+	//
+	// the distance (in Km) and bearing (in degrees) from my station to the other station, NaN when one of them is not known
+	//
+	public double getDistance()
+	{
+		return _distance;
+	}
+
+	public double getBearing()
+	{
+		return _bearing;
+	}
+
+	public boolean isAnnotated()
+	{
+		return !Double.isNaN(_distance);
+	}
+
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= _fieldCount)
+			throw new IndexOutOfBoundsException("field " + index + " of " + _fieldCount);
+	}
+
+}
@@ -0,0 +1,143 @@
+//
+// a histogram of latencies in nanoseconds with a bounded relative error, in the
+// manner of HdrHistogram: values below 16 have a bucket each, above that every
+// power of 2 is split in 16 linear buckets, so a value is reported at most 1/16
+// (6.25%) higher than it was. 960 counters cover the whole range of a long.
+// recording is a few atomic increments, it can be done from any thread.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class LatencyHistogram
+{
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong _total = new AtomicLong();
+	private final AtomicLong _max = new AtomicLong();
+
+	//
+	// negative values (a clock that went backwards) are recorded as 0
+	//
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+			nanos = 0;
+
+		_counts.incrementAndGet(bucketOf(nanos));
+		_total.addAndGet(nanos);
+
+		long max = _max.get();
+		while (nanos > max && !_max.compareAndSet(max, nanos))
+			max = _max.get();
+	}
+
+	public long getCount()
+	{
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++)
+			count += _counts.get(i);
+		return count;
+	}
+
+	public long getMax()
+	{
+		return _max.get();
+	}
+
+	//
+	// the mean of the recorded values (exact, not from the buckets), 0 when nothing was recorded
+	//
+	public double getMean()
+	{
+		long count = getCount();
+		return count == 0 ? 0.0 : (double)_total.get() / count;
+	}
+
+	//
+	// the value (0 .. 100) percent of the recorded values are at or below, as the highest value of its bucket
+	// but never more than the max. 0 when nothing was recorded
+	//
+	public long getValueAtPercentile(double percentile)
+	{
+		if (!(percentile >= 0.0 && percentile <= 100.0))
+			throw new IllegalArgumentException("the percentile must be 0 .. 100");
+
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			counts[i] = _counts.get(i);
+			count += counts[i];
+		}
+		if (count == 0)
+			return 0;
+
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100.0 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(highestValueOf(i), getMax());
+		}
+		return getMax();
+	}
+
+	public void reset()
+	{
+		for (int i = 0; i < BUCKETS; i++)
+			_counts.set(i, 0);
+		_total.set(0);
+		_max.set(0);
+	}
+
+	static int bucketOf(long value)
+	{
+		if (value < SUB_BUCKETS)
+			return (int)value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long lowestValueOf(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	static long highestValueOf(int bucket)
+	{
+		if (bucket == BUCKETS - 1)
+			return Long.MAX_VALUE;
+		return lowestValueOf(bucket + 1) - 1;
+	}
+
+}
@@ -0,0 +1,210 @@
+//
+// optional instrumentation of the hot calls of the library: call counts and
+// latencies, validation failures, cache and batch statistics.
+//
+// it is off unless the program is started with -Dsv1djg.hamutils.metrics=true.
+// ENABLED is a static final, so every instrumented call site is written as
+// 'if (Metrics.ENABLED) ...' and the JIT drops it (and the clock reads) when it
+// is false; the library then runs exactly as without it. when it is on each
+// timed call costs two System.nanoTime() reads and a few atomic increments.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class Metrics
+{
+
+	public static final String PROPERTY = "sv1djg.hamutils.metrics";
+
+	public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+	public static final String MBEAN_NAME = "sv1djg.hamutils:type=Metrics";
+
+	private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+	private Metrics()
+	{
+	}
+
+	//
+	// the numbers of the program (all zero when disabled)
+	//
+	public static MetricsSource get()
+	{
+		return REGISTRY;
+	}
+
+	//
+	// the start time of a timed call, 0 when disabled
+	//
+	public static long start()
+	{
+		return ENABLED ? System.nanoTime() : 0L;
+	}
+
+	//
+	// counts a call that started at start()
+	//
+	public static void record(Operation operation, long start)
+	{
+		if (ENABLED)
+			REGISTRY.record(operation, System.nanoTime() - start);
+	}
+
+	public static void validationFailure(ValidationFailure reason)
+	{
+		if (ENABLED)
+			REGISTRY.validationFailure(reason);
+	}
+
+	public static void cacheLookup(boolean hit)
+	{
+		if (ENABLED)
+			REGISTRY.cacheLookup(hit);
+	}
+
+	public static void batch(long rows, long invalidRows)
+	{
+		if (ENABLED)
+			REGISTRY.batch(rows, invalidRows);
+	}
+
+	//
+	// registers the MXBean with the platform MBean server (it can be registered even when disabled, it then shows zeros)
+	//
+	public static ObjectName registerMBean() throws JMException
+	{
+		ObjectName name = new ObjectName(MBEAN_NAME);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (!server.isRegistered(name))
+			server.registerMBean(new Bean(REGISTRY), name);
+		return name;
+	}
+
+	public static void unregisterMBean() throws JMException
+	{
+		ObjectName name = new ObjectName(MBEAN_NAME);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(name))
+			server.unregisterMBean(name);
+	}
+
+	private static final class Bean implements MetricsMXBean
+	{
+		private final MetricsSource _source;
+
+		Bean(MetricsSource source)
+		{
+			_source = source;
+		}
+
+		public boolean isEnabled()
+		{
+			return ENABLED;
+		}
+
+		public Map<String, Long> getCalls()
+		{
+			Map<String, Long> calls = new LinkedHashMap<String, Long>();
+			for (Operation operation : Operation.values())
+				calls.put(operation.name(), Long.valueOf(_source.getCalls(operation)));
+			return calls;
+		}
+
+		public Map<String, Double> getMeanNanos()
+		{
+			Map<String, Double> means = new LinkedHashMap<String, Double>();
+			for (Operation operation : Operation.values())
+				means.put(operation.name(), Double.valueOf(_source.getLatency(operation).getMean()));
+			return means;
+		}
+
+		public Map<String, Long> getMedianNanos()
+		{
+			return percentiles(50.0);
+		}
+
+		public Map<String, Long> getPercentile99Nanos()
+		{
+			return percentiles(99.0);
+		}
+
+		public Map<String, Long> getMaxNanos()
+		{
+			Map<String, Long> max = new LinkedHashMap<String, Long>();
+			for (Operation operation : Operation.values())
+				max.put(operation.name(), Long.valueOf(_source.getLatency(operation).getMax()));
+			return max;
+		}
+
+		public Map<String, Long> getValidationFailures()
+		{
+			Map<String, Long> failures = new LinkedHashMap<String, Long>();
+			for (ValidationFailure reason : ValidationFailure.values())
+				failures.put(reason.name(), Long.valueOf(_source.getValidationFailures(reason)));
+			return failures;
+		}
+
+		public long getCacheHits()
+		{
+			return _source.getCacheHits();
+		}
+
+		public long getCacheMisses()
+		{
+			return _source.getCacheMisses();
+		}
+
+		public long getBatches()
+		{
+			return _source.getBatches();
+		}
+
+		public long getBatchRows()
+		{
+			return _source.getBatchRows();
+		}
+
+		public long getBatchInvalidRows()
+		{
+			return _source.getBatchInvalidRows();
+		}
+
+		public void reset()
+		{
+			_source.reset();
+		}
+
+		private Map<String, Long> percentiles(double percentile)
+		{
+			Map<String, Long> values = new LinkedHashMap<String, Long>();
+			for (Operation operation : Operation.values())
+				values.put(operation.name(), Long.valueOf(_source.getLatency(operation).getValueAtPercentile(percentile)));
+			return values;
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+//
+// the metrics as a JMX MXBean (sv1djg.hamutils:type=Metrics), see Metrics.registerMBean().
+// the maps are keyed by the names of Operation and ValidationFailure
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.metrics;
+
+import java.util.Map;
+
+public interface MetricsMXBean
+{
+
+	boolean isEnabled();
+
+	Map<String, Long> getCalls();
+
+	Map<String, Double> getMeanNanos();
+
+	Map<String, Long> getMedianNanos();
+
+	Map<String, Long> getPercentile99Nanos();
+
+	Map<String, Long> getMaxNanos();
+
+	Map<String, Long> getValidationFailures();
+
+	long getCacheHits();
+
+	long getCacheMisses();
+
+	long getBatches();
+
+	long getBatchRows();
+
+	long getBatchInvalidRows();
+
+	void reset();
+
+}
@@ -0,0 +1,131 @@
+//
+// the counters behind Metrics. it can also be used on its own, e.g. to collect
+// the numbers of one part of a program
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class MetricsRegistry implements MetricsSource
+{
+
+	private final LongAdder[] _calls = adders(Operation.values().length);
+	private final LatencyHistogram[] _latencies = new LatencyHistogram[Operation.values().length];
+	private final LongAdder[] _failures = adders(ValidationFailure.values().length);
+
+	private final LongAdder _cacheHits = new LongAdder();
+	private final LongAdder _cacheMisses = new LongAdder();
+	private final LongAdder _batches = new LongAdder();
+	private final LongAdder _batchRows = new LongAdder();
+	private final LongAdder _batchInvalidRows = new LongAdder();
+
+	public MetricsRegistry()
+	{
+		for (int i = 0; i < _latencies.length; i++)
+			_latencies[i] = new LatencyHistogram();
+	}
+
+	public void record(Operation operation, long nanos)
+	{
+		_calls[operation.ordinal()].increment();
+		_latencies[operation.ordinal()].record(nanos);
+	}
+
+	public void validationFailure(ValidationFailure reason)
+	{
+		_failures[reason.ordinal()].increment();
+	}
+
+	public void cacheLookup(boolean hit)
+	{
+		(hit ? _cacheHits : _cacheMisses).increment();
+	}
+
+	public void batch(long rows, long invalidRows)
+	{
+		_batches.increment();
+		_batchRows.add(rows);
+		_batchInvalidRows.add(invalidRows);
+	}
+
+	public long getCalls(Operation operation)
+	{
+		return _calls[operation.ordinal()].sum();
+	}
+
+	public LatencyHistogram getLatency(Operation operation)
+	{
+		return _latencies[operation.ordinal()];
+	}
+
+	public long getValidationFailures(ValidationFailure reason)
+	{
+		return _failures[reason.ordinal()].sum();
+	}
+
+	public long getCacheHits()
+	{
+		return _cacheHits.sum();
+	}
+
+	public long getCacheMisses()
+	{
+		return _cacheMisses.sum();
+	}
+
+	public long getBatches()
+	{
+		return _batches.sum();
+	}
+
+	public long getBatchRows()
+	{
+		return _batchRows.sum();
+	}
+
+	public long getBatchInvalidRows()
+	{
+		return _batchInvalidRows.sum();
+	}
+
+	public void reset()
+	{
+		for (LongAdder adder : _calls)
+			adder.reset();
+		for (LatencyHistogram histogram : _latencies)
+			histogram.reset();
+		for (LongAdder adder : _failures)
+			adder.reset();
+
+		_cacheHits.reset();
+		_cacheMisses.reset();
+		_batches.reset();
+		_batchRows.reset();
+		_batchInvalidRows.reset();
+	}
+
+	private static LongAdder[] adders(int count)
+	{
+		LongAdder[] adders = new LongAdder[count];
+		for (int i = 0; i < count; i++)
+			adders[i] = new LongAdder();
+		return adders;
+	}
+
+}
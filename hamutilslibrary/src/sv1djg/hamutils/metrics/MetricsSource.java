@@ -0,0 +1,46 @@
+//
+// what the instrumentation of the library has seen, Metrics.get() gives the
+// numbers of the running program
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.metrics;
+
+public interface MetricsSource
+{
+
+	long getCalls(Operation operation);
+
+	LatencyHistogram getLatency(Operation operation);
+
+	long getValidationFailures(ValidationFailure reason);
+
+	// LocatorCache lookups of every cache
+	long getCacheHits();
+
+	long getCacheMisses();
+
+	// the batch calls of BulkLocatorEncoder and DistanceCaclulator, the rows they had and how many were rejected
+	long getBatches();
+
+	long getBatchRows();
+
+	long getBatchInvalidRows();
+
+	void reset();
+
+}
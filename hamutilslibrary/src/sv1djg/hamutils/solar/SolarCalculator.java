@@ -0,0 +1,98 @@
+//
+// hands out solar snapshots for time buckets: every moment inside a bucket
+// gets the snapshot of the middle of the bucket, so a propagation run over
+// thousands of paths and time steps calculates the sun (and its terminator
+// and square table) once per bucket. the recent buckets are kept in a small
+// direct mapped table that any number of threads can share.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.solar;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public final class SolarCalculator
+{
+
+	// the sun moves 1.25 degrees in 5 minutes
+	public static final long DEFAULT_BUCKET_MILLIS = 5 * 60 * 1000L;
+
+	private static final int DEFAULT_CACHED_BUCKETS = 512;
+
+	private final long _bucketMillis;
+	private final double _graylineLow;
+	private final double _graylineHigh;
+	private final AtomicReferenceArray<SolarSnapshot> _snapshots;
+
+	public SolarCalculator()
+	{
+		this(DEFAULT_BUCKET_MILLIS, SolarSnapshot.DEFAULT_GRAYLINE_LOW, SolarSnapshot.DEFAULT_GRAYLINE_HIGH, DEFAULT_CACHED_BUCKETS);
+	}
+
+	//
+	// cachedBuckets is the number of buckets kept, a day of 5 minute buckets is 288
+	//
+	public SolarCalculator(long bucketMillis, double graylineLow, double graylineHigh, int cachedBuckets)
+	{
+		if (bucketMillis <= 0)
+			throw new IllegalArgumentException("the bucket must be at least a millisecond");
+		if (cachedBuckets <= 0)
+			throw new IllegalArgumentException("at least one bucket must be cached");
+
+		// fails early for a bad grayline
+		new SolarSnapshot(0, graylineLow, graylineHigh);
+
+		_bucketMillis = bucketMillis;
+		_graylineLow = graylineLow;
+		_graylineHigh = graylineHigh;
+		_snapshots = new AtomicReferenceArray<SolarSnapshot>(cachedBuckets);
+	}
+
+	public long getBucketMillis()
+	{
+		return _bucketMillis;
+	}
+
+	//
+	// the snapshot of the bucket of time (milliseconds since 1970-01-01 UTC)
+	//
+	public SolarSnapshot at(long time)
+	{
+		long bucket = Math.floorDiv(time, _bucketMillis);
+		long middle = bucket * _bucketMillis + _bucketMillis / 2;
+		int slot = (int)Math.floorMod(bucket, (long)_snapshots.length());
+
+		SolarSnapshot snapshot = _snapshots.get(slot);
+		if (snapshot != null && snapshot.getTime() == middle)
+			return snapshot;
+
+		// two threads may both calculate a missing bucket, the snapshots are the same
+		snapshot = new SolarSnapshot(middle, _graylineLow, _graylineHigh);
+		_snapshots.set(slot, snapshot);
+
+		return snapshot;
+	}
+
+	//
+	// classifies the points offset .. offset+count-1 of the arrays at time
+	//
+	public void classify(long time, double[] latitudes, double[] longitudes, byte[] states, int offset, int count)
+	{
+		at(time).classify(latitudes, longitudes, states, offset, count);
+	}
+
+}
@@ -0,0 +1,289 @@
+//
+// the geometry of the sun at one moment: the subsolar point as a unit vector,
+// so the elevation of the sun anywhere is one dot product away. points are
+// classified as day, grayline (the sun within a band of elevations around the
+// horizon) or night. the terminator polyline and the state of every locator
+// square are worked out the first time they are asked for and then kept.
+// a snapshot is immutable and can be shared by any number of threads.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.solar;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+import sv1djg.hamutils.distances.Observer;
+import sv1djg.hamutils.locator.GridSet;
+import sv1djg.hamutils.locator.LocatorCode;
+
+public final class SolarSnapshot
+{
+
+	public static final byte NIGHT = 0;
+	public static final byte GRAYLINE = 1;
+	public static final byte DAY = 2;
+
+	// the elevations of the sun (in degrees) that bound the grayline by default, about civil twilight on either side
+	public static final double DEFAULT_GRAYLINE_LOW = -6.0;
+	public static final double DEFAULT_GRAYLINE_HIGH = 6.0;
+
+	public static final int TERMINATOR_POINTS = 360;
+
+	private static final int SQUARE_PAIRS = 2;
+
+	private final long _time;
+	private final double _subsolarLatitude;
+	private final double _subsolarLongitude;
+	private final double _graylineLow;
+	private final double _graylineHigh;
+
+	// the unit vector of the subsolar point, and the sines of the grayline elevations
+	private final double _x;
+	private final double _y;
+	private final double _z;
+	private final double _sinLow;
+	private final double _sinHigh;
+
+	// built on first use, a race builds the same values twice
+	private volatile double[] _terminator;
+	private volatile byte[] _squares;
+
+	public SolarSnapshot(long time)
+	{
+		this(time, DEFAULT_GRAYLINE_LOW, DEFAULT_GRAYLINE_HIGH);
+	}
+
+	//
+	// time is in milliseconds since 1970-01-01 UTC, graylineLow..graylineHigh the elevations of the sun
+	// (in degrees) counted as grayline
+	//
+	public SolarSnapshot(long time, double graylineLow, double graylineHigh)
+	{
+		if (!(graylineLow >= -90.0 && graylineLow <= graylineHigh && graylineHigh <= 90.0))
+			throw new IllegalArgumentException("the grayline must be -90 <= graylineLow <= graylineHigh <= 90 degrees");
+
+		double[] subsolar = new double[2];
+		SubsolarPoint.calculate(time, subsolar, 0);
+
+		_time = time;
+		_subsolarLatitude = subsolar[0];
+		_subsolarLongitude = subsolar[1];
+		_graylineLow = graylineLow;
+		_graylineHigh = graylineHigh;
+
+		double latitude = Math.toRadians(_subsolarLatitude);
+		double longitude = Math.toRadians(_subsolarLongitude);
+		_x = Math.cos(latitude) * Math.cos(longitude);
+		_y = Math.cos(latitude) * Math.sin(longitude);
+		_z = Math.sin(latitude);
+		_sinLow = Math.sin(Math.toRadians(graylineLow));
+		_sinHigh = Math.sin(Math.toRadians(graylineHigh));
+	}
+
+	public long getTime()
+	{
+		return _time;
+	}
+
+	public double getSubsolarLatitude()
+	{
+		return _subsolarLatitude;
+	}
+
+	public double getSubsolarLongitude()
+	{
+		return _subsolarLongitude;
+	}
+
+	public double getGraylineLow()
+	{
+		return _graylineLow;
+	}
+
+	public double getGraylineHigh()
+	{
+		return _graylineHigh;
+	}
+
+	//
+	// the elevation of the centre of the sun above the horizon in degrees, without refraction
+	//
+	public double elevation(double latitude, double longitude)
+	{
+		double lat = Math.toRadians(latitude);
+		double lon = Math.toRadians(longitude);
+		double sine = Math.cos(lat) * (Math.cos(lon) * _x + Math.sin(lon) * _y) + Math.sin(lat) * _z;
+
+		return Math.toDegrees(Math.asin(Math.max(-1.0, Math.min(1.0, sine))));
+	}
+
+	public byte classify(double latitude, double longitude)
+	{
+		double lat = Math.toRadians(latitude);
+		double lon = Math.toRadians(longitude);
+		double cosLat = Math.cos(lat);
+
+		return state(cosLat * Math.cos(lon) * _x + cosLat * Math.sin(lon) * _y + Math.sin(lat) * _z);
+	}
+
+	//
+	// classifies the points offset .. offset+count-1 of the arrays into states
+	//
+	public void classify(double[] latitudes, double[] longitudes, byte[] states, int offset, int count)
+	{
+		for (int i = offset; i < offset + count; i++)
+			states[i] = classify(latitudes[i], longitudes[i]);
+	}
+
+	//
+	// the unit vectors (x, y, z at vectors[3 * i]) of the points offset .. offset+count-1. points that
+	// are classified at many moments pay for their trigonometry once
+	//
+	public static void toVectors(double[] latitudes, double[] longitudes, double[] vectors, int offset, int count)
+	{
+		for (int i = offset; i < offset + count; i++)
+		{
+			double lat = Math.toRadians(latitudes[i]);
+			double lon = Math.toRadians(longitudes[i]);
+			double cosLat = Math.cos(lat);
+
+			vectors[3 * i] = cosLat * Math.cos(lon);
+			vectors[3 * i + 1] = cosLat * Math.sin(lon);
+			vectors[3 * i + 2] = Math.sin(lat);
+		}
+	}
+
+	//
+	// classifies points given as unit vectors (see toVectors()), one dot product each
+	//
+	public void classifyVectors(double[] vectors, byte[] states, int offset, int count)
+	{
+		for (int i = offset; i < offset + count; i++)
+			states[i] = state(vectors[3 * i] * _x + vectors[3 * i + 1] * _y + vectors[3 * i + 2] * _z);
+	}
+
+	//
+	// classifies both ends and the great circle midpoint (the same point as DistanceCaclulator.midpointOf())
+	// of the paths offset .. offset+count-1, given as unit vectors. the midpoint of two antipodes is not
+	// defined, it is counted as on the terminator
+	//
+	public void classifyPaths(double[] fromVectors, double[] toVectors, byte[] from, byte[] midpoint, byte[] to, int offset, int count)
+	{
+		for (int i = offset; i < offset + count; i++)
+		{
+			double fromDot = fromVectors[3 * i] * _x + fromVectors[3 * i + 1] * _y + fromVectors[3 * i + 2] * _z;
+			double toDot = toVectors[3 * i] * _x + toVectors[3 * i + 1] * _y + toVectors[3 * i + 2] * _z;
+
+			// the midpoint is the normalised sum of the ends
+			double sx = fromVectors[3 * i] + toVectors[3 * i];
+			double sy = fromVectors[3 * i + 1] + toVectors[3 * i + 1];
+			double sz = fromVectors[3 * i + 2] + toVectors[3 * i + 2];
+			double length = Math.sqrt(sx * sx + sy * sy + sz * sz);
+
+			from[i] = state(fromDot);
+			to[i] = state(toDot);
+			midpoint[i] = state(length > 0.000000000001 ? (fromDot + toDot) / length : 0.0);
+		}
+	}
+
+	//
+	// the state at the centre of the square of a code of 4 or more characters, from a table of all the squares
+	//
+	public byte classify(long code)
+	{
+		if (!LocatorCode.isValid(code) || LocatorCode.pairs(code) < SQUARE_PAIRS)
+			throw new IllegalArgumentException("not a code of a square or a smaller cell");
+
+		return squares()[LocatorCode.cellId(LocatorCode.truncate(code, SQUARE_PAIRS))];
+	}
+
+	//
+	// the squares whose centre is in the state
+	//
+	public GridSet squares(byte state)
+	{
+		byte[] squares = squares();
+		GridSet set = new GridSet();
+		for (int square = 0; square < GridSet.SQUARES; square++)
+		{
+			if (squares[square] == state)
+				set.add(LocatorCode.fromCellId(square, SQUARE_PAIRS));
+		}
+		return set;
+	}
+
+	//
+	// copies the TERMINATOR_POINTS points of the terminator (the circle 90 degrees from the subsolar
+	// point), clockwise from its northernmost point, to the arrays starting at offset
+	//
+	public void terminator(double[] latitudes, double[] longitudes, int offset)
+	{
+		double[] terminator = _terminator;
+		if (terminator == null)
+		{
+			terminator = new double[TERMINATOR_POINTS * 2];
+			terminator(TERMINATOR_POINTS, terminator);
+			_terminator = terminator;
+		}
+
+		for (int i = 0; i < TERMINATOR_POINTS; i++)
+		{
+			latitudes[offset + i] = terminator[2 * i];
+			longitudes[offset + i] = terminator[2 * i + 1];
+		}
+	}
+
+	//
+	// the terminator as latitude, longitude pairs at bearings 0, 360/points, ... from the subsolar point
+	//
+	private void terminator(int points, double[] terminator)
+	{
+		double quarter = Observer.CIRCUMFERENCE / 4;
+		for (int i = 0; i < points; i++)
+		{
+			CoordinateSet point = DistanceCaclulator.targetAtBearingDistance(_subsolarLatitude, _subsolarLongitude, i * 360.0 / points, quarter);
+			terminator[2 * i] = point.getLatitude();
+			terminator[2 * i + 1] = point.getLongitude();
+		}
+	}
+
+	private byte[] squares()
+	{
+		byte[] squares = _squares;
+		if (squares == null)
+		{
+			squares = new byte[GridSet.SQUARES];
+			for (int square = 0; square < GridSet.SQUARES; square++)
+			{
+				long code = LocatorCode.fromCellId(square, SQUARE_PAIRS);
+				squares[square] = classify(LocatorCode.centreLatitude(code), LocatorCode.centreLongitude(code));
+			}
+			_squares = squares;
+		}
+		return squares;
+	}
+
+	private byte state(double sine)
+	{
+		if (sine > _sinHigh)
+			return DAY;
+		if (sine < _sinLow)
+			return NIGHT;
+		return GRAYLINE;
+	}
+
+}
@@ -0,0 +1,85 @@
+//
+// the subsolar point (where the sun is overhead) at a moment, from the low
+// precision solar coordinates of the Astronomical Almanac. good to about
+// 0.01 degree between 1950 and 2050, far better than the grayline needs.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.solar;
+
+import sv1djg.hamutils.distances.Coordinates;
+
+public final class SubsolarPoint
+{
+
+	private static final double MILLIS_PER_DAY = 86400000.0;
+
+	// the julian date of the unix epoch, and of the J2000 epoch
+	private static final double JULIAN_UNIX_EPOCH = 2440587.5;
+	private static final double J2000 = 2451545.0;
+
+	private SubsolarPoint()
+	{
+	}
+
+	//
+	// the subsolar point at time (milliseconds since 1970-01-01 UTC)
+	//
+	public static Coordinates at(long time)
+	{
+		double[] point = new double[2];
+		calculate(time, point, 0);
+		return new Coordinates(point[0], point[1]);
+	}
+
+	//
+	// writes the latitude (the declination of the sun) and the longitude of the subsolar point
+	// at time in coordinates starting at offset
+	//
+	public static void calculate(long time, double[] coordinates, int offset)
+	{
+		double days = time / MILLIS_PER_DAY + JULIAN_UNIX_EPOCH - J2000;
+
+		// mean longitude and mean anomaly of the sun, and the obliquity of the ecliptic
+		double meanLongitude = normalise(280.460 + 0.9856474 * days);
+		double meanAnomaly = Math.toRadians(normalise(357.528 + 0.9856003 * days));
+		double obliquity = Math.toRadians(23.439 - 0.0000004 * days);
+
+		double eclipticLongitude = Math.toRadians(meanLongitude + 1.915 * Math.sin(meanAnomaly) + 0.020 * Math.sin(2 * meanAnomaly));
+
+		double declination = Math.asin(Math.sin(obliquity) * Math.sin(eclipticLongitude));
+		double rightAscension = Math.toDegrees(Math.atan2(Math.cos(obliquity) * Math.sin(eclipticLongitude), Math.cos(eclipticLongitude)));
+
+		// the equation of time in degrees (4 minutes of time each), between -180 and 180
+		double equationOfTime = normalise(meanLongitude - rightAscension + 180.0) - 180.0;
+
+		// the mean sun is over greenwich at 12:00 UTC (a whole number of days from J2000), and moves
+		// west 360 degrees a day. the real sun is ahead of it by the equation of time
+		double sinceNoon = (days - Math.floor(days)) * 360.0;
+		double longitude = normalise(180.0 - sinceNoon - equationOfTime) - 180.0;
+
+		coordinates[offset] = Math.toDegrees(declination);
+		coordinates[offset + 1] = longitude;
+	}
+
+	private static double normalise(double degrees)
+	{
+		double normalised = degrees % 360.0;
+		return normalised < 0 ? normalised + 360.0 : normalised;
+	}
+
+}
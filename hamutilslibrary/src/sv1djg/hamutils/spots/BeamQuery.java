@@ -0,0 +1,429 @@
+//
+// evaluates many points at once against a home station and a set of antenna
+// beam sectors (a bearing window and a distance band, on the short or the long
+// path), setting one bit per matching point. every point is first looked up
+// in its locator square, and a square whose bounds rule out all the sectors
+// rejects its points before any exact trigonometry is done for them.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.spots;
+
+import java.util.Arrays;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.distances.Observer;
+
+public final class BeamQuery
+{
+
+	//
+	// a bearing window, clockwise from one bearing to another, and a distance band in Km.
+	// on the long path the bearing is the short path bearing + 180 and the distance is
+	// the rest of the circumference
+	//
+	public static final class Sector
+	{
+		private final double _from;
+		private final double _width;
+		private final double _minDistance;
+		private final double _maxDistance;
+		private final boolean _longPath;
+
+		//
+		// the window runs clockwise from fromBearing to toBearing, so 350..10 crosses north.
+		// equal bearings are a window of that single bearing, use beam() for all of them
+		//
+		public Sector(double fromBearing, double toBearing, double minDistance, double maxDistance, boolean longPath)
+		{
+			this(longPath, normalise(fromBearing), normalise(toBearing - fromBearing), minDistance, maxDistance);
+		}
+
+		private Sector(boolean longPath, double from, double width, double minDistance, double maxDistance)
+		{
+			if (Double.isNaN(from) || Double.isNaN(width))
+				throw new IllegalArgumentException("bearing is not a number");
+			if (!(minDistance >= 0 && minDistance <= maxDistance))
+				throw new IllegalArgumentException("the distance band must be 0 <= minDistance <= maxDistance");
+
+			_from = from;
+			_width = width;
+			_minDistance = minDistance;
+			_maxDistance = maxDistance;
+			_longPath = longPath;
+		}
+
+		//
+		// an antenna beam of beamwidth degrees centred on bearing, 360 or more is all the bearings
+		//
+		public static Sector beam(double bearing, double beamwidth, double minDistance, double maxDistance, boolean longPath)
+		{
+			if (!(beamwidth >= 0))
+				throw new IllegalArgumentException("beamwidth must be 0 or more degrees");
+
+			if (beamwidth >= 360.0)
+				return new Sector(longPath, 0.0, 360.0, minDistance, maxDistance);
+
+			return new Sector(longPath, normalise(bearing - beamwidth / 2), beamwidth, minDistance, maxDistance);
+		}
+
+		public double getFromBearing()
+		{
+			return _from;
+		}
+
+		public double getToBearing()
+		{
+			return _width >= 360.0 ? _from : normalise(_from + _width);
+		}
+
+		public double getMinDistance()
+		{
+			return _minDistance;
+		}
+
+		public double getMaxDistance()
+		{
+			return _maxDistance;
+		}
+
+		public boolean isLongPath()
+		{
+			return _longPath;
+		}
+
+		//
+		// whether a point at the short path distance and bearing from home is in the sector
+		//
+		public boolean contains(double distance, double bearing)
+		{
+			if (_longPath)
+			{
+				distance = Observer.CIRCUMFERENCE - distance;
+				bearing = (bearing + 180.0) % 360.0;
+			}
+
+			return distance >= _minDistance && distance <= _maxDistance && inWindow(bearing);
+		}
+
+		private boolean inWindow(double bearing)
+		{
+			double relative = bearing - _from;
+			if (relative < 0)
+				relative += 360.0;
+			return relative <= _width;
+		}
+
+		//
+		// whether any point with a short path distance in minDistance..maxDistance and a bearing
+		// within spread degrees of bearing may be in the sector
+		//
+		boolean mayContain(double minDistance, double maxDistance, double bearing, double spread)
+		{
+			if (_longPath)
+			{
+				double longMin = Observer.CIRCUMFERENCE - maxDistance;
+				maxDistance = Observer.CIRCUMFERENCE - minDistance;
+				minDistance = longMin;
+				bearing += 180.0;
+			}
+
+			if (maxDistance < _minDistance || minDistance > _maxDistance)
+				return false;
+			if (spread >= 180.0 || _width >= 360.0)
+				return true;
+
+			// two arcs meet when the start of either one is inside the other
+			double start = normalise(bearing - spread);
+			return normalise(_from - start) <= 2 * spread || normalise(start - _from) <= _width;
+		}
+	}
+
+	private static final int SQUARE_COLUMNS = 180;
+	private static final int SQUARE_ROWS = 180;
+
+	private static final byte UNKNOWN = 0;
+	private static final byte REJECTED = 1;
+	private static final byte CANDIDATE = 2;
+
+	// widens the bearing spread of a square so rounding never rejects a point on the edge of a window
+	private static final double BEARING_MARGIN = 0.000001;
+
+	private final Observer _home;
+	private final Sector[] _sectors;
+	private final Observer.Path _path = new Observer.Path();
+
+	// the verdict of each square, worked out the first time a point falls in it. the sectors never
+	// change, so it is kept for the life of the query
+	private final byte[] _squares = new byte[SQUARE_COLUMNS * SQUARE_ROWS];
+
+	private long _exact;
+	private long _pruned;
+
+	//
+	// a query is used by one thread at a time, it keeps the verdicts of the squares it has seen
+	//
+	public BeamQuery(double homeLatitude, double homeLongitude, Sector... sectors)
+	{
+		if (!isValid(homeLatitude, homeLongitude))
+			throw new IllegalArgumentException("invalid home coordinates");
+		if (sectors.length == 0)
+			throw new IllegalArgumentException("at least one sector is needed");
+
+		_home = new Observer(homeLatitude, homeLongitude);
+		_sectors = sectors.clone();
+		for (Sector sector : _sectors)
+		{
+			if (sector == null)
+				throw new IllegalArgumentException("null sector");
+		}
+	}
+
+	public int getSectorCount()
+	{
+		return _sectors.length;
+	}
+
+	public Sector getSector(int index)
+	{
+		return _sectors[index];
+	}
+
+	//
+	// the number of longs a bitset needs for count points
+	//
+	public static int wordsFor(int count)
+	{
+		return (count + 63) >>> 6;
+	}
+
+	//
+	// sets bit i of matches[s] when point offset + i is in sector s (the other bits of the
+	// first wordsFor(count) words are cleared) and returns the number of points in any sector.
+	// invalid coordinates are never in a sector
+	//
+	public int evaluate(double[] latitudes, double[] longitudes, int offset, int count, long[][] matches)
+	{
+		if (matches.length != _sectors.length)
+			throw new IllegalArgumentException("one bitset is needed per sector");
+
+		return evaluate(latitudes, longitudes, offset, count, matches, null);
+	}
+
+	//
+	// sets bit i of matches when point offset + i is in any of the sectors and returns the number of such points
+	//
+	public int evaluate(double[] latitudes, double[] longitudes, int offset, int count, long[] matches)
+	{
+		return evaluate(latitudes, longitudes, offset, count, null, matches);
+	}
+
+	//
+	// the same for the rows from..to (exclusive) of a table with the same home, using the
+	// distances and bearings the table already calculated in batch
+	//
+	public int evaluate(SpotTable table, int from, int to, long[][] matches)
+	{
+		if (matches.length != _sectors.length)
+			throw new IllegalArgumentException("one bitset is needed per sector");
+		if (table.getHomeLatitude() != _home.getLatitude() || table.getHomeLongitude() != _home.getLongitude())
+			throw new IllegalArgumentException("the table has a different home station");
+		if (from < 0 || to > table.size() || from > to)
+			throw new IndexOutOfBoundsException("rows " + from + ".." + to + " of " + table.size());
+
+		int count = to - from;
+		clear(matches, null, count);
+
+		int matched = 0;
+		for (int i = 0; i < count; i++)
+		{
+			double distance = table.distanceAt(from + i);
+			double bearing = table.bearingAt(from + i);
+			if (Double.isNaN(distance))
+				continue;
+
+			if (matchSectors(distance, bearing, i, matches, null))
+				matched++;
+		}
+
+		return matched;
+	}
+
+	//
+	// whether the point is in any sector, without the square verdicts
+	//
+	public boolean matches(double latitude, double longitude)
+	{
+		if (!isValid(latitude, longitude))
+			return false;
+
+		_home.pathTo(latitude, longitude, _path);
+		for (Sector sector : _sectors)
+		{
+			if (sector.contains(_path.getDistance(), _path.getBearing()))
+				return true;
+		}
+		return false;
+	}
+
+	//
+	// the number of points that needed the exact distance and bearing, and the number
+	// rejected by the bounds of their square alone
+	//
+	public long getExactEvaluations()
+	{
+		return _exact;
+	}
+
+	public long getPrunedPoints()
+	{
+		return _pruned;
+	}
+
+	private int evaluate(double[] latitudes, double[] longitudes, int offset, int count, long[][] sectorMatches, long[] anyMatches)
+	{
+		if (offset < 0 || count < 0 || offset + count > latitudes.length || offset + count > longitudes.length)
+			throw new IndexOutOfBoundsException("points " + offset + ".." + (offset + count));
+
+		clear(sectorMatches, anyMatches, count);
+
+		int matched = 0;
+		for (int i = 0; i < count; i++)
+		{
+			double latitude = latitudes[offset + i];
+			double longitude = longitudes[offset + i];
+			if (!isValid(latitude, longitude))
+				continue;
+
+			// the square of the point, the poles and the antimeridian belong to the last row/column like in the locator
+			int column = Math.min((int)((longitude + 180.0) / 2.0), SQUARE_COLUMNS - 1);
+			int row = Math.min((int)(latitude + 90.0), SQUARE_ROWS - 1);
+			int square = column * SQUARE_ROWS + row;
+
+			byte verdict = _squares[square];
+			if (verdict == UNKNOWN)
+			{
+				verdict = classify(column, row);
+				_squares[square] = verdict;
+			}
+
+			if (verdict == REJECTED)
+			{
+				_pruned++;
+				continue;
+			}
+
+			_exact++;
+			_home.pathTo(latitude, longitude, _path);
+			if (matchSectors(_path.getDistance(), _path.getBearing(), i, sectorMatches, anyMatches))
+				matched++;
+		}
+
+		return matched;
+	}
+
+	private boolean matchSectors(double distance, double bearing, int bit, long[][] sectorMatches, long[] anyMatches)
+	{
+		boolean any = false;
+		long mask = 1L << bit;
+
+		for (int s = 0; s < _sectors.length; s++)
+		{
+			if (!_sectors[s].contains(distance, bearing))
+				continue;
+
+			any = true;
+			if (sectorMatches == null)
+				break;
+			sectorMatches[s][bit >>> 6] |= mask;
+		}
+
+		if (any && anyMatches != null)
+			anyMatches[bit >>> 6] |= mask;
+
+		return any;
+	}
+
+	//
+	// rejects the square when no point of it can be in any sector: its distance range comes from
+	// the nearest point of the square and the circle around its centre that holds all of it, and
+	// the bearings of that circle seen from home are within asin(sin r / sin d) of the centre
+	//
+	private byte classify(int column, int row)
+	{
+		double south = row - 90.0;
+		double west = column * 2.0 - 180.0;
+		double centreLatitude = south + 0.5;
+		double centreLongitude = west + 1.0;
+
+		double minDistance = CellBounds.minDistance(_home.getLatitude(), _home.getLongitude(), south, west, south + 1.0, west + 2.0);
+
+		// the farthest point of a square from its centre is one of the corners
+		double radius = Math.max(
+				Math.max(DistanceCaclulator.distanceFrom(centreLatitude, centreLongitude, south, west),
+						DistanceCaclulator.distanceFrom(centreLatitude, centreLongitude, south, west + 2.0)),
+				Math.max(DistanceCaclulator.distanceFrom(centreLatitude, centreLongitude, south + 1.0, west),
+						DistanceCaclulator.distanceFrom(centreLatitude, centreLongitude, south + 1.0, west + 2.0)));
+
+		_home.pathTo(centreLatitude, centreLongitude, _path);
+		double centreDistance = _path.getDistance();
+		double maxDistance = centreDistance + radius;
+
+		// home inside the circle, or its antipode, sees the square at every bearing
+		double spread = 360.0;
+		double angle = centreDistance / DistanceCaclulator.EARTH_RADIUS;
+		double angularRadius = radius / DistanceCaclulator.EARTH_RADIUS;
+		if (angle > angularRadius && angle + angularRadius < Math.PI)
+			spread = Math.toDegrees(Math.asin(Math.sin(angularRadius) / Math.sin(angle))) + BEARING_MARGIN;
+
+		for (Sector sector : _sectors)
+		{
+			if (sector.mayContain(minDistance - CellBounds.MARGIN_KM, maxDistance + CellBounds.MARGIN_KM, _path.getBearing(), spread))
+				return CANDIDATE;
+		}
+
+		return REJECTED;
+	}
+
+	private static void clear(long[][] sectorMatches, long[] anyMatches, int count)
+	{
+		int words = wordsFor(count);
+		if (sectorMatches != null)
+		{
+			for (long[] bits : sectorMatches)
+				Arrays.fill(bits, 0, words, 0L);
+		}
+		if (anyMatches != null)
+			Arrays.fill(anyMatches, 0, words, 0L);
+	}
+
+	private static boolean isValid(double latitude, double longitude)
+	{
+		// false for NaN too
+		return latitude >= -90.0 && latitude <= 90.0 && longitude >= -180.0 && longitude <= 180.0;
+	}
+
+	private static double normalise(double bearing)
+	{
+		double normalised = bearing % 360.0;
+		if (normalised < 0)
+			normalised += 360.0;
+		// -0.0000000000001 % 360 + 360 rounds to 360
+		return normalised >= 360.0 ? 0.0 : normalised;
+	}
+
+}
@@ -0,0 +1,99 @@
+//
+// great circle distance from a point to a latitude/longitude box (a locator cell),
+// used to skip whole cells before doing the exact distance of every point in them.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.spots;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.LocatorCode;
+
+final class CellBounds
+{
+
+	// a small margin so rounding never prunes a point that lies exactly on the limit
+	static final double MARGIN_KM = 0.000001;
+
+	private CellBounds()
+	{
+	}
+
+	//
+	// the shortest distance (in Km) from the point to any point of the cell of the locator code
+	//
+	static double minDistance(double latitude, double longitude, long code)
+	{
+		return minDistance(latitude, longitude, LocatorCode.southLatitude(code), LocatorCode.westLongitude(code),
+				LocatorCode.northLatitude(code), LocatorCode.eastLongitude(code));
+	}
+
+	//
+	// the shortest distance (in Km) from the point to any point of the box.
+	// the box does not cross the antimeridian (locator cells never do)
+	//
+	static double minDistance(double latitude, double longitude, double south, double west, double north, double east)
+	{
+		boolean inLongitude = longitude >= west && longitude <= east;
+
+		if (inLongitude)
+		{
+			// the nearest point is straight north or south, along the meridian of the point
+			if (latitude > north)
+				return DistanceCaclulator.EARTH_RADIUS * Math.toRadians(latitude - north);
+			if (latitude < south)
+				return DistanceCaclulator.EARTH_RADIUS * Math.toRadians(south - latitude);
+			return 0.0;
+		}
+
+		// otherwise it is on the west or the east edge (the nearest point of a parallel is always the end closest in longitude)
+		return Math.min(distanceToMeridian(latitude, longitude, west, south, north),
+				distanceToMeridian(latitude, longitude, east, south, north));
+	}
+
+	//
+	// the shortest distance from the point to the segment south..north of a meridian
+	//
+	private static double distanceToMeridian(double latitude, double longitude, double meridian, double south, double north)
+	{
+		double dlon = Math.toRadians(longitude - meridian);
+		double cosDlon = Math.cos(dlon);
+
+		if (cosDlon > 0)
+		{
+			// the foot of the perpendicular from the point on the meridian, tan(foot) = tan(lat) / cos(dlon).
+			// the distance grows on both sides of it, so the nearest point of the segment is the foot clamped in it
+			double foot = Math.toDegrees(Math.atan(Math.tan(Math.toRadians(latitude)) / cosDlon));
+			foot = Math.max(south, Math.min(north, foot));
+
+			return DistanceCaclulator.distanceFrom(latitude, longitude, foot, meridian);
+		}
+
+		// on the far side of the globe the distance has no minimum inside the segment, one of the ends is the nearest
+		return Math.min(DistanceCaclulator.distanceFrom(latitude, longitude, south, meridian),
+				DistanceCaclulator.distanceFrom(latitude, longitude, north, meridian));
+	}
+
+	static boolean inLongitudeRange(double longitude, double west, double east)
+	{
+		// a range with west > east crosses the antimeridian
+		if (west <= east)
+			return longitude >= west && longitude <= east;
+		else
+			return longitude >= west || longitude <= east;
+	}
+
+}
@@ -0,0 +1,127 @@
+//
+// a binary min-heap of (distance, id) pairs kept in primitive arrays
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.spots;
+
+final class DistanceHeap
+{
+
+	private double[] _keys;
+	private long[] _values;
+	private int _size;
+
+	DistanceHeap(int initialCapacity)
+	{
+		_keys = new double[Math.max(initialCapacity, 4)];
+		_values = new long[_keys.length];
+	}
+
+	int size()
+	{
+		return _size;
+	}
+
+	void clear()
+	{
+		_size = 0;
+	}
+
+	double peekKey()
+	{
+		return _keys[0];
+	}
+
+	long peekValue()
+	{
+		return _values[0];
+	}
+
+	//
+	// the entries in heap order (not sorted), for reading a heap without emptying it
+	//
+	double keyAt(int index)
+	{
+		return _keys[index];
+	}
+
+	long valueAt(int index)
+	{
+		return _values[index];
+	}
+
+	void push(double key, long value)
+	{
+		if (_size == _keys.length)
+		{
+			double[] keys = new double[_size * 2];
+			long[] values = new long[_size * 2];
+			System.arraycopy(_keys, 0, keys, 0, _size);
+			System.arraycopy(_values, 0, values, 0, _size);
+			_keys = keys;
+			_values = values;
+		}
+
+		int i = _size++;
+		while (i > 0)
+		{
+			int parent = (i - 1) >> 1;
+			if (_keys[parent] <= key)
+				break;
+
+			_keys[i] = _keys[parent];
+			_values[i] = _values[parent];
+			i = parent;
+		}
+
+		_keys[i] = key;
+		_values[i] = value;
+	}
+
+	//
+	// removes the smallest entry, its key and value should be read with peekKey()/peekValue() first
+	//
+	void pop()
+	{
+		_size--;
+		if (_size == 0)
+			return;
+
+		double key = _keys[_size];
+		long value = _values[_size];
+
+		int i = 0;
+		int half = _size >> 1;
+		while (i < half)
+		{
+			int child = 2 * i + 1;
+			if (child + 1 < _size && _keys[child + 1] < _keys[child])
+				child++;
+
+			if (key <= _keys[child])
+				break;
+
+			_keys[i] = _keys[child];
+			_values[i] = _values[child];
+			i = child;
+		}
+
+		_keys[i] = key;
+		_values[i] = value;
+	}
+
+}
@@ -0,0 +1,411 @@
+//
+// annotates spots asynchronously for servers that handle each spot on its own
+// (request) thread: the locator of the spot and its distance and bearing from
+// a few home stations. the requests wait in a bounded queue, a worker thread
+// takes them in batches (up to batchSize, or what arrived within maxDelay of
+// the first one) and runs the batch kernels of BulkLocatorEncoder and
+// DistanceCaclulator over them, then completes their futures.
+//
+// when the queue is full annotate() waits and tryAnnotate() returns null, so
+// a flood of spots slows the producers instead of growing the memory. the
+// service only uses java.util.concurrent locks and queues, never a monitor,
+// so callers can be virtual threads (and the worker too, through the thread
+// factory) without pinning their carrier.
+//
+// the futures are completed on the worker thread, dependent actions that take
+// time should use the ...Async methods of CompletableFuture.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.spots;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.BulkLocatorEncoder;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public final class GeoAnnotationService implements AutoCloseable
+{
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+	public static final int DEFAULT_BATCH_SIZE = 256;
+	public static final long DEFAULT_MAX_DELAY_MICROS = 500;
+
+	// how often an idle worker looks whether the service was closed
+	private static final long IDLE_POLL_MILLIS = 50;
+
+	//
+	// the result of one request. an invalid spot has LocatorCode.INVALID and NaN distances/bearings
+	//
+	public static final class Annotation
+	{
+		private final double _latitude;
+		private final double _longitude;
+		private final long _locator;
+		private final double[] _distances;
+		private final double[] _bearings;
+
+		Annotation(double latitude, double longitude, long locator, double[] distances, double[] bearings)
+		{
+			_latitude = latitude;
+			_longitude = longitude;
+			_locator = locator;
+			_distances = distances;
+			_bearings = bearings;
+		}
+
+		public double getLatitude()
+		{
+			return _latitude;
+		}
+
+		public double getLongitude()
+		{
+			return _longitude;
+		}
+
+		public boolean isValid()
+		{
+			return _locator != LocatorCode.INVALID;
+		}
+
+		//
+		// the packed locator code (see LocatorCode)
+		//
+		public long getLocatorCode()
+		{
+			return _locator;
+		}
+
+		public String getLocator()
+		{
+			return isValid() ? LocatorCode.toString(_locator) : null;
+		}
+
+		public int getHomeCount()
+		{
+			return _distances.length;
+		}
+
+		//
+		// the distance in Km from the home station (in the order given to the service)
+		//
+		public double getDistance(int home)
+		{
+			return _distances[home];
+		}
+
+		public double getBearing(int home)
+		{
+			return _bearings[home];
+		}
+	}
+
+	private static final class Request
+	{
+		final double latitude;
+		final double longitude;
+		final CompletableFuture<Annotation> future = new CompletableFuture<Annotation>();
+
+		Request(double latitude, double longitude)
+		{
+			this.latitude = latitude;
+			this.longitude = longitude;
+		}
+	}
+
+	private final double[] _homeLatitudes;
+	private final double[] _homeLongitudes;
+	private final int _locatorLength;
+	private final int _batchSize;
+	private final long _maxDelayNanos;
+
+	private final BlockingQueue<Request> _queue;
+	// submitters hold the read lock while they check _closed and queue, close() takes the write lock,
+	// so nothing is queued after the worker was told to finish
+	private final ReentrantReadWriteLock _closeLock = new ReentrantReadWriteLock();
+	private volatile boolean _closed;
+	private final Thread _worker;
+
+	private final AtomicLong _batches = new AtomicLong();
+	private final AtomicLong _annotated = new AtomicLong();
+
+	public GeoAnnotationService(double[] homeLatitudes, double[] homeLongitudes)
+	{
+		this(homeLatitudes, homeLongitudes, LocatorEncoder.DEFAULT_LENGTH, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE,
+				DEFAULT_MAX_DELAY_MICROS, TimeUnit.MICROSECONDS, null);
+	}
+
+	//
+	// locatorLength (2..10) of the locators, queueCapacity the requests that can wait, batchSize the most requests
+	// of a batch and maxDelay how long the first request of a batch waits for more. the worker thread comes from
+	// threadFactory (e.g. a factory of virtual threads), a daemon platform thread if it is null
+	//
+	public GeoAnnotationService(double[] homeLatitudes, double[] homeLongitudes, int locatorLength, int queueCapacity, int batchSize,
+			long maxDelay, TimeUnit unit, ThreadFactory threadFactory)
+	{
+		if (homeLatitudes.length != homeLongitudes.length)
+			throw new IllegalArgumentException("every home station needs a latitude and a longitude");
+		for (int i = 0; i < homeLatitudes.length; i++)
+		{
+			if (!LocatorEncoder.isValid(homeLatitudes[i], homeLongitudes[i]))
+				throw new IllegalArgumentException("invalid home station " + homeLatitudes[i] + "," + homeLongitudes[i]);
+		}
+		if (locatorLength < LocatorCode.MIN_PAIRS * 2 || locatorLength > LocatorCode.MAX_PAIRS * 2 || (locatorLength & 1) != 0)
+			throw new IllegalArgumentException("locator length must be 2, 4, 6, 8 or 10 characters");
+		if (queueCapacity <= 0 || batchSize <= 0 || maxDelay < 0)
+			throw new IllegalArgumentException("the queue capacity and the batch size must be positive and the delay not negative");
+
+		_homeLatitudes = homeLatitudes.clone();
+		_homeLongitudes = homeLongitudes.clone();
+		_locatorLength = locatorLength;
+		_batchSize = batchSize;
+		_maxDelayNanos = unit.toNanos(maxDelay);
+		_queue = new ArrayBlockingQueue<Request>(queueCapacity);
+
+		Runnable work = new Runnable()
+		{
+			public void run()
+			{
+				work();
+			}
+		};
+
+		if (threadFactory != null)
+		{
+			_worker = threadFactory.newThread(work);
+		}
+		else
+		{
+			_worker = new Thread(work, "geo-annotation");
+			_worker.setDaemon(true);
+		}
+		_worker.start();
+	}
+
+	//
+	// queues a spot, waiting while the queue is full
+	//
+	public CompletableFuture<Annotation> annotate(double latitude, double longitude) throws InterruptedException
+	{
+		Request request = new Request(latitude, longitude);
+
+		_closeLock.readLock().lockInterruptibly();
+		try
+		{
+			checkOpen();
+			_queue.put(request);
+		}
+		finally
+		{
+			_closeLock.readLock().unlock();
+		}
+
+		return request.future;
+	}
+
+	//
+	// queues a spot if there is room, null if the queue is full (for callers that must not block)
+	//
+	public CompletableFuture<Annotation> tryAnnotate(double latitude, double longitude)
+	{
+		Request request = new Request(latitude, longitude);
+
+		_closeLock.readLock().lock();
+		try
+		{
+			checkOpen();
+			if (!_queue.offer(request))
+				return null;
+		}
+		finally
+		{
+			_closeLock.readLock().unlock();
+		}
+
+		return request.future;
+	}
+
+	//
+	// stops taking requests, annotates the ones already queued and waits for the worker to finish.
+	// an interrupt does not cut the wait short, the interrupt flag of the thread is set again when it returns
+	//
+	public void close()
+	{
+		_closeLock.writeLock().lock();
+		try
+		{
+			_closed = true;
+		}
+		finally
+		{
+			_closeLock.writeLock().unlock();
+		}
+
+		if (Thread.currentThread() == _worker)
+			return;
+
+		boolean interrupted = false;
+		while (true)
+		{
+			try
+			{
+				_worker.join();
+				break;
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	public boolean isClosed()
+	{
+		return _closed;
+	}
+
+	public int getQueued()
+	{
+		return _queue.size();
+	}
+
+	public long getBatches()
+	{
+		return _batches.get();
+	}
+
+	public long getAnnotated()
+	{
+		return _annotated.get();
+	}
+
+	private void checkOpen()
+	{
+		if (_closed)
+			throw new IllegalStateException("the annotation service is closed");
+	}
+
+	private void work()
+	{
+		List<Request> batch = new ArrayList<Request>(_batchSize);
+
+		double[] latitudes = new double[_batchSize];
+		double[] longitudes = new double[_batchSize];
+		long[] codes = new long[_batchSize];
+		byte[] status = new byte[_batchSize];
+		double[][] distances = new double[_homeLatitudes.length][_batchSize];
+		double[][] bearings = new double[_homeLatitudes.length][_batchSize];
+
+		while (true)
+		{
+			try
+			{
+				if (!collect(batch))
+					return;
+			}
+			catch (InterruptedException e)
+			{
+				// only close() ends the worker, the requests taken so far are still annotated
+				if (batch.isEmpty())
+					continue;
+			}
+
+			int count = batch.size();
+			for (int i = 0; i < count; i++)
+			{
+				latitudes[i] = batch.get(i).latitude;
+				longitudes[i] = batch.get(i).longitude;
+			}
+
+			BulkLocatorEncoder.encode(latitudes, longitudes, _locatorLength, codes, status, 0, count);
+			for (int home = 0; home < _homeLatitudes.length; home++)
+			{
+				DistanceCaclulator.distancesFrom(_homeLatitudes[home], _homeLongitudes[home], latitudes, longitudes, distances[home], 0, count);
+				DistanceCaclulator.bearingsTo(_homeLatitudes[home], _homeLongitudes[home], latitudes, longitudes, bearings[home], 0, count);
+			}
+
+			_batches.incrementAndGet();
+			_annotated.addAndGet(count);
+
+			for (int i = 0; i < count; i++)
+			{
+				boolean valid = status[i] == LocatorEncoder.OK;
+				double[] spotDistances = new double[_homeLatitudes.length];
+				double[] spotBearings = new double[_homeLatitudes.length];
+				for (int home = 0; home < spotDistances.length; home++)
+				{
+					spotDistances[home] = valid ? distances[home][i] : Double.NaN;
+					spotBearings[home] = valid ? bearings[home][i] : Double.NaN;
+				}
+
+				Request request = batch.get(i);
+				request.future.complete(new Annotation(request.latitude, request.longitude, codes[i], spotDistances, spotBearings));
+			}
+
+			batch.clear();
+		}
+	}
+
+	//
+	// waits for the first request and gathers the batch, false when the service is closed and the queue is empty
+	//
+	private boolean collect(List<Request> batch) throws InterruptedException
+	{
+		Request first = null;
+		while (first == null)
+		{
+			if (_closed && _queue.isEmpty())
+				return false;
+			first = _queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		batch.add(first);
+
+		long deadline = System.nanoTime() + _maxDelayNanos;
+		while (batch.size() < _batchSize)
+		{
+			// what is already waiting, then whatever arrives before the deadline
+			if (_queue.drainTo(batch, _batchSize - batch.size()) > 0)
+				continue;
+
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0 || _closed)
+				break;
+
+			Request next = _queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null)
+				break;
+			batch.add(next);
+		}
+
+		return true;
+	}
+
+}
@@ -0,0 +1,384 @@
+//
+// a spatial index of stations/spots keyed by grid locator cell. the points are
+// kept in buckets, one per square (4 character locator), and a count is kept
+// per field, so a query first skips whole fields and squares by the distance
+// to their edges and only calculates the exact distance of the points left.
+//
+// points are identified by an int id given by the caller (e.g. the row of a
+// SpotTable), inserting and removing a point are O(1). the index is not
+// thread safe, a live spot stream should feed it from one thread.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.spots;
+
+import java.util.Arrays;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class SpotIndex
+{
+
+	private static final int FIELD_PAIRS = 1;
+	private static final int SQUARE_PAIRS = 2;
+
+	private static final int FIELDS_PER_AXIS = LocatorCode.cellsPerAxis(FIELD_PAIRS);
+	private static final int SQUARES_PER_AXIS = LocatorCode.cellsPerAxis(SQUARE_PAIRS);
+	private static final int SQUARES_PER_FIELD_AXIS = SQUARES_PER_AXIS / FIELDS_PER_AXIS;
+
+	private static final int NO_CELL = -1;
+
+	//
+	// receives the results of a query, distance is the distance (in Km) from the query point
+	// or NaN for the queries without one (withinBounds)
+	//
+	public interface Visitor
+	{
+		void visit(int id, double distance);
+	}
+
+	// per id
+	private double[] _latitudes;
+	private double[] _longitudes;
+	private int[] _squares;
+	private int[] _slots;
+
+	// per square (cell id of the 4 character locator) the ids in it
+	private final int[][] _buckets = new int[SQUARES_PER_AXIS * SQUARES_PER_AXIS][];
+	private final int[] _bucketSizes = new int[SQUARES_PER_AXIS * SQUARES_PER_AXIS];
+
+	// per field (cell id of the 2 character locator) the number of points in it
+	private final int[] _fieldCounts = new int[FIELDS_PER_AXIS * FIELDS_PER_AXIS];
+
+	private int _size;
+
+	// reused by nearest()
+	private final DistanceHeap _cells = new DistanceHeap(64);
+	private final DistanceHeap _best = new DistanceHeap(16);
+
+	public SpotIndex()
+	{
+		this(1024);
+	}
+
+	public SpotIndex(int expectedIds)
+	{
+		int capacity = Math.max(expectedIds, 16);
+		_latitudes = new double[capacity];
+		_longitudes = new double[capacity];
+		_squares = new int[capacity];
+		_slots = new int[capacity];
+		Arrays.fill(_squares, NO_CELL);
+	}
+
+	//
+	// adds a point, or moves it if the id is already in the index
+	//
+	public void insert(int id, double latitude, double longitude)
+	{
+		if (id < 0)
+			throw new IllegalArgumentException("id cannot be negative");
+
+		long square = LocatorEncoder.encode(latitude, longitude, SQUARE_PAIRS * 2);
+		if (square == LocatorCode.INVALID)
+			throw new IllegalArgumentException("invalid coordinates " + latitude + "," + longitude);
+
+		ensureCapacity(id + 1);
+		remove(id);
+
+		int cell = LocatorCode.cellId(square);
+		int slot = _bucketSizes[cell];
+		int[] bucket = _buckets[cell];
+		if (bucket == null)
+		{
+			bucket = new int[4];
+			_buckets[cell] = bucket;
+		}
+		else if (slot == bucket.length)
+		{
+			int[] larger = new int[bucket.length * 2];
+			System.arraycopy(bucket, 0, larger, 0, slot);
+			bucket = larger;
+			_buckets[cell] = bucket;
+		}
+
+		bucket[slot] = id;
+		_bucketSizes[cell] = slot + 1;
+		_fieldCounts[fieldOf(cell)]++;
+
+		_latitudes[id] = latitude;
+		_longitudes[id] = longitude;
+		_squares[id] = cell;
+		_slots[id] = slot;
+		_size++;
+	}
+
+	//
+	// removes a point, returns false if the id was not in the index
+	//
+	public boolean remove(int id)
+	{
+		if (!contains(id))
+			return false;
+
+		int cell = _squares[id];
+		int slot = _slots[id];
+		int[] bucket = _buckets[cell];
+		int last = _bucketSizes[cell] - 1;
+
+		// the last id of the bucket takes the place of the removed one
+		int moved = bucket[last];
+		bucket[slot] = moved;
+		_slots[moved] = slot;
+		_bucketSizes[cell] = last;
+		_fieldCounts[fieldOf(cell)]--;
+
+		_squares[id] = NO_CELL;
+		_size--;
+		return true;
+	}
+
+	public boolean contains(int id)
+	{
+		return id >= 0 && id < _squares.length && _squares[id] != NO_CELL;
+	}
+
+	public int size()
+	{
+		return _size;
+	}
+
+	public double latitudeOf(int id)
+	{
+		return _latitudes[id];
+	}
+
+	public double longitudeOf(int id)
+	{
+		return _longitudes[id];
+	}
+
+	//
+	// visits every point within radius Km of the point, returns the number of points visited
+	//
+	public int withinDistance(double latitude, double longitude, double radius, Visitor visitor)
+	{
+		int found = 0;
+		double limit = radius + CellBounds.MARGIN_KM;
+
+		for (int field = 0; field < _fieldCounts.length; field++)
+		{
+			if (_fieldCounts[field] == 0)
+				continue;
+
+			if (CellBounds.minDistance(latitude, longitude, fieldCode(field)) > limit)
+				continue;
+
+			int firstLongitude = (field / FIELDS_PER_AXIS) * SQUARES_PER_FIELD_AXIS;
+			int firstLatitude = (field % FIELDS_PER_AXIS) * SQUARES_PER_FIELD_AXIS;
+
+			for (int longitudeIndex = firstLongitude; longitudeIndex < firstLongitude + SQUARES_PER_FIELD_AXIS; longitudeIndex++)
+			{
+				for (int latitudeIndex = firstLatitude; latitudeIndex < firstLatitude + SQUARES_PER_FIELD_AXIS; latitudeIndex++)
+				{
+					int cell = longitudeIndex * SQUARES_PER_AXIS + latitudeIndex;
+					int size = _bucketSizes[cell];
+					if (size == 0)
+						continue;
+
+					if (CellBounds.minDistance(latitude, longitude, LocatorCode.pack(SQUARE_PAIRS, longitudeIndex, latitudeIndex)) > limit)
+						continue;
+
+					int[] bucket = _buckets[cell];
+					for (int i = 0; i < size; i++)
+					{
+						int id = bucket[i];
+						double distance = DistanceCaclulator.distanceFrom(latitude, longitude, _latitudes[id], _longitudes[id]);
+						if (distance <= radius)
+						{
+							visitor.visit(id, distance);
+							found++;
+						}
+					}
+				}
+			}
+		}
+
+		return found;
+	}
+
+	//
+	// finds the k points nearest to the point. their ids and distances are written in ids[0..] and distances[0..]
+	// nearest first, returns the number of points found (less than k if the index has fewer points)
+	//
+	public int nearest(double latitude, double longitude, int k, int[] ids, double[] distances)
+	{
+		if (k <= 0)
+			return 0;
+
+		// cells are visited nearest edge first: fields are pushed with negative values and
+		// replaced by their squares when they come up, squares are scanned point by point.
+		// _best keeps the k nearest points found so far with negated distances, so its top is the farthest of them
+		_cells.clear();
+		_best.clear();
+
+		for (int field = 0; field < _fieldCounts.length; field++)
+		{
+			if (_fieldCounts[field] > 0)
+				_cells.push(CellBounds.minDistance(latitude, longitude, fieldCode(field)), -(field + 1));
+		}
+
+		while (_cells.size() > 0)
+		{
+			double bound = _cells.peekKey();
+			long cell = _cells.peekValue();
+			_cells.pop();
+
+			if (_best.size() == k && bound > -_best.peekKey() + CellBounds.MARGIN_KM)
+				break;
+
+			if (cell < 0)
+			{
+				int field = (int)(-cell - 1);
+				int firstLongitude = (field / FIELDS_PER_AXIS) * SQUARES_PER_FIELD_AXIS;
+				int firstLatitude = (field % FIELDS_PER_AXIS) * SQUARES_PER_FIELD_AXIS;
+
+				for (int longitudeIndex = firstLongitude; longitudeIndex < firstLongitude + SQUARES_PER_FIELD_AXIS; longitudeIndex++)
+				{
+					for (int latitudeIndex = firstLatitude; latitudeIndex < firstLatitude + SQUARES_PER_FIELD_AXIS; latitudeIndex++)
+					{
+						int square = longitudeIndex * SQUARES_PER_AXIS + latitudeIndex;
+						if (_bucketSizes[square] > 0)
+							_cells.push(CellBounds.minDistance(latitude, longitude, LocatorCode.pack(SQUARE_PAIRS, longitudeIndex, latitudeIndex)), square);
+					}
+				}
+				continue;
+			}
+
+			int square = (int)cell;
+			int[] bucket = _buckets[square];
+			int size = _bucketSizes[square];
+			for (int i = 0; i < size; i++)
+			{
+				int id = bucket[i];
+				double distance = DistanceCaclulator.distanceFrom(latitude, longitude, _latitudes[id], _longitudes[id]);
+
+				if (_best.size() < k)
+				{
+					_best.push(-distance, id);
+				}
+				else if (distance < -_best.peekKey())
+				{
+					_best.pop();
+					_best.push(-distance, id);
+				}
+			}
+		}
+
+		// _best comes out farthest first
+		int found = _best.size();
+		for (int i = found - 1; i >= 0; i--)
+		{
+			distances[i] = -_best.peekKey();
+			ids[i] = (int)_best.peekValue();
+			_best.pop();
+		}
+
+		return found;
+	}
+
+	//
+	// visits every point inside the box, a box with west > east crosses the antimeridian.
+	// returns the number of points visited
+	//
+	public int withinBounds(double south, double west, double north, double east, Visitor visitor)
+	{
+		int found = 0;
+
+		int firstLatitude = Math.max(0, (int)Math.floor(south + 90.0));
+		int lastLatitude = Math.min(SQUARES_PER_AXIS - 1, (int)Math.floor(north + 90.0));
+		int firstLongitude = Math.max(0, (int)Math.floor((west + 180.0) / 2.0));
+		int lastLongitude = Math.min(SQUARES_PER_AXIS - 1, (int)Math.floor((east + 180.0) / 2.0));
+
+		// a box crossing the antimeridian goes on from the last column to the first one
+		int columns = west <= east ? lastLongitude - firstLongitude + 1 : SQUARES_PER_AXIS - firstLongitude + lastLongitude + 1;
+
+		for (int column = 0; column < columns; column++)
+		{
+			int longitudeIndex = (firstLongitude + column) % SQUARES_PER_AXIS;
+
+			for (int latitudeIndex = firstLatitude; latitudeIndex <= lastLatitude; latitudeIndex++)
+			{
+				int cell = longitudeIndex * SQUARES_PER_AXIS + latitudeIndex;
+				int size = _bucketSizes[cell];
+				int[] bucket = _buckets[cell];
+
+				for (int i = 0; i < size; i++)
+				{
+					int id = bucket[i];
+					double latitude = _latitudes[id];
+					if (latitude >= south && latitude <= north && CellBounds.inLongitudeRange(_longitudes[id], west, east))
+					{
+						visitor.visit(id, Double.NaN);
+						found++;
+					}
+				}
+			}
+		}
+
+		return found;
+	}
+
+	private static int fieldOf(int square)
+	{
+		int longitudeIndex = square / SQUARES_PER_AXIS;
+		int latitudeIndex = square % SQUARES_PER_AXIS;
+
+		return (longitudeIndex / SQUARES_PER_FIELD_AXIS) * FIELDS_PER_AXIS + latitudeIndex / SQUARES_PER_FIELD_AXIS;
+	}
+
+	private static long fieldCode(int field)
+	{
+		return LocatorCode.fromCellId(field, FIELD_PAIRS);
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= _squares.length)
+			return;
+
+		int newCapacity = Math.max(capacity, _squares.length * 2);
+
+		double[] latitudes = new double[newCapacity];
+		double[] longitudes = new double[newCapacity];
+		int[] squares = new int[newCapacity];
+		int[] slots = new int[newCapacity];
+
+		System.arraycopy(_latitudes, 0, latitudes, 0, _latitudes.length);
+		System.arraycopy(_longitudes, 0, longitudes, 0, _longitudes.length);
+		System.arraycopy(_squares, 0, squares, 0, _squares.length);
+		System.arraycopy(_slots, 0, slots, 0, _slots.length);
+		Arrays.fill(squares, _squares.length, newCapacity, NO_CELL);
+
+		_latitudes = latitudes;
+		_longitudes = longitudes;
+		_squares = squares;
+		_slots = slots;
+	}
+
+}
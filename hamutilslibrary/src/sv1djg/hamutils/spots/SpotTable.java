@@ -0,0 +1,283 @@
+//
+// a columnar store of spots (or QSOs). each spot is kept as a row of primitive
+// columns: latitude, longitude, packed locator code (see LocatorCode) and the
+// distance / bearing from the home station, calculated once when it is added.
+// CoordinateSet and GridLocator objects are only created when asked for.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+package sv1djg.hamutils.spots;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.distances.DistanceCaclulator.CoordinateSet;
+import sv1djg.hamutils.locator.GridLocator;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public class SpotTable
+{
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    //
+    // receives the rows of the table without creating any objects
+    //
+    public interface Visitor
+    {
+	void visit(int index, double latitude, double longitude, long locator, double distance, double bearing);
+    }
+
+    private double _homeLatitude;
+    private double _homeLongitude;
+    private final int _locatorLength;
+
+    private double[] _latitudes;
+    private double[] _longitudes;
+    private long[] _locators;
+    private double[] _distances;
+    private double[] _bearings;
+    private int _size;
+
+    public SpotTable(double homeLatitude, double homeLongitude)
+    {
+	this(homeLatitude, homeLongitude, LocatorEncoder.DEFAULT_LENGTH, DEFAULT_CAPACITY);
+    }
+
+    //
+    // locatorLength is the length (2..10) of the locator codes kept for each spot
+    //
+    public SpotTable(double homeLatitude, double homeLongitude, int locatorLength, int initialCapacity)
+    {
+	if (locatorLength < LocatorCode.MIN_PAIRS * 2 || locatorLength > LocatorCode.MAX_PAIRS * 2 || (locatorLength & 1) != 0)
+	    throw new IllegalArgumentException("locator length must be 2, 4, 6, 8 or 10 characters");
+
+	_homeLatitude = homeLatitude;
+	_homeLongitude = homeLongitude;
+	_locatorLength = locatorLength;
+
+	int capacity = Math.max(initialCapacity, 16);
+	_latitudes = new double[capacity];
+	_longitudes = new double[capacity];
+	_locators = new long[capacity];
+	_distances = new double[capacity];
+	_bearings = new double[capacity];
+    }
+
+    //
+    // adds one spot and returns its index. invalid coordinates are kept with an INVALID locator and NaN distance/bearing
+    //
+    public int add(double latitude, double longitude)
+    {
+	ensureCapacity(_size + 1);
+
+	int index = _size++;
+	_latitudes[index] = latitude;
+	_longitudes[index] = longitude;
+	calculate(index, 1);
+
+	return index;
+    }
+
+    //
+    // adds count spots from the arrays starting at offset, the distances and bearings are calculated in one batch
+    //
+    public void addAll(double[] latitudes, double[] longitudes, int offset, int count)
+    {
+	ensureCapacity(_size + count);
+
+	System.arraycopy(latitudes, offset, _latitudes, _size, count);
+	System.arraycopy(longitudes, offset, _longitudes, _size, count);
+
+	int start = _size;
+	_size += count;
+	calculate(start, count);
+    }
+
+    //
+    // moves the home station, all the distances and bearings are calculated again
+    //
+    public void setHome(double homeLatitude, double homeLongitude)
+    {
+	_homeLatitude = homeLatitude;
+	_homeLongitude = homeLongitude;
+	calculate(0, _size);
+    }
+
+    public void clear()
+    {
+	_size = 0;
+    }
+
+    public int size()
+    {
+	return _size;
+    }
+
+    public double getHomeLatitude()
+    {
+	return _homeLatitude;
+    }
+
+    public double getHomeLongitude()
+    {
+	return _homeLongitude;
+    }
+
+    public int getLocatorLength()
+    {
+	return _locatorLength;
+    }
+
+    public double latitudeAt(int index)
+    {
+	checkIndex(index);
+	return _latitudes[index];
+    }
+
+    public double longitudeAt(int index)
+    {
+	checkIndex(index);
+	return _longitudes[index];
+    }
+
+    public long locatorAt(int index)
+    {
+	checkIndex(index);
+	return _locators[index];
+    }
+
+    public double distanceAt(int index)
+    {
+	checkIndex(index);
+	return _distances[index];
+    }
+
+    public double bearingAt(int index)
+    {
+	checkIndex(index);
+	return _bearings[index];
+    }
+
+    public void forEach(Visitor visitor)
+    {
+	forEach(0, _size, visitor);
+    }
+
+    //
+    // visits the rows from (inclusive) .. to (exclusive)
+    //
+    public void forEach(int from, int to, Visitor visitor)
+    {
+	if (from < 0 || to > _size || from > to)
+	    throw new IndexOutOfBoundsException("rows " + from + ".." + to + " of " + _size);
+
+	for (int i = from; i < to; i++)
+	    visitor.visit(i, _latitudes[i], _longitudes[i], _locators[i], _distances[i], _bearings[i]);
+    }
+
+    //
+    // the views below create a new object on every call
+    //
+    public CoordinateSet coordinateSetAt(int index)
+    {
+	checkIndex(index);
+	return new CoordinateSet(_latitudes[index], _longitudes[index]);
+    }
+
+    public GridLocator gridLocatorAt(int index) throws Exception
+    {
+	checkIndex(index);
+	return new GridLocator(_latitudes[index], _longitudes[index]);
+    }
+
+    //
+    // the columns themselves, for the other classes of the package that work on them in batches.
+    // only the first size() entries are in use
+    //
+    double[] latitudes()
+    {
+	return _latitudes;
+    }
+
+    double[] longitudes()
+    {
+	return _longitudes;
+    }
+
+    long[] locators()
+    {
+	return _locators;
+    }
+
+    double[] distances()
+    {
+	return _distances;
+    }
+
+    double[] bearings()
+    {
+	return _bearings;
+    }
+
+    private void calculate(int offset, int count)
+    {
+	DistanceCaclulator.distancesFrom(_homeLatitude, _homeLongitude, _latitudes, _longitudes, _distances, offset, count);
+	DistanceCaclulator.bearingsTo(_homeLatitude, _homeLongitude, _latitudes, _longitudes, _bearings, offset, count);
+
+	int end = offset + count;
+	for (int i = offset; i < end; i++)
+	{
+	    long locator = LocatorEncoder.encode(_latitudes[i], _longitudes[i], _locatorLength);
+	    _locators[i] = locator;
+
+	    if (locator == LocatorCode.INVALID)
+	    {
+		_distances[i] = Double.NaN;
+		_bearings[i] = Double.NaN;
+	    }
+	}
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+	if (capacity <= _latitudes.length)
+	    return;
+
+	int newCapacity = Math.max(capacity, _latitudes.length + (_latitudes.length >> 1));
+	_latitudes = copyOf(_latitudes, newCapacity);
+	_longitudes = copyOf(_longitudes, newCapacity);
+	_distances = copyOf(_distances, newCapacity);
+	_bearings = copyOf(_bearings, newCapacity);
+
+	long[] locators = new long[newCapacity];
+	System.arraycopy(_locators, 0, locators, 0, _size);
+	_locators = locators;
+    }
+
+    private double[] copyOf(double[] column, int capacity)
+    {
+	double[] copy = new double[capacity];
+	System.arraycopy(column, 0, copy, 0, _size);
+	return copy;
+    }
+
+    private void checkIndex(int index)
+    {
+	if (index < 0 || index >= _size)
+	    throw new IndexOutOfBoundsException("row " + index + " of " + _size);
+    }
+
+}
@@ -0,0 +1,428 @@
+//
+// keeps the spots of a sliding time window for dashboards that ask the same
+// questions on every refresh: the longest paths of each band and the busiest
+// squares. the distance of a spot is calculated once when it arrives and the
+// window is a ring of time buckets, each with a bounded heap of its longest
+// paths per band and the squares of its spots. a bucket that leaves the window
+// is reused for the next one: its heaps are reset at once and its spots are
+// taken off the running count of their squares, so the work stays the same
+// per spot however long the window is. the longest paths are the merge of a
+// few small heaps and the count of a square is one read, no spot is scanned.
+//
+// the buckets are split in stripes, each with its own lock, and every thread
+// adds to its own stripe, so several ingest threads do not wait for each other.
+// the squares are those of the spotted (dx) stations. the time is in
+// milliseconds (e.g. System.currentTimeMillis()), the window ends at the newest
+// spot (or advance()), spots older than the window are not taken. neither are
+// spots more than a window ahead of the newest one (a skewed clock, a time in
+// microseconds), one of them would otherwise move the window past every real spot.
+//
+// Copyright 2011, Nick Tsakonas
+//
+//   This program is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    This program is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+
+package sv1djg.hamutils.spots;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import sv1djg.hamutils.distances.DistanceCaclulator;
+import sv1djg.hamutils.locator.GridSet;
+import sv1djg.hamutils.locator.LocatorCode;
+import sv1djg.hamutils.locator.LocatorEncoder;
+
+public final class SpotWindow
+{
+
+	public static final int DEFAULT_STRIPES = 16;
+
+	// the bucket number of a bucket that holds no spots
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private static final int SQUARE_PAIRS = 2;
+
+	private static final class Bucket
+	{
+		long number = EMPTY;
+		final DistanceHeap[] longest;	// per band, the topK longest paths (the shortest of them on top)
+		int[] squares = new int[64];	// the square of every spot
+		int spots;
+
+		Bucket(int bands, int topK)
+		{
+			longest = new DistanceHeap[bands];
+			for (int band = 0; band < bands; band++)
+				longest[band] = new DistanceHeap(topK);
+		}
+	}
+
+	private static final class Stripe
+	{
+		final Bucket[] buckets;
+
+		Stripe(int count, int bands, int topK)
+		{
+			buckets = new Bucket[count];
+			for (int i = 0; i < count; i++)
+				buckets[i] = new Bucket(bands, topK);
+		}
+	}
+
+	private final int _bands;
+	private final int _topK;
+	private final long _bucketMillis;
+	private final int _bucketCount;
+
+	private final Stripe[] _stripes;
+
+	// the newest bucket number, the window is the _bucketCount buckets up to it
+	private final AtomicLong _newest = new AtomicLong(EMPTY);
+
+	// the spots of each square (by LocatorCode.cellId()) in the window
+	private final AtomicIntegerArray _squareCounts = new AtomicIntegerArray(GridSet.SQUARES);
+	private final AtomicLong _spots = new AtomicLong();
+	private final AtomicLong _rejected = new AtomicLong();
+
+	public SpotWindow(int bands, long window, long bucket, TimeUnit unit, int topK)
+	{
+		this(bands, window, bucket, unit, topK, DEFAULT_STRIPES);
+	}
+
+	//
+	// bands is the number of bands (the caller numbers them 0 .. bands-1), the window is rounded up to a whole
+	// number of buckets, topK is the most longest paths a query returns and stripes (a power of 2) the number
+	// of independently locked parts
+	//
+	public SpotWindow(int bands, long window, long bucket, TimeUnit unit, int topK, int stripes)
+	{
+		if (bands <= 0 || topK <= 0)
+			throw new IllegalArgumentException("the number of bands and topK must be positive");
+		if (window <= 0 || bucket <= 0 || unit.toMillis(bucket) == 0 || bucket > window)
+			throw new IllegalArgumentException("the bucket must be at least a millisecond and not longer than the window");
+		if (stripes <= 0 || (stripes & (stripes - 1)) != 0)
+			throw new IllegalArgumentException("the number of stripes must be a power of 2");
+
+		_bands = bands;
+		_topK = topK;
+		_bucketMillis = unit.toMillis(bucket);
+
+		long count = (unit.toMillis(window) + _bucketMillis - 1) / _bucketMillis;
+		if (count > 1 << 16)
+			throw new IllegalArgumentException("the window can have up to 65536 buckets");
+		_bucketCount = (int)count;
+
+		_stripes = new Stripe[stripes];
+		for (int i = 0; i < stripes; i++)
+			_stripes[i] = new Stripe(_bucketCount, bands, topK);
+	}
+
+	//
+	// adds a spot heard at time, id is the caller's reference to it (returned by longestPaths()).
+	// false (and nothing added) if a station has invalid coordinates or the spot is older than the window
+	// or more than a window ahead of the newest spot
+	//
+	public boolean add(long time, int band, double fromLatitude, double fromLongitude, double toLatitude, double toLongitude, long id)
+	{
+		checkBand(band);
+
+		long square = LocatorEncoder.encode(toLatitude, toLongitude, SQUARE_PAIRS * 2);
+		if (square == LocatorCode.INVALID || !LocatorEncoder.isValid(fromLatitude, fromLongitude))
+		{
+			_rejected.incrementAndGet();
+			return false;
+		}
+
+		double distance = DistanceCaclulator.distanceFrom(fromLatitude, fromLongitude, toLatitude, toLongitude);
+		return add(time, band, distance, LocatorCode.cellId(square), id);
+	}
+
+	//
+	// adds a spot of which only the locators are known (of at least 4 characters), the distance is between the cell centres
+	//
+	public boolean add(long time, int band, long fromCode, long toCode, long id)
+	{
+		checkBand(band);
+
+		if (!LocatorCode.isValid(fromCode) || !LocatorCode.isValid(toCode) || LocatorCode.pairs(toCode) < SQUARE_PAIRS)
+		{
+			_rejected.incrementAndGet();
+			return false;
+		}
+
+		double distance = DistanceCaclulator.distanceFrom(LocatorCode.centreLatitude(fromCode), LocatorCode.centreLongitude(fromCode),
+				LocatorCode.centreLatitude(toCode), LocatorCode.centreLongitude(toCode));
+		return add(time, band, distance, LocatorCode.cellId(LocatorCode.truncate(toCode, SQUARE_PAIRS)), id);
+	}
+
+	//
+	// moves the end of the window to time (if it is newer), for the quiet periods when no spots arrive
+	//
+	public void advance(long time)
+	{
+		advanceTo(Math.floorDiv(time, _bucketMillis));
+	}
+
+	//
+	// the longest paths of the band in the window, longest first, in ids/distances (up to their length and topK).
+	// returns the number of paths
+	//
+	public int longestPaths(int band, long[] ids, double[] distances)
+	{
+		checkBand(band);
+
+		int wanted = Math.min(Math.min(ids.length, distances.length), _topK);
+		if (wanted == 0)
+			return 0;
+
+		long oldest = expire();
+
+		DistanceHeap merged = new DistanceHeap(wanted);
+		for (Stripe stripe : _stripes)
+		{
+			synchronized (stripe)
+			{
+				for (Bucket bucket : stripe.buckets)
+				{
+					if (bucket.number < oldest)
+						continue;
+
+					DistanceHeap longest = bucket.longest[band];
+					for (int i = 0; i < longest.size(); i++)
+						offer(merged, wanted, longest.keyAt(i), longest.valueAt(i));
+				}
+			}
+		}
+
+		return drain(merged, distances, ids);
+	}
+
+	//
+	// the number of spots in the window of the square of the code (a locator of at least 4 characters)
+	//
+	public int squareCount(long code)
+	{
+		if (!LocatorCode.isValid(code) || LocatorCode.pairs(code) < SQUARE_PAIRS)
+			throw new IllegalArgumentException("the code must be a locator of at least 4 characters");
+
+		expire();
+		return _squareCounts.get(LocatorCode.cellId(LocatorCode.truncate(code, SQUARE_PAIRS)));
+	}
+
+	//
+	// the squares with the most spots in the window, busiest first, as 4 character locator codes in codes
+	// and their spots in counts (up to their length). returns the number of squares
+	//
+	public int busiestSquares(long[] codes, int[] counts)
+	{
+		int wanted = Math.min(codes.length, counts.length);
+		if (wanted == 0)
+			return 0;
+
+		expire();
+
+		DistanceHeap busiest = new DistanceHeap(wanted);
+		for (int square = 0; square < GridSet.SQUARES; square++)
+		{
+			int count = _squareCounts.get(square);
+			if (count > 0)
+				offer(busiest, wanted, count, square);
+		}
+
+		int found = busiest.size();
+		for (int i = found - 1; i >= 0; i--)
+		{
+			counts[i] = (int)busiest.peekKey();
+			codes[i] = LocatorCode.fromCellId((int)busiest.peekValue(), SQUARE_PAIRS);
+			busiest.pop();
+		}
+		return found;
+	}
+
+	//
+	// the number of spots in the window
+	//
+	public long getSpots()
+	{
+		expire();
+		return _spots.get();
+	}
+
+	//
+	// the spots not taken, with invalid coordinates or out of the window (too old or too far ahead)
+	//
+	public long getRejected()
+	{
+		return _rejected.get();
+	}
+
+	public int getBucketCount()
+	{
+		return _bucketCount;
+	}
+
+	private boolean add(long time, int band, double distance, int square, long id)
+	{
+		long number = Math.floorDiv(time, _bucketMillis);
+
+		// the newest bucket only moves forward, so a spot from far in the future would empty the window for good
+		long newest = _newest.get();
+		if (newest != EMPTY && number - newest > _bucketCount)
+		{
+			_rejected.incrementAndGet();
+			return false;
+		}
+
+		long oldest = advanceTo(number) - _bucketCount + 1;
+		if (number < oldest)
+		{
+			_rejected.incrementAndGet();
+			return false;
+		}
+
+		Stripe stripe = _stripes[stripeIndex()];
+		synchronized (stripe)
+		{
+			Bucket bucket = stripe.buckets[(int)Math.floorMod(number, (long)_bucketCount)];
+			if (bucket.number != number)
+			{
+				// the window has moved past this spot while it waited for the lock
+				if (bucket.number > number)
+				{
+					_rejected.incrementAndGet();
+					return false;
+				}
+
+				clear(bucket);
+				bucket.number = number;
+			}
+
+			offer(bucket.longest[band], _topK, distance, id);
+
+			if (bucket.spots == bucket.squares.length)
+				bucket.squares = Arrays.copyOf(bucket.squares, bucket.spots * 2);
+			bucket.squares[bucket.spots++] = square;
+
+			// under the lock, so clear() never takes off a spot before it was counted
+			_squareCounts.incrementAndGet(square);
+			_spots.incrementAndGet();
+		}
+
+		return true;
+	}
+
+	//
+	// the newest bucket number after number was seen
+	//
+	private long advanceTo(long number)
+	{
+		while (true)
+		{
+			long newest = _newest.get();
+			if (number <= newest)
+				return newest;
+			if (_newest.compareAndSet(newest, number))
+				return number;
+		}
+	}
+
+	//
+	// clears the buckets that have left the window, so the square counts are those of the window.
+	// returns the number of the oldest bucket in the window
+	//
+	private long expire()
+	{
+		long newest = _newest.get();
+		if (newest == EMPTY)
+			return EMPTY;
+
+		long oldest = newest - _bucketCount + 1;
+		for (Stripe stripe : _stripes)
+		{
+			synchronized (stripe)
+			{
+				for (Bucket bucket : stripe.buckets)
+				{
+					if (bucket.number != EMPTY && bucket.number < oldest)
+					{
+						clear(bucket);
+						bucket.number = EMPTY;
+					}
+				}
+			}
+		}
+		return oldest;
+	}
+
+	//
+	// takes the spots of the bucket off the square counts and empties it, called with the lock of its stripe
+	//
+	private void clear(Bucket bucket)
+	{
+		for (int i = 0; i < bucket.spots; i++)
+			_squareCounts.decrementAndGet(bucket.squares[i]);
+		_spots.addAndGet(-bucket.spots);
+		bucket.spots = 0;
+
+		for (DistanceHeap longest : bucket.longest)
+			longest.clear();
+	}
+
+	private int stripeIndex()
+	{
+		// the same stripe for all the spots of a thread
+		long id = Thread.currentThread().getId();
+		return (int)((id * 0x9E3779B97F4A7C15L) >>> 40) & (_stripes.length - 1);
+	}
+
+	private void checkBand(int band)
+	{
+		if (band < 0 || band >= _bands)
+			throw new IndexOutOfBoundsException("band " + band + " is not between 0 and " + (_bands - 1));
+	}
+
+	//
+	// keeps the largest keys in a heap of up to capacity entries
+	//
+	private static void offer(DistanceHeap heap, int capacity, double key, long value)
+	{
+		if (heap.size() < capacity)
+		{
+			heap.push(key, value);
+		}
+		else if (key > heap.peekKey())
+		{
+			heap.pop();
+			heap.push(key, value);
+		}
+	}
+
+	//
+	// empties the heap in keys/values, largest first. returns the number of entries
+	//
+	private static int drain(DistanceHeap heap, double[] keys, long[] values)
+	{
+		int count = heap.size();
+		for (int i = count - 1; i >= 0; i--)
+		{
+			keys[i] = heap.peekKey();
+			values[i] = heap.peekValue();
+			heap.pop();
+		}
+		return count;
+	}
+
+}